@@ -1,13 +1,36 @@
 package com.aisplendor;
 
+import com.aisplendor.config.EventLogConfig;
 import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.service.BinaryEventLog;
+import com.aisplendor.service.GameLogMigrator;
+import com.aisplendor.service.MatchWorker;
 
+import java.io.IOException;
 import java.nio.file.Path;
 
 public class App {
+    public static final String WORKER_OPTION = "--worker";
+
     public static void main(String[] args) {
         if (args.length >= 2 && "--resume".equals(args[0])) {
             GameSimulator.resumeGame(Path.of(args[1]));
+        } else if (args.length >= 2 && "--migrate-logs".equals(args[0])) {
+            // Log file or directory, optionally followed by the keyframe interval (1 = full states)
+            int keyframeInterval = args.length >= 3
+                    ? Integer.parseInt(args[2])
+                    : EventLogConfig.fromEnvironment().keyframeInterval();
+            GameLogMigrator.migrateLogs(Path.of(args[1]), keyframeInterval);
+        } else if (args.length >= 3 && "--convert-log".equals(args[0])) {
+            // NDJSON -> binary or binary -> NDJSON, depending on the source format
+            try {
+                BinaryEventLog.convert(Path.of(args[1]), Path.of(args[2]));
+            } catch (IOException e) {
+                System.err.println("Log conversion failed: " + e.getMessage());
+            }
+        } else if (args.length >= 2 && WORKER_OPTION.equals(args[0])) {
+            // Coordinator address, optionally followed by the worker's name
+            System.exit(MatchWorker.run(args[1], args.length >= 3 ? args[2] : null));
         } else if (args.length >= 1 && !args[0].startsWith("--")) {
             // Properties file path provided as argument
             GameSimulator.initializeGame(Path.of(args[0]));
@@ -0,0 +1,85 @@
+package com.aisplendor.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for the LLM record/replay cassette.
+ * The cassette is a process-wide setting, read from environment variables:
+ *
+ * OPENROUTER_CASSETTE=off|record|replay
+ * OPENROUTER_CASSETTE_PATH=cassettes/openrouter.cassette
+ * OPENROUTER_CASSETTE_LATENCY=1.0 (replay only: multiplier for the recorded latency, 0 = no delay)
+ *
+ * @param mode         Whether responses are passed through, recorded or replayed
+ * @param path         Cassette file location
+ * @param latencyScale Multiplier applied to recorded latencies when replaying
+ */
+public record CassetteConfig(Mode mode, Path path, double latencyScale) {
+
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(CassetteConfig.class);
+
+    public static final String DEFAULT_PATH = "cassettes/openrouter.cassette";
+
+    public CassetteConfig {
+        if (mode == null) {
+            mode = Mode.OFF;
+        }
+        if (path == null) {
+            path = Path.of(DEFAULT_PATH);
+        }
+        latencyScale = Math.max(0.0, latencyScale);
+    }
+
+    public static CassetteConfig disabled() {
+        return new CassetteConfig(Mode.OFF, null, 0.0);
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * Reads the cassette configuration from the environment.
+     *
+     * @return CassetteConfig, disabled when OPENROUTER_CASSETTE is unset, "off" or not a mode
+     */
+    public static CassetteConfig fromEnvironment() {
+        return parse(System.getenv("OPENROUTER_CASSETTE"), System.getenv("OPENROUTER_CASSETTE_PATH"),
+                System.getenv("OPENROUTER_CASSETTE_LATENCY"));
+    }
+
+    /**
+     * Parses the values of the cassette variables. An unknown mode disables the cassette and an
+     * unreadable latency scale replays at the recorded latency, each with a warning, so a typo
+     * does not fail every match.
+     */
+    public static CassetteConfig parse(String mode, String path, String latency) {
+        if (mode == null || mode.isBlank() || mode.trim().equalsIgnoreCase("off")) {
+            return disabled();
+        }
+        Mode parsedMode;
+        try {
+            parsedMode = Mode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring OPENROUTER_CASSETTE={}, expected off, record or replay", mode);
+            return disabled();
+        }
+        double latencyScale = 1.0;
+        if (latency != null && !latency.isBlank()) {
+            try {
+                latencyScale = Double.parseDouble(latency.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring OPENROUTER_CASSETTE_LATENCY={}, using 1.0", latency);
+            }
+        }
+        return new CassetteConfig(parsedMode, path != null && !path.isBlank() ? Path.of(path.trim()) : null,
+                latencyScale);
+    }
+}
@@ -0,0 +1,74 @@
+package com.aisplendor.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the process-wide per-model circuit breakers.
+ * Read from environment variables, as breakers are shared by all matches:
+ *
+ * OPENROUTER_BREAKER_FAILURE_RATE=0.5   (failure or slow-call rate that opens the circuit)
+ * OPENROUTER_BREAKER_SLOW_CALL_MS=0     (calls slower than this count against the model, 0 = off;
+ *                                        reasoning calls can legitimately take minutes)
+ * OPENROUTER_BREAKER_WINDOW=20          (number of recent calls considered)
+ * OPENROUTER_BREAKER_MIN_CALLS=5
+ * OPENROUTER_BREAKER_OPEN_MS=30000      (time before a half-open probe is allowed)
+ * OPENROUTER_BREAKER_MAX_PAUSE_MS=600000
+ * OPENROUTER_FAILOVER=anthropic/claude-opus-4.8=anthropic/claude-sonnet-4.5,google/gemini-3.5-flash=google/gemini-3-flash-preview
+ *
+ * @param failureRateThreshold Failure (or slow-call) rate in the window that opens the circuit
+ * @param slowCallMs           Calls slower than this count as slow, 0 to only count errors
+ * @param windowSize           Number of most recent calls in the sliding window
+ * @param minimumCalls         Calls required in the window before the rate is evaluated
+ * @param openDurationMs       How long the circuit stays open before a probe is let through
+ * @param maxPauseMs           Longest a caller waits for an open circuit before giving up
+ * @param failover             Alternate model per model, used while the primary circuit is open
+ */
+public record CircuitBreakerConfig(double failureRateThreshold, long slowCallMs, int windowSize,
+        int minimumCalls, long openDurationMs, long maxPauseMs, Map<String, String> failover) {
+
+    public CircuitBreakerConfig {
+        slowCallMs = Math.max(0, slowCallMs);
+        windowSize = Math.max(1, windowSize);
+        minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        failover = failover != null ? Map.copyOf(failover) : Map.of();
+    }
+
+    public static CircuitBreakerConfig defaults() {
+        return new CircuitBreakerConfig(0.5, 0, 20, 5, 30_000, 10 * 60 * 1000, Map.of());
+    }
+
+    public static CircuitBreakerConfig fromEnvironment() {
+        CircuitBreakerConfig d = defaults();
+        return new CircuitBreakerConfig(
+                Double.parseDouble(env("OPENROUTER_BREAKER_FAILURE_RATE", String.valueOf(d.failureRateThreshold()))),
+                Long.parseLong(env("OPENROUTER_BREAKER_SLOW_CALL_MS", String.valueOf(d.slowCallMs()))),
+                Integer.parseInt(env("OPENROUTER_BREAKER_WINDOW", String.valueOf(d.windowSize()))),
+                Integer.parseInt(env("OPENROUTER_BREAKER_MIN_CALLS", String.valueOf(d.minimumCalls()))),
+                Long.parseLong(env("OPENROUTER_BREAKER_OPEN_MS", String.valueOf(d.openDurationMs()))),
+                Long.parseLong(env("OPENROUTER_BREAKER_MAX_PAUSE_MS", String.valueOf(d.maxPauseMs()))),
+                parseFailover(System.getenv("OPENROUTER_FAILOVER")));
+    }
+
+    /**
+     * Parses "primary=alternate,primary2=alternate2".
+     */
+    public static Map<String, String> parseFailover(String value) {
+        Map<String, String> routes = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return routes;
+        }
+        for (String pair : value.split(",")) {
+            String[] parts = pair.split("=", 2);
+            if (parts.length == 2 && !parts[0].isBlank() && !parts[1].isBlank()) {
+                routes.put(parts[0].trim(), parts[1].trim());
+            }
+        }
+        return routes;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,26 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for multi-turn conversation prompting.
+ * When enabled, each player keeps its own message history and every new turn
+ * only appends a compact diff of what changed since that player last moved.
+ * The history is reset with a full state resync every {@code resyncInterval} turns.
+ *
+ * @param enabled        Whether conversation mode is used instead of single-turn prompts
+ * @param resyncInterval Number of turns after which the history is dropped and the full state is sent again
+ */
+public record ConversationConfig(boolean enabled, int resyncInterval) {
+
+    public ConversationConfig {
+        if (resyncInterval < 1) {
+            resyncInterval = 1;
+        }
+    }
+
+    /**
+     * Default configuration: single-turn prompting with the full state every turn.
+     */
+    public static ConversationConfig disabled() {
+        return new ConversationConfig(false, 1);
+    }
+}
@@ -17,6 +17,7 @@ import java.util.List;
 public class DynamicReasoningConfig {
 
     private final boolean dynamic;
+    private final String phases;
     private final List<PhaseRule> rules;
     private final ReasoningConfig staticConfig;
 
@@ -38,6 +39,7 @@ public class DynamicReasoningConfig {
      */
     public DynamicReasoningConfig(boolean dynamic, String phasesString, ReasoningConfig staticConfig) {
         this.dynamic = dynamic;
+        this.phases = phasesString;
         this.staticConfig = staticConfig;
         this.rules = dynamic ? parsePhases(phasesString) : List.of();
     }
@@ -56,6 +58,13 @@ public class DynamicReasoningConfig {
         return dynamic;
     }
 
+    /**
+     * Returns the phase rules string this config was created from (may be null).
+     */
+    public String getPhases() {
+        return phases;
+    }
+
     /**
      * Returns the static reasoning config (used when dynamic is disabled).
      */
@@ -0,0 +1,42 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for the in-process game event bus that feeds WebSocket sessions, the log
+ * catalog and other subscribers. Read from environment variables, as it applies to every match:
+ *
+ * EVENT_BUS_RING_SIZE=256          (events kept per game for subscribers, rounded up to a power of two)
+ * EVENT_BUS_OVERFLOW=drop_oldest   (drop_oldest or disconnect: what happens to a subscriber that
+ *                                   falls a whole ring behind)
+ *
+ * @param ringSize       Capacity of each game's ring buffer
+ * @param overflowPolicy Default policy for subscribers overrun by the publisher
+ */
+public record EventBusConfig(int ringSize, OverflowPolicy overflowPolicy) {
+
+    public static final int DEFAULT_RING_SIZE = 256;
+
+    public enum OverflowPolicy {
+        /** The subscriber skips ahead to the oldest event still in the ring; skipped events are counted. */
+        DROP_OLDEST,
+        /** The subscriber stops receiving the game's events. */
+        DISCONNECT
+    }
+
+    public EventBusConfig {
+        ringSize = Integer.highestOneBit(Math.max(2, ringSize) - 1) << 1;
+        overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.DROP_OLDEST;
+    }
+
+    public static EventBusConfig defaults() {
+        return new EventBusConfig(DEFAULT_RING_SIZE, OverflowPolicy.DROP_OLDEST);
+    }
+
+    public static EventBusConfig fromEnvironment() {
+        String ringSize = System.getenv("EVENT_BUS_RING_SIZE");
+        String overflow = System.getenv("EVENT_BUS_OVERFLOW");
+        return new EventBusConfig(
+                ringSize != null && !ringSize.isBlank() ? Integer.parseInt(ringSize.trim()) : DEFAULT_RING_SIZE,
+                overflow != null && !overflow.isBlank() ? OverflowPolicy.valueOf(overflow.trim().toUpperCase())
+                        : OverflowPolicy.DROP_OLDEST);
+    }
+}
@@ -0,0 +1,89 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for the game event logs written to logs/.
+ * Read from environment variables, as it applies to every match of the process:
+ *
+ * GAME_LOG_KEYFRAME_INTERVAL=10    (write a full state every N turns and state deltas in between,
+ *                                   0 or 1 = full state every turn)
+ * GAME_LOG_FLUSH=event             (event, turn or interval: when buffered lines reach the OS)
+ * GAME_LOG_FLUSH_INTERVAL_MS=200   (flush period for the interval policy)
+ * GAME_LOG_FSYNC=false             (also force flushed data to the storage device)
+ * GAME_LOG_QUEUE_CAPACITY=65536    (events buffered across all logs before producers block)
+ * GAME_LOG_FORMAT=ndjson           (ndjson or binary)
+ * GAME_LOG_COMPRESS=false          (gzip new logs: {gameId}.json.gz / {gameId}.bin.gz)
+ *
+ * @param keyframeInterval Number of TurnStarted lines per full-state keyframe
+ * @param flushPolicy      When written events are flushed
+ * @param flushIntervalMs  Flush period for {@link FlushPolicy#INTERVAL}
+ * @param fsync            Whether every flush is followed by an fsync
+ * @param queueCapacity    Capacity of the shared background writer queue
+ * @param format           On-disk encoding of new logs
+ * @param compress         Whether new logs are gzip-compressed
+ */
+public record EventLogConfig(int keyframeInterval, FlushPolicy flushPolicy, long flushIntervalMs,
+        boolean fsync, int queueCapacity, Format format, boolean compress) {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 10;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 200;
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    public enum FlushPolicy {
+        /** Flush after every batch of events picked up by the writer. */
+        EVENT,
+        /** Flush when a turn starts or the game ends. */
+        TURN,
+        /** Flush every flushIntervalMs. */
+        INTERVAL
+    }
+
+    public enum Format {
+        /** One JSON object per line (logs/{gameId}.json). */
+        NDJSON,
+        /** Length-prefixed dictionary-encoded records (logs/{gameId}.bin). */
+        BINARY
+    }
+
+    public EventLogConfig {
+        keyframeInterval = Math.max(1, keyframeInterval);
+        flushPolicy = flushPolicy != null ? flushPolicy : FlushPolicy.EVENT;
+        flushIntervalMs = Math.max(1, flushIntervalMs);
+        queueCapacity = Math.max(1, queueCapacity);
+        format = format != null ? format : Format.NDJSON;
+    }
+
+    public static EventLogConfig defaults() {
+        return new EventLogConfig(DEFAULT_KEYFRAME_INTERVAL, FlushPolicy.EVENT, DEFAULT_FLUSH_INTERVAL_MS, false,
+                DEFAULT_QUEUE_CAPACITY, Format.NDJSON, false);
+    }
+
+    public static EventLogConfig fromEnvironment() {
+        String interval = System.getenv("GAME_LOG_KEYFRAME_INTERVAL");
+        String flush = System.getenv("GAME_LOG_FLUSH");
+        String flushInterval = System.getenv("GAME_LOG_FLUSH_INTERVAL_MS");
+        String fsync = System.getenv("GAME_LOG_FSYNC");
+        String capacity = System.getenv("GAME_LOG_QUEUE_CAPACITY");
+        String format = System.getenv("GAME_LOG_FORMAT");
+        String compress = System.getenv("GAME_LOG_COMPRESS");
+        return new EventLogConfig(
+                interval != null && !interval.isBlank() ? Integer.parseInt(interval.trim()) : DEFAULT_KEYFRAME_INTERVAL,
+                flush != null && !flush.isBlank() ? FlushPolicy.valueOf(flush.trim().toUpperCase()) : FlushPolicy.EVENT,
+                flushInterval != null && !flushInterval.isBlank() ? Long.parseLong(flushInterval.trim())
+                        : DEFAULT_FLUSH_INTERVAL_MS,
+                Boolean.parseBoolean(fsync),
+                capacity != null && !capacity.isBlank() ? Integer.parseInt(capacity.trim()) : DEFAULT_QUEUE_CAPACITY,
+                format != null && !format.isBlank() ? Format.valueOf(format.trim().toUpperCase()) : Format.NDJSON,
+                Boolean.parseBoolean(compress));
+    }
+
+    public boolean isDeltaEncoded() {
+        return keyframeInterval > 1;
+    }
+
+    /**
+     * @return Log file name suffix for this format and compression, e.g. ".json.gz"
+     */
+    public String fileExtension() {
+        return (format == Format.BINARY ? ".bin" : ".json") + (compress ? ".gz" : "");
+    }
+}
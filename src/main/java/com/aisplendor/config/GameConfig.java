@@ -69,6 +69,42 @@ public class GameConfig {
         return properties.getProperty("game.prompt-caching", "auto").trim().toLowerCase();
     }
 
+    /**
+     * Get the conversation (multi-turn delta prompting) configuration.
+     * Reads from game.conversation-mode and game.conversation-resync.
+     *
+     * Example properties:
+     * game.conversation-mode=true
+     * game.conversation-resync=6
+     *
+     * @return ConversationConfig, disabled by default
+     */
+    public ConversationConfig getConversationConfig() {
+        boolean enabled = Boolean.parseBoolean(properties.getProperty("game.conversation-mode", "false"));
+        if (!enabled) {
+            return ConversationConfig.disabled();
+        }
+        int resync = Integer.parseInt(properties.getProperty("game.conversation-resync", "6").trim());
+        return new ConversationConfig(true, resync);
+    }
+
+    /**
+     * Get the random seed used to deal the initial board.
+     * A fixed seed reproduces the same deal, so cassette replays hit the same requests.
+     *
+     * Example properties:
+     * game.seed=42
+     *
+     * @return The seed, or null for a random deal (default)
+     */
+    public Long getSeed() {
+        String value = properties.getProperty("game.seed");
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return Long.parseLong(value.trim());
+    }
+
     /**
      * Get the reasoning memory window size for a specific player.
      * This controls how many previous reasoning summaries are included in the prompt.
@@ -0,0 +1,49 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for recovering matches interrupted by a crash or restart, applied once on startup.
+ * Read from environment variables, as it applies to the whole process:
+ *
+ * MATCH_RECOVERY=list                 (off, list or resume)
+ * MATCH_RECOVERY_MAX_AGE_HOURS=24     (only logs written to within this window are resumed, 0 = any age)
+ * MATCH_RECOVERY_MAX_CONCURRENT=4     (recovered matches played at the same time, the rest queue)
+ *
+ * @param policy        What to do with interrupted matches
+ * @param maxAgeHours   Age limit for automatic resume, or 0 for none
+ * @param maxConcurrent Admission limit for recovered matches
+ */
+public record MatchRecoveryConfig(Policy policy, int maxAgeHours, int maxConcurrent) {
+
+    public static final int DEFAULT_MAX_AGE_HOURS = 24;
+    public static final int DEFAULT_MAX_CONCURRENT = 4;
+
+    public enum Policy {
+        /** Interrupted matches are left alone. */
+        OFF,
+        /** Interrupted matches are listed as INTERRUPTED and can be resumed by hand. */
+        LIST,
+        /** Recent interrupted matches are resumed automatically; older ones are listed. */
+        RESUME
+    }
+
+    public MatchRecoveryConfig {
+        policy = policy != null ? policy : Policy.LIST;
+        maxAgeHours = Math.max(0, maxAgeHours);
+        maxConcurrent = Math.max(1, maxConcurrent);
+    }
+
+    public static MatchRecoveryConfig defaults() {
+        return new MatchRecoveryConfig(Policy.LIST, DEFAULT_MAX_AGE_HOURS, DEFAULT_MAX_CONCURRENT);
+    }
+
+    public static MatchRecoveryConfig fromEnvironment() {
+        String policy = System.getenv("MATCH_RECOVERY");
+        String maxAge = System.getenv("MATCH_RECOVERY_MAX_AGE_HOURS");
+        String maxConcurrent = System.getenv("MATCH_RECOVERY_MAX_CONCURRENT");
+        return new MatchRecoveryConfig(
+                policy != null && !policy.isBlank() ? Policy.valueOf(policy.trim().toUpperCase()) : Policy.LIST,
+                maxAge != null && !maxAge.isBlank() ? Integer.parseInt(maxAge.trim()) : DEFAULT_MAX_AGE_HOURS,
+                maxConcurrent != null && !maxConcurrent.isBlank() ? Integer.parseInt(maxConcurrent.trim())
+                        : DEFAULT_MAX_CONCURRENT);
+    }
+}
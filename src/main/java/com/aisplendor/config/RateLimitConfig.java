@@ -0,0 +1,44 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for the process-wide per-model request rate limiter.
+ * Read from environment variables, as the limiter is shared by all matches of the process:
+ *
+ * OPENROUTER_RATE_LIMIT_RPM=60  (requests per minute per model and API key, 0 = unlimited)
+ * OPENROUTER_RATE_LIMIT_BURST=5 (requests allowed back-to-back before pacing kicks in)
+ *
+ * Even when unlimited, 429 responses and rate-limit headers still throttle requests.
+ *
+ * Limiters are not shared between processes: worker processes started by the server each get
+ * an equal {@link #share} of the server's budget.
+ *
+ * @param requestsPerMinute Steady-state request rate, or 0 for no fixed limit
+ * @param burst             Token bucket capacity
+ */
+public record RateLimitConfig(double requestsPerMinute, int burst) {
+
+    public RateLimitConfig {
+        requestsPerMinute = Math.max(0.0, requestsPerMinute);
+        burst = Math.max(1, burst);
+    }
+
+    public static RateLimitConfig unlimited() {
+        return new RateLimitConfig(0.0, 1);
+    }
+
+    /**
+     * @return The budget of one of several processes that split this one equally
+     */
+    public RateLimitConfig share(int processes) {
+        int parts = Math.max(1, processes);
+        return new RateLimitConfig(requestsPerMinute / parts, Math.max(1, burst / parts));
+    }
+
+    public static RateLimitConfig fromEnvironment() {
+        String rpm = System.getenv("OPENROUTER_RATE_LIMIT_RPM");
+        String burst = System.getenv("OPENROUTER_RATE_LIMIT_BURST");
+        return new RateLimitConfig(
+                rpm != null && !rpm.isBlank() ? Double.parseDouble(rpm.trim()) : 0.0,
+                burst != null && !burst.isBlank() ? Integer.parseInt(burst.trim()) : 5);
+    }
+}
@@ -0,0 +1,36 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for streaming LLM answers to live spectators as they are generated. Read from
+ * environment variables, as it applies to every match:
+ *
+ * REASONING_STREAM_INTERVAL_MS=100   (at most one chunk per player per interval, 0 = no streaming)
+ *
+ * @param intervalMs Minimum time between two published chunks of a player's answer
+ */
+public record ReasoningStreamConfig(long intervalMs) {
+
+    public static final long DEFAULT_INTERVAL_MS = 100;
+
+    public ReasoningStreamConfig {
+        intervalMs = Math.max(0, intervalMs);
+    }
+
+    public boolean isEnabled() {
+        return intervalMs > 0;
+    }
+
+    public static ReasoningStreamConfig defaults() {
+        return new ReasoningStreamConfig(DEFAULT_INTERVAL_MS);
+    }
+
+    public static ReasoningStreamConfig disabled() {
+        return new ReasoningStreamConfig(0);
+    }
+
+    public static ReasoningStreamConfig fromEnvironment() {
+        String interval = System.getenv("REASONING_STREAM_INTERVAL_MS");
+        return new ReasoningStreamConfig(
+                interval != null && !interval.isBlank() ? Long.parseLong(interval.trim()) : DEFAULT_INTERVAL_MS);
+    }
+}
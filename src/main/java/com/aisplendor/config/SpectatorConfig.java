@@ -0,0 +1,84 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for sending live events to WebSocket and Server-Sent Events spectators.
+ * Read from environment variables, as it applies to every session:
+ *
+ * WS_SEND_BUFFER_BYTES=4194304   (events queued per session before its overflow policy applies)
+ * WS_SEND_TIME_LIMIT_MS=10000    (a session whose current send takes longer is closed)
+ * WS_OVERFLOW=coalesce           (coalesce, drop_reasoning or disconnect; sessions may choose
+ *                                 their own with ?overflow= on the WebSocket URL)
+ * WS_TAIL_TURNS=20               (turns of each live game kept in memory for late joiners)
+ * WS_DELTA_KEYFRAME_INTERVAL=10  (turns per full state sent to sessions of the binary delta subprotocol)
+ * SSE_HEARTBEAT_MS=15000         (idle time before a heartbeat comment on Server-Sent Events streams)
+ *
+ * @param bufferSizeLimit Bytes of queued events per session
+ * @param sendTimeLimitMs Longest a single send may block
+ * @param overflowPolicy  Default policy for sessions whose queue is full
+ * @param tailTurns       Turns in the snapshot sent to new subscribers of a live game
+ * @param deltaKeyframeInterval TurnStarted events per full state on the binary delta subprotocol
+ * @param heartbeatMs     Longest an event stream stays silent
+ */
+public record SpectatorConfig(long bufferSizeLimit, long sendTimeLimitMs, OverflowPolicy overflowPolicy,
+        int tailTurns, int deltaKeyframeInterval, long heartbeatMs) {
+
+    public static final long DEFAULT_BUFFER_SIZE_LIMIT = 4L * 1024 * 1024;
+    public static final long DEFAULT_SEND_TIME_LIMIT_MS = 10_000;
+    public static final int DEFAULT_TAIL_TURNS = 20;
+    public static final int DEFAULT_DELTA_KEYFRAME_INTERVAL = 10;
+    public static final long DEFAULT_HEARTBEAT_MS = 15_000;
+
+    public enum OverflowPolicy {
+        /** Queued reasoning is dropped and queued turns collapse into the latest state. */
+        COALESCE,
+        /** Queued reasoning and retries are dropped; the session is closed if that is not enough. */
+        DROP_REASONING,
+        /** The session is closed. */
+        DISCONNECT;
+
+        /**
+         * @return The policy named by a query parameter, or null if the name is unknown
+         */
+        public static OverflowPolicy parse(String name) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name.trim())) {
+                    return policy;
+                }
+            }
+            return null;
+        }
+    }
+
+    public SpectatorConfig {
+        bufferSizeLimit = Math.max(1, bufferSizeLimit);
+        sendTimeLimitMs = Math.max(1, sendTimeLimitMs);
+        overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.COALESCE;
+        tailTurns = Math.max(1, tailTurns);
+        deltaKeyframeInterval = Math.max(1, deltaKeyframeInterval);
+        heartbeatMs = Math.max(1, heartbeatMs);
+    }
+
+    public static SpectatorConfig defaults() {
+        return new SpectatorConfig(DEFAULT_BUFFER_SIZE_LIMIT, DEFAULT_SEND_TIME_LIMIT_MS, OverflowPolicy.COALESCE,
+                DEFAULT_TAIL_TURNS, DEFAULT_DELTA_KEYFRAME_INTERVAL, DEFAULT_HEARTBEAT_MS);
+    }
+
+    public static SpectatorConfig fromEnvironment() {
+        String bufferSize = System.getenv("WS_SEND_BUFFER_BYTES");
+        String sendTime = System.getenv("WS_SEND_TIME_LIMIT_MS");
+        String overflow = System.getenv("WS_OVERFLOW");
+        String tailTurns = System.getenv("WS_TAIL_TURNS");
+        String keyframeInterval = System.getenv("WS_DELTA_KEYFRAME_INTERVAL");
+        String heartbeat = System.getenv("SSE_HEARTBEAT_MS");
+        return new SpectatorConfig(
+                bufferSize != null && !bufferSize.isBlank() ? Long.parseLong(bufferSize.trim())
+                        : DEFAULT_BUFFER_SIZE_LIMIT,
+                sendTime != null && !sendTime.isBlank() ? Long.parseLong(sendTime.trim()) : DEFAULT_SEND_TIME_LIMIT_MS,
+                overflow != null && !overflow.isBlank() ? OverflowPolicy.valueOf(overflow.trim().toUpperCase())
+                        : OverflowPolicy.COALESCE,
+                tailTurns != null && !tailTurns.isBlank() ? Integer.parseInt(tailTurns.trim()) : DEFAULT_TAIL_TURNS,
+                keyframeInterval != null && !keyframeInterval.isBlank() ? Integer.parseInt(keyframeInterval.trim())
+                        : DEFAULT_DELTA_KEYFRAME_INTERVAL,
+                heartbeat != null && !heartbeat.isBlank() ? Long.parseLong(heartbeat.trim()) : DEFAULT_HEARTBEAT_MS);
+    }
+}
@@ -1,6 +1,7 @@
 package com.aisplendor.config;
 
 import com.aisplendor.service.GameWebSocketHandler;
+import com.aisplendor.service.LobbyWebSocketHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
@@ -12,15 +13,19 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final GameWebSocketHandler gameWebSocketHandler;
+    private final LobbyWebSocketHandler lobbyWebSocketHandler;
 
     @Autowired
-    public WebSocketConfig(GameWebSocketHandler gameWebSocketHandler) {
+    public WebSocketConfig(GameWebSocketHandler gameWebSocketHandler, LobbyWebSocketHandler lobbyWebSocketHandler) {
         this.gameWebSocketHandler = gameWebSocketHandler;
+        this.lobbyWebSocketHandler = lobbyWebSocketHandler;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(gameWebSocketHandler, "/ws/game/*")
+        registry.addHandler(gameWebSocketHandler, "/ws/game/*", "/ws/dashboard")
+                .setAllowedOrigins("*");
+        registry.addHandler(lobbyWebSocketHandler, "/ws/lobby")
                 .setAllowedOrigins("*");
     }
 }
@@ -0,0 +1,78 @@
+package com.aisplendor.config;
+
+/**
+ * Configuration for playing matches in separate worker processes instead of the server JVM.
+ * Read from environment variables, as it applies to the whole process:
+ *
+ * MATCH_WORKERS=0             (worker processes started and supervised by the server, 0 = none)
+ * MATCH_WORKER_LISTEN=unix    (unix = Unix domain socket in the temp directory, or [host:]port for TCP;
+ *                              a port alone listens on the loopback interface, 0.0.0.0:7070 accepts
+ *                              workers started on other machines)
+ * MATCH_WORKER_SLOTS=4        (matches a worker plays at the same time; read by the worker)
+ * MATCH_WORKER_HEAP=512m      (maximum heap of started workers, empty = JVM default)
+ * MATCH_WORKER_MAX_RESUMES=3  (times a match is resumed after losing its worker before it fails)
+ * MATCH_WORKER_SECRET=        (shared secret workers present when connecting; required for TCP,
+ *                              generated for the Unix socket and the started workers if empty)
+ *
+ * Matches run in the server JVM unless workers are started or a TCP address is given. A TCP
+ * address with MATCH_WORKERS=0 makes the server a coordinator of hand-started workers only.
+ *
+ * @param workers    Worker processes to start
+ * @param listen     "unix" or the host:port the coordinator listens on
+ * @param slots      Concurrent matches per worker
+ * @param heap       -Xmx value for started workers, null for the JVM default
+ * @param maxResumes Resumes of a match whose worker was lost
+ * @param secret     Shared secret of the coordinator and its workers, null if not configured
+ */
+public record WorkerConfig(int workers, String listen, int slots, String heap, int maxResumes, String secret) {
+
+    public static final String UNIX = "unix";
+    public static final int DEFAULT_SLOTS = 4;
+    public static final String DEFAULT_HEAP = "512m";
+    public static final int DEFAULT_MAX_RESUMES = 3;
+
+    public WorkerConfig {
+        workers = Math.max(0, workers);
+        listen = listen != null && !listen.isBlank() ? listen.trim() : UNIX;
+        slots = Math.max(1, slots);
+        heap = heap != null && !heap.isBlank() ? heap.trim() : null;
+        maxResumes = Math.max(0, maxResumes);
+        secret = secret != null && !secret.isBlank() ? secret.trim() : null;
+    }
+
+    public WorkerConfig(int workers, String listen, int slots, String heap, int maxResumes) {
+        this(workers, listen, slots, heap, maxResumes, null);
+    }
+
+    /**
+     * Whether matches are sent to workers. A TCP address enables workers even with
+     * MATCH_WORKERS=0: the server then starts none and only coordinates workers started by hand,
+     * so matches wait until one connects.
+     */
+    public boolean isEnabled() {
+        return workers > 0 || !isUnixSocket();
+    }
+
+    public boolean isUnixSocket() {
+        return UNIX.equalsIgnoreCase(listen);
+    }
+
+    public static WorkerConfig disabled() {
+        return new WorkerConfig(0, UNIX, DEFAULT_SLOTS, DEFAULT_HEAP, DEFAULT_MAX_RESUMES);
+    }
+
+    public static WorkerConfig fromEnvironment() {
+        String workers = System.getenv("MATCH_WORKERS");
+        String slots = System.getenv("MATCH_WORKER_SLOTS");
+        String heap = System.getenv("MATCH_WORKER_HEAP");
+        String maxResumes = System.getenv("MATCH_WORKER_MAX_RESUMES");
+        return new WorkerConfig(
+                workers != null && !workers.isBlank() ? Integer.parseInt(workers.trim()) : 0,
+                System.getenv("MATCH_WORKER_LISTEN"),
+                slots != null && !slots.isBlank() ? Integer.parseInt(slots.trim()) : DEFAULT_SLOTS,
+                heap != null ? heap : DEFAULT_HEAP,
+                maxResumes != null && !maxResumes.isBlank() ? Integer.parseInt(maxResumes.trim())
+                        : DEFAULT_MAX_RESUMES,
+                System.getenv("MATCH_WORKER_SECRET"));
+    }
+}
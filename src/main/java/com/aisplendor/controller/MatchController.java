@@ -1,25 +1,55 @@
 package com.aisplendor.controller;
 
+import com.aisplendor.config.ConversationConfig;
 import com.aisplendor.config.DynamicReasoningConfig;
 import com.aisplendor.config.ReasoningConfig;
 import com.aisplendor.config.StageConfig;
 import com.aisplendor.model.dto.GameConfigRequest;
+import com.aisplendor.service.BinaryEventLog;
+import com.aisplendor.service.GameEventPublisher;
+import com.aisplendor.service.GameLogReader;
+import com.aisplendor.service.GameWebSocketHandler;
+import com.aisplendor.service.LogCatalog;
 import com.aisplendor.service.MatchManagerService;
+import com.aisplendor.service.ModelCircuitBreaker;
+import com.aisplendor.service.SpectatorSession;
+import com.aisplendor.service.SseSpectator;
+import com.aisplendor.service.TurnIndex;
 import com.aisplendor.service.MatchManagerService.MatchInfo;
+import com.aisplendor.util.SyncFlushGzipOutputStream;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -27,11 +57,31 @@ import java.util.Map;
 public class MatchController {
     private static final Logger logger = LoggerFactory.getLogger(MatchController.class);
 
+    // Tomcat request attributes for handing a file to the connector's sendfile
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
     private final MatchManagerService matchManagerService;
+    private final LogCatalog logCatalog;
+    private final GameEventPublisher eventPublisher;
+    private final GameWebSocketHandler webSocketHandler;
+    private final Path logsDir;
 
     @Autowired
-    public MatchController(MatchManagerService matchManagerService) {
+    public MatchController(MatchManagerService matchManagerService, LogCatalog logCatalog,
+            GameEventPublisher eventPublisher, GameWebSocketHandler webSocketHandler) {
+        this(matchManagerService, logCatalog, eventPublisher, webSocketHandler, Path.of("logs"));
+    }
+
+    MatchController(MatchManagerService matchManagerService, LogCatalog logCatalog,
+            GameEventPublisher eventPublisher, GameWebSocketHandler webSocketHandler, Path logsDir) {
         this.matchManagerService = matchManagerService;
+        this.logCatalog = logCatalog;
+        this.eventPublisher = eventPublisher;
+        this.webSocketHandler = webSocketHandler;
+        this.logsDir = logsDir;
     }
 
     @PostMapping("/matches/start")
@@ -63,6 +113,10 @@ public class MatchController {
                             request.isStageSwappedStartingPlayer())
                     : StageConfig.none();
 
+            ConversationConfig conversationConfig = request.isConversationMode()
+                    ? new ConversationConfig(true, request.getConversationResyncTurns())
+                    : ConversationConfig.disabled();
+
             String gameId = matchManagerService.startMatch(
                     request.getPlayer0Model(),
                     request.getPlayer1Model(),
@@ -79,7 +133,9 @@ public class MatchController {
                     request.getPlayer0InputTokenCost(),
                     request.getPlayer0OutputTokenCost(),
                     request.getPlayer1InputTokenCost(),
-                    request.getPlayer1OutputTokenCost()
+                    request.getPlayer1OutputTokenCost(),
+                    conversationConfig,
+                    request.getSeed()
             );
 
             return ResponseEntity.ok(Map.of("gameId", gameId));
@@ -121,27 +177,171 @@ public class MatchController {
         return ResponseEntity.ok(matchManagerService.getMatches());
     }
 
+    @GetMapping("/models/circuit-breakers")
+    public ResponseEntity<List<ModelCircuitBreaker.Status>> getCircuitBreakers() {
+        return ResponseEntity.ok(ModelCircuitBreaker.allStatuses());
+    }
+
+    /**
+     * Per-listener delivery statistics (sequence, lag, dropped events) of the live event streams.
+     */
+    @GetMapping("/events/stats")
+    public ResponseEntity<List<GameEventPublisher.DispatcherStats>> getEventStats() {
+        return ResponseEntity.ok(eventPublisher.stats());
+    }
+
+    /**
+     * Streams a game's events as Server-Sent Events, each with its position in the game's log as
+     * id. Live games start with their recent events, like a WebSocket snapshot; ended games are
+     * replayed from their log. A Last-Event-ID header (or ?lastEventId= for clients that cannot
+     * set headers) resumes after that event, and 204 tells a client that an ended game has
+     * nothing more, so it stops reconnecting.
+     */
+    @GetMapping(value = "/matches/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@PathVariable String gameId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        String resumeFrom = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        long lastEvent;
+        try {
+            lastEvent = resumeFrom != null && !resumeFrom.isBlank() ? Long.parseLong(resumeFrom.trim()) : -1;
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Log positions are ints
+        if (lastEvent >= Integer.MAX_VALUE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Path logPath = resolveLogPath(Path.of(gameId).getFileName().toString() + ".json");
+        // A match stays live for a moment after its GameEnded event; by then there is nothing left to follow
+        boolean live = matchManagerService.isLive(gameId) && !endsWithGameEnded(logPath);
+        if (!live && logPath == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseSpectator spectator = new SseSpectator(gameId, logPath != null ? logPath
+                : logsDir.resolve(gameId + ".json"), webSocketHandler.getConfig(), lastEvent);
+        if (live) {
+            webSocketHandler.follow(gameId, spectator);
+            if (logPath == null) {
+                logPath = resolveLogPath(Path.of(gameId).getFileName().toString() + ".json");
+            }
+            // The game may have ended and been dropped while the stream was being opened
+            if (endsWithGameEnded(logPath)) {
+                spectator.finish();
+            }
+        } else {
+            try (GameLogReader.EventSource rest = TurnIndex.load(logPath).openAt((int) (lastEvent + 1))) {
+                if (rest.next() == null) {
+                    spectator.discard();
+                    return ResponseEntity.noContent().build();
+                }
+            } catch (IOException | RuntimeException e) {
+                spectator.discard();
+                logger.error("Failed to open log of {} for streaming", gameId, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+            spectator.start(List.of(), true);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).header("X-Accel-Buffering", "no")
+                .body(spectator.getEmitter());
+    }
+
+    /**
+     * Send queue depth and overflow counters of every connected WebSocket and event stream spectator.
+     */
+    @GetMapping("/events/sessions")
+    public ResponseEntity<List<SpectatorSession.Stats>> getSpectatorSessions() {
+        return ResponseEntity.ok(webSocketHandler.getSessionStats());
+    }
+
     @GetMapping("/logs")
     public ResponseEntity<List<String>> getLogs() {
-        return ResponseEntity.ok(matchManagerService.getLogs());
+        return ResponseEntity.ok(logCatalog.fileNames());
     }
 
+    /**
+     * Paginated log metadata, newest first, e.g. /api/logs/catalog?model=gemini&status=FINISHED&page=0&size=50
+     */
+    @GetMapping("/logs/catalog")
+    public ResponseEntity<?> getLogCatalog(@RequestParam(required = false) String q,
+            @RequestParam(required = false) String model, @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "50") int size) {
+        LogCatalog.Status statusFilter = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                statusFilter = LogCatalog.Status.valueOf(status.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unknown status: " + status));
+            }
+        }
+        if (page < 0 || size < 1 || size > 1000) {
+            return ResponseEntity.badRequest().body(Map.of("error", "page must be >= 0 and size 1-1000"));
+        }
+        return ResponseEntity.ok(logCatalog.query(new LogCatalog.Query(q, model, statusFilter), page, size));
+    }
+
+    /**
+     * Serves a log file. Files sent as stored are streamed from disk (sendfile when the
+     * connector supports it) with byte ranges; every variant carries an ETag and Last-Modified
+     * for 304 revalidation, and logs of ended games are cached as immutable.
+     */
     @GetMapping("/logs/{filename:.+}")
-    public ResponseEntity<?> getLogContent(@PathVariable String filename) {
+    public ResponseEntity<?> getLogContent(@PathVariable String filename,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            ServletWebRequest webRequest, HttpServletResponse response) {
         try {
             // Strip any path traversal elements
             String cleanName = Path.of(filename).getFileName().toString();
-            Path logPath = Path.of("logs").resolve(cleanName);
-            
-            if (!Files.exists(logPath)) {
+            Path logPath = resolveLogPath(cleanName);
+            if (logPath == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            byte[] content = Files.readAllBytes(logPath);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + cleanName + "\"")
-                    .body(content);
+            boolean raw = "binary".equalsIgnoreCase(format) || "raw".equalsIgnoreCase(format);
+            boolean compressed = GameLogReader.isCompressed(logPath);
+            boolean binary = BinaryEventLog.isBinary(logPath);
+            // Read once: the ETag and the bytes served must describe the same file while it grows
+            BasicFileAttributes attributes = Files.readAttributes(logPath, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            long size = attributes.size();
+            CacheControl cacheControl = isEndedLog(logPath)
+                    ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                    : CacheControl.noCache();
+
+            if (!raw && compressed && !binary && acceptsGzip(acceptEncoding) && isFinishedLog(logPath)) {
+                // Finished gzip NDJSON: let the browser inflate it
+                sendLogFile(logPath, cleanName, "gzip", size, lastModified, etag(size, lastModified, "gz"),
+                        cacheControl, webRequest, response);
+                return null;
+            }
+
+            if (!raw && (binary || compressed)) {
+                // Convert while streaming, so the replay UI keeps receiving NDJSON
+                StreamingResponseBody body = out -> {
+                    ObjectMapper mapper = new ObjectMapper();
+                    try (GameLogReader.EventSource events = GameLogReader.openEvents(logPath)) {
+                        JsonNode node;
+                        while ((node = events.next()) != null) {
+                            out.write(mapper.writeValueAsBytes(node));
+                            out.write('\n');
+                        }
+                    }
+                };
+                // Spring answers conditional requests for these headers with 304
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + cleanName + "\"")
+                        .eTag(etag(size, lastModified, "ndjson"))
+                        .lastModified(lastModified)
+                        .cacheControl(cacheControl)
+                        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                        .body(body);
+            }
+
+            sendLogFile(logPath, logPath.getFileName().toString(), null, size, lastModified,
+                    etag(size, lastModified, "raw"), cacheControl, webRequest, response);
+            return null;
         } catch (IOException e) {
             logger.error("Failed to read log file content: " + filename, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -149,6 +349,198 @@ public class MatchController {
         }
     }
 
+    /**
+     * Writes a file as stored, honoring If-None-Match / If-Modified-Since and a single byte
+     * Range (If-Range aware). The bytes never pass through the heap: Tomcat sends the file
+     * itself when the connector supports sendfile, otherwise the file channel transfers
+     * straight into the response.
+     *
+     * @param contentEncoding Content-Encoding of the stored bytes, or null
+     * @param length          Size of the file when its ETag was made; bytes appended since are not sent
+     */
+    private void sendLogFile(Path logPath, String downloadName, String contentEncoding, long length,
+            long lastModified, String etag, CacheControl cacheControl, ServletWebRequest webRequest,
+            HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (contentEncoding != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        HttpServletRequest request = webRequest.getRequest();
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), etag,
+                lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Multipart responses are not worth it for logs; several ranges get the whole file
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range starts beyond the file");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + downloadName + "\"");
+        if (contentEncoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+        response.setContentLengthLong(end - start + 1);
+        if (length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, logPath.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    private static String etag(long size, long lastModified, String variant) {
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "-" + variant + "\"";
+    }
+
+    /**
+     * @return Whether a Range applies: no If-Range, or one naming the current ETag or a date
+     *         not older than the file
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                    >= lastModified / 1000 * 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Whether the game of the log has ended, so the file will not change anymore
+     */
+    private boolean isEndedLog(Path logPath) {
+        LogCatalog.Entry entry = logCatalog.get(logPath.getFileName().toString());
+        return entry != null && (entry.status() == LogCatalog.Status.FINISHED
+                || entry.status() == LogCatalog.Status.ABORTED);
+    }
+
+    /**
+     * Returns the full state at the start of turn {@code from} and the events of turns
+     * {@code from..to} (default: just {@code from}), read through the log's turn index.
+     */
+    @GetMapping("/logs/{filename:.+}/turns")
+    public ResponseEntity<?> getLogTurns(@PathVariable String filename, @RequestParam int from,
+            @RequestParam(required = false) Integer to) {
+        try {
+            String cleanName = Path.of(filename).getFileName().toString();
+            Path logPath = resolveLogPath(cleanName);
+            if (logPath == null) {
+                return ResponseEntity.notFound().build();
+            }
+            TurnIndex.TurnRange range = TurnIndex.load(logPath).readRange(from, to != null ? Math.max(from, to) : from);
+            if (range.state() == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Turn " + from + " not found in " + cleanName));
+            }
+            return ResponseEntity.ok(range);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to read turns {}..{} of {}", from, to, filename, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to read log turns: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Finds the log for a file name. The board requests {gameId}.json whatever format the
+     * game was written in, so the binary and compressed variants are tried as well.
+     */
+    private Path resolveLogPath(String cleanName) {
+        Path logPath = logsDir.resolve(cleanName);
+        if (Files.exists(logPath)) {
+            return logPath;
+        }
+        if (cleanName.endsWith(".json")) {
+            String gameId = cleanName.substring(0, cleanName.length() - 5);
+            for (String extension : List.of(".json.gz", BinaryEventLog.EXTENSION, BinaryEventLog.EXTENSION + ".gz")) {
+                Path candidate = logPath.resolveSibling(gameId + extension);
+                if (Files.exists(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * Reads the end of a log rather than asking the catalog, which learns of changes a moment later.
+     *
+     * @return Whether a log ends with its game's GameEnded event; false if there is no log or it
+     *         cannot be read
+     */
+    private boolean endsWithGameEnded(Path logPath) {
+        if (logPath == null) {
+            return false;
+        }
+        try {
+            return GameLogReader.summarize(logPath).isEnded();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Failed to read the end of log {}: {}", logPath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * A compressed log is complete once its gzip trailer is written. While a match runs (or
+     * after it was interrupted) the file ends with a sync marker and has to be inflated here.
+     */
+    private boolean isFinishedLog(Path logPath) throws IOException {
+        String name = logPath.getFileName().toString().replaceFirst("\\.gz$", "");
+        if (matchManagerService.isRunning(name.substring(0, name.lastIndexOf('.')))) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            ByteBuffer tail = ByteBuffer.allocate((int) Math.min(4, channel.size()));
+            channel.read(tail, channel.size() - tail.capacity());
+            return !SyncFlushGzipOutputStream.endsWithSyncMarker(tail.array());
+        }
+    }
+
     @PostMapping("/config/export")
     public ResponseEntity<byte[]> exportConfig(@RequestBody GameConfigRequest request) {
         StringBuilder sb = new StringBuilder();
@@ -197,6 +589,13 @@ public class MatchController {
         sb.append("game.semi-auto=false\n");
         sb.append("game.debug-mode=").append(request.isDebugMode()).append("\n");
         sb.append("game.prompt-caching=").append(request.getPromptCachingSetting()).append("\n");
+        if (request.getSeed() != null) {
+            sb.append("game.seed=").append(request.getSeed()).append("\n");
+        }
+        sb.append("game.conversation-mode=").append(request.isConversationMode()).append("\n");
+        if (request.isConversationMode()) {
+            sb.append("game.conversation-resync=").append(request.getConversationResyncTurns()).append("\n");
+        }
 
         if (request.isStageEnabled()) {
             sb.append("\n# Knockout Stage Configuration\n");
@@ -1,7 +1,9 @@
 package com.aisplendor.engine;
 
+import com.aisplendor.config.ConversationConfig;
 import com.aisplendor.config.DynamicReasoningConfig;
 import com.aisplendor.config.GameConfig;
+import com.aisplendor.config.ReasoningStreamConfig;
 import com.aisplendor.config.StageConfig;
 import com.aisplendor.model.*;
 import com.aisplendor.model.action.AgentResponse;
@@ -13,14 +15,19 @@ import com.aisplendor.model.event.*;
 import com.aisplendor.service.GameEventLogger;
 import com.aisplendor.service.GameEventPublisher;
 import com.aisplendor.service.GameLogReader;
+import com.aisplendor.service.MatchCheckpoint;
 import com.aisplendor.service.OpenRouterService;
 import com.aisplendor.exception.ApiException;
+import com.aisplendor.exception.CircuitOpenException;
+import com.aisplendor.exception.RateLimitedException;
 import com.aisplendor.service.PromptService;
+import com.aisplendor.service.ReasoningStream;
 import com.aisplendor.util.GameStateFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -46,6 +53,10 @@ public class GameSimulator {
     private final double player1InputCost;
     private final double player1OutputCost;
     private final GameEventPublisher publisher;
+    private final DynamicReasoningConfig dynamicReasoning0;
+    private final DynamicReasoningConfig dynamicReasoning1;
+    private final String promptCachingSetting;
+    private final ConversationConfig conversationConfig;
 
     public GameSimulator(String apiKey, String model0, String model1,
             DynamicReasoningConfig dynamicReasoning0, DynamicReasoningConfig dynamicReasoning1,
@@ -63,6 +74,16 @@ public class GameSimulator {
             double player0InputCost, double player0OutputCost,
             double player1InputCost, double player1OutputCost,
             GameEventPublisher publisher) {
+        this(apiKey, model0, model1, dynamicReasoning0, dynamicReasoning1, semiAuto, debugMode, stageConfig, memorySize0, memorySize1, promptCachingSetting, player0InputCost, player0OutputCost, player1InputCost, player1OutputCost, publisher, ConversationConfig.disabled());
+    }
+
+    public GameSimulator(String apiKey, String model0, String model1,
+            DynamicReasoningConfig dynamicReasoning0, DynamicReasoningConfig dynamicReasoning1,
+            boolean semiAuto, boolean debugMode,
+            StageConfig stageConfig, int memorySize0, int memorySize1, String promptCachingSetting,
+            double player0InputCost, double player0OutputCost,
+            double player1InputCost, double player1OutputCost,
+            GameEventPublisher publisher, ConversationConfig conversationConfig) {
         this.engine = new GameEngine();
         this.player0ModelId = model0;
         this.player1ModelId = model1;
@@ -70,8 +91,8 @@ public class GameSimulator {
         this.player0OutputCost = player0OutputCost;
         this.player1InputCost = player1InputCost;
         this.player1OutputCost = player1OutputCost;
-        this.llmService0 = new OpenRouterService(apiKey, model0, dynamicReasoning0, debugMode, promptCachingSetting, player0InputCost, player0OutputCost);
-        this.llmService1 = new OpenRouterService(apiKey, model1, dynamicReasoning1, debugMode, promptCachingSetting, player1InputCost, player1OutputCost);
+        this.llmService0 = new OpenRouterService(apiKey, model0, dynamicReasoning0, debugMode, promptCachingSetting, player0InputCost, player0OutputCost, conversationConfig);
+        this.llmService1 = new OpenRouterService(apiKey, model1, dynamicReasoning1, debugMode, promptCachingSetting, player1InputCost, player1OutputCost, conversationConfig);
         this.promptService = new PromptService();
         this.semiAuto = semiAuto;
         this.debugMode = debugMode;
@@ -79,6 +100,41 @@ public class GameSimulator {
         this.memorySize0 = memorySize0;
         this.memorySize1 = memorySize1;
         this.publisher = publisher;
+        this.dynamicReasoning0 = dynamicReasoning0;
+        this.dynamicReasoning1 = dynamicReasoning1;
+        this.promptCachingSetting = promptCachingSetting;
+        this.conversationConfig = conversationConfig;
+    }
+
+    /**
+     * Creates a simulator with the settings saved in a match checkpoint and restores the
+     * players' conversation memory.
+     */
+    public static GameSimulator fromCheckpoint(String apiKey, MatchCheckpoint checkpoint, boolean semiAuto,
+            GameEventPublisher publisher) {
+        MatchCheckpoint.Settings settings = checkpoint.settings();
+        GameSimulator simulator = new GameSimulator(apiKey, settings.player0Model(), settings.player1Model(),
+                settings.player0Reasoning().toConfig(), settings.player1Reasoning().toConfig(),
+                semiAuto, settings.debugMode(),
+                settings.stageConfig() != null ? settings.stageConfig() : StageConfig.none(),
+                settings.memorySize0(), settings.memorySize1(), settings.promptCachingSetting(),
+                settings.player0InputCost(), settings.player0OutputCost(),
+                settings.player1InputCost(), settings.player1OutputCost(),
+                publisher,
+                settings.conversationConfig() != null ? settings.conversationConfig() : ConversationConfig.disabled());
+        simulator.llmService0.restoreConversation(checkpoint.player0Conversation());
+        simulator.llmService1.restoreConversation(checkpoint.player1Conversation());
+        return simulator;
+    }
+
+    /**
+     * Continues a match from its checkpoint under a new game ID.
+     */
+    public void resume(MatchCheckpoint checkpoint, String gameId) {
+        MatchCheckpoint.Settings settings = checkpoint.settings();
+        run(checkpoint.state(), gameId, settings.player0Name(), settings.player1Name(),
+                checkpoint.player0TimeMs(), checkpoint.player1TimeMs(),
+                checkpoint.player0Tokens(), checkpoint.player1Tokens());
     }
 
     public static void initializeGame(Path propertiesFile) {
@@ -101,6 +157,7 @@ public class GameSimulator {
         int memorySize0 = config.getPlayerMemorySize(0);
         int memorySize1 = config.getPlayerMemorySize(1);
         String promptCachingSetting = config.getPromptCachingSetting();
+        ConversationConfig conversationConfig = config.getConversationConfig();
 
         double player0InputCost = config.getPlayerInputTokenCost(0);
         double player0OutputCost = config.getPlayerOutputTokenCost(0);
@@ -114,6 +171,8 @@ public class GameSimulator {
         logger.info("Semi-Auto Mode: {}", (semiAuto ? "ENABLED" : "DISABLED"));
         logger.info("Debug Mode: {}", (debugMode ? "ENABLED" : "DISABLED"));
         logger.info("Prompt Caching: {}", promptCachingSetting);
+        logger.info("Conversation Mode: {}", conversationConfig.enabled()
+                ? "ENABLED (resync every " + conversationConfig.resyncInterval() + " turns)" : "DISABLED");
         if (stageConfig.hasStage()) {
             logger.info("Stage: {} Leg {}", stageConfig.stage(), stageConfig.leg());
             if (stageConfig.isSecondLeg()) {
@@ -132,8 +191,13 @@ public class GameSimulator {
 
         GameSimulator simulator = new GameSimulator(apiKey, model0, model1, dynamicReasoning0, dynamicReasoning1,
                 semiAuto, debugMode, stageConfig, memorySize0, memorySize1, promptCachingSetting,
-                player0InputCost, player0OutputCost, player1InputCost, player1OutputCost);
-        GameState state = setupInitialState();
+                player0InputCost, player0OutputCost, player1InputCost, player1OutputCost,
+                null, conversationConfig);
+        Long seed = config.getSeed();
+        if (seed != null) {
+            logger.info("Seed: {}", seed);
+        }
+        GameState state = setupInitialState(seed != null ? new Random(seed) : new Random());
 
         simulator.run(state, gameId, model0, model1);
     }
@@ -150,6 +214,19 @@ public class GameSimulator {
             return;
         }
 
+        MatchCheckpoint checkpoint = MatchCheckpoint.loadForLog(logFile);
+        if (checkpoint != null) {
+            MatchCheckpoint.Settings settings = checkpoint.settings();
+            logger.info("--- Resuming Game from checkpoint of {} ---", logFile);
+            logger.info("Resuming at Turn {}, Player {}'s turn", checkpoint.state().turnNumber(),
+                    checkpoint.state().currentPlayerIndex());
+            String newGameId = resumedGameId(settings.player0Model(), settings.player1Model(),
+                    settings.player0Reasoning().toConfig(), settings.player1Reasoning().toConfig());
+            markResumed(logFile, newGameId);
+            fromCheckpoint(apiKey, checkpoint, new GameConfig().isSemiAuto(), null).resume(checkpoint, newGameId);
+            return;
+        }
+
         try {
             GameLogReader reader = new GameLogReader();
             GameLogReader.ResumeData resumeData = reader.parseLogForResume(logFile);
@@ -174,13 +251,8 @@ public class GameSimulator {
             int memorySize1 = config.getPlayerMemorySize(1);
             String promptCachingSetting = config.getPromptCachingSetting();
 
-            // Generate new game ID with model slugs, reasoning levels, timestamp, and resume suffix
-            String slug0 = com.aisplendor.util.GameStateFormatter.getModelSlug(resumeData.player0Model());
-            String slug1 = com.aisplendor.util.GameStateFormatter.getModelSlug(resumeData.player1Model());
-            String r0 = com.aisplendor.util.GameStateFormatter.getReasoningLevelSuffix(dynamicReasoning0);
-            String r1 = com.aisplendor.util.GameStateFormatter.getReasoningLevelSuffix(dynamicReasoning1);
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyMMdd_HHmmss"));
-            String newGameId = slug0 + "-" + r0 + "_" + slug1 + "-" + r1 + "-" + timestamp + "_resumed";
+            String newGameId = resumedGameId(resumeData.player0Model(), resumeData.player1Model(),
+                    dynamicReasoning0, dynamicReasoning1);
 
             GameSimulator simulator = new GameSimulator(
                     apiKey,
@@ -197,8 +269,11 @@ public class GameSimulator {
                     resumeData.player0InputCost(),
                     resumeData.player0OutputCost(),
                     resumeData.player1InputCost(),
-                    resumeData.player1OutputCost());
+                    resumeData.player1OutputCost(),
+                    null,
+                    config.getConversationConfig());
 
+            markResumed(logFile, newGameId);
             simulator.run(resumeData.resumeState(), newGameId,
                     resumeData.player0Model(), resumeData.player1Model(),
                     resumeData.player0AccumulatedTimeMs(), resumeData.player1AccumulatedTimeMs(),
@@ -209,7 +284,37 @@ public class GameSimulator {
         }
     }
 
+    private static void markResumed(Path logFile, String newGameId) {
+        try {
+            MatchCheckpoint.markResumed(logFile, newGameId);
+        } catch (IOException e) {
+            logger.warn("Failed to mark {} as resumed: {}", logFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Generates the game ID of a resumed match from model slugs, reasoning levels, timestamp
+     * and a resume suffix.
+     */
+    public static String resumedGameId(String model0, String model1, DynamicReasoningConfig dynamicReasoning0,
+            DynamicReasoningConfig dynamicReasoning1) {
+        String slug0 = GameStateFormatter.getModelSlug(model0);
+        String slug1 = GameStateFormatter.getModelSlug(model1);
+        String r0 = GameStateFormatter.getReasoningLevelSuffix(dynamicReasoning0);
+        String r1 = GameStateFormatter.getReasoningLevelSuffix(dynamicReasoning1);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyMMdd_HHmmss"));
+        return slug0 + "-" + r0 + "_" + slug1 + "-" + r1 + "-" + timestamp + "_resumed";
+    }
+
     public static GameState setupInitialState() {
+        return setupInitialState(new Random());
+    }
+
+    /**
+     * Deals the initial board using the given random source. A seeded Random
+     * reproduces the exact same deal, which makes cassette replays deterministic.
+     */
+    public static GameState setupInitialState(Random random) {
         // 2-player setup
         Map<Color, Integer> tokenCounts = new EnumMap<>(Color.class);
         for (Color c : Color.values()) {
@@ -220,7 +325,7 @@ public class GameSimulator {
         }
         TokenBank bank = new TokenBank(tokenCounts);
 
-        Map<CardLevel, Queue<DevelopmentCard>> decks = DeckFactory.createStandardDecks();
+        Map<CardLevel, Queue<DevelopmentCard>> decks = DeckFactory.createStandardDecks(random);
         Map<CardLevel, List<DevelopmentCard>> faceUp = new EnumMap<>(CardLevel.class);
 
         for (CardLevel level : CardLevel.values()) {
@@ -233,7 +338,7 @@ public class GameSimulator {
         }
 
         List<NobleTile> nobles = new ArrayList<>(DeckFactory.createStandardNobles());
-        Collections.shuffle(nobles);
+        Collections.shuffle(nobles, random);
         List<NobleTile> availableNobles = nobles.subList(0, 3);
 
         Board board = new Board(bank, faceUp, decks, availableNobles);
@@ -265,8 +370,20 @@ public class GameSimulator {
         TokenUsage player0Tokens = initialP0Tokens != null ? initialP0Tokens : TokenUsage.zero();
         TokenUsage player1Tokens = initialP1Tokens != null ? initialP1Tokens : TokenUsage.zero();
         boolean aborted = false;
+        MatchCheckpoint.Settings checkpointSettings = new MatchCheckpoint.Settings(player0ModelId, player1ModelId,
+                model0, model1, MatchCheckpoint.Reasoning.of(dynamicReasoning0),
+                MatchCheckpoint.Reasoning.of(dynamicReasoning1), memorySize0, memorySize1, debugMode,
+                promptCachingSetting, stageConfig, conversationConfig, player0InputCost, player0OutputCost,
+                player1InputCost, player1OutputCost);
+        // Live spectators follow answers as they are written; only the full reasoning is logged
+        ReasoningStreamConfig streamConfig = ReasoningStreamConfig.fromEnvironment();
+        if (publisher != null && streamConfig.isEnabled()) {
+            llmService0.setStreamListener(new ReasoningStream(publisher, gameId, 0, streamConfig.intervalMs()));
+            llmService1.setStreamListener(new ReasoningStream(publisher, gameId, 1, streamConfig.intervalMs()));
+        }
 
         try (GameEventLogger eventLogger = new GameEventLogger(gameId, this.publisher)) {
+            Path checkpointFile = MatchCheckpoint.pathFor(eventLogger.getLogPath().getParent(), gameId);
             // Log game start event
             eventLogger.log(new GameStartedEvent(
                     Instant.now(), gameId, this.player0ModelId, this.player1ModelId, model0, model1,
@@ -283,6 +400,11 @@ public class GameSimulator {
                 logger.info("Points: {}, Budget: {}", currentPlayer.score(),
                         GameStateFormatter.formatBudget(currentPlayer));
 
+                // Checkpoint the state reached by the previous move before playing on
+                saveCheckpoint(checkpointFile, new MatchCheckpoint(gameId, System.currentTimeMillis(),
+                        checkpointSettings, state, player0TotalTimeMs, player1TotalTimeMs, player0Tokens,
+                        player1Tokens, llmService0.exportConversation(), llmService1.exportConversation()));
+
                 // Log turn start event with full state snapshot
                 eventLogger.log(new TurnStartedEvent(
                         Instant.now(), state.turnNumber(), state.currentPlayerIndex(), state));
@@ -331,6 +453,7 @@ public class GameSimulator {
                     }
                     long networkWaitStart = System.currentTimeMillis();
                     long backoff = INITIAL_BACKOFF_MS;
+                    boolean retryLogged = false;
 
                     while (!validAction) { // Network retry loop
                         if (Thread.currentThread().isInterrupted()) {
@@ -339,16 +462,17 @@ public class GameSimulator {
                         }
                         try {
                             String retryContext = null;
-                            if (attempt > 0 && backoff == INITIAL_BACKOFF_MS) {
-                                // Only log retry on first network attempt of a new logic retry
-                                logger.warn("Retry attempt {} for Player {}. Error: {}", attempt, currentPlayer.id(),
-                                        lastError);
-                                // Log retry event
-                                eventLogger.log(new RetryEvent(
-                                        Instant.now(), currentPlayer.id(), attempt, lastError));
-                                retryContext = promptService.getRetryPrompt(lastError, lastResponse);
-                            } else if (backoff > INITIAL_BACKOFF_MS && attempt > 0) {
-                                // Network retry on a logic retry - keep the retry context
+                            if (attempt > 0) {
+                                if (!retryLogged) {
+                                    // Only log retry on first network attempt of a new logic retry
+                                    logger.warn("Retry attempt {} for Player {}. Error: {}", attempt,
+                                            currentPlayer.id(), lastError);
+                                    // Log retry event
+                                    eventLogger.log(new RetryEvent(
+                                            Instant.now(), currentPlayer.id(), attempt, lastError));
+                                    retryLogged = true;
+                                }
+                                // Network retries on a logic retry keep the retry context
                                 retryContext = promptService.getRetryPrompt(lastError, lastResponse);
                             }
                             response = currentLlm.getNextMove(state, systemPrompt, retryContext);
@@ -366,6 +490,7 @@ public class GameSimulator {
 
                             engine.validateAction(state, response.action());
                             validAction = true;
+                            currentLlm.commitConversationTurn();
                             moveDurationMs = System.currentTimeMillis() - moveStartMs;
                             if (state.currentPlayerIndex() == 0) {
                                 player0TotalTimeMs += moveDurationMs;
@@ -394,6 +519,36 @@ public class GameSimulator {
                             lastError = "Malformed JSON response: " + e.getOriginalMessage();
                             lastResponse = null; // Can't capture response if JSON was malformed
                             break; // Logic error - exit to outer loop for retry
+                        } catch (RateLimitedException e) {
+                            // The shared rate limiter paces the next request, so no local sleep
+                            // and no charge against MAX_API_RETRIES. Throttling is not the
+                            // player's fault: it never becomes move feedback or a skipped turn
+                            long elapsed = System.currentTimeMillis() - networkWaitStart;
+                            if (elapsed > MAX_NETWORK_WAIT_MS) {
+                                lastError = "Rate limited for " + (elapsed / 1000) + "s: " + e.getMessage();
+                                aborted = true;
+                                break;
+                            }
+                            logger.warn("Rate limited, waiting for shared limiter (retry after {}ms)", e.getRetryAfterMs());
+                        } catch (CircuitOpenException e) {
+                            // The model is known to be down: wait for the breaker to let a probe
+                            // through instead of spending API retries on it
+                            long elapsed = System.currentTimeMillis() - networkWaitStart;
+                            long wait = Math.max(e.getRetryAfterMs(), INITIAL_BACKOFF_MS);
+                            if (elapsed + wait > MAX_NETWORK_WAIT_MS) {
+                                lastError = "Circuit open for " + (elapsed / 1000) + "s: " + e.getMessage();
+                                aborted = true;
+                                break;
+                            }
+                            logger.warn("Circuit open, retrying in {}ms... ({})", wait, e.getMessage());
+                            try {
+                                Thread.sleep(wait);
+                            } catch (InterruptedException ie) {
+                                Thread.currentThread().interrupt();
+                                lastError = "Interrupted while waiting for an open circuit";
+                                aborted = true;
+                                break;
+                            }
                         } catch (ApiException e) {
                             apiRetries++;
                             if (apiRetries >= MAX_API_RETRIES) {
@@ -555,6 +710,8 @@ public class GameSimulator {
                 // Log game ended event
                 eventLogger.log(new GameEndedEvent(
                         Instant.now(), winnerIndex, state.winnerReason(), finalScores, playerUsages));
+                // A finished match has nothing left to resume
+                Files.deleteIfExists(checkpointFile);
             }
 
         } catch (Exception e) {
@@ -564,6 +721,17 @@ public class GameSimulator {
 
 
 
+    /**
+     * Writes a checkpoint; a failure only costs resume speed, so the match goes on.
+     */
+    private void saveCheckpoint(Path checkpointFile, MatchCheckpoint checkpoint) {
+        try {
+            checkpoint.write(checkpointFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to write match checkpoint {}: {}", checkpointFile, e.getMessage());
+        }
+    }
+
     private static String summarizeAction(GameAction action) {
         return switch (action) {
             case TakeTokensAction take -> {
@@ -0,0 +1,21 @@
+package com.aisplendor.exception;
+
+/**
+ * Thrown when a model's circuit breaker stays open for longer than the caller is
+ * willing to pause and no healthy failover route is configured.
+ */
+public class CircuitOpenException extends ApiException {
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * @return Time until the open circuit lets a probe through, 0 if it is half-open
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,18 @@
+package com.aisplendor.exception;
+
+/**
+ * Thrown when the API answers 429 Too Many Requests. The shared rate limiter has
+ * already been told to hold back further requests, so callers can simply retry.
+ */
+public class RateLimitedException extends ApiException {
+    private final long retryAfterMs;
+
+    public RateLimitedException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
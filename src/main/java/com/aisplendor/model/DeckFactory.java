@@ -13,6 +13,14 @@ import java.util.*;
 public class DeckFactory {
 
     public static Map<CardLevel, Queue<DevelopmentCard>> createStandardDecks() {
+        return createStandardDecks(new Random());
+    }
+
+    /**
+     * Creates the standard decks shuffled with the given random source,
+     * so a seeded Random reproduces the same deal.
+     */
+    public static Map<CardLevel, Queue<DevelopmentCard>> createStandardDecks(Random random) {
         Map<CardLevel, List<DevelopmentCard>> cardsByLevel = new EnumMap<>(CardLevel.class);
         for (CardLevel level : CardLevel.values()) {
             cardsByLevel.put(level, new ArrayList<>());
@@ -75,7 +83,7 @@ public class DeckFactory {
         Map<CardLevel, Queue<DevelopmentCard>> decks = new EnumMap<>(CardLevel.class);
         for (CardLevel level : CardLevel.values()) {
             List<DevelopmentCard> cards = cardsByLevel.get(level);
-            Collections.shuffle(cards);
+            Collections.shuffle(cards, random);
             decks.put(level, new LinkedList<>(cards));
         }
 
@@ -32,6 +32,9 @@ public class GameConfigRequest {
 
     private boolean debugMode;
     private String promptCachingSetting = "auto";
+    private boolean conversationMode;
+    private int conversationResyncTurns = 6;
+    private Long seed;
     private String apiKeyOverride;
 
     private double player0InputTokenCost;
@@ -88,6 +91,15 @@ public class GameConfigRequest {
     public String getPromptCachingSetting() { return promptCachingSetting; }
     public void setPromptCachingSetting(String promptCachingSetting) { this.promptCachingSetting = promptCachingSetting; }
 
+    public boolean isConversationMode() { return conversationMode; }
+    public void setConversationMode(boolean conversationMode) { this.conversationMode = conversationMode; }
+
+    public int getConversationResyncTurns() { return conversationResyncTurns; }
+    public void setConversationResyncTurns(int conversationResyncTurns) { this.conversationResyncTurns = conversationResyncTurns; }
+
+    public Long getSeed() { return seed; }
+    public void setSeed(Long seed) { this.seed = seed; }
+
     public String getApiKeyOverride() { return apiKeyOverride; }
     public void setApiKeyOverride(String apiKeyOverride) { this.apiKeyOverride = apiKeyOverride; }
 
@@ -10,6 +10,7 @@ public sealed interface GameEvent permits
         GameStartedEvent,
         TurnStartedEvent,
         ReasoningEvent,
+        ReasoningChunkEvent,
         ActionEvent,
         RetryEvent,
         GameEndedEvent {
@@ -0,0 +1,25 @@
+package com.aisplendor.model.event;
+
+import java.time.Instant;
+
+/**
+ * Event carrying a piece of an LLM answer while it is still being streamed, so spectators can
+ * follow a long reasoning as it is written. Chunks are only published to live subscribers; the
+ * log keeps the consolidated {@link ReasoningEvent} that follows them.
+ *
+ * @param kind "reasoning" for the model's reasoning output, "content" for the answer itself
+ */
+public record ReasoningChunkEvent(
+        Instant timestamp,
+        int playerIndex,
+        String kind,
+        String text) implements GameEvent {
+
+    public static final String REASONING = "reasoning";
+    public static final String CONTENT = "content";
+
+    @Override
+    public String eventType() {
+        return "REASONING_CHUNK";
+    }
+}
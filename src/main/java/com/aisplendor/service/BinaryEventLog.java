@@ -0,0 +1,190 @@
+package com.aisplendor.service;
+
+import com.aisplendor.util.BinaryEventCodec;
+import com.aisplendor.util.SyncFlushGzipOutputStream;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Binary game event log: an 8-byte magic, the codec dictionary fingerprint, then one
+ * length-prefixed {@link BinaryEventCodec} record per event. Records hold the same trees as
+ * the NDJSON lines (including state deltas), so both formats convert losslessly.
+ */
+public final class BinaryEventLog {
+    private static final Logger logger = LoggerFactory.getLogger(BinaryEventLog.class);
+
+    public static final String EXTENSION = ".bin";
+    private static final byte[] MAGIC = "AISLOG01".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private BinaryEventLog() {
+    }
+
+    /**
+     * @return File header written before the first record
+     */
+    public static byte[] header() {
+        return ByteBuffer.allocate(MAGIC.length + 4)
+                .put(MAGIC)
+                .putInt(BinaryEventCodec.dictionaryFingerprint())
+                .array();
+    }
+
+    /**
+     * @return Whether the (possibly compressed) file starts with the binary log magic
+     */
+    public static boolean isBinary(Path logFile) throws IOException {
+        try (InputStream in = GameLogReader.openLogStream(logFile)) {
+            return hasMagic(in.readNBytes(MAGIC.length));
+        }
+    }
+
+    /**
+     * @return Whether the bytes are the binary log magic
+     */
+    public static boolean hasMagic(byte[] head) {
+        return Arrays.equals(head, MAGIC);
+    }
+
+    /**
+     * Streaming reader. A record cut off by a crash ends the stream instead of failing it.
+     */
+    public static class Reader implements GameLogReader.EventSource {
+        private final Path path;
+        private final DataInputStream in;
+
+        public Reader(Path path) throws IOException {
+            this(path, Files.newInputStream(path));
+        }
+
+        public Reader(Path path, InputStream stream) throws IOException {
+            this(path, stream, true);
+        }
+
+        /**
+         * @param header Whether the stream starts with the file header; false for a stream
+         *               positioned at a record boundary inside the log
+         */
+        public Reader(Path path, InputStream stream, boolean header) throws IOException {
+            this.path = path;
+            this.in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+            if (!header) {
+                return;
+            }
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                in.close();
+                throw new IOException("Not a binary game log: " + path);
+            }
+            int fingerprint = in.readInt();
+            if (fingerprint != BinaryEventCodec.dictionaryFingerprint()) {
+                in.close();
+                throw new IOException("Binary game log " + path + " was written with a different dictionary");
+            }
+        }
+
+        @Override
+        public JsonNode next() throws IOException {
+            long length = 0;
+            int shift = 0;
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    if (shift > 0) {
+                        logger.warn("Binary game log {} ends with a truncated record", path);
+                    }
+                    return null;
+                }
+                length |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+                shift += 7;
+                if (shift > 35) {
+                    throw new IOException("Corrupt record length in " + path);
+                }
+            }
+            if (length > MAX_RECORD_SIZE) {
+                throw new IOException("Corrupt record length " + length + " in " + path);
+            }
+            byte[] payload = new byte[(int) length];
+            try {
+                in.readFully(payload);
+            } catch (EOFException e) {
+                logger.warn("Binary game log {} ends with a truncated record", path);
+                return null;
+            }
+            return BinaryEventCodec.decode(payload);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Converts between the NDJSON and binary formats; the direction follows the source format.
+     * The target is gzip-compressed when its name ends with ".gz", and gets its own turn index.
+     *
+     * @return Number of events converted
+     */
+    public static long convert(Path source, Path target) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        boolean toNdjson = isBinary(source);
+        long events = 0;
+        long position = 0;
+        TurnIndex.Tracker tracker = new TurnIndex.Tracker();
+        try (GameLogReader.EventSource eventSource = GameLogReader.openEvents(source);
+                TurnIndex.Writer index = new TurnIndex.Writer(TurnIndex.pathFor(target))) {
+            OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024);
+            SyncFlushGzipOutputStream gzip = target.toString().endsWith(".gz")
+                    ? new SyncFlushGzipOutputStream(fileOut)
+                    : null;
+            try (OutputStream out = gzip != null ? gzip : fileOut) {
+                if (!toNdjson) {
+                    out.write(header());
+                    position += header().length;
+                }
+                JsonNode node;
+                while ((node = eventSource.next()) != null) {
+                    if (TurnIndex.isTurnStart(node)) {
+                        long offset = gzip != null ? gzip.syncPoint() : position;
+                        index.add(tracker.turnStart(node, offset, (int) events));
+                    } else {
+                        tracker.add(node);
+                    }
+                    byte[] record;
+                    if (toNdjson) {
+                        byte[] json = objectMapper.writeValueAsBytes(node);
+                        record = Arrays.copyOf(json, json.length + 1);
+                        record[json.length] = '\n';
+                    } else {
+                        record = BinaryEventCodec.encodeRecord(node);
+                    }
+                    out.write(record);
+                    position += record.length;
+                    events++;
+                }
+            }
+        }
+        logger.info("Converted {} ({} events, {} bytes) to {} ({} bytes)", source, events, Files.size(source),
+                target, Files.size(target));
+        return events;
+    }
+}
@@ -0,0 +1,172 @@
+package com.aisplendor.service;
+
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.Player;
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningChunkEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.RetryEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The subscriptions of one multiplexed dashboard connection (/ws/dashboard): which games it
+ * follows, which event types it wants and in which form. Every message names its game, so one
+ * connection can follow a whole tournament.
+ *
+ * Subscriptions are keyed by game id, or {@link #ALL_GAMES} for every game. A game is "joined"
+ * once its recent events have been replayed to the connection; live events follow from there.
+ */
+public final class DashboardSubscription {
+
+    public static final String ALL_GAMES = "*";
+
+    public enum View {
+        /** Events as published, full states included. */
+        FULL,
+        /** Compact events: turn changes with scores, actions, results; no states or reasoning text. */
+        SUMMARY
+    }
+
+    /**
+     * @param types Event types to send (e.g. TURN_STARTED), or null for all
+     */
+    public record Filter(Set<String> types, View view) {
+        public boolean accepts(String eventType) {
+            return types == null || types.isEmpty() || types.contains(eventType);
+        }
+    }
+
+    private final SpectatorSession session;
+    private final Map<String, Filter> filters = new ConcurrentHashMap<>();
+    private final Set<String> joined = ConcurrentHashMap.newKeySet();
+
+    public DashboardSubscription(SpectatorSession session) {
+        this.session = session;
+    }
+
+    public SpectatorSession getSession() {
+        return session;
+    }
+
+    public void subscribe(String gameId, Filter filter) {
+        filters.put(gameId, filter);
+    }
+
+    public void unsubscribe(String gameId) {
+        filters.remove(gameId);
+        if (ALL_GAMES.equals(gameId)) {
+            joined.removeIf(id -> !filters.containsKey(id));
+        } else if (!filters.containsKey(ALL_GAMES)) {
+            joined.remove(gameId);
+        }
+    }
+
+    /**
+     * @return The filter that applies to a game, or null if the game is not followed
+     */
+    public Filter filterFor(String gameId) {
+        Filter filter = filters.get(gameId);
+        return filter != null ? filter : filters.get(ALL_GAMES);
+    }
+
+    /**
+     * Marks a game as replayed to this connection.
+     *
+     * @return false if it already was
+     */
+    public boolean join(String gameId) {
+        return joined.add(gameId);
+    }
+
+    public void leave(String gameId) {
+        joined.remove(gameId);
+    }
+
+    /**
+     * Builds the message for an event in the given view, tagged with its game: the published JSON
+     * with leading "gameId" and "seq" fields, or a compact summary with the same tags.
+     */
+    public static String frame(String gameId, SerializedEvent event, View view) {
+        ObjectMapper mapper = SerializedEvent.mapper();
+        try {
+            String tag = "{\"gameId\":" + mapper.writeValueAsString(gameId) + ",";
+            if (view == View.FULL) {
+                return tag + event.sequencedText().substring(1);
+            }
+            return tag + mapper.writeValueAsString(summary(event)).substring(1);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectNode summary(SerializedEvent serialized) {
+        ObjectNode node = SerializedEvent.mapper().createObjectNode();
+        node.put("seq", serialized.sequence());
+        node.put("eventType", serialized.event().eventType());
+        node.put("timestamp", serialized.event().timestamp().toString());
+        switch (serialized.event()) {
+            case GameStartedEvent started -> {
+                node.put("player0Model", started.player0Model());
+                node.put("player1Model", started.player1Model());
+                node.put("player0Name", started.player0Name());
+                node.put("player1Name", started.player1Name());
+                putScores(node, started.initialState());
+            }
+            case TurnStartedEvent turn -> {
+                node.put("turn", turn.turn());
+                node.put("playerIndex", turn.playerIndex());
+                putScores(node, turn.gameState());
+            }
+            case ActionEvent action -> {
+                node.put("playerIndex", action.playerIndex());
+                node.set("action", serialized.tree().get("action"));
+                node.put("success", action.success());
+                if (action.durationMs() != null) {
+                    node.put("durationMs", action.durationMs());
+                }
+            }
+            case ReasoningEvent reasoning -> {
+                node.put("playerIndex", reasoning.playerIndex());
+                node.set("tokenUsage", serialized.tree().get("tokenUsage"));
+            }
+            case ReasoningChunkEvent chunk -> {
+                node.put("playerIndex", chunk.playerIndex());
+                node.put("kind", chunk.kind());
+                node.put("length", chunk.text() != null ? chunk.text().length() : 0);
+            }
+            case RetryEvent retry -> {
+                node.put("playerIndex", retry.playerIndex());
+                node.put("attempt", retry.attempt());
+            }
+            case GameEndedEvent ended -> {
+                if (ended.winnerIndex() != null) {
+                    node.put("winnerIndex", ended.winnerIndex());
+                }
+                node.put("winnerReason", ended.winnerReason());
+                node.set("finalScores", serialized.tree().get("finalScores"));
+            }
+        }
+        return node;
+    }
+
+    private static void putScores(ObjectNode node, GameState state) {
+        if (state == null) {
+            return;
+        }
+        ArrayNode scores = node.putArray("scores");
+        for (Player player : state.players()) {
+            scores.add(player.score());
+        }
+    }
+}
@@ -1,55 +1,85 @@
 package com.aisplendor.service;
 
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.model.event.GameEndedEvent;
 import com.aisplendor.model.event.GameEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.aisplendor.util.BinaryEventCodec;
+import com.aisplendor.util.StateDeltaCodec;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
  * Writes game events to an NDJSON (newline-delimited JSON) file.
- * Each event is written as a single JSON line for easy parsing.
+ * Each event is written as a single JSON line for easy parsing, or as one
+ * record of the compact {@link BinaryEventLog} format.
+ *
+ * TurnStarted states are delta-encoded on disk (see {@link StateDeltaCodec}); subscribers
+ * of the publisher still receive the full events.
+ *
+ * Events are serialized on the calling thread (a snapshot of the state at that moment),
+ * once for the log and all subscribers of the publisher (see {@link SerializedEvent}), and
+ * written by the shared {@link GroupCommitLogWriter}, so disk latency stays off the
+ * simulation thread. The writer also maintains the log's {@link TurnIndex}.
  */
 public class GameEventLogger implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(GameEventLogger.class);
 
     private final ObjectMapper objectMapper;
-    private final BufferedWriter writer;
+    private final GroupCommitLogWriter.LogHandle writer;
     private final Path logPath;
     private final String gameId;
     private final GameEventPublisher publisher;
+    private final EventLogConfig config;
+    private final StateDeltaCodec deltaCodec;
+    private final TurnIndex.Tracker indexTracker = new TurnIndex.Tracker();
+    private int eventCount;
 
     /**
-     * Creates a new GameEventLogger that writes to logs/{gameId}.json
+     * Creates a new GameEventLogger that writes to logs/{gameId}.json (or .bin, .json.gz, .bin.gz)
      * 
      * @param gameId Unique identifier for this game session
      * @param publisher The game event publisher (optional, can be null)
      * @throws IOException if the log file cannot be created
      */
     public GameEventLogger(String gameId, GameEventPublisher publisher) throws IOException {
+        this(gameId, Path.of("logs"), publisher, EventLogConfig.fromEnvironment());
+    }
+
+    /**
+     * Creates a new GameEventLogger that writes to {logsDir}/{gameId}.json, or
+     * {logsDir}/{gameId}.bin for the binary format, with ".gz" appended when compressed
+     *
+     * @param gameId Unique identifier for this game session
+     * @param logsDir Directory for the log file
+     * @param publisher The game event publisher (optional, can be null)
+     * @param config Log format settings
+     * @throws IOException if the log file cannot be created
+     */
+    public GameEventLogger(String gameId, Path logsDir, GameEventPublisher publisher, EventLogConfig config)
+            throws IOException {
         this.gameId = gameId;
         this.publisher = publisher;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.config = config;
+        this.deltaCodec = new StateDeltaCodec(config.keyframeInterval());
+        this.objectMapper = SerializedEvent.mapper();
 
-        Path logsDir = Path.of("logs");
         Files.createDirectories(logsDir);
 
-        this.logPath = logsDir.resolve(gameId + ".json");
-        this.writer = Files.newBufferedWriter(
-                logPath,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING,
-                StandardOpenOption.WRITE);
+        this.logPath = logsDir.resolve(gameId + config.fileExtension());
+        this.writer = GroupCommitLogWriter.shared().open(logPath, config);
+        if (config.format() == EventLogConfig.Format.BINARY) {
+            writer.append(BinaryEventLog.header(), false);
+        }
 
         logger.info("Game event log created: {}", logPath);
     }
@@ -60,19 +90,49 @@ public class GameEventLogger implements Closeable {
      * @param event The event to log
      */
     public void log(GameEvent event) {
-        if (publisher != null) {
-            publisher.publish(gameId, event);
-        }
+        SerializedEvent serialized = publisher != null ? publisher.publish(gameId, event, eventCount)
+                : SerializedEvent.of(event);
         try {
-            String json = objectMapper.writeValueAsString(event);
-            writer.write(json);
-            writer.newLine();
-            writer.flush();
+            ObjectNode node = encode(serialized);
+            byte[] record;
+            if (config.format() == EventLogConfig.Format.BINARY) {
+                record = BinaryEventCodec.encodeRecord(node);
+            } else {
+                // Lines the log stores as published reuse the bytes sent to subscribers
+                byte[] json = node == serialized.tree() ? serialized.json() : objectMapper.writeValueAsBytes(node);
+                record = Arrays.copyOf(json, json.length + 1);
+                record[json.length] = '\n';
+            }
+            if (event instanceof TurnStartedEvent) {
+                writer.appendTurnStart(record, indexTracker.turnStart(node, -1, eventCount));
+            } else {
+                indexTracker.add(node);
+                writer.append(record, event instanceof GameEndedEvent);
+            }
+            eventCount++;
         } catch (IOException e) {
             logger.error("Failed to write game event: {}", e.getMessage());
         }
     }
 
+    /**
+     * Builds the log line of an event. Lines that differ from the published JSON are shallow
+     * copies of the shared tree, which is never modified.
+     */
+    private ObjectNode encode(SerializedEvent serialized) {
+        GameEvent event = serialized.event();
+        boolean started = event instanceof GameStartedEvent && config.isDeltaEncoded();
+        if (!started && !(event instanceof TurnStartedEvent)) {
+            return serialized.tree();
+        }
+        ObjectNode line = objectMapper.createObjectNode().setAll(serialized.tree());
+        if (started) {
+            line.put("logFormat", StateDeltaCodec.LOG_FORMAT_VERSION);
+            line.put("keyframeInterval", config.keyframeInterval());
+        }
+        return deltaCodec.encode(line);
+    }
+
     /**
      * @return The path to the log file
      */
@@ -80,8 +140,19 @@ public class GameEventLogger implements Closeable {
         return logPath;
     }
 
+    /**
+     * Waits until all events logged so far have been flushed to the file.
+     */
+    public void flush() {
+        writer.flush();
+    }
+
     @Override
     public void close() throws IOException {
+        if (publisher != null) {
+            // Also ends the stream of a game that stopped without a GameEnded event
+            publisher.endGame(gameId);
+        }
         if (writer != null) {
             writer.close();
             logger.info("Game event log closed: {}", logPath);
@@ -1,57 +1,413 @@
 package com.aisplendor.service;
 
+import com.aisplendor.config.EventBusConfig;
+import com.aisplendor.config.EventBusConfig.OverflowPolicy;
+import com.aisplendor.model.event.GameEndedEvent;
 import com.aisplendor.model.event.GameEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Publishes game events to registered listeners (e.g. WebSocket sessions).
+ * Listeners receive a {@link SerializedEvent}, so the JSON of an event is produced once and
+ * shared by all of them.
+ *
+ * Delivery is asynchronous: each game has a ring buffer of its latest events, and every listener
+ * follows it on its own dispatcher thread with its own sequence, so publishing never waits for a
+ * listener. A listener that falls a whole ring behind is handled by its {@link OverflowPolicy}.
+ * A game's ring is released once the game has ended and all listeners have caught up.
+ *
+ * A game's stream ends with its GameEnded event, or with {@link #endGame} for a game that stopped
+ * without one (failed, aborted, or lost with its worker). Listeners registered with an end
+ * listener are told once they have received the last event, so they can let go of the game.
  */
 @Component
 public class GameEventPublisher {
     private static final Logger logger = LoggerFactory.getLogger(GameEventPublisher.class);
 
-    private final List<BiConsumer<String, GameEvent>> listeners = new CopyOnWriteArrayList<>();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final EventBusConfig config;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<String, GameRing> rings = new ConcurrentHashMap<>();
+    // Running dispatchers, including those still draining a game that has ended
+    private final Set<Dispatcher> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Delivery statistics of one listener for one game, exposed on the REST API.
+     *
+     * @param published Events published for the game so far
+     * @param delivered Events handed to the listener
+     * @param lag       Events published but not yet delivered
+     * @param maxLag    Highest lag seen by the dispatcher
+     * @param dropped   Events skipped because the listener was overrun
+     */
+    public record DispatcherStats(String listener, String gameId, OverflowPolicy overflowPolicy, long published,
+            long delivered, long lag, long maxLag, long dropped, boolean disconnected) {
+    }
+
+    @Autowired
+    public GameEventPublisher() {
+        this(EventBusConfig.fromEnvironment());
+    }
+
+    public GameEventPublisher(EventBusConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Registers a listener to receive published events, with the default overflow policy.
+     *
+     * @param listener BiConsumer taking gameId and the event
+     */
+    public void registerListener(BiConsumer<String, SerializedEvent> listener) {
+        registerListener("listener-" + Integer.toHexString(System.identityHashCode(listener)), listener);
+    }
+
+    /**
+     * Registers a named listener, with the default overflow policy.
+     *
+     * @param name     Name shown in the delivery statistics
+     * @param listener BiConsumer taking gameId and the event
+     */
+    public void registerListener(String name, BiConsumer<String, SerializedEvent> listener) {
+        registerListener(name, listener, config.overflowPolicy());
+    }
+
+    /**
+     * Registers a named listener that is also told when a game's stream ends, with the default
+     * overflow policy.
+     *
+     * @param name        Name shown in the delivery statistics
+     * @param listener    BiConsumer taking gameId and the event
+     * @param endListener Called with the gameId after the last event of the game's stream
+     */
+    public void registerListener(String name, BiConsumer<String, SerializedEvent> listener,
+            Consumer<String> endListener) {
+        registerListener(name, listener, endListener, config.overflowPolicy());
+    }
+
+    /**
+     * Registers a listener to receive events published from now on.
+     *
+     * @param name           Name shown in the delivery statistics
+     * @param listener       BiConsumer taking gameId and the event
+     * @param overflowPolicy What to do when the listener falls a whole ring behind
+     */
+    public void registerListener(String name, BiConsumer<String, SerializedEvent> listener,
+            OverflowPolicy overflowPolicy) {
+        registerListener(name, listener, null, overflowPolicy);
+    }
 
     /**
-     * Registers a listener to receive published events.
+     * Registers a listener to receive events published from now on, and the end of each game's
+     * stream.
      *
-     * @param listener BiConsumer taking gameId and GameEvent
+     * @param name           Name shown in the delivery statistics
+     * @param listener       BiConsumer taking gameId and the event
+     * @param endListener    Called with the gameId after the last event of the game's stream, may be null
+     * @param overflowPolicy What to do when the listener falls a whole ring behind
      */
-    public void registerListener(BiConsumer<String, GameEvent> listener) {
-        listeners.add(listener);
-        logger.debug("Registered a new game event listener. Total listeners: {}", listeners.size());
+    public synchronized void registerListener(String name, BiConsumer<String, SerializedEvent> listener,
+            Consumer<String> endListener, OverflowPolicy overflowPolicy) {
+        Subscriber subscriber = new Subscriber(name, listener, endListener, overflowPolicy);
+        subscribers.add(subscriber);
+        for (GameRing ring : rings.values()) {
+            startDispatcher(ring, subscriber, ring.cursor + 1);
+        }
+        logger.debug("Registered a new game event listener. Total listeners: {}", subscribers.size());
     }
 
     /**
-     * Unregisters a listener.
+     * Unregisters a listener. Events it has not received yet are discarded.
      *
      * @param listener Listener to remove
      */
-    public void unregisterListener(BiConsumer<String, GameEvent> listener) {
-        listeners.remove(listener);
-        logger.debug("Unregistered a game event listener. Total listeners: {}", listeners.size());
+    public synchronized void unregisterListener(BiConsumer<String, SerializedEvent> listener) {
+        subscribers.removeIf(subscriber -> subscriber.listener == listener);
+        for (GameRing ring : rings.values()) {
+            for (Dispatcher dispatcher : ring.dispatchers) {
+                if (dispatcher.subscriber.listener == listener) {
+                    dispatcher.stop();
+                }
+            }
+        }
+        logger.debug("Unregistered a game event listener. Total listeners: {}", subscribers.size());
     }
 
     /**
-     * Publishes an event to all registered listeners.
+     * Publishes an event to all registered listeners without waiting for them.
      *
      * @param gameId The game identifier this event belongs to
      * @param event The event being published
+     * @return The event with its sequence number and shared serialized form, for reuse by the caller
+     */
+    public SerializedEvent publish(String gameId, GameEvent event) {
+        return publish(gameId, event, -1);
+    }
+
+    /**
+     * Publishes an event that is also written to the game's log.
+     *
+     * @param logIndex Position of the event in the game's log
      */
-    public void publish(String gameId, GameEvent event) {
+    public SerializedEvent publish(String gameId, GameEvent event, long logIndex) {
         logger.debug("Publishing event {} for gameId: {}", event.eventType(), gameId);
-        for (BiConsumer<String, GameEvent> listener : listeners) {
+        GameRing ring = rings.get(gameId);
+        if (ring == null) {
+            ring = openRing(gameId);
+        }
+        SerializedEvent serialized = ring.append(event, logIndex);
+        if (event instanceof GameEndedEvent) {
+            endGame(gameId);
+        }
+        return serialized;
+    }
+
+    /**
+     * Marks the end of a game's event stream: listeners receive what was published so far and
+     * then the end of the stream, and the game's ring is released. Publishing again for the game
+     * starts a new stream.
+     */
+    public void endGame(String gameId) {
+        GameRing ring = rings.remove(gameId);
+        if (ring != null) {
+            ring.closed = true;
+            ring.wakeDispatchers();
+            // Listeners disconnected for falling behind get no more events, only the end
+            for (Dispatcher dispatcher : ring.dispatchers) {
+                if (dispatcher.disconnected) {
+                    dispatcher.endOfStream();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until every listener has received everything published so far.
+     *
+     * @return false if the timeout expired first
+     */
+    public boolean awaitDelivery(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Dispatcher dispatcher : List.copyOf(running)) {
+            while (dispatcher.running && dispatcher.next <= dispatcher.ring.cursor) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Delivery statistics of every listener of the games currently publishing
+     */
+    public List<DispatcherStats> stats() {
+        List<DispatcherStats> stats = new ArrayList<>();
+        for (GameRing ring : rings.values()) {
+            for (Dispatcher dispatcher : ring.dispatchers) {
+                stats.add(dispatcher.stats());
+            }
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (String gameId : List.copyOf(rings.keySet())) {
+            endGame(gameId);
+        }
+    }
+
+    private synchronized GameRing openRing(String gameId) {
+        GameRing ring = rings.get(gameId);
+        if (ring == null) {
+            ring = new GameRing(gameId, config.ringSize());
+            for (Subscriber subscriber : subscribers) {
+                startDispatcher(ring, subscriber, 0);
+            }
+            rings.put(gameId, ring);
+        }
+        return ring;
+    }
+
+    private void startDispatcher(GameRing ring, Subscriber subscriber, long from) {
+        Dispatcher dispatcher = new Dispatcher(ring, subscriber, from, running);
+        running.add(dispatcher);
+        ring.dispatchers.add(dispatcher);
+        dispatcher.thread = Thread.ofVirtual()
+                .name("game-events-" + ring.gameId + "-" + subscriber.name())
+                .start(dispatcher);
+    }
+
+    private record Subscriber(String name, BiConsumer<String, SerializedEvent> listener,
+            Consumer<String> endListener, OverflowPolicy overflowPolicy) {
+    }
+
+    private record Slot(long sequence, SerializedEvent event) {
+    }
+
+    /**
+     * The latest events of one game. Written under the ring's lock by publishers, read without
+     * locking by the dispatchers, which detect overwritten slots by their sequence.
+     */
+    private static final class GameRing {
+        final String gameId;
+        final Slot[] slots;
+        final int mask;
+        final List<Dispatcher> dispatchers = new CopyOnWriteArrayList<>();
+        // Sequence of the last published event
+        volatile long cursor = -1;
+        volatile boolean closed;
+
+        GameRing(String gameId, int size) {
+            this.gameId = gameId;
+            this.slots = new Slot[size];
+            this.mask = size - 1;
+        }
+
+        SerializedEvent append(GameEvent event, long logIndex) {
+            SerializedEvent serialized;
+            synchronized (this) {
+                long sequence = cursor + 1;
+                serialized = SerializedEvent.of(event, sequence, logIndex);
+                slots[(int) (sequence & mask)] = new Slot(sequence, serialized);
+                cursor = sequence;
+            }
+            wakeDispatchers();
+            return serialized;
+        }
+
+        void wakeDispatchers() {
+            for (Dispatcher dispatcher : dispatchers) {
+                LockSupport.unpark(dispatcher.thread);
+            }
+        }
+    }
+
+    /**
+     * Delivers one game's events to one listener, in order.
+     */
+    private static final class Dispatcher implements Runnable {
+        final GameRing ring;
+        final Subscriber subscriber;
+        final Set<Dispatcher> runningSet;
+        volatile Thread thread;
+        volatile boolean running = true;
+        // Only written by the dispatcher thread
+        volatile long next;
+        volatile long delivered;
+        volatile long maxLag;
+        volatile long dropped;
+        volatile boolean disconnected;
+        final AtomicBoolean ended = new AtomicBoolean();
+
+        Dispatcher(GameRing ring, Subscriber subscriber, long from, Set<Dispatcher> runningSet) {
+            this.ring = ring;
+            this.subscriber = subscriber;
+            this.next = from;
+            this.runningSet = runningSet;
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
             try {
-                listener.accept(gameId, event);
+                while (running) {
+                    long available = ring.cursor;
+                    if (next > available) {
+                        // Closed is set after the last event, so the cursor read after it is final
+                        if (ring.closed && next > ring.cursor) {
+                            endOfStream();
+                            break;
+                        }
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    maxLag = Math.max(maxLag, available - next + 1);
+                    Slot slot = ring.slots[(int) (next & ring.mask)];
+                    if (slot.sequence() != next) {
+                        overrun();
+                        continue;
+                    }
+                    deliver(slot.event());
+                    next++;
+                    delivered++;
+                }
+            } finally {
+                running = false;
+                runningSet.remove(this);
+                // Disconnected listeners stay visible in the statistics while the game runs
+                if (!disconnected) {
+                    ring.dispatchers.remove(this);
+                }
+            }
+        }
+
+        private void overrun() {
+            if (subscriber.overflowPolicy() == OverflowPolicy.DISCONNECT) {
+                logger.warn("Listener {} fell {} events behind game {} and was disconnected from it",
+                        subscriber.name(), ring.cursor - next + 1, ring.gameId);
+                disconnected = true;
+                running = false;
+                if (ring.closed) {
+                    endOfStream();
+                }
+                return;
+            }
+            long oldest = ring.cursor - ring.slots.length + 1;
+            logger.warn("Listener {} fell behind game {}, skipping {} events",
+                    subscriber.name(), ring.gameId, oldest - next);
+            dropped += oldest - next;
+            next = oldest;
+        }
+
+        private void deliver(SerializedEvent event) {
+            try {
+                subscriber.listener().accept(ring.gameId, event);
             } catch (Exception e) {
-                logger.error("Error invoking listener for gameId: " + gameId, e);
+                logger.error("Error invoking listener for gameId: " + ring.gameId, e);
             }
         }
+
+        /**
+         * Tells the listener that the game's stream is over, once.
+         */
+        void endOfStream() {
+            if (subscriber.endListener() == null || !ended.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                subscriber.endListener().accept(ring.gameId);
+            } catch (Exception e) {
+                logger.error("Error ending the stream of gameId: " + ring.gameId, e);
+            }
+        }
+
+        DispatcherStats stats() {
+            return new DispatcherStats(subscriber.name(), ring.gameId, subscriber.overflowPolicy(), ring.cursor + 1,
+                    delivered, Math.max(0, ring.cursor - next + 1), maxLag, dropped, disconnected);
+        }
     }
 }
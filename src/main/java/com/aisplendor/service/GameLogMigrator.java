@@ -0,0 +1,164 @@
+package com.aisplendor.service;
+
+import com.aisplendor.util.BinaryEventCodec;
+import com.aisplendor.util.StateDeltaCodec;
+import com.aisplendor.util.SyncFlushGzipOutputStream;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites existing NDJSON game logs with a different keyframe interval: full-state logs
+ * are converted to delta-encoded logs, and an interval of 1 expands delta logs back to a
+ * full state on every turn. Logs keep their format (NDJSON or binary) and compression. Files are replaced
+ * atomically, so a failed migration leaves the original log untouched. The turn index is
+ * rewritten along with the log.
+ */
+public class GameLogMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(GameLogMigrator.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Outcome of migrating one log file.
+     */
+    public record MigrationResult(Path logFile, long lines, long bytesBefore, long bytesAfter) {
+    }
+
+    /**
+     * Command-line entry point: migrates a log file or every log in a directory and logs a summary.
+     */
+    public static void migrateLogs(Path target, int keyframeInterval) {
+        GameLogMigrator migrator = new GameLogMigrator();
+        try {
+            List<MigrationResult> results = Files.isDirectory(target)
+                    ? migrator.migrateDirectory(target, keyframeInterval)
+                    : List.of(migrator.migrate(target, keyframeInterval));
+            long before = results.stream().mapToLong(MigrationResult::bytesBefore).sum();
+            long after = results.stream().mapToLong(MigrationResult::bytesAfter).sum();
+            logger.info("Migrated {} log(s) to keyframe interval {}: {} -> {} bytes",
+                    results.size(), keyframeInterval, before, after);
+        } catch (IOException e) {
+            logger.error("Log migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Migrates a single log file in place.
+     *
+     * @param logFile          Log to rewrite
+     * @param keyframeInterval Turns per full-state keyframe (1 = full state every turn)
+     * @throws IOException if the file cannot be read, parsed or replaced
+     */
+    public MigrationResult migrate(Path logFile, int keyframeInterval) throws IOException {
+        StateDeltaCodec decoder = new StateDeltaCodec();
+        StateDeltaCodec encoder = new StateDeltaCodec(keyframeInterval);
+        Path tempFile = logFile.resolveSibling(logFile.getFileName() + ".migrating");
+        Path tempIndex = TurnIndex.pathFor(tempFile);
+        boolean binary = BinaryEventLog.isBinary(logFile);
+        boolean compressed = GameLogReader.isCompressed(logFile);
+        long lines = 0;
+        long position = 0;
+        TurnIndex.Tracker tracker = new TurnIndex.Tracker();
+
+        try (GameLogReader.EventSource events = GameLogReader.openEvents(logFile);
+                TurnIndex.Writer index = new TurnIndex.Writer(tempIndex);
+                OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024);
+                SyncFlushGzipOutputStream gzip = compressed ? new SyncFlushGzipOutputStream(fileOut) : null) {
+            OutputStream out = gzip != null ? gzip : fileOut;
+            if (binary) {
+                byte[] header = BinaryEventLog.header();
+                out.write(header);
+                position += header.length;
+            }
+            JsonNode node;
+            while ((node = events.next()) != null) {
+                if (node instanceof ObjectNode objectNode) {
+                    decoder.decode(objectNode);
+                    if (objectNode.has("player0Model")) {
+                        objectNode.remove(List.of("logFormat", "keyframeInterval"));
+                        if (keyframeInterval > 1) {
+                            objectNode.put("logFormat", StateDeltaCodec.LOG_FORMAT_VERSION);
+                            objectNode.put("keyframeInterval", keyframeInterval);
+                        }
+                    }
+                    node = encoder.encode(objectNode);
+                }
+                if (TurnIndex.isTurnStart(node)) {
+                    long offset = gzip != null ? gzip.syncPoint() : position;
+                    index.add(tracker.turnStart(node, offset, (int) lines));
+                } else {
+                    tracker.add(node);
+                }
+                byte[] record;
+                if (binary) {
+                    record = BinaryEventCodec.encodeRecord(node);
+                } else {
+                    byte[] json = objectMapper.writeValueAsBytes(node);
+                    record = Arrays.copyOf(json, json.length + 1);
+                    record[json.length] = '\n';
+                }
+                out.write(record);
+                position += record.length;
+                lines++;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            Files.deleteIfExists(tempIndex);
+            throw e instanceof IOException io ? io : new IOException("Failed to migrate " + logFile, e);
+        }
+
+        long bytesBefore = Files.size(logFile);
+        long bytesAfter = Files.size(tempFile);
+        Files.deleteIfExists(TurnIndex.pathFor(logFile));
+        replace(tempFile, logFile);
+        replace(tempIndex, TurnIndex.pathFor(logFile));
+        logger.info("Migrated {}: {} lines, {} -> {} bytes", logFile, lines, bytesBefore, bytesAfter);
+        return new MigrationResult(logFile, lines, bytesBefore, bytesAfter);
+    }
+
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Migrates every log in a directory. Files that fail are logged and skipped.
+     */
+    public List<MigrationResult> migrateDirectory(Path logsDir, int keyframeInterval) throws IOException {
+        List<Path> logFiles;
+        try (Stream<Path> stream = Files.list(logsDir)) {
+            logFiles = stream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> GameLogReader.isLogFileName(path.getFileName().toString()))
+                    .sorted()
+                    .toList();
+        }
+        List<MigrationResult> results = new ArrayList<>();
+        for (Path logFile : logFiles) {
+            try {
+                results.add(migrate(logFile, keyframeInterval));
+            } catch (IOException e) {
+                logger.error("Skipping {}: {}", logFile, e.getMessage());
+            }
+        }
+        return results;
+    }
+}
@@ -2,20 +2,32 @@ package com.aisplendor.service;
 
 import com.aisplendor.model.GameState;
 import com.aisplendor.model.TokenUsage;
+import com.aisplendor.util.StateDeltaCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 /**
- * Parses NDJSON game logs to extract data needed for resuming interrupted
- * games.
+ * Parses game logs (NDJSON or binary, optionally gzip-compressed) to extract
+ * data needed for resuming interrupted games.
  */
 public class GameLogReader {
     private static final Logger logger = LoggerFactory.getLogger(GameLogReader.class);
@@ -42,6 +54,185 @@ public class GameLogReader {
             TokenUsage player1AccumulatedTokens) {
     }
 
+    /**
+     * What a log tells about its game without replaying it: the GameStarted event and the
+     * outcome found at its tail.
+     *
+     * @param lastTurn  Highest turn number started in the log
+     * @param gameEnded The GameEnded event (finished or aborted game), or null while the
+     *                  game is running or after it was interrupted
+     * @param totals    Thinking time and token usage over the whole log
+     */
+    public record LogSummary(JsonNode gameStarted, int lastTurn, JsonNode gameEnded, TurnIndex.Totals totals) {
+
+        public String gameId() {
+            return gameStarted.path("gameId").asText(null);
+        }
+
+        public boolean isEnded() {
+            return gameEnded != null;
+        }
+    }
+
+    /**
+     * Sequential access to the events of a log, independent of its on-disk format.
+     * Delta-encoded states are returned as written; see {@link StateDeltaCodec#decode}.
+     */
+    public interface EventSource extends Closeable {
+        /**
+         * @return The next event, or null at the end of the log
+         */
+        JsonNode next() throws IOException;
+    }
+
+    /**
+     * Opens a log in either the NDJSON or the binary format, gzip-compressed or not.
+     * A record cut off by a crash ends the stream instead of failing it.
+     */
+    public static EventSource openEvents(Path logFile) throws IOException {
+        InputStream in = new BufferedInputStream(openLogStream(logFile), 64 * 1024);
+        in.mark(16);
+        boolean binary = BinaryEventLog.hasMagic(in.readNBytes(8));
+        in.reset();
+        if (binary) {
+            return new BinaryEventLog.Reader(logFile, in);
+        }
+        return ndjsonEvents(logFile, in);
+    }
+
+    /**
+     * Reads NDJSON events from a stream positioned at the start of a line.
+     */
+    static EventSource ndjsonEvents(Path logFile, InputStream in) {
+        ObjectMapper mapper = new ObjectMapper();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return new EventSource() {
+            @Override
+            public JsonNode next() throws IOException {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        return mapper.readTree(line);
+                    } catch (JsonProcessingException e) {
+                        if (reader.readLine() != null) {
+                            throw e;
+                        }
+                        logger.warn("Game log {} ends with a truncated line", logFile);
+                        return null;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    /**
+     * Opens the raw content of a log, inflating gzip-compressed logs. The unfinished gzip
+     * stream of a running or interrupted match yields everything up to its last flush.
+     */
+    public static InputStream openLogStream(Path logFile) throws IOException {
+        if (!isCompressed(logFile)) {
+            return Files.newInputStream(logFile);
+        }
+        return endOfInputTolerant(new GZIPInputStream(Files.newInputStream(logFile), 64 * 1024));
+    }
+
+    /**
+     * Treats a deflate stream that stops without its final block (unfinished gzip log, or a
+     * slice ending at a sync point) as a regular end of input.
+     */
+    static InputStream endOfInputTolerant(InputStream inflating) {
+        return new FilterInputStream(inflating) {
+            @Override
+            public int read() throws IOException {
+                try {
+                    return super.read();
+                } catch (EOFException e) {
+                    return -1;
+                }
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                try {
+                    return super.read(b, off, len);
+                } catch (EOFException e) {
+                    return -1;
+                }
+            }
+        };
+    }
+
+    /**
+     * @return Whether the file starts with the gzip magic bytes
+     */
+    public static boolean isCompressed(Path logFile) throws IOException {
+        try (InputStream in = Files.newInputStream(logFile)) {
+            byte[] magic = in.readNBytes(2);
+            return magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+        }
+    }
+
+    /**
+     * @return Whether the file name is a game event log in any supported format
+     */
+    public static boolean isLogFileName(String name) {
+        String base = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+        return base.endsWith(".json") || base.endsWith(BinaryEventLog.EXTENSION);
+    }
+
+    /**
+     * Reads the GameStarted event and the tail of a log. With a turn index only the events
+     * after the last turn start are decoded; other logs are read through.
+     */
+    public static LogSummary summarize(Path logFile) throws IOException {
+        JsonNode gameStarted;
+        try (EventSource events = openEvents(logFile)) {
+            gameStarted = events.next();
+        }
+        if (gameStarted == null || !gameStarted.has("player0Model")) {
+            throw new IOException("No GameStarted event in " + logFile);
+        }
+        EventSource tail;
+        TurnIndex.Tracker tracker = new TurnIndex.Tracker();
+        try {
+            TurnIndex index = TurnIndex.load(logFile);
+            List<TurnIndex.Entry> entries = index.entries();
+            tail = entries.isEmpty() ? openEvents(logFile) : index.openFrom(entries.size() - 1);
+            if (!entries.isEmpty()) {
+                tracker.resumeBefore(entries.get(entries.size() - 1));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Turn index of {} not usable ({}), scanning the whole log", logFile, e.getMessage());
+            tracker = new TurnIndex.Tracker();
+            tail = openEvents(logFile);
+        }
+        int lastTurn = 0;
+        JsonNode gameEnded = null;
+        try (EventSource events = tail) {
+            JsonNode node;
+            while ((node = events.next()) != null) {
+                if (TurnIndex.isTurnStart(node)) {
+                    lastTurn = Math.max(lastTurn, node.get("turn").asInt());
+                    tracker.turnStart(node, -1, 0);
+                } else if (node.has("finalScores")) {
+                    gameEnded = node;
+                } else {
+                    tracker.add(node);
+                }
+            }
+        }
+        return new LogSummary(gameStarted, lastTurn, gameEnded, tracker.totals());
+    }
+
     /**
      * Inteligentnie mapuje nazwy wyświetlane na techniczne identyfikatory modeli OpenRouter.
      * Zapewnia to wsteczną kompatybilność ze starymi plikami logów.
@@ -117,116 +308,139 @@ public class GameLogReader {
      * applied)
      * 4. If no TurnStartedEvent follows, fall back to the last available
      * TurnStartedEvent
+     *
+     * Delta-encoded TurnStarted lines are expanded to full states on the way.
+     *
+     * The log is read tail-first through its {@link TurnIndex}: the index entry of the last
+     * turn start carries the time/token totals up to it, so only that turn's state and the
+     * events after it are decoded. Logs without a usable index are scanned from the start.
      * 
-     * @param logFile Path to the NDJSON log file
+     * @param logFile Path to the NDJSON or binary log file
      * @return ResumeData containing models and the state to resume from
      * @throws IOException if the file cannot be read or parsed
      */
     public ResumeData parseLogForResume(Path logFile) throws IOException {
-        String originalGameId = null;
-        String player0Model = null;
-        String player1Model = null;
-        String player0Name = null;
-        String player1Name = null;
-
-        double player0InputCost = 0.0;
-        double player0OutputCost = 0.0;
-        double player1InputCost = 0.0;
-        double player1OutputCost = 0.0;
-
-        TokenUsage player0AccumulatedTokens = TokenUsage.zero();
-        TokenUsage player1AccumulatedTokens = TokenUsage.zero();
+        try {
+            TurnIndex index = TurnIndex.load(logFile);
+            if (!index.entries().isEmpty()) {
+                return resumeFromIndex(logFile, index);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Turn index of {} not usable for resume ({}), scanning the whole log",
+                    logFile, e.getMessage());
+        }
+        return scanLogForResume(logFile);
+    }
 
-        GameState lastSuccessfulTurnState = null;
-        GameState pendingStateAfterAction = null;
-        boolean lastActionWasSuccessful = false;
+    private ResumeData resumeFromIndex(Path logFile, TurnIndex index) throws IOException {
+        JsonNode gameStarted;
+        try (EventSource events = openEvents(logFile)) {
+            gameStarted = events.next();
+        }
+        List<TurnIndex.Entry> entries = index.entries();
+        int last = entries.size() - 1;
 
-        long player0AccumulatedTimeMs = 0L;
-        long player1AccumulatedTimeMs = 0L;
+        // Replay the rules of the full scan over the last indexed turn and everything after it
+        TurnIndex.Tracker tracker = new TurnIndex.Tracker();
+        tracker.resumeBefore(entries.get(last));
+        JsonNode lastSuccessfulTurnState = null;
+        JsonNode pendingStateAfterAction = null;
+        int eventIndex = entries.get(last).eventIndex();
+        try (EventSource events = index.openFrom(last)) {
+            JsonNode node;
+            while ((node = events.next()) != null) {
+                if (TurnIndex.isTurnStart(node)) {
+                    if (tracker.turnStart(node, -1, eventIndex).afterSuccess()) {
+                        lastSuccessfulTurnState = node.get(StateDeltaCodec.STATE_FIELD);
+                    }
+                    pendingStateAfterAction = node.get(StateDeltaCodec.STATE_FIELD);
+                } else {
+                    tracker.add(node);
+                }
+                eventIndex++;
+            }
+        }
+        if (lastSuccessfulTurnState == null) {
+            // The turn after the last successful action lies before the tail
+            for (int i = last - 1; i >= 0; i--) {
+                if (entries.get(i).afterSuccess()) {
+                    lastSuccessfulTurnState = index.stateAt(i);
+                    break;
+                }
+            }
+        }
+        logger.debug("Resuming {} from its turn index ({} events after the last indexed turn)",
+                logFile, eventIndex - entries.get(last).eventIndex());
+        return toResumeData(gameStarted, lastSuccessfulTurnState, pendingStateAfterAction, tracker.totals());
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(logFile)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank())
-                    continue;
+    /**
+     * Reads the whole log forward; used for logs without a turn index.
+     */
+    ResumeData scanLogForResume(Path logFile) throws IOException {
+        JsonNode gameStarted = null;
+        JsonNode lastSuccessfulTurnState = null;
+        JsonNode pendingStateAfterAction = null;
+        TurnIndex.Tracker tracker = new TurnIndex.Tracker();
+        int eventIndex = 0;
 
-                JsonNode node = objectMapper.readTree(line);
+        StateDeltaCodec deltaCodec = new StateDeltaCodec();
+        try (EventSource events = openEvents(logFile)) {
+            JsonNode node;
+            while ((node = events.next()) != null) {
+                if (node instanceof ObjectNode objectNode) {
+                    node = deltaCodec.decode(objectNode);
+                }
 
                 // Determine event type by checking for type-specific fields
                 if (node.has("player0Model")) {
                     // GameStartedEvent
-                    originalGameId = node.get("gameId").asText();
-                    player0Model = resolveModelId(node.get("player0Model").asText());
-                    player1Model = resolveModelId(node.get("player1Model").asText());
-                    player0Name = node.has("player0Name") ? node.get("player0Name").asText() : node.get("player0Model").asText();
-                    player1Name = node.has("player1Name") ? node.get("player1Name").asText() : node.get("player1Model").asText();
-                    player0InputCost = node.has("player0InputCost") ? node.get("player0InputCost").asDouble(0.0) : 0.0;
-                    player0OutputCost = node.has("player0OutputCost") ? node.get("player0OutputCost").asDouble(0.0) : 0.0;
-                    player1InputCost = node.has("player1InputCost") ? node.get("player1InputCost").asDouble(0.0) : 0.0;
-                    player1OutputCost = node.has("player1OutputCost") ? node.get("player1OutputCost").asDouble(0.0) : 0.0;
-                    logger.debug("Found GameStartedEvent: gameId={}, models={}/{}, names={}/{}",
-                            originalGameId, player0Model, player1Model, player0Name, player1Name);
-
+                    gameStarted = node;
                 } else if (node.has("gameState") && node.has("turn")) {
                     // TurnStartedEvent
-                    GameState turnState = objectMapper.treeToValue(
-                            node.get("gameState"), GameState.class);
-
-                    if (lastActionWasSuccessful) {
+                    if (tracker.turnStart(node, -1, eventIndex).afterSuccess()) {
                         // This is the state after the last successful action
-                        lastSuccessfulTurnState = turnState;
-                        lastActionWasSuccessful = false;
+                        lastSuccessfulTurnState = node.get("gameState");
                     }
                     // Always track the pending state in case we need a fallback
-                    pendingStateAfterAction = turnState;
-
+                    pendingStateAfterAction = node.get("gameState");
                     logger.debug("Found TurnStartedEvent: turn={}, player={}",
                             node.get("turn").asInt(), node.get("playerIndex").asInt());
-
-                } else if (node.has("action") && node.has("success")) {
-                    // ActionEvent
-                    boolean success = node.get("success").asBoolean();
-                    if (success) {
-                        lastActionWasSuccessful = true;
-                        int playerIndex = node.get("playerIndex").asInt();
-                        long duration = node.has("durationMs") ? node.get("durationMs").asLong() : 0L;
-                        if (playerIndex == 0) {
-                            player0AccumulatedTimeMs += duration;
-                        } else if (playerIndex == 1) {
-                            player1AccumulatedTimeMs += duration;
-                        }
-                        logger.debug("Found successful ActionEvent for player {}, duration: {} ms",
-                                playerIndex, duration);
-                    }
-                } else if (node.has("reasoning") && node.has("tokenUsage")) {
-                    // ReasoningEvent
-                    int playerIndex = node.get("playerIndex").asInt();
-                    JsonNode usageNode = node.get("tokenUsage");
-                    long prompt = usageNode.path("promptTokens").asLong(0);
-                    long completion = usageNode.path("completionTokens").asLong(0);
-                    double cost = usageNode.path("cost").asDouble(0.0);
-                    TokenUsage usage = new TokenUsage(prompt, completion, cost);
-                    if (playerIndex == 0) {
-                        player0AccumulatedTokens = player0AccumulatedTokens.add(usage);
-                    } else if (playerIndex == 1) {
-                        player1AccumulatedTokens = player1AccumulatedTokens.add(usage);
-                    }
+                } else {
+                    // ActionEvent (time of successful actions), ReasoningEvent (token usage)
+                    tracker.add(node);
                 }
+                eventIndex++;
             }
         }
+        return toResumeData(gameStarted, lastSuccessfulTurnState, pendingStateAfterAction, tracker.totals());
+    }
 
-        if (player0Model == null || player1Model == null) {
+    private ResumeData toResumeData(JsonNode node, JsonNode lastSuccessfulTurnState, JsonNode pendingStateAfterAction,
+            TurnIndex.Totals totals) throws IOException {
+        if (node == null || !node.has("player0Model") || !node.has("player1Model")) {
             throw new IOException("Could not find GameStartedEvent with model information");
         }
+        String originalGameId = node.get("gameId").asText();
+        String player0Model = resolveModelId(node.get("player0Model").asText());
+        String player1Model = resolveModelId(node.get("player1Model").asText());
+        String player0Name = node.has("player0Name") ? node.get("player0Name").asText() : node.get("player0Model").asText();
+        String player1Name = node.has("player1Name") ? node.get("player1Name").asText() : node.get("player1Model").asText();
+        double player0InputCost = node.has("player0InputCost") ? node.get("player0InputCost").asDouble(0.0) : 0.0;
+        double player0OutputCost = node.has("player0OutputCost") ? node.get("player0OutputCost").asDouble(0.0) : 0.0;
+        double player1InputCost = node.has("player1InputCost") ? node.get("player1InputCost").asDouble(0.0) : 0.0;
+        double player1OutputCost = node.has("player1OutputCost") ? node.get("player1OutputCost").asDouble(0.0) : 0.0;
+        logger.debug("Found GameStartedEvent: gameId={}, models={}/{}, names={}/{}",
+                originalGameId, player0Model, player1Model, player0Name, player1Name);
 
         // Determine which state to resume from
         GameState resumeState;
         if (lastSuccessfulTurnState != null) {
-            resumeState = lastSuccessfulTurnState;
+            resumeState = objectMapper.treeToValue(lastSuccessfulTurnState, GameState.class);
             logger.info("Resuming from turn {} (after last successful action)",
                     resumeState.turnNumber());
         } else if (pendingStateAfterAction != null) {
-            resumeState = pendingStateAfterAction;
+            resumeState = objectMapper.treeToValue(pendingStateAfterAction, GameState.class);
             logger.info("Resuming from turn {} (last available state)",
                     resumeState.turnNumber());
         } else {
@@ -234,8 +448,8 @@ public class GameLogReader {
         }
 
         return new ResumeData(originalGameId, player0Model, player1Model, player0Name, player1Name, resumeState,
-                player0AccumulatedTimeMs, player1AccumulatedTimeMs,
+                totals.player0TimeMs(), totals.player1TimeMs(),
                 player0InputCost, player0OutputCost, player1InputCost, player1OutputCost,
-                player0AccumulatedTokens, player1AccumulatedTokens);
+                totals.player0Tokens(), totals.player1Tokens());
     }
 }
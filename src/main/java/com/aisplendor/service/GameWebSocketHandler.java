@@ -1,61 +1,137 @@
 package com.aisplendor.service;
 
-import com.aisplendor.model.event.GameEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.aisplendor.config.SpectatorConfig;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.aisplendor.util.BinaryStateDelta;
+import com.aisplendor.util.StateDeltaCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.BiConsumer;
 
+/**
+ * Streams live game events to WebSocket sessions at /ws/game/{gameId}. A new session first
+ * receives a snapshot of the game's recent events (see {@link LiveGameTail}), then every event
+ * after it; each carries its sequence number in a "seq" field.
+ *
+ * Dashboards follow many games over one connection at /ws/dashboard, by sending
+ * {"op":"subscribe","games":["g1","g2"] or ["*"],"types":["TURN_STARTED","GAME_ENDED"],"view":"summary"}
+ * and {"op":"unsubscribe","games":[...]} (see {@link DashboardSubscription}).
+ *
+ * Game sessions that request the "splendor-delta.v1" subprotocol receive TurnStarted events as
+ * binary state deltas (see {@link BinaryStateDelta}), with every K-th turn sent in full as a
+ * keyframe. Each delta is encoded once for all sessions of a game.
+ *
+ * When a game's stream ends, with its GameEnded event or without one for a match that failed,
+ * was aborted or lost its worker, its sessions and event streams are closed once they have sent
+ * everything queued and the game is dropped.
+ *
+ * The same games can be followed over Server-Sent Events (see {@link SseSpectator}), which
+ * receive the same snapshot and live events as game sessions.
+ */
 @Component
-public class GameWebSocketHandler extends TextWebSocketHandler {
+public class GameWebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable {
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketHandler.class);
 
     private final GameEventPublisher eventPublisher;
-    private final ObjectMapper objectMapper;
-    private final Map<String, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+    private final SpectatorConfig config;
+    private final Map<String, LiveGame> games = new ConcurrentHashMap<>();
+    private final Map<String, SpectatorSession> sessionsById = new ConcurrentHashMap<>();
+    private final Map<String, DashboardSubscription> dashboards = new ConcurrentHashMap<>();
+    // Kept in a field so the same instance can be unregistered
+    private final BiConsumer<String, SerializedEvent> listener = this::handleGameEvent;
+
+    /**
+     * A game followed by this handler: its tail and the sessions watching it. Guarded by its own
+     * lock, so snapshots and fan-out are ordered.
+     */
+    private static final class LiveGame {
+        final LiveGameTail tail;
+        final Set<SpectatorSession> sessions = new LinkedHashSet<>();
+        final Set<SseSpectator> followers = new LinkedHashSet<>();
+        boolean ended;
+        // State of the last TurnStarted, the base of the next delta
+        JsonNode deltaBase;
+        long deltaBaseSequence;
+        int turnsSinceKeyframe;
+        // Set once the game has been dropped from the map; a session must then use a new entry
+        boolean removed;
+
+        LiveGame(int tailTurns) {
+            this.tail = new LiveGameTail(tailTurns);
+        }
+    }
 
     @Autowired
     public GameWebSocketHandler(GameEventPublisher eventPublisher) {
+        this(eventPublisher, SpectatorConfig.fromEnvironment());
+    }
+
+    public GameWebSocketHandler(GameEventPublisher eventPublisher, SpectatorConfig config) {
         this.eventPublisher = eventPublisher;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.config = config;
     }
 
     @PostConstruct
     public void init() {
-        eventPublisher.registerListener(this::handleGameEvent);
+        eventPublisher.registerListener("websocket", listener, this::handleStreamEnd);
         logger.info("GameWebSocketHandler initialized and registered to GameEventPublisher");
     }
 
     @PreDestroy
     public void cleanup() {
-        eventPublisher.unregisterListener(this::handleGameEvent);
+        eventPublisher.unregisterListener(listener);
         logger.info("GameWebSocketHandler unregistered from GameEventPublisher");
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
+        if (isDashboard(session)) {
+            SpectatorSession spectator = new SpectatorSession(session, null, config, getOverflowPolicy(session));
+            sessionsById.put(session.getId(), spectator);
+            dashboards.put(session.getId(), new DashboardSubscription(spectator));
+            logger.info("Dashboard WebSocket connection established. Active dashboards: {}", dashboards.size());
+            return;
+        }
         String gameId = getGameId(session);
         if (gameId != null) {
-            sessions.computeIfAbsent(gameId, k -> new CopyOnWriteArraySet<>()).add(session);
-            logger.info("WebSocket connection established for gameId: {}. Active sessions for this game: {}", 
-                    gameId, sessions.get(gameId).size());
+            SpectatorSession spectator = new SpectatorSession(session, gameId, config, getOverflowPolicy(session),
+                    BinaryStateDelta.SUBPROTOCOL.equals(session.getAcceptedProtocol()));
+            sessionsById.put(session.getId(), spectator);
+            while (true) {
+                LiveGame game = games.computeIfAbsent(gameId, id -> new LiveGame(config.tailTurns()));
+                synchronized (game) {
+                    if (game.removed) {
+                        continue;
+                    }
+                    // Queued before any live event, so the session sees no gap and no duplicate
+                    spectator.send(game.tail.snapshot(gameId));
+                    game.sessions.add(spectator);
+                    logger.info("WebSocket connection established for gameId: {}. Active sessions for this game: {}, "
+                            + "snapshot events: {}", gameId, game.sessions.size(), game.tail.size());
+                    break;
+                }
+            }
         } else {
             logger.warn("WebSocket connection established but no gameId found in URI: {}", session.getUri());
         }
@@ -63,47 +139,273 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        String gameId = getGameId(session);
-        if (gameId != null) {
-            Set<WebSocketSession> gameSessions = sessions.get(gameId);
-            if (gameSessions != null) {
-                gameSessions.remove(session);
-                if (gameSessions.isEmpty()) {
-                    sessions.remove(gameId);
+        SpectatorSession spectator = sessionsById.remove(session.getId());
+        if (dashboards.remove(session.getId()) != null) {
+            spectator.discard();
+            logger.info("Dashboard WebSocket connection closed. Remaining dashboards: {}", dashboards.size());
+        } else if (spectator != null) {
+            spectator.discard();
+            String gameId = spectator.getGameId();
+            LiveGame game = games.get(gameId);
+            if (game != null) {
+                synchronized (game) {
+                    game.sessions.remove(spectator);
+                    releaseIfUnused(gameId, game);
+                    logger.info("WebSocket connection closed for gameId: {}. Remaining active sessions: {}", 
+                            gameId, game.sessions.size());
+                }
+            }
+        }
+    }
+
+    public SpectatorConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Streams a game to a Server-Sent Events subscriber until it ends or the subscriber leaves.
+     */
+    public void follow(String gameId, SseSpectator spectator) {
+        while (true) {
+            LiveGame game = games.computeIfAbsent(gameId, id -> new LiveGame(config.tailTurns()));
+            synchronized (game) {
+                if (game.removed) {
+                    continue;
+                }
+                spectator.start(game.tail.events(), game.ended);
+                if (!game.ended) {
+                    game.followers.add(spectator);
+                    spectator.onClose(() -> unfollow(gameId, spectator));
                 }
-                logger.info("WebSocket connection closed for gameId: {}. Remaining active sessions: {}", 
-                        gameId, gameSessions.isEmpty() ? 0 : gameSessions.size());
+                releaseIfUnused(gameId, game);
+                logger.info("Event stream opened for gameId: {}. Active streams for this game: {}", gameId,
+                        game.followers.size());
+                return;
             }
         }
     }
 
-    private void handleGameEvent(String gameId, GameEvent event) {
-        Set<WebSocketSession> gameSessions = sessions.get(gameId);
-        if (gameSessions == null || gameSessions.isEmpty()) {
+    private void unfollow(String gameId, SseSpectator spectator) {
+        LiveGame game = games.get(gameId);
+        if (game != null) {
+            synchronized (game) {
+                if (game.followers.remove(spectator)) {
+                    releaseIfUnused(gameId, game);
+                    logger.info("Event stream closed for gameId: {}. Remaining active streams: {}", gameId,
+                            game.followers.size());
+                }
+            }
+        }
+    }
+
+    private void handleGameEvent(String gameId, SerializedEvent event) {
+        LiveGame game = games.computeIfAbsent(gameId, id -> new LiveGame(config.tailTurns()));
+        synchronized (game) {
+            if (game.removed) {
+                // Ended and dropped meanwhile; a new stream for the same id starts a new entry
+                handleGameEvent(gameId, event);
+                return;
+            }
+            game.tail.add(event);
+            game.ended = event.event() instanceof GameEndedEvent;
+
+            logger.debug("Broadcasting event {} to {} sessions of game {}", 
+                    event.event().eventType(), game.sessions.size(), gameId);
+
+            byte[] delta = event.event() instanceof TurnStartedEvent ? nextDelta(game, event) : null;
+            // Only queues the shared payload; each session sends at its own pace
+            for (SpectatorSession spectator : game.sessions) {
+                if (delta != null && spectator.isDelta()) {
+                    spectator.send(event, delta);
+                } else {
+                    spectator.send(event);
+                }
+            }
+            for (SseSpectator follower : game.followers) {
+                follower.send(event);
+            }
+            if (!dashboards.isEmpty()) {
+                fanOutToDashboards(gameId, game, event);
+            }
+            releaseIfUnused(gameId, game);
+        }
+    }
+
+    /**
+     * Ends a game after its last event: closes its sessions and event streams once they have sent
+     * what is queued, and drops it.
+     */
+    private void handleStreamEnd(String gameId) {
+        LiveGame game = games.get(gameId);
+        if (game == null) {
             return;
         }
+        synchronized (game) {
+            if (game.removed) {
+                return;
+            }
+            logger.debug("Stream of game {} ended, closing {} sessions and {} event streams", gameId,
+                    game.sessions.size(), game.followers.size());
+            game.ended = true;
+            game.sessions.forEach(SpectatorSession::finish);
+            game.sessions.clear();
+            game.followers.forEach(SseSpectator::finish);
+            game.followers.clear();
+            dashboards.values().forEach(dashboard -> dashboard.leave(gameId));
+            releaseIfUnused(gameId, game);
+        }
+    }
 
+    /**
+     * Moves the delta base to a TurnStarted event.
+     *
+     * @return The event as a delta for delta sessions, or null if it goes out in full
+     */
+    private byte[] nextDelta(LiveGame game, SerializedEvent event) {
+        byte[] delta = null;
+        if (game.deltaBase == null || ++game.turnsSinceKeyframe >= config.deltaKeyframeInterval()) {
+            game.turnsSinceKeyframe = 0;
+        } else if (game.sessions.stream().anyMatch(SpectatorSession::isDelta)) {
+            delta = BinaryStateDelta.encode(event.sequence(), event.event().timestamp(), event.tree(),
+                    game.deltaBaseSequence, game.deltaBase);
+        }
+        game.deltaBase = event.tree().get(StateDeltaCodec.STATE_FIELD);
+        game.deltaBaseSequence = event.sequence();
+        return delta;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(BinaryStateDelta.SUBPROTOCOL);
+    }
+
+    /**
+     * Sends an event to the dashboards following its game, each message built once per view.
+     * A dashboard that has not seen the game yet gets its recent events, this one included.
+     * Called with the game's lock held.
+     */
+    private void fanOutToDashboards(String gameId, LiveGame game, SerializedEvent event) {
+        String type = event.event().eventType();
+        String[] frames = new String[DashboardSubscription.View.values().length];
+        for (DashboardSubscription dashboard : dashboards.values()) {
+            DashboardSubscription.Filter filter = dashboard.filterFor(gameId);
+            if (filter == null) {
+                continue;
+            }
+            if (dashboard.join(gameId)) {
+                replay(dashboard, gameId, game, filter);
+            } else if (filter.accepts(type)) {
+                int view = filter.view().ordinal();
+                if (frames[view] == null) {
+                    frames[view] = DashboardSubscription.frame(gameId, event, filter.view());
+                }
+                dashboard.getSession().send(event, frames[view]);
+            }
+            if (game.ended) {
+                dashboard.leave(gameId);
+            }
+        }
+    }
+
+    /**
+     * Sends a game's tail to a dashboard. Called with the game's lock held.
+     */
+    private void replay(DashboardSubscription dashboard, String gameId, LiveGame game,
+            DashboardSubscription.Filter filter) {
+        for (SerializedEvent event : game.tail.events()) {
+            if (filter.accepts(event.event().eventType())) {
+                dashboard.getSession().send(event, DashboardSubscription.frame(gameId, event, filter.view()));
+            }
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        DashboardSubscription dashboard = dashboards.get(session.getId());
+        if (dashboard == null) {
+            return;
+        }
         try {
-            String json = objectMapper.writeValueAsString(event);
-            TextMessage message = new TextMessage(json);
-            
-            logger.debug("Broadcasting event {} to {} sessions of game {}", 
-                    event.eventType(), gameSessions.size(), gameId);
-
-            for (WebSocketSession session : gameSessions) {
-                if (session.isOpen()) {
-                    try {
-                        session.sendMessage(message);
-                    } catch (IOException e) {
-                        logger.error("Failed to send WebSocket message to session " + session.getId(), e);
+            JsonNode request = SerializedEvent.mapper().readTree(message.getPayload());
+            String op = request.path("op").asText();
+            List<String> gameIds = new ArrayList<>();
+            request.path("games").forEach(id -> gameIds.add(id.asText()));
+            switch (op) {
+                case "subscribe" -> {
+                    Set<String> types = new HashSet<>();
+                    request.path("types").forEach(type -> types.add(type.asText().toUpperCase()));
+                    DashboardSubscription.Filter filter = new DashboardSubscription.Filter(types,
+                            "summary".equalsIgnoreCase(request.path("view").asText())
+                                    ? DashboardSubscription.View.SUMMARY : DashboardSubscription.View.FULL);
+                    for (String gameId : gameIds) {
+                        subscribe(dashboard, gameId, filter);
                     }
                 }
+                case "unsubscribe" -> gameIds.forEach(dashboard::unsubscribe);
+                default -> throw new IllegalArgumentException("Unknown op: " + op);
             }
+            ObjectNode reply = SerializedEvent.mapper().createObjectNode();
+            reply.put("op", op + "d");
+            reply.set("games", request.path("games"));
+            dashboard.getSession().send(reply.toString());
         } catch (Exception e) {
-            logger.error("Failed to serialize game event for WebSocket broadcast", e);
+            logger.warn("Invalid dashboard request from session {}: {}", session.getId(), e.getMessage());
+            ObjectNode error = SerializedEvent.mapper().createObjectNode();
+            error.put("error", String.valueOf(e.getMessage()));
+            dashboard.getSession().send(error.toString());
         }
     }
 
+    /**
+     * Follows a game, or all games, replaying what is already known of them.
+     */
+    private void subscribe(DashboardSubscription dashboard, String gameId, DashboardSubscription.Filter filter) {
+        dashboard.subscribe(gameId, filter);
+        LiveGame single = games.get(gameId);
+        Map<String, LiveGame> targets = DashboardSubscription.ALL_GAMES.equals(gameId) ? games
+                : single != null ? Map.of(gameId, single) : Map.of();
+        targets.forEach((id, game) -> {
+            synchronized (game) {
+                DashboardSubscription.Filter applied = dashboard.filterFor(id);
+                if (!game.removed && !game.tail.isEmpty() && applied != null && dashboard.join(id)) {
+                    replay(dashboard, id, game, applied);
+                    if (game.ended) {
+                        dashboard.leave(id);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops an ended game, or a game that was only waited for, once nobody watches it.
+     * Called with the game's lock held.
+     */
+    private void releaseIfUnused(String gameId, LiveGame game) {
+        if (game.sessions.isEmpty() && game.followers.isEmpty() && (game.ended || game.tail.isEmpty())) {
+            game.removed = true;
+            games.remove(gameId, game);
+        }
+    }
+
+    /**
+     * @return Queue statistics of every connected session and event stream
+     */
+    public List<SpectatorSession.Stats> getSessionStats() {
+        List<SpectatorSession.Stats> stats = new ArrayList<>();
+        sessionsById.values().forEach(session -> stats.add(session.stats()));
+        for (LiveGame game : games.values()) {
+            synchronized (game) {
+                game.followers.forEach(follower -> stats.add(follower.stats()));
+            }
+        }
+        return stats;
+    }
+
+    private boolean isDashboard(WebSocketSession session) {
+        return session.getUri() != null && session.getUri().getPath().endsWith("/ws/dashboard");
+    }
+
     private String getGameId(WebSocketSession session) {
         if (session.getUri() == null) {
             return null;
@@ -116,4 +418,21 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
         return null;
     }
+
+    /**
+     * Reads the overflow policy a client asked for with ?overflow=..., if any.
+     */
+    private SpectatorConfig.OverflowPolicy getOverflowPolicy(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return null;
+        }
+        String overflow = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams()
+                .getFirst("overflow");
+        SpectatorConfig.OverflowPolicy policy = overflow != null ? SpectatorConfig.OverflowPolicy.parse(overflow) : null;
+        if (overflow != null && policy == null) {
+            logger.warn("Unknown overflow policy '{}' requested by session {}, using {}", overflow, session.getId(),
+                    config.overflowPolicy());
+        }
+        return policy;
+    }
 }
@@ -0,0 +1,400 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.config.EventLogConfig.FlushPolicy;
+import com.aisplendor.util.SyncFlushGzipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Process-wide background writer for game event logs. Simulation threads hand over
+ * serialized events through a bounded lock-free queue and return immediately; a single
+ * writer thread drains the queue and commits every log touched by the drained batch
+ * together (group commit), so flushes and fsyncs are shared by all concurrent matches
+ * instead of being paid per event on each match's critical path.
+ *
+ * Events of one log are written in the order they were appended. Closing a log waits
+ * until everything appended before it has been written, flushed and (optionally) synced.
+ *
+ * Compressed logs are a single gzip stream with a sync point before every turn; each
+ * commit sync-flushes, so the flushed prefix of a log that is still being written (or was
+ * interrupted) can always be inflated.
+ *
+ * Logs that receive turn starts get a {@link TurnIndex} sidecar, written alongside and
+ * flushed right after the log at each commit.
+ */
+public class GroupCommitLogWriter {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitLogWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MS = 5_000;
+    // Longest a match waits for its log to be flushed or closed
+    private static final long BARRIER_TIMEOUT_MS = 30_000;
+    // How often a caller blocked on a full queue checks that the writer is still alive
+    private static final long WRITER_CHECK_MS = 1_000;
+
+    private static volatile GroupCommitLogWriter shared;
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore capacity;
+    private final Thread writerThread;
+    // Only touched by the writer thread
+    private final List<LogHandle> dirty = new ArrayList<>();
+
+    private record Entry(LogHandle handle, byte[] bytes, boolean turnBoundary, TurnIndex.Entry turnStart,
+            CompletableFuture<Void> barrier, boolean close) {
+    }
+
+    public GroupCommitLogWriter(int queueCapacity) {
+        this.capacity = new Semaphore(queueCapacity);
+        this.writerThread = new Thread(this::run, "game-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Returns the writer shared by all game logs of the process.
+     */
+    public static GroupCommitLogWriter shared() {
+        if (shared == null) {
+            synchronized (GroupCommitLogWriter.class) {
+                if (shared == null) {
+                    GroupCommitLogWriter writer = new GroupCommitLogWriter(EventLogConfig.fromEnvironment().queueCapacity());
+                    Runtime.getRuntime().addShutdownHook(new Thread(writer::flushAll, "game-log-writer-shutdown"));
+                    shared = writer;
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Opens (truncating) a log file for appending through this writer.
+     */
+    public LogHandle open(Path path, EventLogConfig config) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        // An index left over from an earlier log of the same name would point into the old content
+        Files.deleteIfExists(TurnIndex.pathFor(path));
+        return new LogHandle(path, channel, config);
+    }
+
+    /**
+     * Waits (up to a few seconds) until every event queued so far has been written and flushed
+     * for all open logs. Used on JVM shutdown so that no buffered events are lost.
+     */
+    public void flushAll() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        enqueue(new Entry(null, null, false, null, done, false));
+        try {
+            done.get(SHUTDOWN_FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("Game event logs not fully flushed: {}", e.getMessage());
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        // Blocks only when the whole queue is full; events are never dropped while the writer runs
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (capacity.tryAcquire(WRITER_CHECK_MS, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (!writerThread.isAlive()) {
+                    logger.error("Game event log writer is not running, dropping a queued write");
+                    if (entry.barrier() != null) {
+                        entry.barrier().complete(null);
+                    }
+                    return;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        queue.offer(entry);
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Waits for a barrier, at most {@link #BARRIER_TIMEOUT_MS}, so a stuck writer never hangs a match.
+     */
+    private static void await(CompletableFuture<Void> done, LogHandle handle) {
+        try {
+            done.get(BARRIER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while flushing game event log {}", handle.path);
+        } catch (Exception e) {
+            logger.error("Game event log {} not flushed in time: {}", handle.path, e.toString());
+        }
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                Entry entry;
+                while ((entry = queue.poll()) != null) {
+                    capacity.release();
+                    process(entry);
+                }
+                long now = System.nanoTime();
+                commitDirty(now);
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(this, nextDeadline(now));
+                }
+            } catch (Throwable t) {
+                // The writer serves every match of the process, so it must outlive any one failure
+                logger.error("Game event log writer failed, dropping pending commits", t);
+                dirty.forEach(handle -> {
+                    handle.failed = true;
+                    handle.dirty = false;
+                });
+                dirty.clear();
+            }
+        }
+    }
+
+    private void process(Entry entry) {
+        LogHandle handle = entry.handle();
+        if (handle == null) {
+            // Global barrier: commit every log regardless of its flush policy
+            dirty.forEach(LogHandle::commitQuietly);
+            dirty.clear();
+            entry.barrier().complete(null);
+            return;
+        }
+        try {
+            if (entry.bytes() != null && !handle.failed) {
+                long offset = entry.turnBoundary() && handle.gzip != null
+                        ? handle.gzip.syncPoint()
+                        : handle.position;
+                if (entry.turnStart() != null) {
+                    handle.index(entry.turnStart().withOffset(offset));
+                }
+                handle.out.write(entry.bytes());
+                handle.position += entry.bytes().length;
+                handle.turnBoundaryPending |= entry.turnBoundary();
+                if (!handle.dirty) {
+                    handle.dirty = true;
+                    dirty.add(handle);
+                }
+            }
+            if (entry.barrier() != null) {
+                if (handle.dirty) {
+                    handle.commit();
+                }
+                if (entry.close()) {
+                    if (handle.gzip != null) {
+                        handle.gzip.finish();
+                    }
+                    handle.out.close();
+                    handle.closeIndex();
+                }
+            }
+        } catch (Throwable e) {
+            // Errors too: one bad log must not take the writer of every match down
+            handle.failed = true;
+            logger.error("Failed to write game event log {}: {}", handle.path, e.toString());
+        } finally {
+            if (entry.barrier() != null) {
+                entry.barrier().complete(null);
+            }
+        }
+    }
+
+    private void commitDirty(long now) {
+        dirty.removeIf(handle -> {
+            if (!handle.dirty) {
+                return true;
+            }
+            boolean due = switch (handle.config.flushPolicy()) {
+                case EVENT -> true;
+                case TURN -> handle.turnBoundaryPending;
+                case INTERVAL -> now - handle.lastCommitNanos >= handle.flushIntervalNanos;
+            };
+            if (!due) {
+                return false;
+            }
+            handle.commitQuietly();
+            return true;
+        });
+    }
+
+    private long nextDeadline(long now) {
+        long wait = IDLE_PARK_NANOS;
+        for (LogHandle handle : dirty) {
+            if (handle.config.flushPolicy() == FlushPolicy.INTERVAL) {
+                wait = Math.min(wait, Math.max(1, handle.lastCommitNanos + handle.flushIntervalNanos - now));
+            }
+        }
+        return wait;
+    }
+
+    /**
+     * One open log file. Appends may come from any thread; all I/O happens on the writer thread.
+     */
+    public class LogHandle {
+        private final Path path;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final SyncFlushGzipOutputStream gzip;
+        private final EventLogConfig config;
+        private final long flushIntervalNanos;
+
+        // Writer thread state
+        private TurnIndex.Writer index;
+        private boolean indexFailed;
+        private long position;
+        private boolean dirty;
+        private boolean turnBoundaryPending;
+        private boolean failed;
+        private long lastCommitNanos = System.nanoTime();
+
+        private LogHandle(Path path, FileChannel channel, EventLogConfig config) throws IOException {
+            this.path = path;
+            this.channel = channel;
+            OutputStream fileOut = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            this.gzip = config.compress() ? new SyncFlushGzipOutputStream(fileOut) : null;
+            this.out = gzip != null ? gzip : fileOut;
+            this.config = config;
+            this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.flushIntervalMs());
+        }
+
+        /**
+         * Queues bytes to be appended to the log.
+         *
+         * @param bytes        Encoded event, including its line terminator
+         * @param turnBoundary Whether this event starts a turn (or ends the game), for the turn flush policy
+         */
+        public void append(byte[] bytes, boolean turnBoundary) {
+            enqueue(new Entry(this, bytes, turnBoundary, null, null, false));
+        }
+
+        /**
+         * Queues a TurnStarted event and records its position in the turn index.
+         *
+         * @param bytes     Encoded event, including its line terminator
+         * @param turnStart Index entry of the event; its offset is filled in by the writer
+         */
+        public void appendTurnStart(byte[] bytes, TurnIndex.Entry turnStart) {
+            enqueue(new Entry(this, bytes, true, turnStart, null, false));
+        }
+
+        /**
+         * Waits until everything appended so far is flushed (and synced if configured), or
+         * gives up after {@link #BARRIER_TIMEOUT_MS}.
+         */
+        public void flush() {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            enqueue(new Entry(this, null, false, null, done, false));
+            await(done, this);
+        }
+
+        /**
+         * Flushes everything appended so far and closes the file, waiting at most
+         * {@link #BARRIER_TIMEOUT_MS}.
+         */
+        public void close() {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            enqueue(new Entry(this, null, false, null, done, true));
+            await(done, this);
+        }
+
+        private void commit() throws IOException {
+            out.flush();
+            if (config.fsync()) {
+                channel.force(false);
+            }
+            if (index != null) {
+                try {
+                    index.flush();
+                } catch (IOException e) {
+                    dropIndex(e);
+                }
+            }
+            dirty = false;
+            turnBoundaryPending = false;
+            lastCommitNanos = System.nanoTime();
+        }
+
+        private void commitQuietly() {
+            try {
+                commit();
+            } catch (Throwable e) {
+                failed = true;
+                dirty = false;
+                logger.error("Failed to flush game event log {}: {}", path, e.toString());
+            }
+        }
+
+        /**
+         * Index problems never fail the log: the index is dropped and rebuilt on first use.
+         */
+        private void index(TurnIndex.Entry entry) {
+            if (indexFailed) {
+                return;
+            }
+            try {
+                if (index == null) {
+                    index = new TurnIndex.Writer(TurnIndex.pathFor(path));
+                }
+                index.add(entry);
+            } catch (IOException e) {
+                dropIndex(e);
+            }
+        }
+
+        private void dropIndex(IOException cause) {
+            logger.warn("Dropping turn index of {}: {}", path, cause.getMessage());
+            indexFailed = true;
+            closeIndex();
+            try {
+                Files.deleteIfExists(TurnIndex.pathFor(path));
+            } catch (IOException e) {
+                logger.warn("Failed to delete turn index of {}: {}", path, e.getMessage());
+            }
+        }
+
+        private void closeIndex() {
+            if (index == null) {
+                return;
+            }
+            try {
+                index.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close turn index of {}: {}", path, e.getMessage());
+            }
+            index = null;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.aisplendor.service;
+
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningChunkEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded in-memory tail of a live game's event stream: the GameStarted event, then everything
+ * from the TurnStarted of the last N turns on. Published TurnStarted events carry the full state,
+ * so the first one in the tail is a keyframe. New WebSocket subscribers receive the tail as a
+ * snapshot and can render the game without downloading its log. Reasoning chunks are left out,
+ * as the Reasoning event that follows them carries the whole text.
+ *
+ * Not thread-safe; {@link GameWebSocketHandler} updates it and takes snapshots under the same
+ * lock as the fan-out to sessions, so a snapshot and the live events after it never overlap.
+ */
+public final class LiveGameTail {
+
+    private final int maxTurns;
+    private final ArrayDeque<SerializedEvent> events = new ArrayDeque<>();
+    private SerializedEvent started;
+    private int turns;
+    private long lastSequence = -1;
+
+    public LiveGameTail(int maxTurns) {
+        this.maxTurns = Math.max(1, maxTurns);
+    }
+
+    public void add(SerializedEvent event) {
+        lastSequence = event.sequence();
+        if (event.event() instanceof GameStartedEvent) {
+            started = event;
+            events.clear();
+            turns = 0;
+            return;
+        }
+        if (event.event() instanceof ReasoningChunkEvent) {
+            return;
+        }
+        if (event.event() instanceof TurnStartedEvent) {
+            turns++;
+            // Drop the oldest turn, so the tail starts at the next keyframe
+            while (turns > maxTurns) {
+                events.poll();
+                if (events.peek() == null || events.peek().event() instanceof TurnStartedEvent) {
+                    turns--;
+                }
+            }
+        }
+        events.add(event);
+    }
+
+    /**
+     * @return The events of a snapshot, oldest first
+     */
+    public List<SerializedEvent> events() {
+        List<SerializedEvent> result = new ArrayList<>(size());
+        if (started != null) {
+            result.add(started);
+        }
+        result.addAll(events);
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return started == null && events.isEmpty();
+    }
+
+    /**
+     * @return Number of events a snapshot would contain
+     */
+    public int size() {
+        return events.size() + (started != null ? 1 : 0);
+    }
+
+    /**
+     * Builds the snapshot message: {"snapshot":{"gameId":...,"live":true,"lastSequence":N,"events":[...]}},
+     * with events in the same form as the live messages that follow it. "live" is false when nothing
+     * of the game has been seen, e.g. it has already ended or not started yet.
+     */
+    public String snapshot(String gameId) {
+        StringBuilder message = new StringBuilder(1024);
+        try {
+            message.append("{\"snapshot\":{\"gameId\":").append(SerializedEvent.mapper().writeValueAsString(gameId));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        message.append(",\"live\":").append(!isEmpty())
+                .append(",\"lastSequence\":").append(lastSequence)
+                .append(",\"events\":[");
+        boolean first = true;
+        if (started != null) {
+            message.append(started.sequencedText());
+            first = false;
+        }
+        for (SerializedEvent event : events) {
+            if (!first) {
+                message.append(',');
+            }
+            message.append(event.sequencedText());
+            first = false;
+        }
+        return message.append("]}}").toString();
+    }
+}
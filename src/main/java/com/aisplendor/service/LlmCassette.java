@@ -0,0 +1,257 @@
+package com.aisplendor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only store of raw OpenRouter responses keyed by request hash, used to
+ * record matches once and replay them offline (deterministically and for free).
+ *
+ * File layout: an 8-byte magic header followed by length-prefixed records
+ * [32-byte SHA-256 of the request body][u16 model length][model][i32 HTTP status]
+ * [i32 latency ms][i32 body length][body]. On open only the record headers are
+ * scanned to build an in-memory index; bodies are read lazily by offset.
+ *
+ * One instance is shared per file within the process, so any number of concurrent
+ * matches can record into or replay from the same cassette.
+ */
+public class LlmCassette implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(LlmCassette.class);
+
+    private static final byte[] MAGIC = "AISCAS01".getBytes(StandardCharsets.US_ASCII);
+    private static final int HASH_LENGTH = 32;
+    private static final Map<Path, LlmCassette> OPEN_CASSETTES = new ConcurrentHashMap<>();
+
+    /**
+     * A recorded exchange.
+     *
+     * @param statusCode HTTP status returned by the API
+     * @param latencyMs  Measured round-trip latency at record time
+     * @param body       Raw response body
+     */
+    public record Recording(int statusCode, long latencyMs, String body) {
+    }
+
+    private record Entry(long bodyOffset, int bodyLength, int statusCode, int latencyMs) {
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<String, List<Entry>> byHash = new ConcurrentHashMap<>();
+    private final Map<String, List<Entry>> byModel = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the process-wide cassette instance for the given file, opening it on first use.
+     */
+    public static LlmCassette open(Path path) {
+        return OPEN_CASSETTES.computeIfAbsent(path.toAbsolutePath().normalize(), p -> {
+            try {
+                return new LlmCassette(p);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open cassette " + p, e);
+            }
+        });
+    }
+
+    private LlmCassette(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+        } else {
+            loadIndex();
+        }
+        logger.info("Opened LLM cassette {} ({} recordings)", path, size());
+    }
+
+    /**
+     * Scans record headers and builds the hash/model index. A truncated trailing
+     * record (e.g. after a crash mid-write) is cut off so new records append cleanly.
+     */
+    private void loadIndex() throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        channel.read(magic, 0);
+        if (!Arrays.equals(magic.array(), MAGIC)) {
+            throw new IOException("Not a cassette file: " + path);
+        }
+
+        long position = MAGIC.length;
+        long fileSize = channel.size();
+        while (position < fileSize) {
+            try {
+                ByteBuffer fixed = readFully(position, HASH_LENGTH + 2);
+                byte[] hash = new byte[HASH_LENGTH];
+                fixed.get(hash);
+                int modelLength = Short.toUnsignedInt(fixed.getShort());
+                ByteBuffer rest = readFully(position + HASH_LENGTH + 2, modelLength + 12);
+                byte[] model = new byte[modelLength];
+                rest.get(model);
+                int status = rest.getInt();
+                int latency = rest.getInt();
+                int bodyLength = rest.getInt();
+                long bodyOffset = position + HASH_LENGTH + 2 + modelLength + 12;
+                if (bodyOffset + bodyLength > fileSize) {
+                    throw new EOFException();
+                }
+                index(HexFormat.of().formatHex(hash), new String(model, StandardCharsets.UTF_8),
+                        new Entry(bodyOffset, bodyLength, status, latency));
+                position = bodyOffset + bodyLength;
+            } catch (EOFException e) {
+                logger.warn("Cassette {} has a truncated record at offset {}, truncating", path, position);
+                channel.truncate(position);
+                break;
+            }
+        }
+    }
+
+    private void index(String hash, String model, Entry entry) {
+        byHash.computeIfAbsent(hash, k -> Collections.synchronizedList(new ArrayList<>())).add(entry);
+        byModel.computeIfAbsent(model, k -> Collections.synchronizedList(new ArrayList<>())).add(entry);
+    }
+
+    /**
+     * Appends a recorded exchange to the cassette.
+     *
+     * @param requestBody Serialized request JSON (hashed as the lookup key)
+     * @param model       Model identifier, used for sequential fallback on replay
+     * @param recording   Response status, latency and raw body
+     */
+    public synchronized void record(String requestBody, String model, Recording recording) {
+        byte[] modelBytes = model.getBytes(StandardCharsets.UTF_8);
+        byte[] body = recording.body().getBytes(StandardCharsets.UTF_8);
+        byte[] hash = sha256(requestBody);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_LENGTH + 2 + modelBytes.length + 12 + body.length);
+        buffer.put(hash);
+        buffer.putShort((short) modelBytes.length);
+        buffer.put(modelBytes);
+        buffer.putInt(recording.statusCode());
+        buffer.putInt((int) Math.min(Integer.MAX_VALUE, recording.latencyMs()));
+        buffer.putInt(body.length);
+        buffer.put(body);
+        buffer.flip();
+
+        try {
+            long position = channel.size();
+            long bodyOffset = position + buffer.limit() - body.length;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            index(HexFormat.of().formatHex(hash), model,
+                    new Entry(bodyOffset, body.length, recording.statusCode(), (int) recording.latencyMs()));
+        } catch (IOException e) {
+            logger.error("Failed to append to cassette {}", path, e);
+        }
+    }
+
+    /**
+     * Creates an independent replay cursor. Each OpenRouterService owns one session,
+     * so concurrent matches replaying the same cassette each see the full sequence.
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    public int size() {
+        return byModel.values().stream().mapToInt(List::size).sum();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private Recording read(Entry entry) throws IOException {
+        ByteBuffer body = readFully(entry.bodyOffset(), entry.bodyLength());
+        return new Recording(entry.statusCode(), entry.latencyMs(),
+                new String(body.array(), StandardCharsets.UTF_8));
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        OPEN_CASSETTES.remove(path, this);
+        channel.close();
+    }
+
+    static byte[] sha256(String requestBody) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(requestBody.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Replay cursor over the cassette. Identical requests (e.g. retries of the same
+     * prompt) are served in recorded order. Requests that were never recorded fall
+     * back to the next recording for the same model, so a run whose prompts drift
+     * slightly from the recording still plays out.
+     */
+    public class Session {
+        private final Map<String, Integer> hashCursors = new HashMap<>();
+        private final Map<String, Integer> modelCursors = new HashMap<>();
+        private boolean warnedFallback;
+
+        /**
+         * @return The recorded exchange for this request, or null if the cassette has
+         *         nothing for this model at all
+         */
+        public synchronized Recording replay(String requestBody, String model) throws IOException {
+            String hash = HexFormat.of().formatHex(sha256(requestBody));
+            List<Entry> exact = byHash.get(hash);
+            if (exact != null && !exact.isEmpty()) {
+                int cursor = hashCursors.merge(hash, 1, Integer::sum) - 1;
+                modelCursors.merge(model, 1, Integer::sum);
+                return read(exact.get(Math.min(cursor, exact.size() - 1)));
+            }
+
+            List<Entry> sequential = byModel.get(model);
+            if (sequential == null || sequential.isEmpty()) {
+                return null;
+            }
+            if (!warnedFallback) {
+                logger.warn("Cassette {} has no exact match for a {} request, falling back to sequential replay",
+                        path, model);
+                warnedFallback = true;
+            }
+            int cursor = modelCursors.merge(model, 1, Integer::sum) - 1;
+            return read(sequential.get(cursor % sequential.size()));
+        }
+    }
+}
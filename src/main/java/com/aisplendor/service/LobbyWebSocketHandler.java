@@ -0,0 +1,110 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.SpectatorConfig;
+import com.aisplendor.service.MatchManagerService.MatchInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams match lifecycle changes to WebSocket sessions at /ws/lobby, so clients subscribe once
+ * instead of polling /api/matches. A new session first receives
+ * {"snapshot":{"version":N,"matches":[...]}}, then {"version":N,"match":{...}} for every new
+ * match, status transition (QUEUED, RUNNING, COMPLETED, FAILED, ABORTED) and turn started.
+ *
+ * Snapshots and updates are queued under the same lock, so a session misses no change made after
+ * its snapshot. An update may still repeat a change the snapshot already shows, or arrive after a
+ * newer one of the same match; clients keep the update with the highest version per match.
+ */
+@Component
+public class LobbyWebSocketHandler extends TextWebSocketHandler {
+    private static final Logger logger = LoggerFactory.getLogger(LobbyWebSocketHandler.class);
+
+    private final MatchManagerService matchManagerService;
+    private final SpectatorConfig config;
+    private final Map<String, SpectatorSession> sessions = new LinkedHashMap<>();
+
+    @Autowired
+    public LobbyWebSocketHandler(MatchManagerService matchManagerService) {
+        this(matchManagerService, SpectatorConfig.fromEnvironment());
+    }
+
+    public LobbyWebSocketHandler(MatchManagerService matchManagerService, SpectatorConfig config) {
+        this.matchManagerService = matchManagerService;
+        this.config = config;
+        matchManagerService.addLobbyListener(this::onMatchChanged);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        SpectatorSession lobbySession = new SpectatorSession(session, null, config, null);
+        synchronized (this) {
+            lobbySession.send(snapshot(matchManagerService.getMatches()));
+            sessions.put(session.getId(), lobbySession);
+            logger.info("Lobby WebSocket connection established. Active lobby sessions: {}", sessions.size());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        SpectatorSession lobbySession;
+        synchronized (this) {
+            lobbySession = sessions.remove(session.getId());
+        }
+        if (lobbySession != null) {
+            lobbySession.discard();
+        }
+    }
+
+    private void onMatchChanged(MatchInfo info) {
+        synchronized (this) {
+            if (sessions.isEmpty()) {
+                return;
+            }
+            // One state read, so the version is that of the serialized status and turn
+            MatchInfo.View view = info.view();
+            ObjectNode message = SerializedEvent.mapper().createObjectNode();
+            message.put("version", view.version());
+            message.set("match", SerializedEvent.mapper().valueToTree(view));
+            String text = message.toString();
+            for (SpectatorSession lobbySession : sessions.values()) {
+                lobbySession.send(text);
+            }
+        }
+    }
+
+    /**
+     * @return The snapshot message for a new session; its version is the highest of its matches
+     */
+    static String snapshot(List<MatchInfo> matches) {
+        List<MatchInfo.View> views = matches.stream().map(MatchInfo::view).toList();
+        ObjectNode snapshot = SerializedEvent.mapper().createObjectNode();
+        snapshot.put("version", views.stream().mapToLong(MatchInfo.View::version).max().orElse(0));
+        snapshot.set("matches", SerializedEvent.mapper().valueToTree(views));
+        ObjectNode message = SerializedEvent.mapper().createObjectNode();
+        message.set("snapshot", snapshot);
+        try {
+            return SerializedEvent.mapper().writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return Queue statistics of every connected lobby session
+     */
+    public synchronized List<SpectatorSession.Stats> getSessionStats() {
+        return sessions.values().stream().map(SpectatorSession::stats).toList();
+    }
+}
@@ -0,0 +1,413 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory catalog of the game logs in logs/. Each log is summarized once (models, names,
+ * turns, outcome, cost) from its GameStarted event and tail; afterwards the catalog follows
+ * matches of this process through the {@link GameEventPublisher} and picks up files written,
+ * replaced or deleted by anything else through a {@link WatchService}. Listings and queries
+ * never touch the disk.
+ */
+@Service
+public class LogCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(LogCatalog.class);
+
+    // Quiet period before a burst of file changes is applied
+    private static final long DEBOUNCE_MS = 250;
+    // Longest a burst is collected; files of running matches change without pause
+    private static final long MAX_BURST_MS = 1_000;
+
+    public enum Status {
+        /** Played by this process right now. */
+        RUNNING,
+        /** Ended with a winner or a draw. */
+        FINISHED,
+        /** Ended by an abort. */
+        ABORTED,
+        /** No GameEnded event: interrupted, or still written by another process. */
+        INCOMPLETE
+    }
+
+    /**
+     * Metadata of one log file.
+     *
+     * @param cost Total estimated cost of both players
+     */
+    public record Entry(String fileName, String gameId, String player0Model, String player1Model,
+            String player0Name, String player1Name, Status status, int lastTurn, Integer winnerIndex,
+            String winnerReason, Map<Integer, Integer> finalScores, double cost, long sizeBytes,
+            Instant lastModified) {
+
+        Entry withProgress(int lastTurn, double cost) {
+            return new Entry(fileName, gameId, player0Model, player1Model, player0Name, player1Name, status,
+                    lastTurn, winnerIndex, winnerReason, finalScores, cost, sizeBytes, lastModified);
+        }
+
+        Entry withFile(long sizeBytes, Instant lastModified) {
+            return new Entry(fileName, gameId, player0Model, player1Model, player0Name, player1Name, status,
+                    lastTurn, winnerIndex, winnerReason, finalScores, cost, sizeBytes, lastModified);
+        }
+
+        Entry withStatus(Status status) {
+            return new Entry(fileName, gameId, player0Model, player1Model, player0Name, player1Name, status,
+                    lastTurn, winnerIndex, winnerReason, finalScores, cost, sizeBytes, lastModified);
+        }
+    }
+
+    /**
+     * Filter for {@link #query}; null fields match everything.
+     *
+     * @param text   Substring of the file name, game ID or a player name (case-insensitive)
+     * @param model  Substring of either player's model ID (case-insensitive)
+     * @param status Exact status
+     */
+    public record Query(String text, String model, Status status) {
+
+        public static Query all() {
+            return new Query(null, null, null);
+        }
+
+        boolean matches(Entry entry) {
+            if (status != null && entry.status() != status) {
+                return false;
+            }
+            if (model != null && !model.isBlank()
+                    && !contains(entry.player0Model(), model) && !contains(entry.player1Model(), model)) {
+                return false;
+            }
+            return text == null || text.isBlank() || contains(entry.fileName(), text)
+                    || contains(entry.gameId(), text) || contains(entry.player0Name(), text)
+                    || contains(entry.player1Name(), text);
+        }
+
+        private static boolean contains(String value, String part) {
+            return value != null && value.toLowerCase().contains(part.trim().toLowerCase());
+        }
+    }
+
+    /**
+     * One page of query results, newest file names first.
+     *
+     * @param total    Number of matching logs
+     * @param complete False while the initial indexing is still running
+     */
+    public record Page(int page, int size, int total, boolean complete, List<Entry> items) {
+    }
+
+    private final GameEventPublisher eventPublisher;
+    private final Path logsDir;
+    private final String liveExtension;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<String> names = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+    // Logs of matches played by this process, kept current by published events
+    private final Set<String> liveFiles = ConcurrentHashMap.newKeySet();
+    private final BiConsumer<String, SerializedEvent> listener = (gameId, event) -> onGameEvent(gameId, event.event());
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile WatchService watchService;
+    private volatile boolean complete;
+
+    @Autowired
+    public LogCatalog(GameEventPublisher eventPublisher) {
+        this(eventPublisher, Path.of("logs"), EventLogConfig.fromEnvironment());
+    }
+
+    /**
+     * @param config Log settings of this process, which decide the file names of its matches
+     */
+    public LogCatalog(GameEventPublisher eventPublisher, Path logsDir, EventLogConfig config) {
+        this.eventPublisher = eventPublisher;
+        this.logsDir = logsDir;
+        this.liveExtension = config.fileExtension();
+    }
+
+    @PostConstruct
+    public void start() {
+        eventPublisher.registerListener("log-catalog", listener, this::onStreamEnd);
+        executor.submit(() -> {
+            try {
+                Files.createDirectories(logsDir);
+                // Watch first, so no change made while indexing is lost
+                watchService = logsDir.getFileSystem().newWatchService();
+                logsDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                logger.error("Cannot watch {}, the log catalog will only follow matches of this process", logsDir, e);
+            }
+            rescan();
+            if (watchService != null) {
+                watch();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        eventPublisher.unregisterListener(listener);
+        WatchService watcher = watchService;
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close log watcher", e);
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Indexes every log in the directory, in parallel, and drops entries of vanished files.
+     *
+     * @return Number of logs in the catalog
+     */
+    public int rescan() {
+        long start = System.currentTimeMillis();
+        List<Path> logFiles;
+        try (Stream<Path> stream = Files.list(logsDir)) {
+            logFiles = stream
+                    .filter(path -> GameLogReader.isLogFileName(path.getFileName().toString()))
+                    .toList();
+        } catch (NoSuchFileException e) {
+            logFiles = List.of();
+        } catch (IOException e) {
+            logger.error("Failed to list {}", logsDir, e);
+            return entries.size();
+        }
+        Set<String> present = new HashSet<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Path logFile : logFiles) {
+            present.add(logFile.getFileName().toString());
+            tasks.add(() -> {
+                refresh(logFile);
+                return null;
+            });
+        }
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        names.stream().filter(name -> !present.contains(name)).toList().forEach(this::remove);
+        complete = true;
+        logger.info("Log catalog indexed {} logs in {} ms", entries.size(), System.currentTimeMillis() - start);
+        return entries.size();
+    }
+
+    /**
+     * @return All log file names, newest first
+     */
+    public List<String> fileNames() {
+        return List.copyOf(names);
+    }
+
+    public Entry get(String fileName) {
+        return entries.get(fileName);
+    }
+
+    /**
+     * @param page Zero-based page number
+     * @param size Entries per page
+     */
+    public Page query(Query query, int page, int size) {
+        int from = Math.max(0, page) * Math.max(1, size);
+        List<Entry> items = new ArrayList<>();
+        int total = 0;
+        for (String name : names) {
+            Entry entry = entries.get(name);
+            if (entry == null || !query.matches(entry)) {
+                continue;
+            }
+            if (total >= from && items.size() < size) {
+                items.add(entry);
+            }
+            total++;
+        }
+        return new Page(Math.max(0, page), size, total, complete, items);
+    }
+
+    /**
+     * Re-reads the metadata of one log, or forgets it when the file is gone.
+     */
+    void refresh(Path logFile) {
+        String fileName = logFile.getFileName().toString();
+        try {
+            if (!Files.isRegularFile(logFile)) {
+                remove(fileName);
+                return;
+            }
+            long size = Files.size(logFile);
+            Instant lastModified = Files.getLastModifiedTime(logFile).toInstant();
+            if (liveFiles.contains(fileName)) {
+                entries.computeIfPresent(fileName, (name, entry) -> entry.withFile(size, lastModified));
+                return;
+            }
+            GameLogReader.LogSummary summary = GameLogReader.summarize(logFile);
+            put(toEntry(fileName, summary, size, lastModified));
+        } catch (IOException | RuntimeException e) {
+            // Usually a log whose first event is not written yet; the next change retries
+            logger.debug("Cannot catalog {}: {}", logFile, e.getMessage());
+            remove(fileName);
+        }
+    }
+
+    private static Entry toEntry(String fileName, GameLogReader.LogSummary summary, long size, Instant lastModified) {
+        JsonNode started = summary.gameStarted();
+        JsonNode ended = summary.gameEnded();
+        Status status = Status.INCOMPLETE;
+        Integer winnerIndex = null;
+        String winnerReason = null;
+        Map<Integer, Integer> finalScores = Map.of();
+        if (ended != null) {
+            winnerReason = ended.path("winnerReason").asText(null);
+            status = "Aborted".equals(winnerReason) ? Status.ABORTED : Status.FINISHED;
+            winnerIndex = ended.path("winnerIndex").isInt() ? ended.get("winnerIndex").asInt() : null;
+            Map<Integer, Integer> scores = new LinkedHashMap<>();
+            ended.path("finalScores").fields()
+                    .forEachRemaining(score -> scores.put(Integer.parseInt(score.getKey()), score.getValue().asInt()));
+            finalScores = scores;
+        }
+        TurnIndex.Totals totals = summary.totals();
+        return new Entry(fileName, summary.gameId(), started.path("player0Model").asText(null),
+                started.path("player1Model").asText(null), started.path("player0Name").asText(null),
+                started.path("player1Name").asText(null), status, summary.lastTurn(), winnerIndex, winnerReason,
+                finalScores, totals.player0Tokens().cost() + totals.player1Tokens().cost(), size, lastModified);
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.fileName(), entry);
+        names.add(entry.fileName());
+    }
+
+    private void remove(String fileName) {
+        names.remove(fileName);
+        entries.remove(fileName);
+    }
+
+    private void onGameEvent(String gameId, GameEvent event) {
+        String fileName = gameId + liveExtension;
+        switch (event) {
+            case GameStartedEvent started -> {
+                liveFiles.add(fileName);
+                put(new Entry(fileName, gameId, started.player0Model(), started.player1Model(),
+                        started.player0Name(), started.player1Name(), Status.RUNNING, 0, null, null, Map.of(), 0.0,
+                        0L, started.timestamp()));
+            }
+            case TurnStartedEvent turn -> entries.computeIfPresent(fileName,
+                    (name, entry) -> entry.withProgress(Math.max(entry.lastTurn(), turn.turn()), entry.cost()));
+            case ReasoningEvent reasoning -> entries.computeIfPresent(fileName,
+                    (name, entry) -> entry.withProgress(entry.lastTurn(), entry.cost()
+                            + (reasoning.tokenUsage() != null ? reasoning.tokenUsage().cost() : 0.0)));
+            case GameEndedEvent ended -> {
+                entries.computeIfPresent(fileName, (name, entry) -> new Entry(name, gameId, entry.player0Model(),
+                        entry.player1Model(), entry.player0Name(), entry.player1Name(),
+                        "Aborted".equals(ended.winnerReason()) ? Status.ABORTED : Status.FINISHED,
+                        entry.lastTurn(), ended.winnerIndex(), ended.winnerReason(),
+                        ended.finalScores() != null ? Map.copyOf(ended.finalScores()) : Map.of(), entry.cost(),
+                        entry.sizeBytes(), entry.lastModified()));
+                // The watcher re-reads the complete file from now on
+                liveFiles.remove(fileName);
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * A match whose events stopped without GameEnded (an exception in the simulator, a lost
+     * worker) is no longer running: its log is read again, and is INCOMPLETE unless it ended.
+     */
+    private void onStreamEnd(String gameId) {
+        String fileName = gameId + liveExtension;
+        if (!liveFiles.remove(fileName)) {
+            // Ended with GameEnded, or never started
+            return;
+        }
+        Path logFile = logsDir.resolve(fileName);
+        if (Files.isRegularFile(logFile)) {
+            refresh(logFile);
+        } else {
+            // Written elsewhere, e.g. by a worker with its own logs directory
+            entries.computeIfPresent(fileName, (name, entry) -> entry.status() == Status.RUNNING
+                    ? entry.withStatus(Status.INCOMPLETE) : entry);
+        }
+    }
+
+    private void watch() {
+        WatchService watcher = watchService;
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Set<String> changed = new HashSet<>();
+                boolean overflow = false;
+                // Collect the burst of events of a write or rename before applying it. Only log
+                // changes extend the quiet period (checkpoints, indexes and temp files do not),
+                // and a burst is applied after MAX_BURST_MS even if the logs keep changing.
+                long now = System.nanoTime();
+                long applyBy = now + TimeUnit.MILLISECONDS.toNanos(MAX_BURST_MS);
+                long quietUntil = now + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MS);
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (event.context() instanceof Path name
+                                && GameLogReader.isLogFileName(name.toString())) {
+                            changed.add(name.toString());
+                            quietUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MS);
+                        }
+                    }
+                    key.reset();
+                    long wait = Math.min(quietUntil, applyBy) - System.nanoTime();
+                    key = wait > 0 ? watcher.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+                if (overflow) {
+                    rescan();
+                } else {
+                    changed.forEach(name -> refresh(logsDir.resolve(name)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Log watcher closed");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.ConversationConfig;
+import com.aisplendor.config.DynamicReasoningConfig;
+import com.aisplendor.config.ReasoningConfig;
+import com.aisplendor.config.StageConfig;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.util.BinaryEventCodec;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Snapshot of a running match taken after every applied action, stored next to the log as
+ * logs/{gameId}.ckpt. It holds everything needed to continue the match without reading the
+ * log: the exact state (including deck order, the only randomness of a game), accumulated
+ * time and tokens, the players' conversation memory and the match settings.
+ *
+ * The file is an 8-byte magic, the codec dictionary fingerprint and a single
+ * {@link BinaryEventCodec} record. It is written to a temporary file, forced to disk and
+ * renamed over the previous checkpoint, so a crash leaves either the old or the new one.
+ *
+ * @param gameId              Game the checkpoint belongs to
+ * @param savedAtMs           Epoch millis of the write
+ * @param settings            Match settings
+ * @param state               State before the next move
+ * @param player0TimeMs       Accumulated thinking time of player 0
+ * @param player1TimeMs       Accumulated thinking time of player 1
+ * @param player0Tokens       Accumulated token usage of player 0
+ * @param player1Tokens       Accumulated token usage of player 1
+ * @param player0Conversation Conversation memory of player 0 (null outside conversation mode)
+ * @param player1Conversation Conversation memory of player 1 (null outside conversation mode)
+ */
+public record MatchCheckpoint(String gameId, long savedAtMs, Settings settings, GameState state,
+        long player0TimeMs, long player1TimeMs, TokenUsage player0Tokens, TokenUsage player1Tokens,
+        OpenRouterService.ConversationSnapshot player0Conversation,
+        OpenRouterService.ConversationSnapshot player1Conversation) {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchCheckpoint.class);
+
+    public static final String EXTENSION = ".ckpt";
+    public static final String RESUMED_EXTENSION = ".resumed";
+    private static final byte[] MAGIC = "AISCKP01".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Settings a match was started with, so a resumed match plays on with the same ones.
+     */
+    public record Settings(String player0Model, String player1Model, String player0Name, String player1Name,
+            Reasoning player0Reasoning, Reasoning player1Reasoning, int memorySize0, int memorySize1,
+            boolean debugMode, String promptCachingSetting, StageConfig stageConfig,
+            ConversationConfig conversationConfig, double player0InputCost, double player0OutputCost,
+            double player1InputCost, double player1OutputCost) {
+    }
+
+    /**
+     * Storable form of a {@link DynamicReasoningConfig}.
+     */
+    public record Reasoning(boolean dynamic, String phases, ReasoningConfig staticConfig) {
+
+        public static Reasoning of(DynamicReasoningConfig config) {
+            return config != null ? new Reasoning(config.isDynamic(), config.getPhases(), config.getStaticConfig())
+                    : new Reasoning(false, null, ReasoningConfig.disabled());
+        }
+
+        public DynamicReasoningConfig toConfig() {
+            return new DynamicReasoningConfig(dynamic, phases, staticConfig);
+        }
+    }
+
+    /**
+     * @return Checkpoint file of a game in the given logs directory
+     */
+    public static Path pathFor(Path logsDir, String gameId) {
+        return logsDir.resolve(gameId + EXTENSION);
+    }
+
+    /**
+     * @return Checkpoint file belonging to a log file in any format
+     */
+    public static Path pathForLog(Path logFile) {
+        String name = logFile.getFileName().toString();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        int dot = name.lastIndexOf('.');
+        return logFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + EXTENSION);
+    }
+
+    /**
+     * Records that the game of a log is continued by another game, so startup recovery does
+     * not pick the interrupted log up again. The marker {gameId}.resumed holds the new game ID.
+     */
+    public static void markResumed(Path logFile, String newGameId) throws IOException {
+        Files.writeString(resumedMarkerFor(logFile), newGameId + "\n", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Whether the game of a log was resumed as another game
+     */
+    public static boolean isResumed(Path logFile) {
+        return Files.exists(resumedMarkerFor(logFile));
+    }
+
+    private static Path resumedMarkerFor(Path logFile) {
+        String checkpoint = pathForLog(logFile).getFileName().toString();
+        return logFile.resolveSibling(checkpoint.substring(0, checkpoint.length() - EXTENSION.length())
+                + RESUMED_EXTENSION);
+    }
+
+    /**
+     * Atomically replaces the checkpoint file with this checkpoint.
+     */
+    public void write(Path file) throws IOException {
+        byte[] record = BinaryEventCodec.encodeRecord(objectMapper.valueToTree(this));
+        ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + 4 + record.length)
+                .put(MAGIC)
+                .putInt(BinaryEventCodec.dictionaryFingerprint())
+                .put(record)
+                .flip();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @throws IOException if the file is not a checkpoint or was written with a different dictionary
+     */
+    public static MatchCheckpoint read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            DataInputStream in = new DataInputStream(stream);
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a match checkpoint: " + file);
+            }
+            if (in.readInt() != BinaryEventCodec.dictionaryFingerprint()) {
+                throw new IOException("Match checkpoint " + file + " was written with a different dictionary");
+            }
+            JsonNode node = new BinaryEventLog.Reader(file, in, false).next();
+            if (node == null) {
+                throw new IOException("Truncated match checkpoint: " + file);
+            }
+            return objectMapper.treeToValue(node, MatchCheckpoint.class);
+        }
+    }
+
+    /**
+     * Loads the checkpoint of a log for resuming.
+     *
+     * @return The checkpoint, or null when there is none or it cannot be used (the caller
+     *         falls back to reading the log)
+     */
+    public static MatchCheckpoint loadForLog(Path logFile) {
+        Path file = pathForLog(logFile);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            MatchCheckpoint checkpoint = read(file);
+            if (checkpoint.state() == null || checkpoint.settings() == null) {
+                logger.warn("Ignoring incomplete match checkpoint {}", file);
+                return null;
+            }
+            return checkpoint;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable match checkpoint {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.ConversationConfig;
+import com.aisplendor.config.DynamicReasoningConfig;
+import com.aisplendor.config.GameConfig;
+import com.aisplendor.config.StageConfig;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.GameState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * A match to play: a new one from its settings and seed, or the continuation of a log under a
+ * new game ID. It holds no live objects, so it can be played in the server JVM or sent to a
+ * worker process as JSON (see {@link MatchWorkerPool}).
+ *
+ * @param gameId         Game to play
+ * @param apiKey         OpenRouter API key, null for the player's OPENROUTER_API_KEY; never sent to workers
+ * @param settings       Match settings
+ * @param seed           Seed of the initial deal, null for a random one (new matches only)
+ * @param resumeFrom     Log continued by this game, null for a new match
+ * @param originalGameId Game of that log, null for a new match
+ */
+public record MatchJob(String gameId, String apiKey, MatchCheckpoint.Settings settings, Long seed,
+        String resumeFrom, String originalGameId) {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchJob.class);
+
+    public static MatchJob start(String gameId, String apiKey, MatchCheckpoint.Settings settings, Long seed) {
+        return new MatchJob(gameId, apiKey, settings, seed, null, null);
+    }
+
+    /**
+     * Describes the continuation of a log under a new game ID. The log's checkpoint provides the
+     * exact match settings; without one the log is parsed and the settings come from the default
+     * configuration.
+     */
+    public static MatchJob resume(Path logFile, String apiKey) throws IOException {
+        MatchCheckpoint checkpoint = MatchCheckpoint.loadForLog(logFile);
+        if (checkpoint != null) {
+            MatchCheckpoint.Settings settings = checkpoint.settings();
+            logger.info("Resuming {} from its checkpoint (turn {})", checkpoint.gameId(),
+                    checkpoint.state().turnNumber());
+            return new MatchJob(GameSimulator.resumedGameId(settings.player0Model(), settings.player1Model(),
+                    settings.player0Reasoning().toConfig(), settings.player1Reasoning().toConfig()), apiKey,
+                    settings, null, logFile.toString(), checkpoint.gameId());
+        }
+        GameLogReader.ResumeData resumeData = new GameLogReader().parseLogForResume(logFile);
+        GameConfig config = new GameConfig();
+        DynamicReasoningConfig dynamicReasoning0 = config.getDynamicReasoningConfig(0);
+        DynamicReasoningConfig dynamicReasoning1 = config.getDynamicReasoningConfig(1);
+        // Standard config values as per GameSimulator.resumeGame
+        MatchCheckpoint.Settings settings = new MatchCheckpoint.Settings(resumeData.player0Model(),
+                resumeData.player1Model(), resumeData.player0Name(), resumeData.player1Name(),
+                MatchCheckpoint.Reasoning.of(dynamicReasoning0), MatchCheckpoint.Reasoning.of(dynamicReasoning1),
+                config.getPlayerMemorySize(0), config.getPlayerMemorySize(1), config.isDebugMode(),
+                config.getPromptCachingSetting(), StageConfig.none(), config.getConversationConfig(),
+                resumeData.player0InputCost(), resumeData.player0OutputCost(),
+                resumeData.player1InputCost(), resumeData.player1OutputCost());
+        return new MatchJob(GameSimulator.resumedGameId(resumeData.player0Model(), resumeData.player1Model(),
+                dynamicReasoning0, dynamicReasoning1), apiKey, settings, null, logFile.toString(),
+                resumeData.originalGameId());
+    }
+
+    public boolean isResume() {
+        return resumeFrom != null;
+    }
+
+    /**
+     * Plays the match on the calling thread until it ends or the thread is interrupted.
+     *
+     * @param publisher Publisher of the match's events
+     */
+    public void play(GameEventPublisher publisher) throws IOException {
+        String key = apiKey != null ? apiKey : System.getenv("OPENROUTER_API_KEY");
+        if (!isResume()) {
+            GameState initialState = GameSimulator.setupInitialState(seed != null ? new Random(seed) : new Random());
+            simulator(key, publisher).run(initialState, gameId, settings.player0Name(), settings.player1Name());
+            return;
+        }
+        Path logFile = Path.of(resumeFrom);
+        MatchCheckpoint checkpoint = MatchCheckpoint.loadForLog(logFile);
+        if (checkpoint != null) {
+            GameSimulator.fromCheckpoint(key, checkpoint, false, publisher).resume(checkpoint, gameId);
+            return;
+        }
+        GameLogReader.ResumeData resumeData = new GameLogReader().parseLogForResume(logFile);
+        simulator(key, publisher).run(resumeData.resumeState(), gameId, resumeData.player0Name(),
+                resumeData.player1Name(), resumeData.player0AccumulatedTimeMs(),
+                resumeData.player1AccumulatedTimeMs(), resumeData.player0AccumulatedTokens(),
+                resumeData.player1AccumulatedTokens());
+    }
+
+    private GameSimulator simulator(String key, GameEventPublisher publisher) {
+        return new GameSimulator(key, settings.player0Model(), settings.player1Model(),
+                settings.player0Reasoning().toConfig(), settings.player1Reasoning().toConfig(),
+                false, settings.debugMode(), settings.stageConfig(), settings.memorySize0(), settings.memorySize1(),
+                settings.promptCachingSetting(), settings.player0InputCost(), settings.player0OutputCost(),
+                settings.player1InputCost(), settings.player1OutputCost(), publisher,
+                settings.conversationConfig() != null ? settings.conversationConfig() : ConversationConfig.disabled());
+    }
+}
@@ -1,10 +1,15 @@
 package com.aisplendor.service;
 
+import com.aisplendor.config.ConversationConfig;
 import com.aisplendor.config.DynamicReasoningConfig;
-import com.aisplendor.config.GameConfig;
+import com.aisplendor.config.MatchRecoveryConfig;
 import com.aisplendor.config.StageConfig;
-import com.aisplendor.engine.GameSimulator;
-import com.aisplendor.model.GameState;
+import com.aisplendor.config.WorkerConfig;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,13 +18,20 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @Service
@@ -27,13 +39,38 @@ public class MatchManagerService {
     private static final Logger logger = LoggerFactory.getLogger(MatchManagerService.class);
 
     private final GameEventPublisher eventPublisher;
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    // Virtual threads: a match paused on a rate limiter or an open circuit breaker
+    // does not pin a platform thread
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
     private final Map<String, MatchInfo> matches = new ConcurrentHashMap<>();
     private final Map<String, Future<?>> activeTasks = new ConcurrentHashMap<>();
+    private final List<Consumer<MatchInfo>> lobbyListeners = new CopyOnWriteArrayList<>();
+    // Logs written after this point belong to matches of this process
+    private final Instant startedAt = Instant.now();
+    private final WorkerConfig workerConfig;
+    private final Path logsDir;
+    // Key of matches started without their own
+    private final String serverApiKey;
+    // Set once the workers' socket is open; matches are played in this JVM until then
+    private volatile MatchWorkerPool workerPool;
 
     @Autowired
     public MatchManagerService(GameEventPublisher eventPublisher) {
+        this(eventPublisher, WorkerConfig.fromEnvironment());
+    }
+
+    public MatchManagerService(GameEventPublisher eventPublisher, WorkerConfig workerConfig) {
+        this(eventPublisher, workerConfig, Path.of("logs"), System.getenv("OPENROUTER_API_KEY"));
+    }
+
+    MatchManagerService(GameEventPublisher eventPublisher, WorkerConfig workerConfig, Path logsDir,
+                        String serverApiKey) {
         this.eventPublisher = eventPublisher;
+        this.workerConfig = workerConfig;
+        this.logsDir = logsDir;
+        this.serverApiKey = serverApiKey;
+        // Turn progress for the lobby; a dropped turn is made up for by the next one
+        eventPublisher.registerListener("lobby", this::onGameEvent);
     }
 
     public synchronized String startMatch(String player0Model, String player1Model,
@@ -42,7 +79,8 @@ public class MatchManagerService {
                                          String apiKeyOverride, String promptCachingSetting,
                                          StageConfig stageConfig, String player0Name, String player1Name,
                                          double player0InputCost, double player0OutputCost,
-                                         double player1InputCost, double player1OutputCost) {
+                                         double player1InputCost, double player1OutputCost,
+                                         ConversationConfig conversationConfig, Long seed) {
         String slug0 = com.aisplendor.util.GameStateFormatter.getModelSlug(player0Model);
         String slug1 = com.aisplendor.util.GameStateFormatter.getModelSlug(player1Model);
         String r0 = com.aisplendor.util.GameStateFormatter.getReasoningLevelSuffix(reasoning0);
@@ -52,7 +90,7 @@ public class MatchManagerService {
         
         String apiKey = (apiKeyOverride != null && !apiKeyOverride.isBlank()) 
                 ? apiKeyOverride 
-                : System.getenv("OPENROUTER_API_KEY");
+                : serverApiKey;
 
         if (apiKey == null || apiKey.isBlank()) {
             throw new IllegalArgumentException("API Key is not configured (neither via environment nor override)");
@@ -61,38 +99,30 @@ public class MatchManagerService {
         String displayName0 = (player0Name != null && !player0Name.isBlank()) ? player0Name : player0Model;
         String displayName1 = (player1Name != null && !player1Name.isBlank()) ? player1Name : player1Model;
 
-        MatchInfo info = new MatchInfo(gameId, displayName0, displayName1, "RUNNING", Instant.now());
+        MatchInfo info = new MatchInfo(gameId, displayName0, displayName1, MatchInfo.Status.RUNNING, Instant.now());
         matches.put(gameId, info);
+        changed(info);
 
+        MatchJob job = MatchJob.start(gameId, keyForJob(apiKey), new MatchCheckpoint.Settings(player0Model,
+                player1Model, displayName0, displayName1, MatchCheckpoint.Reasoning.of(reasoning0),
+                MatchCheckpoint.Reasoning.of(reasoning1), memory0, memory1, debugMode, promptCachingSetting,
+                stageConfig, conversationConfig, player0InputCost, player0OutputCost, player1InputCost,
+                player1OutputCost), seed);
         Future<?> future = executorService.submit(() -> {
             try {
                 logger.info("Starting simulation match: {}", gameId);
-                GameSimulator simulator = new GameSimulator(
-                        apiKey, player0Model, player1Model,
-                        reasoning0, reasoning1,
-                        false, debugMode,
-                        stageConfig, memory0, memory1,
-                        promptCachingSetting,
-                        player0InputCost, player0OutputCost,
-                        player1InputCost, player1OutputCost,
-                        eventPublisher
-                );
-                
-                GameState initialState = GameSimulator.setupInitialState();
-                simulator.run(initialState, gameId, displayName0, displayName1);
-                
-                synchronized (this) {
-                    if (!"ABORTED".equals(info.getStatus())) {
-                        info.setStatus("COMPLETED");
-                    }
-                }
+                play(job);
+
+                transition(info, MatchInfo.Status.COMPLETED);
                 logger.info("Match {} completed successfully", gameId);
+            } catch (MatchWorkerPool.WorkerLostException e) {
+                transition(info, MatchInfo.Status.FAILED);
+                resumeLost(job, 0, e);
+            } catch (InterruptedException e) {
+                // Aborted
+                Thread.currentThread().interrupt();
             } catch (Exception e) {
-                synchronized (this) {
-                    if (!"ABORTED".equals(info.getStatus())) {
-                        info.setStatus("FAILED");
-                    }
-                }
+                transition(info, MatchInfo.Status.FAILED);
                 logger.error("Match " + gameId + " failed with error: ", e);
             } finally {
                 activeTasks.remove(gameId);
@@ -103,112 +133,345 @@ public class MatchManagerService {
         return gameId;
     }
 
-    public synchronized String resumeMatch(String logFileName, String apiKeyOverride) {
+    /**
+     * Plays a match on a worker process if there are workers, in this JVM otherwise. Matches with
+     * their own API key always stay in this JVM, as keys are never sent to workers.
+     */
+    private void play(MatchJob job) throws IOException, InterruptedException {
+        MatchWorkerPool pool = workerPool;
+        if (pool != null && job.apiKey() == null) {
+            pool.play(job);
+        } else {
+            job.play(eventPublisher);
+        }
+    }
+
+    /**
+     * Continues a match whose worker was lost from its log, unless it was resumed too often.
+     *
+     * @param resumes Times the match has been resumed after losing a worker so far
+     */
+    private void resumeLost(MatchJob job, int resumes, Exception cause) {
+        logger.warn("Match {} lost its worker: {}", job.gameId(), cause.getMessage());
+        if (resumes >= workerConfig.maxResumes()) {
+            logger.error("Match {} is not resumed again after {} lost workers", job.gameId(), resumes + 1);
+            return;
+        }
+        Path logFile = findLog(job.gameId());
+        if (logFile == null) {
+            logger.error("Match {} cannot be resumed, its log was not found", job.gameId());
+            return;
+        }
+        try {
+            String apiKey = job.apiKey() != null ? job.apiKey() : serverApiKey;
+            logger.info("Match {} resumed as {}", job.gameId(), resume(logFile, apiKey, null, resumes + 1));
+        } catch (RuntimeException e) {
+            logger.error("Failed to resume match {} after losing its worker: {}", job.gameId(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return The log of a game in any format, null if there is none
+     */
+    private Path findLog(String gameId) {
+        for (String extension : List.of(".json", ".json.gz", BinaryEventLog.EXTENSION,
+                BinaryEventLog.EXTENSION + ".gz")) {
+            Path logFile = logsDir.resolve(gameId + extension);
+            if (Files.exists(logFile)) {
+                return logFile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keys equal to the environment's are left out of jobs: workers read their own. A job that
+     * still has a key, from a per-match override, is played in this process.
+     */
+    private String keyForJob(String apiKey) {
+        return apiKey != null && apiKey.equals(serverApiKey) ? null : apiKey;
+    }
+
+    public String resumeMatch(String logFileName, String apiKeyOverride) {
         // Find log file
-        Path logFile = Path.of("logs").resolve(logFileName);
+        Path logFile = logsDir.resolve(logFileName);
         if (!Files.exists(logFile)) {
             throw new IllegalArgumentException("Log file not found: " + logFileName);
         }
 
         String apiKey = (apiKeyOverride != null && !apiKeyOverride.isBlank())
                 ? apiKeyOverride
-                : System.getenv("OPENROUTER_API_KEY");
+                : serverApiKey;
 
         if (apiKey == null || apiKey.isBlank()) {
             throw new IllegalArgumentException("API Key is not configured");
         }
 
+        return resume(logFile, apiKey, null, 0);
+    }
+
+    /**
+     * Continues the game of a log under a new game ID. The checkpoint restores the exact
+     * match settings and memory without reading the log; without one the log is parsed and
+     * the settings come from the default configuration.
+     *
+     * @param admission Permits limiting concurrently played matches, or null to start at once
+     * @param resumes   Times the match has been resumed after losing a worker so far
+     */
+    private String resume(Path logFile, String apiKey, Semaphore admission, int resumes) {
+        MatchJob job;
         try {
-            GameLogReader reader = new GameLogReader();
-            GameLogReader.ResumeData resumeData = reader.parseLogForResume(logFile);
-            
-            GameConfig config = new GameConfig();
-            DynamicReasoningConfig dynamicReasoning0 = config.getDynamicReasoningConfig(0);
-            DynamicReasoningConfig dynamicReasoning1 = config.getDynamicReasoningConfig(1);
-
-            String slug0 = com.aisplendor.util.GameStateFormatter.getModelSlug(resumeData.player0Model());
-            String slug1 = com.aisplendor.util.GameStateFormatter.getModelSlug(resumeData.player1Model());
-            String r0 = com.aisplendor.util.GameStateFormatter.getReasoningLevelSuffix(dynamicReasoning0);
-            String r1 = com.aisplendor.util.GameStateFormatter.getReasoningLevelSuffix(dynamicReasoning1);
-            String timestamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyMMdd_HHmmss"));
-            String newGameId = slug0 + "-" + r0 + "_" + slug1 + "-" + r1 + "-" + timestamp + "_resumed";
-            
-            MatchInfo info = new MatchInfo(
-                    newGameId, 
-                    resumeData.player0Name(), 
-                    resumeData.player1Name(), 
-                    "RUNNING", 
-                    Instant.now()
-            );
-            matches.put(newGameId, info);
-
-            Future<?> future = executorService.submit(() -> {
-                try {
-                    logger.info("Resuming simulation match {} -> {}", resumeData.originalGameId(), newGameId);
-                    
-                    // Standard config values as per GameSimulator.resumeGame
-                    boolean debugMode = config.isDebugMode();
-                    int memorySize0 = config.getPlayerMemorySize(0);
-                    int memorySize1 = config.getPlayerMemorySize(1);
-                    String promptCachingSetting = config.getPromptCachingSetting();
-
-                    GameSimulator simulator = new GameSimulator(
-                            apiKey,
-                            resumeData.player0Model(),
-                            resumeData.player1Model(),
-                            dynamicReasoning0,
-                            dynamicReasoning1,
-                            false,
-                            debugMode,
-                            StageConfig.none(),
-                            memorySize0,
-                            memorySize1,
-                            promptCachingSetting,
-                            resumeData.player0InputCost(),
-                            resumeData.player0OutputCost(),
-                            resumeData.player1InputCost(),
-                            resumeData.player1OutputCost(),
-                            eventPublisher
-                    );
-
-                    simulator.run(
-                            resumeData.resumeState(), 
-                            newGameId,
-                            resumeData.player0Name(), 
-                            resumeData.player1Name(),
-                            resumeData.player0AccumulatedTimeMs(), 
-                            resumeData.player1AccumulatedTimeMs()
-                    );
-
-                    synchronized (this) {
-                        if (!"ABORTED".equals(info.getStatus())) {
-                            info.setStatus("COMPLETED");
-                        }
-                    }
-                    logger.info("Resumed match {} completed successfully", newGameId);
-                } catch (Exception e) {
-                    synchronized (this) {
-                        if (!"ABORTED".equals(info.getStatus())) {
-                            info.setStatus("FAILED");
-                        }
+            // Reading the checkpoint or log can take a while, so it is done outside the lock
+            job = MatchJob.resume(logFile, keyForJob(apiKey));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read log file for resume: " + logFile.getFileName(), e);
+        }
+        return launchResumed(logFile, job, admission, resumes);
+    }
+
+    private synchronized String launchResumed(Path logFile, MatchJob job, Semaphore admission, int resumes) {
+        String newGameId = job.gameId();
+        MatchInfo info = new MatchInfo(newGameId, job.settings().player0Name(), job.settings().player1Name(),
+                admission != null ? MatchInfo.Status.QUEUED : MatchInfo.Status.RUNNING, Instant.now(),
+                logFile.getFileName().toString());
+        matches.put(newGameId, info);
+        changed(info);
+
+        Future<?> future = executorService.submit(() -> {
+            boolean admitted = false;
+            try {
+                if (admission != null) {
+                    admission.acquire();
+                    admitted = true;
+                    if (!transition(info, MatchInfo.Status.RUNNING)) {
+                        return;
                     }
-                    logger.error("Resumed match " + newGameId + " failed with error: ", e);
-                } finally {
-                    activeTasks.remove(newGameId);
                 }
-            });
-            activeTasks.put(newGameId, future);
+                MatchCheckpoint.markResumed(logFile, newGameId);
+                logger.info("Resuming simulation match {} -> {}", job.originalGameId(), newGameId);
+                play(job);
+
+                transition(info, MatchInfo.Status.COMPLETED);
+                logger.info("Resumed match {} completed successfully", newGameId);
+            } catch (MatchWorkerPool.WorkerLostException e) {
+                transition(info, MatchInfo.Status.FAILED);
+                resumeLost(job, resumes, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                transition(info, MatchInfo.Status.FAILED);
+                logger.error("Resumed match " + newGameId + " failed with error: ", e);
+            } finally {
+                if (admitted) {
+                    admission.release();
+                }
+                activeTasks.remove(newGameId);
+            }
+        });
+        activeTasks.put(newGameId, future);
+
+        return newGameId;
+    }
+
+    /**
+     * Opens the socket for match workers, if configured, then recovers interrupted matches.
+     */
+    @PostConstruct
+    void init() {
+        if (workerConfig.isEnabled()) {
+            MatchWorkerPool pool = new MatchWorkerPool(workerConfig, eventPublisher);
+            try {
+                pool.start();
+                workerPool = pool;
+                if (workerConfig.workers() == 0) {
+                    logger.warn("No match workers are started: matches wait for workers to connect to {}",
+                            pool.getAddress());
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to start the match workers, playing matches in this process: {}",
+                        e.getMessage());
+                pool.close();
+            }
+        }
+        recoverOnStartup();
+    }
+
+    @PreDestroy
+    void closeWorkers() {
+        MatchWorkerPool pool = workerPool;
+        if (pool != null) {
+            workerPool = null;
+            pool.close();
+        }
+    }
+
+    /**
+     * @return Address workers connect to, null while matches are played in this process
+     */
+    String getWorkerAddress() {
+        MatchWorkerPool pool = workerPool;
+        return pool != null ? pool.getAddress() : null;
+    }
+
+    /**
+     * Recovers the matches a crash or restart left without a GameEnded event, in the background.
+     */
+    void recoverOnStartup() {
+        MatchRecoveryConfig config = MatchRecoveryConfig.fromEnvironment();
+        if (config.policy() == MatchRecoveryConfig.Policy.OFF) {
+            return;
+        }
+        executorService.submit(() -> recoverInterruptedMatches(logsDir, config, serverApiKey));
+    }
 
-            return newGameId;
+    /**
+     * Scans the logs in parallel for interrupted matches and applies the recovery policy:
+     * recent ones are resumed (most recent first, at most maxConcurrent at a time) under
+     * {@link MatchRecoveryConfig.Policy#RESUME}, all others are listed as INTERRUPTED.
+     * Logs that were already resumed, and logs written since this service started, are skipped.
+     *
+     * @return The match entries created, one per interrupted log
+     */
+    public List<MatchInfo> recoverInterruptedMatches(Path logsDir, MatchRecoveryConfig config, String apiKey) {
+        if (config.policy() == MatchRecoveryConfig.Policy.OFF || !Files.isDirectory(logsDir)) {
+            return List.of();
+        }
+        List<Path> logFiles;
+        try (Stream<Path> stream = Files.list(logsDir)) {
+            logFiles = stream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> GameLogReader.isLogFileName(path.getFileName().toString()))
+                    .toList();
         } catch (IOException e) {
-            throw new RuntimeException("Failed to read log file for resume: " + logFileName, e);
+            logger.error("Failed to list logs for recovery", e);
+            return List.of();
+        }
+
+        long scanStart = System.currentTimeMillis();
+        List<Callable<Interrupted>> scans = logFiles.stream()
+                .<Callable<Interrupted>>map(logFile -> () -> findInterrupted(logFile))
+                .toList();
+        List<Interrupted> interrupted = new ArrayList<>();
+        try {
+            for (Future<Interrupted> scan : executorService.invokeAll(scans)) {
+                try {
+                    if (scan.get() != null) {
+                        interrupted.add(scan.get());
+                    }
+                } catch (ExecutionException e) {
+                    logger.warn("Skipping unreadable log during recovery: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+        interrupted.sort(Comparator.comparing(Interrupted::lastModified).reversed());
+        logger.info("Recovery scanned {} logs in {} ms: {} interrupted matches", logFiles.size(),
+                System.currentTimeMillis() - scanStart, interrupted.size());
+
+        boolean resume = config.policy() == MatchRecoveryConfig.Policy.RESUME;
+        if (resume && (apiKey == null || apiKey.isBlank())) {
+            logger.warn("OPENROUTER_API_KEY is not set, interrupted matches are only listed");
+            resume = false;
         }
+        Instant resumeCutoff = config.maxAgeHours() > 0
+                ? Instant.ofEpochMilli(scanStart).minus(Duration.ofHours(config.maxAgeHours()))
+                : Instant.MIN;
+        Semaphore admission = new Semaphore(config.maxConcurrent());
+        List<MatchInfo> recovered = new ArrayList<>();
+        for (Interrupted match : interrupted) {
+            if (resume && !match.lastModified().isBefore(resumeCutoff)) {
+                try {
+                    recovered.add(matches.get(resume(match.logFile(), apiKey, admission, 0)));
+                    continue;
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to resume interrupted match {}: {}", match.gameId(), e.getMessage());
+                }
+            }
+            MatchInfo info = new MatchInfo(match.gameId(), match.player0Name(), match.player1Name(),
+                    MatchInfo.Status.INTERRUPTED, match.lastModified(), match.logFile().getFileName().toString());
+            if (matches.putIfAbsent(match.gameId(), info) == null) {
+                recovered.add(info);
+                changed(info);
+            }
+        }
+        return recovered;
+    }
+
+    private record Interrupted(Path logFile, String gameId, String player0Name, String player1Name,
+            Instant lastModified) {
+    }
+
+    private Interrupted findInterrupted(Path logFile) throws IOException {
+        Instant lastModified = Files.getLastModifiedTime(logFile).toInstant();
+        if (!lastModified.isBefore(startedAt) || MatchCheckpoint.isResumed(logFile)) {
+            return null;
+        }
+        GameLogReader.LogSummary summary = GameLogReader.summarize(logFile);
+        if (summary.isEnded() || matches.containsKey(summary.gameId())) {
+            return null;
+        }
+        JsonNode gameStarted = summary.gameStarted();
+        return new Interrupted(logFile, summary.gameId(), gameStarted.path("player0Name").asText(null),
+                gameStarted.path("player1Name").asText(null), lastModified);
     }
 
     public List<MatchInfo> getMatches() {
         return new ArrayList<>(matches.values());
     }
 
+    /**
+     * Registers a listener called after every lobby change: a new match, a status transition or
+     * a new turn. Calls for different matches may run concurrently and out of version order.
+     */
+    public void addLobbyListener(Consumer<MatchInfo> listener) {
+        lobbyListeners.add(listener);
+    }
+
+    private boolean transition(MatchInfo info, MatchInfo.Status next) {
+        if (!info.transition(next)) {
+            return false;
+        }
+        changed(info);
+        return true;
+    }
+
+    private void changed(MatchInfo info) {
+        for (Consumer<MatchInfo> listener : lobbyListeners) {
+            try {
+                listener.accept(info);
+            } catch (RuntimeException e) {
+                logger.warn("Lobby listener failed for match {}: {}", info.getGameId(), e.getMessage());
+            }
+        }
+    }
+
+    private void onGameEvent(String gameId, SerializedEvent event) {
+        if (event.event() instanceof TurnStartedEvent turn) {
+            MatchInfo info = matches.get(gameId);
+            if (info != null && info.advance(turn.turn())) {
+                changed(info);
+            }
+        }
+    }
+
+    /**
+     * @return Whether the match is currently being played, i.e. its log is still growing
+     */
+    public boolean isRunning(String gameId) {
+        MatchInfo info = matches.get(gameId);
+        return info != null && info.status() == MatchInfo.Status.RUNNING;
+    }
+
+    /**
+     * @return Whether the match is queued or being played, i.e. more events will be published for it
+     */
+    public boolean isLive(String gameId) {
+        MatchInfo info = matches.get(gameId);
+        return info != null && !info.status().isFinal();
+    }
+
     public synchronized boolean abortMatch(String gameId) {
         MatchInfo info = matches.get(gameId);
         if (info == null) {
@@ -216,12 +479,11 @@ public class MatchManagerService {
             return false;
         }
 
-        if (!"RUNNING".equals(info.getStatus())) {
+        if (!transition(info, MatchInfo.Status.ABORTED)) {
             logger.warn("Attempted to abort match {} that is not running (status: {})", gameId, info.getStatus());
             return false;
         }
 
-        info.setStatus("ABORTED");
         Future<?> future = activeTasks.remove(gameId);
         if (future != null) {
             future.cancel(true);
@@ -233,45 +495,115 @@ public class MatchManagerService {
         }
     }
 
-    public List<String> getLogs() {
-        Path logsDir = Path.of("logs");
-        if (!Files.exists(logsDir)) {
-            return Collections.emptyList();
+    /**
+     * A match as listed in the lobby. Its status only moves along {@link Status#canMoveTo}, via
+     * compare-and-set, so concurrent completion and abort cannot both win. Every change gets a
+     * new version from a process-wide counter: clients keep the highest version seen per match
+     * and ignore older updates, however they were delivered.
+     */
+    public static class MatchInfo {
+        private static final AtomicLong versions = new AtomicLong();
+
+        public enum Status {
+            QUEUED, RUNNING, COMPLETED, FAILED, ABORTED, INTERRUPTED;
+
+            public boolean canMoveTo(Status next) {
+                return switch (this) {
+                    case QUEUED -> next == RUNNING || next == ABORTED;
+                    case RUNNING -> next == COMPLETED || next == FAILED || next == ABORTED;
+                    default -> false;
+                };
+            }
+
+            public boolean isFinal() {
+                return this != QUEUED && this != RUNNING;
+            }
         }
-        try (Stream<Path> stream = Files.list(logsDir)) {
-            return stream
-                    .filter(Files::isRegularFile)
-                    .map(Path::getFileName)
-                    .map(Path::toString)
-                    .filter(name -> name.endsWith(".json"))
-                    .sorted(Comparator.reverseOrder())
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            logger.error("Failed to list log files", e);
-            return Collections.emptyList();
+
+        private record State(Status status, int turn, long version) {
+        }
+
+        /**
+         * Consistent copy of a match, as serialized: status, turn and version always come from
+         * the same state, so a client never sees one change's status with another's version.
+         */
+        public record View(String gameId, String player0Model, String player1Model, String status, int turn,
+                long version, Instant startTime, String logFile) {
         }
-    }
 
-    public static class MatchInfo {
         private final String gameId;
         private final String player0Model;
         private final String player1Model;
-        private String status;
+        private final AtomicReference<State> state;
         private final Instant startTime;
+        private final String logFile;
+
+        public MatchInfo(String gameId, String player0Model, String player1Model, Status status, Instant startTime) {
+            this(gameId, player0Model, player1Model, status, startTime, null);
+        }
 
-        public MatchInfo(String gameId, String player0Model, String player1Model, String status, Instant startTime) {
+        /**
+         * @param logFile Log the match was resumed or recovered from, null for new matches
+         */
+        public MatchInfo(String gameId, String player0Model, String player1Model, Status status, Instant startTime,
+                String logFile) {
             this.gameId = gameId;
             this.player0Model = player0Model;
             this.player1Model = player1Model;
-            this.status = status;
+            this.state = new AtomicReference<>(new State(status, 0, versions.incrementAndGet()));
             this.startTime = startTime;
+            this.logFile = logFile;
+        }
+
+        /**
+         * Moves the match to a new status.
+         *
+         * @return false if the current status does not allow it, e.g. the match was aborted meanwhile
+         */
+        public boolean transition(Status next) {
+            while (true) {
+                State current = state.get();
+                if (!current.status().canMoveTo(next)) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(next, current.turn(), versions.incrementAndGet()))) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Records the turn a running match has reached.
+         *
+         * @return false if the match is not running or already past that turn
+         */
+        public boolean advance(int turn) {
+            while (true) {
+                State current = state.get();
+                if (current.status() != Status.RUNNING || turn <= current.turn()) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(current.status(), turn, versions.incrementAndGet()))) {
+                    return true;
+                }
+            }
+        }
+
+        @JsonValue
+        public View view() {
+            State current = state.get();
+            return new View(gameId, player0Model, player1Model, current.status().name(), current.turn(),
+                    current.version(), startTime, logFile);
         }
 
         public String getGameId() { return gameId; }
         public String getPlayer0Model() { return player0Model; }
         public String getPlayer1Model() { return player1Model; }
-        public String getStatus() { return status; }
-        public void setStatus(String status) { this.status = status; }
+        public String getStatus() { return state.get().status().name(); }
+        public Status status() { return state.get().status(); }
+        public int getTurn() { return state.get().turn(); }
+        public long getVersion() { return state.get().version(); }
         public Instant getStartTime() { return startTime; }
+        public String getLogFile() { return logFile; }
     }
 }
@@ -0,0 +1,167 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.WorkerConfig;
+import com.aisplendor.model.event.GameEvent;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Worker process side of {@link MatchWorkerPool}: connects to the coordinator, presents the shared
+ * secret, announces how many matches it plays at once and plays the jobs it is sent, each on its own virtual thread. Logs
+ * and checkpoints are written to the worker's logs/ directory as in the server; every logged or
+ * published event is also sent to the coordinator, which publishes it to spectators.
+ *
+ * Events are sent synchronously by the match thread, so none is dropped and a slow coordinator
+ * slows the match down rather than growing a queue. The worker exits when the coordinator goes
+ * away.
+ */
+public class MatchWorker {
+    private static final Logger logger = LoggerFactory.getLogger(MatchWorker.class);
+
+    private final String workerId;
+    private final int slots;
+    private final String secret;
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Map<String, Thread> matches = new ConcurrentHashMap<>();
+    private final GameEventPublisher forwarder = new ForwardingPublisher();
+
+    /**
+     * Sends every event to the coordinator instead of dispatching it to listeners.
+     */
+    private class ForwardingPublisher extends GameEventPublisher {
+        @Override
+        public SerializedEvent publish(String gameId, GameEvent event, long logIndex) {
+            SerializedEvent serialized = SerializedEvent.of(event, -1, logIndex);
+            try {
+                send(WorkerProtocol.eventFrame(gameId, serialized));
+            } catch (IOException e) {
+                logger.error("Failed to send event of {} to the coordinator: {}", gameId, e.getMessage());
+            }
+            return serialized;
+        }
+    }
+
+    /**
+     * @param secret Shared secret of the coordinator (MATCH_WORKER_SECRET)
+     */
+    public MatchWorker(String address, String workerId, int slots, String secret) throws IOException {
+        this.workerId = workerId;
+        this.slots = slots;
+        this.secret = secret;
+        this.channel = WorkerProtocol.connect(address);
+        this.in = new DataInputStream(Channels.newInputStream(channel));
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    }
+
+    /**
+     * Runs a worker process until the coordinator goes away.
+     *
+     * @param address  Coordinator address, unix:{path} or host:port
+     * @param workerId Name of the worker, or null for one made of the host and process id
+     * @return Exit code of the process
+     */
+    public static int run(String address, String workerId) {
+        String id = workerId != null ? workerId : hostName() + "-" + ProcessHandle.current().pid();
+        WorkerConfig config = WorkerConfig.fromEnvironment();
+        if (config.secret() == null) {
+            logger.error("Match worker {} needs the coordinator's MATCH_WORKER_SECRET", id);
+            return 1;
+        }
+        try {
+            new MatchWorker(address, id, config.slots(), config.secret()).serve();
+            return 0;
+        } catch (IOException e) {
+            logger.error("Match worker {} lost its coordinator at {}: {}", id, address, e.getMessage());
+            return 1;
+        } finally {
+            GroupCommitLogWriter.shared().flushAll();
+        }
+    }
+
+    /**
+     * Plays the jobs sent by the coordinator until it closes the connection.
+     */
+    public void serve() throws IOException {
+        ObjectNode hello = WorkerProtocol.message(WorkerProtocol.HELLO);
+        hello.put("worker", workerId);
+        hello.put("slots", slots);
+        hello.put("secret", secret);
+        send(hello);
+        logger.info("Match worker {} ready for {} matches", workerId, slots);
+        try {
+            ObjectNode message;
+            while ((message = WorkerProtocol.read(in)) != null) {
+                switch (message.path("op").asText()) {
+                    case WorkerProtocol.START -> start(WorkerProtocol.decodeJob(message));
+                    case WorkerProtocol.ABORT -> {
+                        Thread match = matches.get(message.path("gameId").asText());
+                        if (match != null) {
+                            match.interrupt();
+                        }
+                    }
+                    default -> logger.warn("Ignoring unknown message from the coordinator: {}", message);
+                }
+            }
+            logger.info("Coordinator closed the connection of match worker {}", workerId);
+        } finally {
+            matches.values().forEach(Thread::interrupt);
+            channel.close();
+        }
+    }
+
+    private void start(MatchJob job) {
+        Thread match = Thread.ofVirtual().name("match-" + job.gameId()).unstarted(() -> {
+            ObjectNode finished = WorkerProtocol.message(WorkerProtocol.FINISHED);
+            finished.put("gameId", job.gameId());
+            try {
+                logger.info("Worker {} playing match {}", workerId, job.gameId());
+                job.play(forwarder);
+                finished.put("status", MatchManagerService.MatchInfo.Status.COMPLETED.name());
+            } catch (Exception e) {
+                logger.error("Match " + job.gameId() + " failed with error: ", e);
+                finished.put("status", MatchManagerService.MatchInfo.Status.FAILED.name());
+                finished.put("error", String.valueOf(e.getMessage()));
+            } finally {
+                matches.remove(job.gameId());
+            }
+            try {
+                send(finished);
+            } catch (IOException e) {
+                logger.error("Failed to report the end of {} to the coordinator: {}", job.gameId(), e.getMessage());
+            }
+        });
+        matches.put(job.gameId(), match);
+        match.start();
+    }
+
+    private void send(ObjectNode message) throws IOException {
+        send(SerializedEvent.mapper().writeValueAsBytes(message));
+    }
+
+    private void send(byte[] frame) throws IOException {
+        synchronized (out) {
+            WorkerProtocol.write(out, frame);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "worker";
+        }
+    }
+}
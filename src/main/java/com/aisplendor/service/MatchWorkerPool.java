@@ -0,0 +1,503 @@
+package com.aisplendor.service;
+
+import com.aisplendor.App;
+import com.aisplendor.config.RateLimitConfig;
+import com.aisplendor.config.WorkerConfig;
+import com.aisplendor.model.event.GameEvent;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of worker processes that play matches outside the server JVM, so a match that
+ * exhausts its heap or stalls in garbage collection only takes its worker down.
+ *
+ * The coordinator listens on a Unix domain socket or a TCP address (see {@link WorkerProtocol}).
+ * Workers connect, present the shared secret, announce their slots and are sent jobs while they
+ * have free ones; queued jobs wait for the next free slot. Listening on TCP requires a configured
+ * secret, since workers on other machines have to know it; otherwise one is generated and passed
+ * to the started workers. Events and results are only accepted for the games sent to a connection. Workers send back every event of their matches, which is
+ * published here with its log position, so spectators cannot tell where a match runs.
+ *
+ * The workers started by the coordinator are supervised: one that exits is started again,
+ * with a growing delay if it keeps exiting early. Workers started by hand (e.g. on other
+ * machines, with --worker host:port) are used the same way but not restarted. When a worker's
+ * connection is lost, its matches end with {@link WorkerLostException}, and the caller can resume
+ * them from their logs on another worker.
+ */
+public class MatchWorkerPool implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MatchWorkerPool.class);
+
+    private static final long MIN_RESTART_DELAY_MS = 1_000;
+    private static final long MAX_RESTART_DELAY_MS = 30_000;
+    // A worker that ran this long before exiting is restarted without delay growth
+    private static final long STABLE_RUN_MS = 60_000;
+
+    private final WorkerConfig config;
+    private final GameEventPublisher publisher;
+    private final String secret;
+    private final ArrayDeque<Assignment> pending = new ArrayDeque<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+    private ServerSocketChannel server;
+    private Path socketFile;
+    private String address;
+    private volatile boolean closed;
+
+    /**
+     * The worker connection of a match has been lost, e.g. because the worker process crashed.
+     */
+    public static class WorkerLostException extends IOException {
+        public WorkerLostException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A job and the connection it was sent to, completed with the worker's final status.
+     */
+    private static final class Assignment {
+        final MatchJob job;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        Connection connection;
+
+        Assignment(MatchJob job) {
+            this.job = job;
+        }
+    }
+
+    /**
+     * A connected worker. Guarded by the pool's lock, except for writes, which lock the stream.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final DataOutputStream out;
+        final Set<Assignment> assignments = new HashSet<>();
+        String workerId;
+        int slots;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 8 * 1024));
+        }
+
+        void send(ObjectNode message) throws IOException {
+            synchronized (out) {
+                WorkerProtocol.write(out, message);
+            }
+        }
+    }
+
+    public MatchWorkerPool(WorkerConfig config, GameEventPublisher publisher) {
+        this.config = config;
+        this.publisher = publisher;
+        this.secret = config.secret() != null ? config.secret() : generateSecret();
+    }
+
+    private static String generateSecret() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * Starts listening for workers and starts the configured worker processes.
+     */
+    public synchronized void start() throws IOException {
+        SocketAddress bindAddress;
+        if (config.isUnixSocket()) {
+            socketFile = Files.createTempDirectory("ai-splendor-workers").resolve("coordinator.sock");
+            bindAddress = UnixDomainSocketAddress.of(socketFile);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            if (config.secret() == null) {
+                throw new IOException("MATCH_WORKER_SECRET must be set to accept workers over TCP");
+            }
+            bindAddress = WorkerProtocol.parseListenAddress(config.listen());
+            server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+        }
+        server.bind(bindAddress);
+        address = WorkerProtocol.formatAddress(server.getLocalAddress());
+        Thread.ofVirtual().name("worker-accept").start(this::accept);
+        logger.info("Match coordinator listening for workers at {}", address);
+        for (int i = 1; i <= config.workers(); i++) {
+            String workerId = "local-" + i;
+            Thread.ofVirtual().name("worker-supervisor-" + i).start(() -> supervise(workerId));
+        }
+    }
+
+    /**
+     * @return Address workers connect to, unix:{path} or host:port
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Plays a job on a worker, waiting for a free slot first.
+     *
+     * @throws WorkerLostException  if the worker's connection was lost before the match ended
+     * @throws IOException          if the match failed on the worker
+     * @throws InterruptedException if the calling thread was interrupted; the match is aborted
+     */
+    public void play(MatchJob job) throws IOException, InterruptedException {
+        Assignment assignment = new Assignment(job);
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Match worker pool is closed");
+            }
+            pending.add(assignment);
+        }
+        dispatch();
+        String status;
+        try {
+            status = assignment.result.get();
+        } catch (InterruptedException e) {
+            abort(assignment);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            // The worker's events were published here, so is the end of the stream, with or without GameEnded
+            publisher.endGame(job.gameId());
+        }
+        if (!MatchManagerService.MatchInfo.Status.COMPLETED.name().equals(status)) {
+            throw new IOException("Match " + job.gameId() + " failed on its worker: " + status);
+        }
+    }
+
+    private void abort(Assignment assignment) {
+        Connection connection;
+        synchronized (this) {
+            if (pending.remove(assignment)) {
+                return;
+            }
+            connection = assignment.connection;
+        }
+        if (connection != null) {
+            ObjectNode abort = WorkerProtocol.message(WorkerProtocol.ABORT);
+            abort.put("gameId", assignment.job.gameId());
+            try {
+                connection.send(abort);
+            } catch (IOException e) {
+                logger.warn("Failed to abort match {} on worker {}: {}", assignment.job.gameId(),
+                        connection.workerId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sends queued jobs to workers with free slots, the least busy first.
+     */
+    private void dispatch() {
+        List<Assignment> sent = new ArrayList<>();
+        synchronized (this) {
+            while (!pending.isEmpty()) {
+                Connection free = null;
+                for (Connection connection : connections) {
+                    if (connection.assignments.size() < connection.slots && (free == null
+                            || connection.assignments.size() < free.assignments.size())) {
+                        free = connection;
+                    }
+                }
+                if (free == null) {
+                    break;
+                }
+                Assignment assignment = pending.poll();
+                assignment.connection = free;
+                free.assignments.add(assignment);
+                sent.add(assignment);
+            }
+        }
+        for (Assignment assignment : sent) {
+            try {
+                assignment.connection.send(WorkerProtocol.startMessage(assignment.job));
+                logger.info("Match {} sent to worker {}", assignment.job.gameId(), assignment.connection.workerId);
+            } catch (IOException e) {
+                // The reader sees the broken connection and fails its assignments
+                logger.warn("Failed to send match {} to worker {}: {}", assignment.job.gameId(),
+                        assignment.connection.workerId, e.getMessage());
+                closeQuietly(assignment.connection.channel);
+            }
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel channel = server.accept();
+                Thread.ofVirtual().name("worker-connection").start(() -> serve(channel));
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("Failed to accept a worker connection: {}", e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a worker's messages until its connection closes, then fails the matches it was playing.
+     */
+    private void serve(SocketChannel channel) {
+        Connection connection = null;
+        try {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            // Small until the peer has shown the secret
+            ObjectNode hello = WorkerProtocol.read(in, WorkerProtocol.MAX_HELLO_BYTES);
+            if (hello == null || !WorkerProtocol.HELLO.equals(hello.path("op").asText())) {
+                throw new IOException("Worker did not introduce itself");
+            }
+            if (!WorkerProtocol.secretMatches(secret, hello.path("secret").asText(null))) {
+                logger.warn("Rejected a match worker connection from {}: wrong secret", remoteAddress(channel));
+                return;
+            }
+            Connection joined = new Connection(channel);
+            synchronized (this) {
+                joined.workerId = hello.path("worker").asText("worker");
+                joined.slots = Math.max(1, hello.path("slots").asInt(1));
+                connections.add(joined);
+            }
+            connection = joined;
+            logger.info("Match worker {} connected with {} slots", connection.workerId, connection.slots);
+            dispatch();
+            ObjectNode message;
+            while ((message = WorkerProtocol.read(in)) != null) {
+                switch (message.path("op").asText()) {
+                    case WorkerProtocol.EVENT -> {
+                        String gameId = message.path("gameId").asText();
+                        if (assignment(connection, gameId) == null) {
+                            logger.warn("Ignoring event of game {} not played by worker {}", gameId,
+                                    connection.workerId);
+                            continue;
+                        }
+                        GameEvent event = WorkerProtocol.decodeEvent(message);
+                        publisher.publish(gameId, event, message.path("logIndex").asLong(-1));
+                    }
+                    case WorkerProtocol.FINISHED -> finished(connection, message);
+                    default -> logger.warn("Ignoring unknown message from worker {}: {}", connection.workerId,
+                            message.path("op").asText());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!closed) {
+                logger.warn("Connection to match worker {} failed: {}",
+                        connection != null ? connection.workerId : "?", e.getMessage());
+            }
+        } finally {
+            closeQuietly(channel);
+            if (connection != null) {
+                lost(connection);
+            }
+        }
+    }
+
+    /**
+     * @return The assignment of a game to a connection, or null if the game was not sent to it
+     */
+    private synchronized Assignment assignment(Connection connection, String gameId) {
+        for (Assignment assignment : connection.assignments) {
+            if (assignment.job.gameId().equals(gameId)) {
+                return assignment;
+            }
+        }
+        return null;
+    }
+
+    private void finished(Connection connection, ObjectNode message) {
+        String gameId = message.path("gameId").asText();
+        Assignment done;
+        synchronized (this) {
+            done = assignment(connection, gameId);
+            if (done != null) {
+                connection.assignments.remove(done);
+            }
+        }
+        if (done == null) {
+            logger.warn("Ignoring result of game {} not played by worker {}", gameId, connection.workerId);
+        } else {
+            if (message.hasNonNull("error")) {
+                logger.warn("Match {} failed on worker {}: {}", gameId, connection.workerId,
+                        message.get("error").asText());
+            }
+            done.result.complete(message.path("status").asText());
+        }
+        dispatch();
+    }
+
+    private void lost(Connection connection) {
+        List<Assignment> orphaned;
+        synchronized (this) {
+            connections.remove(connection);
+            orphaned = new ArrayList<>(connection.assignments);
+            connection.assignments.clear();
+        }
+        if (!closed) {
+            logger.warn("Match worker {} disconnected, {} matches lost", connection.workerId, orphaned.size());
+        }
+        for (Assignment assignment : orphaned) {
+            // Matches cut short by closing the pool are not resumed elsewhere
+            assignment.result.completeExceptionally(closed
+                    ? new IOException("Match worker pool is closed")
+                    : new WorkerLostException("Worker " + connection.workerId + " was lost while playing "
+                            + assignment.job.gameId()));
+        }
+    }
+
+    /**
+     * Keeps a worker process running until the pool is closed.
+     */
+    private void supervise(String workerId) {
+        long delay = MIN_RESTART_DELAY_MS;
+        while (!closed) {
+            long startedAt = System.currentTimeMillis();
+            try {
+                Process process = startWorker(workerId);
+                synchronized (this) {
+                    processes.add(process);
+                }
+                int exitCode = process.waitFor();
+                synchronized (this) {
+                    processes.remove(process);
+                }
+                if (closed) {
+                    return;
+                }
+                logger.warn("Match worker {} exited with code {}, restarting in {} ms", workerId, exitCode, delay);
+            } catch (IOException e) {
+                logger.error("Failed to start match worker {}: {}", workerId, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            delay = System.currentTimeMillis() - startedAt >= STABLE_RUN_MS
+                    ? MIN_RESTART_DELAY_MS : Math.min(delay * 2, MAX_RESTART_DELAY_MS);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts a worker JVM from the same class path (or Spring Boot jar) as this one. It inherits
+     * the environment, working directory and console, except for the request rate: rate limiters
+     * live in each JVM, so every worker gets an equal share of the configured budget.
+     */
+    private Process startWorker(String workerId) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        if (config.heap() != null) {
+            command.add("-Xmx" + config.heap());
+        }
+        String classPath = System.getProperty("java.class.path");
+        if (classPath.endsWith(".jar") && !classPath.contains(File.pathSeparator)) {
+            command.add("-jar");
+            command.add(classPath);
+        } else {
+            command.add("-cp");
+            command.add(classPath);
+            command.add(App.class.getName());
+        }
+        command.add(App.WORKER_OPTION);
+        command.add(address);
+        command.add(workerId);
+        logger.info("Starting match worker {}", workerId);
+        ProcessBuilder builder = new ProcessBuilder(command).inheritIO();
+        builder.environment().put("MATCH_WORKER_SECRET", secret);
+        RateLimitConfig rateShare = RateLimitConfig.fromEnvironment().share(config.workers());
+        builder.environment().put("OPENROUTER_RATE_LIMIT_RPM", String.valueOf(rateShare.requestsPerMinute()));
+        builder.environment().put("OPENROUTER_RATE_LIMIT_BURST", String.valueOf(rateShare.burst()));
+        return builder.start();
+    }
+
+    /**
+     * Stops the workers started by the pool and fails the matches still being played.
+     */
+    @Override
+    public void close() {
+        List<Connection> open;
+        List<Process> started;
+        List<Assignment> queued;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            open = new ArrayList<>(connections);
+            started = new ArrayList<>(processes);
+            queued = new ArrayList<>(pending);
+            pending.clear();
+        }
+        queued.forEach(assignment -> assignment.result.completeExceptionally(
+                new IOException("Match worker pool is closed")));
+        closeQuietly(server);
+        open.forEach(connection -> closeQuietly(connection.channel));
+        for (Process process : started) {
+            process.destroy();
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+        if (socketFile != null) {
+            try {
+                Files.deleteIfExists(socketFile);
+                Files.deleteIfExists(socketFile.getParent());
+            } catch (IOException e) {
+                logger.debug("Failed to delete worker socket {}: {}", socketFile, e.getMessage());
+            }
+        }
+    }
+
+    private static String remoteAddress(SocketChannel channel) {
+        try {
+            SocketAddress remote = channel.getRemoteAddress();
+            return remote != null ? WorkerProtocol.formatAddress(remote) : "a local process";
+        } catch (IOException | RuntimeException e) {
+            return "?";
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to close worker connection: {}", e.getMessage());
+        }
+    }
+}
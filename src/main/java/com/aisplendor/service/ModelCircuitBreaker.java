@@ -0,0 +1,268 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.CircuitBreakerConfig;
+import com.aisplendor.exception.CircuitOpenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Process-wide circuit breaker per model, fed by the outcome of every request from every
+ * match. The circuit opens when the failure rate (5xx, network errors) or the slow-call
+ * rate over the last N calls crosses the threshold. After the open period a single probe
+ * is let through (half-open): success closes the circuit, failure re-opens it.
+ *
+ * Rate limiting (429) is handled by {@link ModelRateLimiter} and does not count here.
+ * Callers waiting for an open circuit block on a condition before any connection is made,
+ * so with virtual-thread match executors a paused match costs neither a platform thread
+ * nor a socket.
+ */
+public class ModelCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(ModelCircuitBreaker.class);
+
+    private static final Map<String, ModelCircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+    private static volatile CircuitBreakerConfig sharedConfig;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Snapshot of a breaker, exposed on the REST API.
+     */
+    public record Status(String model, State state, int bufferedCalls, double failureRate,
+            double slowCallRate, long openForMs, long totalFailures, String failoverModel) {
+    }
+
+    private final String model;
+    private final CircuitBreakerConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    // Sliding window of the most recent call outcomes
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int windowIndex;
+    private int bufferedCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private long totalFailures;
+
+    public ModelCircuitBreaker(String model, CircuitBreakerConfig config) {
+        this.model = model;
+        this.config = config;
+        this.failures = new boolean[config.windowSize()];
+        this.slowCalls = new boolean[config.windowSize()];
+    }
+
+    public static ModelCircuitBreaker forModel(String model) {
+        return BREAKERS.computeIfAbsent(model, m -> new ModelCircuitBreaker(m, sharedConfig()));
+    }
+
+    public static CircuitBreakerConfig sharedConfig() {
+        if (sharedConfig == null) {
+            sharedConfig = CircuitBreakerConfig.fromEnvironment();
+        }
+        return sharedConfig;
+    }
+
+    /**
+     * @return Status of every breaker created so far, sorted by model
+     */
+    public static List<Status> allStatuses() {
+        return BREAKERS.values().stream()
+                .map(ModelCircuitBreaker::getStatus)
+                .sorted(Comparator.comparing(Status::model))
+                .toList();
+    }
+
+    /**
+     * Non-blocking permission check. Moves an expired open circuit to half-open and
+     * hands out its single probe.
+     */
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && remainingOpenNanos() <= 0) {
+                transitionTo(State.HALF_OPEN);
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (probeInFlight) {
+                        yield false;
+                    }
+                    probeInFlight = true;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the circuit admits a call.
+     *
+     * @param maxWaitMs Longest time to wait
+     * @throws CircuitOpenException if the circuit did not admit a call in time
+     */
+    public void acquirePermission(long maxWaitMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        lock.lock();
+        try {
+            boolean logged = false;
+            while (!tryAcquirePermission()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new CircuitOpenException("Circuit for " + model + " is " + state
+                            + " (gave up after " + maxWaitMs + "ms)", state == State.OPEN
+                            ? Math.max(0, TimeUnit.NANOSECONDS.toMillis(remainingOpenNanos())) : 0);
+                }
+                if (!logged) {
+                    logger.warn("Circuit for {} is {}, pausing until it admits calls", model, state);
+                    logged = true;
+                }
+                long wait = state == State.OPEN ? Math.max(1, remainingOpenNanos()) : remaining;
+                stateChanged.awaitNanos(Math.min(wait, remaining));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long latencyMs) {
+        record(false, isSlow(latencyMs));
+    }
+
+    public void onFailure(long latencyMs) {
+        record(true, isSlow(latencyMs));
+    }
+
+    private boolean isSlow(long latencyMs) {
+        return config.slowCallMs() > 0 && latencyMs >= config.slowCallMs();
+    }
+
+    /**
+     * Releases a half-open probe without counting the call (e.g. rate limited or interrupted).
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probeInFlight) {
+                probeInFlight = false;
+                stateChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure, boolean slow) {
+        lock.lock();
+        try {
+            if (failure) {
+                totalFailures++;
+            }
+            if (state == State.HALF_OPEN) {
+                probeInFlight = false;
+                if (failure || slow) {
+                    transitionTo(State.OPEN);
+                } else {
+                    resetWindow();
+                    transitionTo(State.CLOSED);
+                }
+                return;
+            }
+
+            failures[windowIndex] = failure;
+            slowCalls[windowIndex] = slow;
+            windowIndex = (windowIndex + 1) % failures.length;
+            bufferedCalls = Math.min(bufferedCalls + 1, failures.length);
+
+            if (state == State.CLOSED && bufferedCalls >= config.minimumCalls()
+                    && (failureRate() >= config.failureRateThreshold()
+                            || slowCallRate() >= config.failureRateThreshold())) {
+                transitionTo(State.OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void transitionTo(State newState) {
+        if (state == newState && newState != State.OPEN) {
+            return;
+        }
+        logger.warn("Circuit for {}: {} -> {} (failure rate {}, slow rate {})", model, state, newState,
+                String.format("%.2f", failureRate()), String.format("%.2f", slowCallRate()));
+        state = newState;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        stateChanged.signalAll();
+    }
+
+    private void resetWindow() {
+        Arrays.fill(failures, false);
+        Arrays.fill(slowCalls, false);
+        windowIndex = 0;
+        bufferedCalls = 0;
+    }
+
+    private long remainingOpenNanos() {
+        return openedAtNanos + TimeUnit.MILLISECONDS.toNanos(config.openDurationMs()) - System.nanoTime();
+    }
+
+    private double failureRate() {
+        return rate(failures);
+    }
+
+    private double slowCallRate() {
+        return rate(slowCalls);
+    }
+
+    private double rate(boolean[] outcomes) {
+        if (bufferedCalls == 0) {
+            return 0.0;
+        }
+        int count = 0;
+        for (int i = 0; i < bufferedCalls; i++) {
+            if (outcomes[i]) {
+                count++;
+            }
+        }
+        return (double) count / bufferedCalls;
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Status getStatus() {
+        lock.lock();
+        try {
+            long openForMs = state == State.OPEN ? Math.max(0, TimeUnit.NANOSECONDS.toMillis(remainingOpenNanos())) : 0;
+            return new Status(model, state, bufferedCalls, failureRate(), slowCallRate(), openForMs,
+                    totalFailures, config.failover().get(model));
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.RateLimitConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Process-wide token bucket limiting requests per model and API key, shared by every
+ * OpenRouterService so that concurrent matches on the same model cooperate instead of
+ * backing off independently and retrying in lockstep.
+ *
+ * Requests reserve a time slot under a fair lock, so they are served in arrival order
+ * across matches, and then sleep outside the lock. A 429 response (or an exhausted
+ * X-RateLimit-Remaining header) holds every caller until Retry-After / X-RateLimit-Reset
+ * and halves the request rate; successful responses raise it again step by step
+ * (additive increase, multiplicative decrease).
+ */
+public class ModelRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(ModelRateLimiter.class);
+
+    private static final Map<String, ModelRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+    private static volatile RateLimitConfig sharedConfig;
+
+    /** Rate used after a 429 when no fixed limit is configured. */
+    private static final double RECOVERY_RATE_PER_SEC = 1.0;
+    private static final double MIN_RATE_PER_SEC = 1.0 / 60;
+    private static final double ADDITIVE_INCREASE_PER_SEC = 0.1;
+    /** Without a configured limit, pacing is lifted once the recovered rate reaches this. */
+    private static final double UNLIMITED_RESTORE_RATE_PER_SEC = 10.0;
+    private static final long DEFAULT_RETRY_AFTER_MS = 5_000;
+    private static final long MAX_RETRY_AFTER_MS = 5 * 60 * 1000;
+
+    private final String name;
+    private final double configuredRate;
+    private final int burst;
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private double currentRate;
+    private double storedPermits;
+    private long nextFreeNanos = System.nanoTime();
+    private volatile long blockedUntilNanos = System.nanoTime();
+    private int consecutiveRateLimits;
+    private long rateLimitedResponses;
+
+    public ModelRateLimiter(String name, RateLimitConfig config) {
+        this.name = name;
+        this.configuredRate = config.requestsPerMinute() / 60.0;
+        this.burst = config.burst();
+        this.currentRate = configuredRate;
+        this.storedPermits = burst;
+    }
+
+    /**
+     * Returns the limiter shared by all services using this model and API key.
+     */
+    public static ModelRateLimiter shared(String model, String apiKey) {
+        String key = model + "|" + (apiKey != null ? Integer.toHexString(apiKey.hashCode()) : "");
+        return LIMITERS.computeIfAbsent(key, k -> new ModelRateLimiter(model, sharedConfig()));
+    }
+
+    private static RateLimitConfig sharedConfig() {
+        if (sharedConfig == null) {
+            sharedConfig = RateLimitConfig.fromEnvironment();
+        }
+        return sharedConfig;
+    }
+
+    /**
+     * Blocks until the caller may send a request.
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long wakeAt = reserve();
+            long delay = wakeAt - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            // A 429 may have arrived while we were waiting for our slot
+            if (blockedUntilNanos <= System.nanoTime()) {
+                return;
+            }
+        }
+    }
+
+    private long reserve() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long base = Math.max(now, blockedUntilNanos);
+            if (currentRate <= 0) {
+                return base;
+            }
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / currentRate);
+            if (base > nextFreeNanos) {
+                storedPermits = Math.min(burst, storedPermits + (base - nextFreeNanos) / (double) interval);
+                nextFreeNanos = base;
+            }
+            if (storedPermits >= 1) {
+                storedPermits -= 1;
+                return nextFreeNanos;
+            }
+            // Bucket empty: wait for the next refill, and claim it so later callers queue behind us
+            nextFreeNanos += (long) (interval * (1 - storedPermits));
+            storedPermits = 0;
+            return nextFreeNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Feeds a response back into the limiter.
+     *
+     * @return For a 429, the time callers are held back in milliseconds; otherwise 0
+     */
+    public long onResponse(int statusCode, HttpHeaders headers) {
+        if (statusCode == 429) {
+            long retryAfterMs = retryAfterMs(headers).orElseGet(this::defaultRetryAfterMs);
+            onRateLimited(retryAfterMs);
+            return retryAfterMs;
+        }
+
+        OptionalLong remaining = headers.firstValueAsLong("X-RateLimit-Remaining");
+        OptionalLong reset = headers.firstValueAsLong("X-RateLimit-Reset");
+        if (remaining.isPresent() && remaining.getAsLong() <= 0 && reset.isPresent()) {
+            long waitMs = reset.getAsLong() - System.currentTimeMillis();
+            if (waitMs > 0) {
+                holdFor(Math.min(waitMs, MAX_RETRY_AFTER_MS));
+            }
+        }
+        if (statusCode == 200) {
+            onSuccess();
+        }
+        return 0L;
+    }
+
+    private void onRateLimited(long retryAfterMs) {
+        lock.lock();
+        try {
+            consecutiveRateLimits++;
+            rateLimitedResponses++;
+            if (currentRate <= 0) {
+                currentRate = RECOVERY_RATE_PER_SEC;
+            } else {
+                currentRate = Math.max(MIN_RATE_PER_SEC, currentRate / 2);
+            }
+            storedPermits = 0;
+            holdFor(retryAfterMs);
+            logger.warn("Rate limited on {}: holding requests for {}ms, rate now {}/min", name, retryAfterMs,
+                    String.format("%.1f", currentRate * 60));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void holdFor(long ms) {
+        lock.lock();
+        try {
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms);
+            if (until > blockedUntilNanos) {
+                blockedUntilNanos = until;
+            }
+            nextFreeNanos = Math.max(nextFreeNanos, blockedUntilNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess() {
+        lock.lock();
+        try {
+            consecutiveRateLimits = 0;
+            if (currentRate <= 0 || currentRate == configuredRate) {
+                return;
+            }
+            currentRate += ADDITIVE_INCREASE_PER_SEC;
+            if (configuredRate > 0 && currentRate >= configuredRate) {
+                currentRate = configuredRate;
+            } else if (configuredRate <= 0 && currentRate >= UNLIMITED_RESTORE_RATE_PER_SEC) {
+                currentRate = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long defaultRetryAfterMs() {
+        int exponent = Math.min(Math.max(consecutiveRateLimits, 0), 6);
+        return Math.min(DEFAULT_RETRY_AFTER_MS << exponent, MAX_RETRY_AFTER_MS);
+    }
+
+    /**
+     * Parses Retry-After (delta-seconds or HTTP-date), falling back to X-RateLimit-Reset (epoch ms).
+     */
+    static OptionalLong retryAfterMs(HttpHeaders headers) {
+        String retryAfter = headers.firstValue("Retry-After").orElse(null);
+        if (retryAfter != null && !retryAfter.isBlank()) {
+            try {
+                long seconds = Long.parseLong(retryAfter.trim());
+                return OptionalLong.of(Math.min(Math.max(0, seconds) * 1000, MAX_RETRY_AFTER_MS));
+            } catch (NumberFormatException e) {
+                try {
+                    Instant at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    long ms = at.toEpochMilli() - System.currentTimeMillis();
+                    return OptionalLong.of(Math.min(Math.max(0, ms), MAX_RETRY_AFTER_MS));
+                } catch (DateTimeParseException ignored) {
+                    // fall through to X-RateLimit-Reset
+                }
+            }
+        }
+        OptionalLong reset = headers.firstValueAsLong("X-RateLimit-Reset");
+        if (reset.isPresent()) {
+            long ms = reset.getAsLong() - System.currentTimeMillis();
+            return OptionalLong.of(Math.min(Math.max(0, ms), MAX_RETRY_AFTER_MS));
+        }
+        return OptionalLong.empty();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Current request rate per minute, or 0 when not pacing
+     */
+    public double getCurrentRatePerMinute() {
+        lock.lock();
+        try {
+            return currentRate * 60;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBlockedForMs() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(blockedUntilNanos - System.nanoTime()));
+    }
+
+    public long getRateLimitedResponses() {
+        lock.lock();
+        try {
+            return rateLimitedResponses;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.aisplendor.service;
 
+import com.aisplendor.config.CassetteConfig;
+import com.aisplendor.config.ConversationConfig;
 import com.aisplendor.config.DynamicReasoningConfig;
 import com.aisplendor.config.ReasoningConfig;
 import com.aisplendor.model.CardLevel;
@@ -11,10 +13,13 @@ import com.aisplendor.model.action.GameAction;
 import com.aisplendor.model.action.PurchaseCardAction;
 import com.aisplendor.model.action.ReserveCardAction;
 import com.aisplendor.model.action.TakeTokensAction;
+import com.aisplendor.model.event.ReasoningChunkEvent;
 import com.aisplendor.util.CompactStateSerializer;
 import com.aisplendor.exception.ApiException;
+import com.aisplendor.exception.RateLimitedException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,25 +27,40 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service to interact with OpenRouter API for LLM move generation.
  * Uses flattened JSON schema for reliable action parameter extraction.
  * Supports dynamic reasoning effort, prompt caching, and conditional
  * reasoning field in the output schema.
+ *
+ * In conversation mode the service keeps the player's message history between
+ * turns: each turn appends only a state diff since the player's last accepted
+ * move, and the history is reset with a full state every N turns.
+ *
+ * When a cassette is configured (see {@link CassetteConfig}), raw responses are
+ * recorded to or replayed from an {@link LlmCassette} instead of hitting the API.
+ *
+ * With a {@link StreamListener} set, live requests ask for a streamed ("stream": true) answer
+ * and hand its reasoning and content to the listener as they arrive. The stream is assembled
+ * into the same body a non-streamed request returns, which is what gets parsed and recorded.
  */
 public class OpenRouterService {
     private static final Logger logger = LoggerFactory.getLogger(OpenRouterService.class);
 
-    private static final String API_URL = "https://openrouter.ai/api/v1/chat/completions";
+    public static final String DEFAULT_API_URL = "https://openrouter.ai/api/v1/chat/completions";
     private final String apiKey;
     private final String model;
     private final DynamicReasoningConfig dynamicReasoningConfig;
@@ -48,11 +68,33 @@ public class OpenRouterService {
     private final String promptCachingSetting;
     private final double inputTokenCost;
     private final double outputTokenCost;
+    private final ConversationConfig conversationConfig;
     private final ObjectMapper mapper;
     private final HttpClient httpClient;
+    private String apiUrl = resolveApiUrl();
+    private CassetteConfig cassetteConfig = CassetteConfig.disabled();
+    private LlmCassette cassette;
+    private LlmCassette.Session cassetteSession;
+    private StreamListener streamListener;
+
+    // Conversation mode state (one OpenRouterService instance per player)
+    private final List<Object> conversationHistory = new ArrayList<>();
+    private String conversationSystemPrompt;
+    private GameState lastCommittedState;
+    private int turnsSinceResync;
+    private GameState pendingState;
+    private String pendingUserContent;
+    private String pendingAssistantContent;
 
     public OpenRouterService(String apiKey, String model, DynamicReasoningConfig dynamicReasoningConfig,
             boolean debugMode, String promptCachingSetting, double inputTokenCost, double outputTokenCost) {
+        this(apiKey, model, dynamicReasoningConfig, debugMode, promptCachingSetting, inputTokenCost, outputTokenCost,
+                ConversationConfig.disabled());
+    }
+
+    public OpenRouterService(String apiKey, String model, DynamicReasoningConfig dynamicReasoningConfig,
+            boolean debugMode, String promptCachingSetting, double inputTokenCost, double outputTokenCost,
+            ConversationConfig conversationConfig) {
         this.apiKey = apiKey;
         this.model = model;
         this.dynamicReasoningConfig = dynamicReasoningConfig;
@@ -60,10 +102,62 @@ public class OpenRouterService {
         this.promptCachingSetting = promptCachingSetting;
         this.inputTokenCost = inputTokenCost;
         this.outputTokenCost = outputTokenCost;
+        this.conversationConfig = conversationConfig != null ? conversationConfig : ConversationConfig.disabled();
         this.mapper = new ObjectMapper();
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
+        setCassette(CassetteConfig.fromEnvironment());
+    }
+
+    /**
+     * Resolves the chat-completions endpoint: the openrouter.api-url system property,
+     * then the OPENROUTER_API_URL environment variable, then the public OpenRouter URL.
+     * Pointing it at a local server allows offline soak tests.
+     */
+    public static String resolveApiUrl() {
+        String url = System.getProperty("openrouter.api-url");
+        if (url == null || url.isBlank()) {
+            url = System.getenv("OPENROUTER_API_URL");
+        }
+        return url == null || url.isBlank() ? DEFAULT_API_URL : url.trim();
+    }
+
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = apiUrl != null && !apiUrl.isBlank() ? apiUrl : DEFAULT_API_URL;
+    }
+
+    /**
+     * Switches the cassette used by this service (record, replay or off).
+     * By default the cassette is configured from the environment.
+     */
+    public void setCassette(CassetteConfig config) {
+        this.cassetteConfig = config != null ? config : CassetteConfig.disabled();
+        this.cassette = cassetteConfig.isEnabled() ? LlmCassette.open(cassetteConfig.path()) : null;
+        this.cassetteSession = cassetteConfig.mode() == CassetteConfig.Mode.REPLAY ? cassette.newSession() : null;
+    }
+
+    /**
+     * Receives an answer while it is being streamed, on the thread that called {@link #getNextMove}.
+     */
+    public interface StreamListener {
+        /**
+         * @param kind {@link ReasoningChunkEvent#REASONING} or {@link ReasoningChunkEvent#CONTENT}
+         */
+        void onDelta(String kind, String text);
+
+        /**
+         * Called once the stream is over, whether it completed or failed.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Streams the answers of live requests to a listener, or stops streaming when null.
+     * Replayed cassette answers are never streamed.
+     */
+    public void setStreamListener(StreamListener streamListener) {
+        this.streamListener = streamListener;
     }
 
     /**
@@ -75,8 +169,10 @@ public class OpenRouterService {
      * @return The agent's response with reasoning and action
      */
     public AgentResponse getNextMove(GameState state, String systemPrompt, String retryContext) throws Exception {
-        // Convert to compact text format for LLM consumption
-        String compactState = CompactStateSerializer.serialize(state, state.currentPlayerIndex());
+        // Convert to compact text format for LLM consumption (a diff in conversation mode)
+        String compactState = conversationConfig.enabled()
+                ? prepareConversationTurn(state, systemPrompt)
+                : CompactStateSerializer.serialize(state, state.currentPlayerIndex());
 
         // Build user message — compact state + optional retry context
         String userContent;
@@ -97,7 +193,9 @@ public class OpenRouterService {
         requestBody.put("model", model);
 
         // Build messages — use array content format for Anthropic prompt caching
-        List<Object> messages = buildMessages(systemPrompt, userContent);
+        List<Object> messages = conversationConfig.enabled()
+                ? buildConversationMessages(userContent)
+                : buildMessages(systemPrompt, userContent);
         requestBody.put("messages", messages);
 
         requestBody.put("response_format", Map.of("type", "json_schema", "json_schema", jsonSchema));
@@ -109,24 +207,14 @@ public class OpenRouterService {
                     "exclude", resolvedReasoning.exclude()));
         }
 
-        String requestJson = mapper.writeValueAsString(requestBody);
-
         if (debugMode) {
-            logger.info("[DEBUG] OpenRouter Request Body:\n{}", requestJson);
             if (dynamicReasoningConfig.isDynamic() && resolvedReasoning.enabled()) {
                 logger.info("[DEBUG] Dynamic reasoning effort for turn {}: {}", turnNumber,
                         resolvedReasoning.effort());
             }
         }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_URL))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + apiKey)
-                .POST(HttpRequest.BodyPublishers.ofString(requestJson))
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        LlmCassette.Recording response = execute(requestBody);
 
         if (response.statusCode() != 200) {
             throw new ApiException(
@@ -137,6 +225,322 @@ public class OpenRouterService {
         return parseResponse(response.body(), resolvedReasoning.enabled());
     }
 
+    /**
+     * Sends the request to OpenRouter, or serves it from the cassette in replay mode.
+     * In replay mode the recorded latency is emulated (scaled by the configured factor).
+     * Live requests are routed through the model's circuit breaker (failing over to the
+     * configured alternate model while it is open) and the shared per-model rate limiter;
+     * a 429 is reported to the limiter and surfaced as a {@link RateLimitedException}.
+     */
+    private LlmCassette.Recording execute(Map<String, Object> requestBody) throws Exception {
+        if (cassetteSession != null) {
+            String requestJson = mapper.writeValueAsString(requestBody);
+            LlmCassette.Recording recording = cassetteSession.replay(requestJson, model);
+            if (recording == null) {
+                throw new ApiException("Cassette " + cassette.getPath() + " has no recordings for model " + model);
+            }
+            long delayMs = Math.round(recording.latencyMs() * cassetteConfig.latencyScale());
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            return recording;
+        }
+
+        // Recorded under the requested model, so a replay finds answers served by a failover route
+        String cassetteJson = cassette != null ? mapper.writeValueAsString(requestBody) : null;
+        String route = selectRoute();
+        ModelCircuitBreaker breaker = ModelCircuitBreaker.forModel(route);
+        requestBody.put("model", route);
+        // Recorded without the stream flag, so streamed and plain runs share cassettes
+        String requestJson = mapper.writeValueAsString(requestBody);
+        StreamListener listener = streamListener;
+        String sentJson = requestJson;
+        if (listener != null) {
+            Map<String, Object> streamedBody = new HashMap<>(requestBody);
+            streamedBody.put("stream", true);
+            sentJson = mapper.writeValueAsString(streamedBody);
+        }
+        if (debugMode) {
+            logger.info("[DEBUG] OpenRouter Request Body:\n{}", sentJson);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(sentJson))
+                .build();
+
+        ModelRateLimiter rateLimiter = ModelRateLimiter.shared(route, apiKey);
+        int statusCode;
+        String body;
+        HttpHeaders headers;
+        long start = System.currentTimeMillis();
+        // Cleared once the call has an outcome, so a half-open probe is never left admitted
+        boolean unreported = true;
+        try {
+            if (listener == null) {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                statusCode = response.statusCode();
+                body = response.body();
+                headers = response.headers();
+            } else {
+                HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+                headers = response.headers();
+                boolean eventStream = headers.firstValue("Content-Type")
+                        .filter(type -> type.startsWith("text/event-stream")).isPresent();
+                if (response.statusCode() == 200 && eventStream) {
+                    ObjectNode assembled = readEventStream(response.body(), listener);
+                    JsonNode error = assembled.get("error");
+                    int errorCode = error != null ? error.path("code").asInt(0) : 0;
+                    statusCode = error == null ? 200 : errorCode >= 400 ? errorCode : 502;
+                    body = mapper.writeValueAsString(assembled);
+                } else {
+                    // Errors, and servers that ignore the stream flag, answer with a plain body
+                    try (Stream<String> lines = response.body()) {
+                        body = lines.collect(Collectors.joining("\n"));
+                    }
+                    statusCode = response.statusCode();
+                }
+            }
+            unreported = false;
+        } catch (java.io.IOException e) {
+            unreported = false;
+            breaker.onFailure(System.currentTimeMillis() - start);
+            throw e;
+        } finally {
+            if (unreported) {
+                // Interrupted, or failed outside the network call
+                breaker.onIgnored();
+            }
+        }
+        LlmCassette.Recording recording = new LlmCassette.Recording(
+                statusCode, System.currentTimeMillis() - start, body);
+        long retryAfterMs = rateLimiter.onResponse(statusCode, headers);
+        if (statusCode == 429) {
+            breaker.onIgnored();
+        } else if (statusCode >= 500) {
+            breaker.onFailure(recording.latencyMs());
+        } else {
+            // Other 4xx answers (bad request, bad key) say nothing about the model's health
+            breaker.onSuccess(recording.latencyMs());
+        }
+
+        if (cassette != null) {
+            cassette.record(cassetteJson, model, recording);
+        }
+        if (statusCode == 429) {
+            throw new RateLimitedException("API request rate limited (429), retry after " + retryAfterMs + "ms: "
+                    + body, retryAfterMs);
+        }
+        return recording;
+    }
+
+    /**
+     * Reads a server-sent event stream of chat-completion chunks, passing reasoning and content
+     * deltas to the listener, and assembles the body of the equivalent non-streamed response:
+     * {"choices":[{"message":{"content":...,"reasoning_content":...}}],"usage":...}.
+     * An error sent mid-stream is returned as {"error":...}.
+     */
+    private ObjectNode readEventStream(Stream<String> lines, StreamListener listener)
+            throws java.io.IOException, InterruptedException {
+        StringBuilder content = new StringBuilder();
+        StringBuilder reasoning = new StringBuilder();
+        ObjectNode body = mapper.createObjectNode();
+        try (lines) {
+            Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                // Reading the body ignores interrupts, so aborted matches are noticed between lines
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Interrupted while streaming the response");
+                }
+                String line = it.next();
+                // Blank separators, ": keep-alive" comments and other SSE fields carry nothing
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if (data.equals("[DONE]")) {
+                    break;
+                }
+                JsonNode chunk = mapper.readTree(data);
+                if (chunk.has("error")) {
+                    ObjectNode error = mapper.createObjectNode();
+                    error.set("error", chunk.get("error"));
+                    return error;
+                }
+                for (String field : List.of("id", "model")) {
+                    if (chunk.hasNonNull(field) && !body.has(field)) {
+                        body.set(field, chunk.get(field));
+                    }
+                }
+                if (chunk.hasNonNull("usage")) {
+                    body.set("usage", chunk.get("usage"));
+                }
+                JsonNode delta = chunk.path("choices").path(0).path("delta");
+                String reasoningDelta = delta.hasNonNull("reasoning") ? delta.get("reasoning").asText()
+                        : delta.path("reasoning_content").asText("");
+                if (!reasoningDelta.isEmpty()) {
+                    reasoning.append(reasoningDelta);
+                    listener.onDelta(ReasoningChunkEvent.REASONING, reasoningDelta);
+                }
+                String contentDelta = delta.path("content").asText("");
+                if (!contentDelta.isEmpty()) {
+                    content.append(contentDelta);
+                    listener.onDelta(ReasoningChunkEvent.CONTENT, contentDelta);
+                }
+            }
+        } finally {
+            listener.onComplete();
+        }
+        ObjectNode message = body.putArray("choices").addObject().putObject("message");
+        message.put("role", "assistant");
+        message.put("content", content.toString());
+        if (!reasoning.isEmpty()) {
+            message.put("reasoning_content", reasoning.toString());
+        }
+        return body;
+    }
+
+    /**
+     * Picks the model to send this request to. Uses the configured model while its breaker
+     * admits calls, otherwise the failover route if that one is healthy; with no healthy
+     * route it waits (without holding a connection) until the breaker lets a probe through.
+     */
+    private String selectRoute() throws InterruptedException {
+        // Rate permits are taken before circuit permissions: a half-open probe held through a
+        // rate-limit wait would keep every other caller of the model paused
+        ModelCircuitBreaker primary = ModelCircuitBreaker.forModel(model);
+        ModelRateLimiter.shared(model, apiKey).acquire();
+        if (primary.tryAcquirePermission()) {
+            return model;
+        }
+        String alternate = ModelCircuitBreaker.sharedConfig().failover().get(model);
+        ModelCircuitBreaker alternateBreaker = alternate != null ? ModelCircuitBreaker.forModel(alternate) : null;
+        if (alternateBreaker != null && alternateBreaker.getState() != ModelCircuitBreaker.State.OPEN) {
+            ModelRateLimiter.shared(alternate, apiKey).acquire();
+            if (alternateBreaker.tryAcquirePermission()) {
+                logger.warn("Circuit for {} is {}, failing over to {}", model, primary.getState(), alternate);
+                return alternate;
+            }
+        }
+        // The primary's rate permit is already taken; waiting here only delays the call
+        primary.acquirePermission(ModelCircuitBreaker.sharedConfig().maxPauseMs());
+        return model;
+    }
+
+    /**
+     * Commits the last exchange to the conversation history once its action has been
+     * validated by the engine. Rejected responses are never committed, so the next
+     * turn's diff is computed against the last state the player actually acted on.
+     * No-op when conversation mode is disabled.
+     */
+    public void commitConversationTurn() {
+        if (!conversationConfig.enabled() || pendingAssistantContent == null) {
+            return;
+        }
+        conversationHistory.add(Map.of("role", "user", "content", pendingUserContent));
+        conversationHistory.add(Map.of("role", "assistant", "content", pendingAssistantContent));
+        lastCommittedState = pendingState;
+        turnsSinceResync++;
+        pendingAssistantContent = null;
+    }
+
+    /**
+     * Committed conversation memory of one player, as saved in match checkpoints.
+     */
+    public record ConversationSnapshot(List<Object> history, String systemPrompt, GameState lastCommittedState,
+            int turnsSinceResync) {
+    }
+
+    /**
+     * @return The committed conversation memory, or null when conversation mode is disabled
+     */
+    public ConversationSnapshot exportConversation() {
+        if (!conversationConfig.enabled()) {
+            return null;
+        }
+        return new ConversationSnapshot(List.copyOf(conversationHistory), conversationSystemPrompt,
+                lastCommittedState, turnsSinceResync);
+    }
+
+    /**
+     * Restores conversation memory saved by {@link #exportConversation()}, so a resumed match
+     * keeps sending diffs instead of starting over with a full state.
+     */
+    public void restoreConversation(ConversationSnapshot snapshot) {
+        conversationHistory.clear();
+        if (snapshot == null || !conversationConfig.enabled()) {
+            return;
+        }
+        conversationHistory.addAll(snapshot.history());
+        conversationSystemPrompt = snapshot.systemPrompt();
+        lastCommittedState = snapshot.lastCommittedState();
+        turnsSinceResync = snapshot.turnsSinceResync();
+        pendingState = null;
+        pendingUserContent = null;
+        pendingAssistantContent = null;
+    }
+
+    /**
+     * Prepares the user content for a conversation-mode turn. Retries of the same turn
+     * reuse the pending content; a new turn either appends a diff or, when the resync
+     * interval is reached (or nothing was committed yet), resets the history and sends
+     * the full state together with a fresh system prompt.
+     */
+    private String prepareConversationTurn(GameState state, String systemPrompt) {
+        if (pendingState == state && pendingUserContent != null) {
+            return pendingUserContent;
+        }
+
+        pendingAssistantContent = null;
+        boolean resync = lastCommittedState == null
+                || conversationSystemPrompt == null
+                || turnsSinceResync >= conversationConfig.resyncInterval();
+        String content;
+        if (resync) {
+            conversationHistory.clear();
+            conversationSystemPrompt = systemPrompt;
+            turnsSinceResync = 0;
+            content = CompactStateSerializer.serialize(state, state.currentPlayerIndex());
+        } else {
+            content = CompactStateSerializer.serializeDelta(lastCommittedState, state, state.currentPlayerIndex());
+        }
+        if (debugMode) {
+            logger.info("[DEBUG] Conversation turn {}: {} ({} history messages)", state.turnNumber(),
+                    resync ? "full resync" : "delta", conversationHistory.size());
+        }
+        pendingState = state;
+        pendingUserContent = content;
+        return content;
+    }
+
+    /**
+     * Builds the messages list for conversation mode: the system prompt frozen at the last
+     * resync, the committed history and the new user message. With prompt caching, a cache
+     * breakpoint is also placed on the last committed message so the whole prefix is reused.
+     */
+    private List<Object> buildConversationMessages(String userContent) {
+        List<Object> messages = new ArrayList<>(buildMessages(conversationSystemPrompt, userContent));
+        Object userMessage = messages.remove(messages.size() - 1);
+
+        for (int i = 0; i < conversationHistory.size(); i++) {
+            Object message = conversationHistory.get(i);
+            if (i == conversationHistory.size() - 1 && shouldUsePromptCaching()
+                    && message instanceof Map<?, ?> map) {
+                Map<String, Object> cacheBlock = new LinkedHashMap<>();
+                cacheBlock.put("type", "text");
+                cacheBlock.put("text", map.get("content"));
+                cacheBlock.put("cache_control", Map.of("type", "ephemeral"));
+                message = Map.of("role", map.get("role"), "content", List.of(cacheBlock));
+            }
+            messages.add(message);
+        }
+
+        messages.add(userMessage);
+        return messages;
+    }
+
     /**
      * Backward-compatible overload without retry context.
      */
@@ -290,6 +694,10 @@ public class OpenRouterService {
         }
         TokenUsage tokenUsage = new TokenUsage(promptTokens, completionTokens, cost);
 
+        if (conversationConfig.enabled()) {
+            pendingAssistantContent = content;
+        }
+
         return new AgentResponse(reasoning, action, tokenUsage);
     }
 
@@ -0,0 +1,65 @@
+package com.aisplendor.service;
+
+import com.aisplendor.model.event.ReasoningChunkEvent;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a player's streamed LLM answer as {@link ReasoningChunkEvent}s. Deltas arrive a few
+ * tokens at a time, so they are batched: the first delta of an answer goes out at once, later
+ * ones at most once per interval, and the rest when the stream ends. A switch from reasoning to
+ * content also sends what is pending, so every chunk has a single kind.
+ *
+ * Chunks go to the publisher only, never to the game log. Not thread-safe; it is fed by the
+ * simulation thread that waits for the answer.
+ */
+public class ReasoningStream implements OpenRouterService.StreamListener {
+
+    private final GameEventPublisher publisher;
+    private final String gameId;
+    private final int playerIndex;
+    private final long intervalNanos;
+    private final StringBuilder pending = new StringBuilder();
+    private String pendingKind;
+    private long lastPublishNanos;
+    private boolean started;
+
+    public ReasoningStream(GameEventPublisher publisher, String gameId, int playerIndex, long intervalMs) {
+        this.publisher = publisher;
+        this.gameId = gameId;
+        this.playerIndex = playerIndex;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+    }
+
+    @Override
+    public void onDelta(String kind, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        if (pendingKind != null && !pendingKind.equals(kind)) {
+            publishPending();
+        }
+        pendingKind = kind;
+        pending.append(text);
+        if (!started || System.nanoTime() - lastPublishNanos >= intervalNanos) {
+            publishPending();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        publishPending();
+        started = false;
+    }
+
+    private void publishPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        publisher.publish(gameId, new ReasoningChunkEvent(Instant.now(), playerIndex, pendingKind, pending.toString()));
+        pending.setLength(0);
+        lastPublishNanos = System.nanoTime();
+        started = true;
+    }
+}
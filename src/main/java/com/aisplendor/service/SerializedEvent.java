@@ -0,0 +1,152 @@
+package com.aisplendor.service;
+
+import com.aisplendor.model.event.GameEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A published game event together with its JSON form, computed on first use and then shared
+ * by every sink (the event log, each WebSocket session, ...), so an event is serialized once
+ * no matter how many subscribers it has.
+ *
+ * The cached tree and bytes are shared: callers must treat them as read-only and copy before
+ * modifying.
+ *
+ * Published events carry their sequence number in the game's event stream (0 for the first event)
+ * and, when they are logged, their position in the game's log (see {@link GameEventLogger}). The
+ * two differ once events that are only published, such as reasoning chunks, are interleaved.
+ */
+public final class SerializedEvent {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final GameEvent event;
+    private final long sequence;
+    private final long logIndex;
+    private volatile ObjectNode tree;
+    private volatile byte[] json;
+    private volatile String text;
+    private volatile String sequencedText;
+
+    private SerializedEvent(GameEvent event, long sequence, long logIndex) {
+        this.event = event;
+        this.sequence = sequence;
+        this.logIndex = logIndex;
+    }
+
+    /**
+     * Wraps an event that is not part of a published stream (sequence -1).
+     */
+    public static SerializedEvent of(GameEvent event) {
+        return new SerializedEvent(event, -1, -1);
+    }
+
+    public static SerializedEvent of(GameEvent event, long sequence) {
+        return new SerializedEvent(event, sequence, -1);
+    }
+
+    /**
+     * @param logIndex Position of the event in the game's log, -1 if it is not logged
+     */
+    public static SerializedEvent of(GameEvent event, long sequence, long logIndex) {
+        return new SerializedEvent(event, sequence, logIndex);
+    }
+
+    /**
+     * @return The mapper events are serialized with
+     */
+    public static ObjectMapper mapper() {
+        return objectMapper;
+    }
+
+    public GameEvent event() {
+        return event;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return Number of events before this one in the game's log, -1 if it is not logged
+     */
+    public long logIndex() {
+        return logIndex;
+    }
+
+    /**
+     * @return The event as a JSON tree (shared, do not modify)
+     */
+    public ObjectNode tree() {
+        ObjectNode result = tree;
+        if (result == null) {
+            synchronized (this) {
+                result = tree;
+                if (result == null) {
+                    result = objectMapper.valueToTree(event);
+                    tree = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The event as UTF-8 encoded JSON (shared, do not modify)
+     */
+    public byte[] json() {
+        byte[] result = json;
+        if (result == null) {
+            synchronized (this) {
+                result = json;
+                if (result == null) {
+                    try {
+                        result = objectMapper.writeValueAsBytes(tree());
+                    } catch (JsonProcessingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    json = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The event as a JSON string
+     */
+    public String text() {
+        String result = text;
+        if (result == null) {
+            // Racing callers build equal strings, so no lock is needed
+            result = new String(json(), StandardCharsets.UTF_8);
+            text = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return The event as a JSON string with its sequence number as a leading "seq" field, as
+     *         sent to WebSocket sessions; the plain text if the event has no sequence
+     */
+    public String sequencedText() {
+        if (sequence < 0) {
+            return text();
+        }
+        String result = sequencedText;
+        if (result == null) {
+            String plain = text();
+            result = "{\"seq\":" + sequence + (plain.length() > 2 ? "," : "") + plain.substring(1);
+            sequencedText = result;
+        }
+        return result;
+    }
+}
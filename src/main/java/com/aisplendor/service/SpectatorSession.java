@@ -0,0 +1,327 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.SpectatorConfig;
+import com.aisplendor.config.SpectatorConfig.OverflowPolicy;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningChunkEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.RetryEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A spectator's WebSocket session with its own bounded send queue. Events are queued by the
+ * caller and sent by a per-session sender thread, so a slow connection delays only itself and
+ * sends to one session never overlap.
+ *
+ * When the queued bytes exceed the buffer limit, the session's {@link OverflowPolicy} thins the
+ * queue or closes the session. A watchdog closes a session whose current send has been blocked for
+ * longer than the send time limit. Closing happens on its own thread, so neither the caller nor the
+ * watchdog waits for a connection that is stuck in a send.
+ *
+ * Sessions of the binary delta subprotocol receive TurnStarted events as state deltas (see
+ * {@link com.aisplendor.util.BinaryStateDelta}). When coalescing drops the turn a delta
+ * applies to, that delta is sent as the full state instead.
+ */
+public final class SpectatorSession {
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorSession.class);
+    private static final ScheduledExecutorService WATCHDOG = createWatchdog();
+
+    private final WebSocketSession session;
+    private final String gameId;
+    private final SpectatorConfig config;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean delta;
+    private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private int maxQueuedMessages;
+    private long sent;
+    private long dropped;
+    private long coalesced;
+    private boolean sending;
+    // System.nanoTime() when the current send started, 0 while idle
+    private volatile long sendStartedNanos;
+    private volatile boolean closed;
+
+    // A live event, sent as binary or text if set, or a prebuilt message (event == null) that is never dropped
+    private record Outgoing(SerializedEvent event, String text, byte[] binary, long size) {
+    }
+
+    // Queue marker for the end of the game's stream
+    private static final Outgoing END = new Outgoing(null, null, null, 0);
+
+    /**
+     * Snapshot of a session's queue, exposed on the REST API.
+     *
+     * @param queuedMessages    Events waiting to be sent
+     * @param queuedBytes       Size of the waiting events
+     * @param maxQueuedMessages Deepest the queue has been
+     * @param dropped           Reasoning, reasoning chunk and retry events dropped on overflow
+     * @param coalesced         Turns and actions replaced by a later state on overflow
+     * @param sendingForMs      How long the current send has been blocked, 0 if idle
+     */
+    public record Stats(String sessionId, String gameId, OverflowPolicy overflowPolicy, int queuedMessages,
+            long queuedBytes, int maxQueuedMessages, long sent, long dropped, long coalesced, long sendingForMs,
+            boolean open) {
+    }
+
+    public SpectatorSession(WebSocketSession session, String gameId, SpectatorConfig config,
+            OverflowPolicy overflowPolicy) {
+        this(session, gameId, config, overflowPolicy, false);
+    }
+
+    /**
+     * @param delta Whether the session negotiated the binary delta subprotocol
+     */
+    public SpectatorSession(WebSocketSession session, String gameId, SpectatorConfig config,
+            OverflowPolicy overflowPolicy, boolean delta) {
+        this.session = session;
+        this.gameId = gameId;
+        this.config = config;
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : config.overflowPolicy();
+        this.delta = delta;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public boolean isDelta() {
+        return delta;
+    }
+
+    /**
+     * Queues an event for sending without blocking on the connection.
+     */
+    public void send(SerializedEvent event) {
+        enqueue(new Outgoing(event, null, null, event.json().length));
+    }
+
+    /**
+     * Queues an event in a different form than its published JSON, such as a dashboard summary.
+     * Overflow policies still treat it as the event.
+     */
+    public void send(SerializedEvent event, String text) {
+        enqueue(new Outgoing(event, text, null, text.length()));
+    }
+
+    /**
+     * Queues a TurnStarted event as a binary state delta.
+     */
+    public void send(SerializedEvent event, byte[] frame) {
+        enqueue(new Outgoing(event, null, frame, frame.length));
+    }
+
+    /**
+     * Queues a prebuilt message, such as the snapshot for a late joiner.
+     */
+    public void send(String message) {
+        enqueue(new Outgoing(null, message, null, message.length()));
+    }
+
+    /**
+     * Closes the session normally once everything queued has been sent, e.g. when the game's
+     * stream has ended.
+     */
+    public void finish() {
+        enqueue(END);
+    }
+
+    private void enqueue(Outgoing outgoing) {
+        if (closed) {
+            return;
+        }
+        boolean overflow = false;
+        boolean startSender = false;
+        synchronized (this) {
+            queue.add(outgoing);
+            queuedBytes += outgoing.size();
+            maxQueuedMessages = Math.max(maxQueuedMessages, queue.size());
+            if (queuedBytes > config.bufferSizeLimit() && !relieve()) {
+                overflow = true;
+            } else if (!sending) {
+                sending = true;
+                startSender = true;
+            }
+        }
+        if (overflow) {
+            close("Send buffer limit exceeded");
+        } else if (startSender) {
+            Thread.ofVirtual().name("ws-send-" + session.getId()).start(this::drain);
+        }
+    }
+
+    /**
+     * Applies the overflow policy to the queue.
+     *
+     * @return true if the queue is back within the buffer limit
+     */
+    private boolean relieve() {
+        if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+            return false;
+        }
+        // The latest full state makes the queued turns and actions before it redundant
+        Outgoing latestTurn = null;
+        if (overflowPolicy == OverflowPolicy.COALESCE) {
+            for (Outgoing outgoing : queue) {
+                if (outgoing.event() != null && outgoing.event().event() instanceof TurnStartedEvent) {
+                    latestTurn = outgoing;
+                }
+            }
+        }
+        boolean beforeLatestTurn = latestTurn != null;
+        boolean turnDropped = false;
+        for (Iterator<Outgoing> it = queue.iterator(); it.hasNext(); ) {
+            Outgoing outgoing = it.next();
+            if (outgoing == latestTurn) {
+                beforeLatestTurn = false;
+            }
+            if (outgoing.event() == null) {
+                continue;
+            }
+            GameEvent event = outgoing.event().event();
+            if (event instanceof ReasoningEvent || event instanceof ReasoningChunkEvent || event instanceof RetryEvent) {
+                dropped++;
+            } else if (beforeLatestTurn && !(event instanceof GameStartedEvent) && !(event instanceof GameEndedEvent)) {
+                coalesced++;
+                turnDropped |= event instanceof TurnStartedEvent;
+            } else {
+                continue;
+            }
+            it.remove();
+            queuedBytes -= outgoing.size();
+        }
+        if (turnDropped && latestTurn.binary() != null) {
+            // Its base is gone; send the full state in its place
+            for (int i = queue.size(); i > 0; i--) {
+                Outgoing outgoing = queue.poll();
+                if (outgoing == latestTurn) {
+                    outgoing = new Outgoing(latestTurn.event(), null, null, latestTurn.event().json().length);
+                    queuedBytes += outgoing.size() - latestTurn.size();
+                }
+                queue.add(outgoing);
+            }
+        }
+        return queuedBytes <= config.bufferSizeLimit();
+    }
+
+    private void drain() {
+        while (true) {
+            Outgoing outgoing;
+            synchronized (this) {
+                outgoing = queue.poll();
+                if (outgoing == null || closed) {
+                    sending = false;
+                    return;
+                }
+                queuedBytes -= outgoing.size();
+            }
+            if (outgoing == END) {
+                end();
+                continue;
+            }
+            sendStartedNanos = System.nanoTime();
+            ScheduledFuture<?> watch = WATCHDOG.schedule(() -> close("Send time limit exceeded"),
+                    config.sendTimeLimitMs(), TimeUnit.MILLISECONDS);
+            try {
+                if (outgoing.binary() != null) {
+                    session.sendMessage(new BinaryMessage(outgoing.binary()));
+                } else {
+                    session.sendMessage(new TextMessage(outgoing.text() != null ? outgoing.text()
+                            : outgoing.event().sequencedText()));
+                }
+                synchronized (this) {
+                    sent++;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to send WebSocket message to session {}: {}", session.getId(), e.getMessage());
+                close("Send failed");
+            } finally {
+                watch.cancel(false);
+                sendStartedNanos = 0;
+            }
+        }
+    }
+
+    private void end() {
+        if (!discard()) {
+            return;
+        }
+        logger.debug("Closing WebSocket session {} of game {}: stream ended", session.getId(), gameId);
+        try {
+            session.close(CloseStatus.NORMAL.withReason("Stream ended"));
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Failed to close WebSocket session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the session as unreliable and discards its queue. Returns at once; the connection is
+     * closed on its own thread, since closing waits for a send that is in progress.
+     */
+    public void close(String reason) {
+        if (!discard()) {
+            return;
+        }
+        logger.warn("Closing WebSocket session {} of game {}: {}", session.getId(), gameId, reason);
+        Thread.ofVirtual().name("ws-close-" + session.getId()).start(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Failed to close WebSocket session {}: {}", session.getId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stops sending, e.g. once the connection has closed, and discards the queue.
+     *
+     * @return false if the session was already closed
+     */
+    public synchronized boolean discard() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        queue.clear();
+        queuedBytes = 0;
+        return true;
+    }
+
+    public synchronized Stats stats() {
+        long started = sendStartedNanos;
+        return new Stats(session.getId(), gameId, overflowPolicy, queue.size(), queuedBytes, maxQueuedMessages,
+                sent, dropped, coalesced, started != 0 ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) : 0,
+                !closed && session.isOpen());
+    }
+
+    private static ScheduledExecutorService createWatchdog() {
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ws-send-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Nearly every send finishes in time, so its check is cancelled rather than run
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
+    }
+}
@@ -0,0 +1,352 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.SpectatorConfig;
+import com.aisplendor.config.SpectatorConfig.OverflowPolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A spectator following a game over Server-Sent Events. The request is handled asynchronously
+ * (see {@link SseEmitter}), so an idle subscriber holds no servlet thread; events are queued by
+ * the caller and written by a sender that only runs while the queue is not empty. Senders are
+ * platform threads from a shared pool: the emitter sends while holding its monitor, which would
+ * pin the carrier of a virtual thread for as long as a slow client blocks the write.
+ *
+ * Every logged event is sent with its position in the game's log as the event id, so a client
+ * that reconnects with a Last-Event-ID header resumes right after the last event it received:
+ * what the live game's tail no longer holds is read from the log. Reasoning chunks are not
+ * logged and go out without an id. A comment is sent when the stream has been idle for the
+ * heartbeat interval, so proxies keep the connection open.
+ *
+ * A subscriber whose queue exceeds the buffer limit, or whose current send has been blocked for
+ * longer than the send time limit (checked by a watchdog), has its stream ended; the client's
+ * reconnect resumes it. The emitter is only ever completed by the sender, after the send in
+ * progress, so neither the publisher nor the timer thread waits for a slow client.
+ */
+public final class SseSpectator {
+    private static final Logger logger = LoggerFactory.getLogger(SseSpectator.class);
+
+    private static final AtomicLong ids = new AtomicLong();
+    private static final AtomicLong senderIds = new AtomicLong();
+    // Heartbeats and send time limits
+    private static final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sse-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "sse-send-" + senderIds.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Queue markers: a heartbeat comment and the end of the stream
+    private static final Outgoing HEARTBEAT = new Outgoing(null, 0);
+    private static final Outgoing COMPLETE = new Outgoing(null, 0);
+
+    private final String id = "sse-" + ids.incrementAndGet();
+    private final SseEmitter emitter = new SseEmitter(0L);
+    private final String gameId;
+    private final Path logFile;
+    private final SpectatorConfig config;
+    private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+    private final ScheduledFuture<?> heartbeat;
+    private final boolean resuming;
+    // Log position of the last event sent, or given by the client as Last-Event-ID
+    private long lastSent;
+    private boolean catchUp;
+    private long queuedBytes;
+    private int maxQueuedMessages;
+    private long sent;
+    private boolean sending;
+    // Set once the emitter has been completed, or the connection is over
+    private boolean completed;
+    private Runnable onClose;
+    // System.nanoTime() when the current send started, 0 while idle
+    private volatile long sendStartedNanos;
+    private volatile long lastActivityNanos = System.nanoTime();
+    private volatile boolean closed;
+
+    private record Outgoing(SerializedEvent event, long size) {
+    }
+
+    /**
+     * @param logFile     Log of the game, null if it has none yet
+     * @param lastEventId Last-Event-ID sent by the client, -1 for a new subscriber
+     */
+    public SseSpectator(String gameId, Path logFile, SpectatorConfig config, long lastEventId) {
+        this.gameId = gameId;
+        this.logFile = logFile;
+        this.config = config;
+        this.lastSent = lastEventId;
+        this.resuming = lastEventId >= 0;
+        emitter.onCompletion(this::closed);
+        emitter.onTimeout(this::closed);
+        emitter.onError(error -> closed());
+        long interval = config.heartbeatMs();
+        this.heartbeat = timers.scheduleAtFixedRate(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Runs an action once the stream is over, whichever side ended it.
+     */
+    public synchronized void onClose(Runnable action) {
+        onClose = action;
+    }
+
+    /**
+     * Starts the stream with what is already known of the game. A new subscriber of a live game
+     * receives its tail, like a WebSocket snapshot; a resuming subscriber receives what it missed
+     * of the tail, preceded by what it missed before the tail, from the log. A subscriber that
+     * gets no tail at all receives the log from the start.
+     *
+     * @param snapshot Recent events of the game, oldest first
+     * @param ended    Whether the game is over, so the stream ends after them
+     */
+    public void start(List<SerializedEvent> snapshot, boolean ended) {
+        synchronized (this) {
+            catchUp = logFile != null && (resuming || snapshot.isEmpty());
+            for (SerializedEvent event : snapshot) {
+                if (!resuming || event.logIndex() > lastSent) {
+                    queue.add(new Outgoing(event, event.json().length));
+                    queuedBytes += event.json().length;
+                }
+            }
+            if (ended) {
+                queue.add(COMPLETE);
+            }
+        }
+        startSender();
+    }
+
+    /**
+     * Queues a live event without blocking on the connection.
+     */
+    public void send(SerializedEvent event) {
+        enqueue(new Outgoing(event, event.json().length));
+    }
+
+    /**
+     * Ends the stream once everything queued has been sent.
+     */
+    public void finish() {
+        enqueue(COMPLETE);
+    }
+
+    private void heartbeat() {
+        if (System.nanoTime() - lastActivityNanos >= TimeUnit.MILLISECONDS.toNanos(config.heartbeatMs())) {
+            enqueue(HEARTBEAT);
+        }
+    }
+
+    private void enqueue(Outgoing outgoing) {
+        if (closed) {
+            return;
+        }
+        boolean overflow;
+        synchronized (this) {
+            queue.add(outgoing);
+            queuedBytes += outgoing.size();
+            maxQueuedMessages = Math.max(maxQueuedMessages, queue.size());
+            overflow = queuedBytes > config.bufferSizeLimit();
+        }
+        if (overflow) {
+            close("Send buffer limit exceeded");
+        } else {
+            startSender();
+        }
+    }
+
+    /**
+     * Starts a sender if there is something to send, or a closed stream to complete, and none runs.
+     */
+    private void startSender() {
+        synchronized (this) {
+            if (sending || (closed ? completed : queue.isEmpty() && !catchUp)) {
+                return;
+            }
+            sending = true;
+        }
+        senders.execute(this::drain);
+    }
+
+    private void drain() {
+        try {
+            if (catchUp) {
+                catchUp();
+            }
+            while (true) {
+                Outgoing outgoing;
+                synchronized (this) {
+                    outgoing = closed ? null : queue.poll();
+                    if (outgoing == null) {
+                        break;
+                    }
+                    queuedBytes -= outgoing.size();
+                }
+                if (outgoing == COMPLETE) {
+                    discard();
+                } else if (outgoing == HEARTBEAT) {
+                    write(SseEmitter.event().comment("heartbeat"));
+                } else if (outgoing.event().logIndex() < 0) {
+                    write(SseEmitter.event().data(outgoing.event().text(), MediaType.APPLICATION_JSON));
+                } else if (outgoing.event().logIndex() > lastSent) {
+                    write(SseEmitter.event().id(Long.toString(outgoing.event().logIndex()))
+                            .data(outgoing.event().text(), MediaType.APPLICATION_JSON));
+                    lastSent = outgoing.event().logIndex();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Usually the client has gone away
+            logger.debug("Failed to send event stream {} of game {}: {}", id, gameId, e.getMessage());
+            discard();
+        } finally {
+            if (closed) {
+                complete();
+            }
+            synchronized (this) {
+                sending = false;
+            }
+            startSender();
+        }
+    }
+
+    /**
+     * Sends the logged events after {@link #lastSent} that come before the first queued one, or
+     * up to the end of the log if none is queued. A log that does not reach the queued event yet
+     * (it is written behind the live stream) ends the stream, and the client's reconnect resumes
+     * from what was sent.
+     */
+    private void catchUp() throws IOException {
+        long until;
+        synchronized (this) {
+            catchUp = false;
+            until = queue.stream().filter(outgoing -> outgoing.event() != null && outgoing.event().logIndex() >= 0)
+                    .mapToLong(outgoing -> outgoing.event().logIndex()).findFirst().orElse(Long.MAX_VALUE);
+        }
+        long from = lastSent + 1;
+        if (from >= until || !Files.exists(logFile)) {
+            return;
+        }
+        long index = from;
+        try (GameLogReader.EventSource events = TurnIndex.load(logFile).openAt((int) from)) {
+            JsonNode node;
+            while (index < until && !closed && (node = events.next()) != null) {
+                write(SseEmitter.event().id(Long.toString(index))
+                        .data(SerializedEvent.mapper().writeValueAsString(node), MediaType.APPLICATION_JSON));
+                lastSent = index++;
+            }
+        }
+        if (index < until && until != Long.MAX_VALUE) {
+            close("Log behind the live stream");
+        } else {
+            logger.debug("Event stream {} of game {} caught up on {} logged events", id, gameId, index - from);
+        }
+    }
+
+    private void write(SseEmitter.SseEventBuilder event) throws IOException {
+        sendStartedNanos = System.nanoTime();
+        ScheduledFuture<?> watch = timers.schedule(() -> close("Send time limit exceeded"),
+                config.sendTimeLimitMs(), TimeUnit.MILLISECONDS);
+        try {
+            emitter.send(event);
+            synchronized (this) {
+                sent++;
+            }
+        } finally {
+            watch.cancel(false);
+            sendStartedNanos = 0;
+            lastActivityNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Completes the emitter of a closed stream. Only called by the sender.
+     */
+    private void complete() {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+        }
+        try {
+            emitter.complete();
+        } catch (RuntimeException e) {
+            logger.debug("Failed to complete event stream {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Ends the stream and discards its queue without waiting for the connection: the emitter is
+     * completed by the sender, after the send in progress if any. The client reconnects with the
+     * id of the last event it received.
+     */
+    public void close(String reason) {
+        if (!discard()) {
+            return;
+        }
+        logger.warn("Ending event stream {} of game {}: {}", id, gameId, reason);
+        startSender();
+    }
+
+    private void closed() {
+        synchronized (this) {
+            completed = true;
+        }
+        discard();
+        Runnable action;
+        synchronized (this) {
+            action = onClose;
+            onClose = null;
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Stops sending, e.g. once the connection has closed, and discards the queue.
+     *
+     * @return false if the stream was already closed
+     */
+    public synchronized boolean discard() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        heartbeat.cancel(false);
+        queue.clear();
+        queuedBytes = 0;
+        return true;
+    }
+
+    public synchronized SpectatorSession.Stats stats() {
+        long started = sendStartedNanos;
+        return new SpectatorSession.Stats(id, gameId, OverflowPolicy.DISCONNECT, queue.size(), queuedBytes,
+                maxQueuedMessages, sent, 0, 0,
+                started != 0 ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) : 0, !closed);
+    }
+}
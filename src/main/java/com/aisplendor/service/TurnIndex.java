@@ -0,0 +1,577 @@
+package com.aisplendor.service;
+
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.util.BinaryEventCodec;
+import com.aisplendor.util.StateDeltaCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Sidecar index of a game log ({log file name}.idx) for random access to turns.
+ *
+ * The index holds one fixed-size entry per TurnStarted event: turn number, byte offset of
+ * the event in the log file, number of events before it, whether it carries a full-state
+ * keyframe, and the resume bookkeeping up to that point (successful action since the previous
+ * turn start, thinking time and token totals), so resuming only has to read the last turn.
+ * For compressed logs the offset is the deflate sync point written before the turn,
+ * where a raw inflater can start. The log writer appends entries while the match runs; logs
+ * written without an index get one on first use (uncompressed logs only, compressed ones
+ * are read sequentially instead).
+ */
+public final class TurnIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TurnIndex.class);
+
+    public static final String EXTENSION = ".idx";
+    private static final byte[] MAGIC = "AISIDX02".getBytes(StandardCharsets.US_ASCII);
+    private static final int ENTRY_SIZE = 81;
+
+    /**
+     * Position of one TurnStarted event in the log.
+     *
+     * @param turn         Turn number
+     * @param offset       Byte offset in the log file (sync point offset for compressed logs)
+     * @param eventIndex   Number of events before this one
+     * @param keyframe     Whether the event stores the full state rather than a delta
+     * @param afterSuccess Whether a successful action was logged since the previous TurnStarted
+     * @param totals       Totals of all events before this one
+     */
+    public record Entry(int turn, long offset, int eventIndex, boolean keyframe, boolean afterSuccess,
+            Totals totals) {
+
+        public Entry withOffset(long offset) {
+            return new Entry(turn, offset, eventIndex, keyframe, afterSuccess, totals);
+        }
+    }
+
+    /**
+     * Running totals restored on resume: thinking time of successful actions and token usage.
+     */
+    public record Totals(long player0TimeMs, long player1TimeMs, TokenUsage player0Tokens,
+            TokenUsage player1Tokens) {
+
+        public static final Totals ZERO = new Totals(0, 0, TokenUsage.zero(), TokenUsage.zero());
+    }
+
+    /**
+     * Derives index entries from the events of a log, in log order.
+     */
+    public static class Tracker {
+        private Totals totals = Totals.ZERO;
+        private boolean successSinceTurnStart;
+
+        /**
+         * @param event  TurnStarted event, as written
+         * @param offset Position of the event in the log, -1 if only known to the writer
+         * @return Index entry for the event
+         */
+        public Entry turnStart(JsonNode event, long offset, int eventIndex) {
+            Entry entry = new Entry(event.get("turn").asInt(), offset, eventIndex,
+                    event.has(StateDeltaCodec.STATE_FIELD), successSinceTurnStart, totals);
+            successSinceTurnStart = false;
+            return entry;
+        }
+
+        /**
+         * Accounts for any other event.
+         */
+        public void add(JsonNode event) {
+            if (event.has("action") && event.has("success")) {
+                // ActionEvent
+                if (event.get("success").asBoolean()) {
+                    successSinceTurnStart = true;
+                    long duration = event.path("durationMs").asLong(0L);
+                    int playerIndex = event.path("playerIndex").asInt();
+                    if (playerIndex == 0) {
+                        totals = new Totals(totals.player0TimeMs() + duration, totals.player1TimeMs(),
+                                totals.player0Tokens(), totals.player1Tokens());
+                    } else if (playerIndex == 1) {
+                        totals = new Totals(totals.player0TimeMs(), totals.player1TimeMs() + duration,
+                                totals.player0Tokens(), totals.player1Tokens());
+                    }
+                }
+            } else if (event.has("reasoning") && event.has("tokenUsage")) {
+                // ReasoningEvent
+                JsonNode usageNode = event.get("tokenUsage");
+                TokenUsage usage = new TokenUsage(usageNode.path("promptTokens").asLong(0),
+                        usageNode.path("completionTokens").asLong(0), usageNode.path("cost").asDouble(0.0));
+                int playerIndex = event.path("playerIndex").asInt();
+                if (playerIndex == 0) {
+                    totals = new Totals(totals.player0TimeMs(), totals.player1TimeMs(),
+                            totals.player0Tokens().add(usage), totals.player1Tokens());
+                } else if (playerIndex == 1) {
+                    totals = new Totals(totals.player0TimeMs(), totals.player1TimeMs(),
+                            totals.player0Tokens(), totals.player1Tokens().add(usage));
+                }
+            }
+        }
+
+        public Totals totals() {
+            return totals;
+        }
+
+        /**
+         * Continues tracking after an indexed turn start, before that event itself is seen.
+         */
+        public void resumeBefore(Entry entry) {
+            totals = entry.totals();
+            successSinceTurnStart = entry.afterSuccess();
+        }
+    }
+
+    /**
+     * Events of a range of turns, with delta-encoded states expanded.
+     *
+     * @param gameStarted     First event of the log (models, names, costs)
+     * @param lastTurn        Highest turn number in the log, -1 if unknown
+     * @param firstEventIndex Index of the first returned event within the log
+     * @param state           Full state at the start of the range, null if the range is empty
+     * @param events          Events from the first TurnStarted in range up to the next turn after it
+     */
+    public record TurnRange(JsonNode gameStarted, int fromTurn, int toTurn, int lastTurn, int firstEventIndex,
+            JsonNode state, List<JsonNode> events) {
+    }
+
+    private final Path logFile;
+    private final boolean binary;
+    private final boolean compressed;
+    private final List<Entry> entries;
+
+    private TurnIndex(Path logFile, boolean binary, boolean compressed, List<Entry> entries) {
+        this.logFile = logFile;
+        this.binary = binary;
+        this.compressed = compressed;
+        this.entries = entries;
+    }
+
+    /**
+     * @return Sidecar index path of a log file
+     */
+    public static Path pathFor(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + EXTENSION);
+    }
+
+    /**
+     * @return Whether a log event (as written, possibly delta-encoded) is a TurnStarted event
+     */
+    public static boolean isTurnStart(JsonNode node) {
+        return node.has("turn") && (node.has(StateDeltaCodec.STATE_FIELD) || node.has(StateDeltaCodec.DELTA_FIELD));
+    }
+
+    /**
+     * Loads the index of a log, building and saving it first if the log has none.
+     */
+    public static TurnIndex load(Path logFile) throws IOException {
+        boolean binary = BinaryEventLog.isBinary(logFile);
+        boolean compressed = GameLogReader.isCompressed(logFile);
+        Path indexFile = pathFor(logFile);
+        if (Files.exists(indexFile)) {
+            try {
+                return new TurnIndex(logFile, binary, compressed, read(indexFile, Files.size(logFile)));
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable turn index {}: {}", indexFile, e.getMessage());
+            }
+        }
+        if (compressed) {
+            return new TurnIndex(logFile, binary, true, List.of());
+        }
+        List<Entry> entries = scan(logFile, binary);
+        try {
+            write(indexFile, entries);
+            logger.info("Built turn index {} ({} turns)", indexFile, entries.size());
+        } catch (IOException e) {
+            // A read-only logs directory: the index is still usable, only rebuilt next time
+            logger.warn("Cannot write turn index {}: {}", indexFile, e.getMessage());
+        }
+        return new TurnIndex(logFile, binary, false, entries);
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * @return Highest indexed turn, -1 if the index is empty
+     */
+    public int lastTurn() {
+        return entries.stream().mapToInt(Entry::turn).max().orElse(-1);
+    }
+
+    /**
+     * Reads the events of turns {@code fromTurn..toTurn}. Only the part of the log between the
+     * nearest keyframe before the range and the end of the range is mapped and decoded; logs
+     * without usable index entries are scanned from the start.
+     */
+    public TurnRange readRange(int fromTurn, int toTurn) throws IOException {
+        JsonNode gameStarted;
+        try (GameLogReader.EventSource source = GameLogReader.openEvents(logFile)) {
+            gameStarted = source.next();
+        }
+        int start = 0;
+        while (start < entries.size() && entries.get(start).turn() < fromTurn) {
+            start++;
+        }
+        if (start == entries.size() || keyframeBefore(start) < 0) {
+            // Not indexed (yet): the turn may still be in the unindexed tail of a running log
+            return scanRange(gameStarted, fromTurn, toTurn);
+        }
+        if (entries.get(start).turn() > toTurn) {
+            return new TurnRange(gameStarted, fromTurn, toTurn, lastTurn(), -1, null, List.of());
+        }
+        int end = start;
+        while (end < entries.size() && entries.get(end).turn() <= toTurn) {
+            end++;
+        }
+
+        long endOffset = end < entries.size() ? entries.get(end).offset() : -1;
+        List<JsonNode> events = new ArrayList<>();
+        try (GameLogReader.EventSource source = openDecoded(start, endOffset)) {
+            JsonNode node;
+            while ((node = source.next()) != null) {
+                if (!events.isEmpty() && isTurnStart(node) && node.get("turn").asInt() > toTurn) {
+                    break;
+                }
+                events.add(node);
+            }
+        }
+        JsonNode state = events.isEmpty() ? null : events.get(0).get(StateDeltaCodec.STATE_FIELD);
+        return new TurnRange(gameStarted, fromTurn, toTurn, lastTurn(), entries.get(start).eventIndex(), state,
+                events);
+    }
+
+    /**
+     * Opens the events from the TurnStarted of an index entry to the end of the log, with
+     * delta-encoded states expanded. Only the log from the preceding keyframe on is read.
+     *
+     * @param position Entry position in {@link #entries()}
+     * @throws IOException if no keyframe precedes the entry
+     */
+    public GameLogReader.EventSource openFrom(int position) throws IOException {
+        return openDecoded(position, -1);
+    }
+
+    /**
+     * Opens the events of the log from its {@code eventIndex}-th event on, with delta-encoded
+     * states expanded. The log is read from the keyframe before the nearest indexed turn, or
+     * from the start if there is none.
+     */
+    public GameLogReader.EventSource openAt(int eventIndex) throws IOException {
+        int position = entries.size() - 1;
+        while (position >= 0 && entries.get(position).eventIndex() > eventIndex) {
+            position--;
+        }
+        GameLogReader.EventSource events;
+        int skip;
+        if (position >= 0 && keyframeBefore(position) >= 0) {
+            events = openDecoded(position, -1);
+            skip = eventIndex - entries.get(position).eventIndex();
+        } else {
+            GameLogReader.EventSource source = GameLogReader.openEvents(logFile);
+            StateDeltaCodec deltaCodec = new StateDeltaCodec();
+            events = new GameLogReader.EventSource() {
+                @Override
+                public JsonNode next() throws IOException {
+                    JsonNode node = source.next();
+                    if (node instanceof ObjectNode objectNode) {
+                        deltaCodec.decode(objectNode);
+                    }
+                    return node;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    source.close();
+                }
+            };
+            skip = eventIndex;
+        }
+        try {
+            for (int i = 0; i < skip && events.next() != null; i++) {
+                // Skipped
+            }
+        } catch (IOException | RuntimeException e) {
+            events.close();
+            throw e;
+        }
+        return events;
+    }
+
+    /**
+     * @return Full state at the TurnStarted of an index entry
+     */
+    public JsonNode stateAt(int position) throws IOException {
+        long endOffset = position + 1 < entries.size() ? entries.get(position + 1).offset() : -1;
+        try (GameLogReader.EventSource source = openDecoded(position, endOffset)) {
+            JsonNode node = source.next();
+            return node != null ? node.get(StateDeltaCodec.STATE_FIELD) : null;
+        }
+    }
+
+    private int keyframeBefore(int position) {
+        int keyframe = position;
+        while (keyframe >= 0 && !entries.get(keyframe).keyframe()) {
+            keyframe--;
+        }
+        return keyframe;
+    }
+
+    private GameLogReader.EventSource openDecoded(int position, long endOffset) throws IOException {
+        int keyframe = keyframeBefore(position);
+        if (keyframe < 0) {
+            throw new IOException("No keyframe before turn " + entries.get(position).turn() + " in " + logFile);
+        }
+        GameLogReader.EventSource slice = openSlice(entries.get(keyframe).offset(), endOffset);
+        StateDeltaCodec deltaCodec = new StateDeltaCodec();
+        int skip = entries.get(position).eventIndex() - entries.get(keyframe).eventIndex();
+        return new GameLogReader.EventSource() {
+            private int skipped;
+
+            @Override
+            public JsonNode next() throws IOException {
+                JsonNode node;
+                while ((node = slice.next()) != null) {
+                    if (node instanceof ObjectNode objectNode) {
+                        deltaCodec.decode(objectNode);
+                    }
+                    if (skipped < skip) {
+                        skipped++;
+                        continue;
+                    }
+                    return node;
+                }
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                slice.close();
+            }
+        };
+    }
+
+    /**
+     * Memory-maps {@code [offset, end)} of the log (end = -1 for the end of the file) and reads
+     * the events in it.
+     */
+    private GameLogReader.EventSource openSlice(long offset, long end) throws IOException {
+        MappedByteBuffer slice;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long limit = end >= 0 ? end : channel.size();
+            slice = channel.map(FileChannel.MapMode.READ_ONLY, offset, limit - offset);
+        }
+        InputStream in = new ByteBufferBackedInputStream(slice);
+        if (compressed) {
+            in = GameLogReader.endOfInputTolerant(new InflaterInputStream(in, new Inflater(true), 64 * 1024));
+        }
+        return binary ? new BinaryEventLog.Reader(logFile, in, false) : GameLogReader.ndjsonEvents(logFile, in);
+    }
+
+    private TurnRange scanRange(JsonNode gameStarted, int fromTurn, int toTurn) throws IOException {
+        StateDeltaCodec deltaCodec = new StateDeltaCodec();
+        List<JsonNode> events = new ArrayList<>();
+        int eventIndex = 0;
+        int firstEventIndex = -1;
+        int lastTurn = -1;
+        boolean inRange = false;
+        try (GameLogReader.EventSource source = GameLogReader.openEvents(logFile)) {
+            JsonNode node;
+            while ((node = source.next()) != null) {
+                if (node instanceof ObjectNode objectNode) {
+                    deltaCodec.decode(objectNode);
+                }
+                if (isTurnStart(node)) {
+                    int turn = node.get("turn").asInt();
+                    lastTurn = Math.max(lastTurn, turn);
+                    if (firstEventIndex < 0 && turn >= fromTurn && turn <= toTurn) {
+                        firstEventIndex = eventIndex;
+                        inRange = true;
+                    } else if (turn > toTurn) {
+                        inRange = false;
+                    }
+                }
+                if (inRange) {
+                    events.add(node);
+                }
+                eventIndex++;
+            }
+        }
+        JsonNode state = events.isEmpty() ? null : events.get(0).get(StateDeltaCodec.STATE_FIELD);
+        return new TurnRange(gameStarted, fromTurn, toTurn, lastTurn, firstEventIndex, state, events);
+    }
+
+    /**
+     * Builds the entries of an uncompressed log by walking its records.
+     */
+    private static List<Entry> scan(Path logFile, boolean binary) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Game log too large to index: " + logFile);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        List<Entry> entries = new ArrayList<>();
+        Tracker tracker = new Tracker();
+        int eventIndex = 0;
+        if (binary) {
+            buffer.position(BinaryEventLog.header().length);
+        }
+        while (buffer.hasRemaining()) {
+            int offset = buffer.position();
+            JsonNode node;
+            if (binary) {
+                long length = readVarint(buffer);
+                if (length < 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[(int) length];
+                buffer.get(payload);
+                node = BinaryEventCodec.decode(payload);
+            } else {
+                int end = offset;
+                while (end < buffer.limit() && buffer.get(end) != '\n') {
+                    end++;
+                }
+                byte[] line = new byte[end - offset];
+                buffer.get(line);
+                if (buffer.hasRemaining()) {
+                    buffer.get();
+                }
+                if (new String(line, StandardCharsets.UTF_8).isBlank()) {
+                    continue;
+                }
+                try {
+                    node = mapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    if (buffer.hasRemaining()) {
+                        throw e;
+                    }
+                    break;
+                }
+            }
+            if (isTurnStart(node)) {
+                entries.add(tracker.turnStart(node, offset, eventIndex));
+            } else {
+                tracker.add(node);
+            }
+            eventIndex++;
+        }
+        return entries;
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift <= 35; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Entry> read(Path indexFile, long logSize) throws IOException {
+        byte[] bytes = Files.readAllBytes(indexFile);
+        if (bytes.length < MAGIC.length || !Arrays.equals(MAGIC, 0, MAGIC.length, bytes, 0, MAGIC.length)) {
+            throw new IOException("Not a turn index");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, MAGIC.length, bytes.length - MAGIC.length);
+        List<Entry> entries = new ArrayList<>();
+        // A partial last entry (interrupted write) is ignored
+        while (buffer.remaining() >= ENTRY_SIZE) {
+            int turn = buffer.getInt();
+            long offset = buffer.getLong();
+            int eventIndex = buffer.getInt();
+            byte flags = buffer.get();
+            Totals totals = new Totals(buffer.getLong(), buffer.getLong(),
+                    new TokenUsage(buffer.getLong(), buffer.getLong(), buffer.getDouble()),
+                    new TokenUsage(buffer.getLong(), buffer.getLong(), buffer.getDouble()));
+            Entry entry = new Entry(turn, offset, eventIndex, (flags & 1) != 0, (flags & 2) != 0, totals);
+            if (entry.offset() >= logSize) {
+                break;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void write(Path indexFile, List<Entry> entries) throws IOException {
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (Writer writer = new Writer(tempFile)) {
+            for (Entry entry : entries) {
+                writer.add(entry);
+            }
+        }
+        try {
+            Files.move(tempFile, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Appends entries to a new index file. Entries must only be flushed after the log bytes
+     * they point to, so that the index never runs ahead of the log.
+     */
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+
+        public Writer(Path indexFile) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 8 * 1024));
+            out.write(MAGIC);
+        }
+
+        public void add(Entry entry) throws IOException {
+            out.writeInt(entry.turn());
+            out.writeLong(entry.offset());
+            out.writeInt(entry.eventIndex());
+            out.writeByte((entry.keyframe() ? 1 : 0) | (entry.afterSuccess() ? 2 : 0));
+            Totals totals = entry.totals();
+            out.writeLong(totals.player0TimeMs());
+            out.writeLong(totals.player1TimeMs());
+            for (TokenUsage usage : List.of(totals.player0Tokens(), totals.player1Tokens())) {
+                out.writeLong(usage.promptTokens());
+                out.writeLong(usage.completionTokens());
+                out.writeDouble(usage.cost());
+            }
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.aisplendor.service;
+
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningChunkEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.RetryEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Messages between the match coordinator and its worker processes (see {@link MatchWorkerPool}).
+ * Each frame is a 4-byte big-endian length followed by a UTF-8 JSON object with an "op" field:
+ *
+ * worker to coordinator:
+ * - {"op":"hello","worker":"local-1","slots":4,"secret":...}, the connection is closed unless the secret matches
+ * - {"op":"event","gameId":...,"logIndex":N,"eventType":"TURN_STARTED","event":{...}}, the event as published
+ * - {"op":"finished","gameId":...,"status":"COMPLETED"|"FAILED","error":...}
+ *
+ * coordinator to worker:
+ * - {"op":"start","job":{...}} (see {@link MatchJob}), without an API key
+ * - {"op":"abort","gameId":...}
+ *
+ * Addresses are "unix:{path}" for a Unix domain socket or "host:port" for TCP. The coordinator
+ * only accepts events and results for the games it sent to the connection.
+ */
+public final class WorkerProtocol {
+
+    public static final String HELLO = "hello";
+    public static final String EVENT = "event";
+    public static final String FINISHED = "finished";
+    public static final String START = "start";
+    public static final String ABORT = "abort";
+    // Limit of the first frame of a connection, read before the worker is known
+    public static final int MAX_HELLO_BYTES = 64 * 1024;
+
+    private static final String UNIX_PREFIX = "unix:";
+    // A frame holds one event; anything near this is a corrupt length
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    private static final Map<String, Class<? extends GameEvent>> EVENT_TYPES = Map.of(
+            "GAME_STARTED", GameStartedEvent.class,
+            "TURN_STARTED", TurnStartedEvent.class,
+            "REASONING", ReasoningEvent.class,
+            "REASONING_CHUNK", ReasoningChunkEvent.class,
+            "ACTION", ActionEvent.class,
+            "RETRY", RetryEvent.class,
+            "GAME_ENDED", GameEndedEvent.class);
+
+    private WorkerProtocol() {
+    }
+
+    public static SocketAddress parseAddress(String address) {
+        if (address.startsWith(UNIX_PREFIX)) {
+            return UnixDomainSocketAddress.of(address.substring(UNIX_PREFIX.length()));
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Worker address must be unix:{path} or host:port: " + address);
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    /**
+     * Parses the address the coordinator listens on: like {@link #parseAddress}, except that a
+     * port alone (or ":port") means the loopback interface, so workers on other machines can
+     * only connect when a host is given explicitly.
+     */
+    public static SocketAddress parseListenAddress(String address) {
+        String port = address.startsWith(":") ? address.substring(1) : address;
+        if (!port.isEmpty() && port.chars().allMatch(Character::isDigit)) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port));
+        }
+        return parseAddress(address);
+    }
+
+    /**
+     * Compares the secret a worker presented with the coordinator's, in constant time.
+     */
+    public static boolean secretMatches(String expected, String presented) {
+        return presented != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String formatAddress(SocketAddress address) {
+        if (address instanceof UnixDomainSocketAddress unix) {
+            return UNIX_PREFIX + unix.getPath();
+        }
+        InetSocketAddress inet = (InetSocketAddress) address;
+        return inet.getHostString() + ":" + inet.getPort();
+    }
+
+    public static SocketChannel connect(String address) throws IOException {
+        SocketAddress socketAddress = parseAddress(address);
+        SocketChannel channel = SocketChannel.open(socketAddress instanceof UnixDomainSocketAddress
+                ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET);
+        channel.connect(socketAddress);
+        return channel;
+    }
+
+    /**
+     * Writes a frame. Callers serialize writes to the same stream.
+     */
+    public static void write(DataOutputStream out, byte[] json) throws IOException {
+        out.writeInt(json.length);
+        out.write(json);
+        out.flush();
+    }
+
+    public static void write(DataOutputStream out, JsonNode message) throws IOException {
+        write(out, SerializedEvent.mapper().writeValueAsBytes(message));
+    }
+
+    /**
+     * @return The next message, or null once the other side has closed the connection
+     */
+    public static ObjectNode read(DataInputStream in) throws IOException {
+        return read(in, MAX_FRAME_BYTES);
+    }
+
+    /**
+     * @param maxBytes Largest frame accepted
+     * @return The next message, or null once the other side has closed the connection
+     */
+    public static ObjectNode read(DataInputStream in, int maxBytes) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > maxBytes) {
+            throw new IOException("Invalid worker frame length " + length);
+        }
+        byte[] json = new byte[length];
+        in.readFully(json);
+        JsonNode message = SerializedEvent.mapper().readTree(json);
+        if (!(message instanceof ObjectNode object)) {
+            throw new IOException("Worker frame is not a JSON object");
+        }
+        return object;
+    }
+
+    public static ObjectNode message(String op) {
+        ObjectNode message = SerializedEvent.mapper().createObjectNode();
+        message.put("op", op);
+        return message;
+    }
+
+    /**
+     * Builds the start message of a job. API keys never leave the coordinator; workers use their
+     * own OPENROUTER_API_KEY.
+     */
+    public static ObjectNode startMessage(MatchJob job) {
+        ObjectNode start = message(START);
+        ObjectNode encoded = SerializedEvent.mapper().valueToTree(job);
+        encoded.remove("apiKey");
+        start.set("job", encoded);
+        return start;
+    }
+
+    /**
+     * @return The job of a start message. Derived properties written with its settings (e.g.
+     * StageConfig's secondLeg) are ignored, as when reading checkpoints.
+     */
+    public static MatchJob decodeJob(JsonNode message) throws IOException {
+        return SerializedEvent.mapper().readerFor(MatchJob.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(message.get("job"));
+    }
+
+    /**
+     * Builds an event frame around the event's published JSON, without serializing it again.
+     */
+    public static byte[] eventFrame(String gameId, SerializedEvent event) throws IOException {
+        byte[] head = ("{\"op\":\"" + EVENT + "\",\"gameId\":" + SerializedEvent.mapper().writeValueAsString(gameId)
+                + ",\"logIndex\":" + event.logIndex() + ",\"eventType\":\"" + event.event().eventType()
+                + "\",\"event\":").getBytes(StandardCharsets.UTF_8);
+        byte[] json = event.json();
+        byte[] frame = new byte[head.length + json.length + 1];
+        System.arraycopy(head, 0, frame, 0, head.length);
+        System.arraycopy(json, 0, frame, head.length, json.length);
+        frame[frame.length - 1] = '}';
+        return frame;
+    }
+
+    /**
+     * @return The event of an event frame
+     * @throws IOException if its type is unknown or its JSON does not fit the type
+     */
+    public static GameEvent decodeEvent(JsonNode message) throws IOException {
+        Class<? extends GameEvent> type = EVENT_TYPES.get(message.path("eventType").asText());
+        if (type == null) {
+            throw new IOException("Unknown event type from worker: " + message.path("eventType").asText());
+        }
+        return SerializedEvent.mapper().treeToValue(message.get("event"), type);
+    }
+}
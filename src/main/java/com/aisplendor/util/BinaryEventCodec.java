@@ -0,0 +1,347 @@
+package com.aisplendor.util;
+
+import com.aisplendor.model.DeckFactory;
+import com.aisplendor.model.DevelopmentCard;
+import com.aisplendor.model.NobleTile;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding of game event JSON trees, used by the binary log format.
+ *
+ * Values are tagged; integers are zigzag varints, timestamps are epoch seconds + nanos,
+ * field names and enum values come from a static string dictionary, and development cards
+ * and nobles identical to the standard set are written as a single dictionary index. Any
+ * other value is written literally, so every tree round-trips to equivalent JSON.
+ *
+ * The dictionary is append-only; {@link #dictionaryFingerprint()} is stored in each log
+ * header so a reader never decodes a file with a different dictionary.
+ */
+public final class BinaryEventCodec {
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int INT = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+    private static final int DICT_STRING = 6;
+    private static final int ARRAY = 7;
+    private static final int OBJECT = 8;
+    private static final int CARD = 9;
+    private static final int NOBLE = 10;
+    private static final int TIMESTAMP = 11;
+    private static final int DECIMAL = 12;
+
+    /** Field names and enum values of the model.event records and GameState. Append only. */
+    private static final List<String> STRINGS = List.of(
+            // Events
+            "timestamp", "gameId", "player0Model", "player1Model", "player0Name", "player1Name",
+            "player0InputCost", "player0OutputCost", "player1InputCost", "player1OutputCost", "initialState",
+            "turn", "playerIndex", "gameState", "reasoning", "tokenUsage", "promptTokens", "completionTokens",
+            "cost", "action", "success", "durationMs", "attempt", "error", "winnerIndex", "winnerReason",
+            "finalScores", "playerUsages", "logFormat", "keyframeInterval", "stateDelta", "$drop", "$append",
+            // Actions
+            "type", "tokens", "tokensToReturn", "cardId", "deckLevel",
+            "TAKE_TOKENS", "RESERVE_CARD", "PURCHASE_CARD",
+            // Game state
+            "board", "availableTokens", "counts", "faceUpCards", "decks", "availableNobles", "players", "id",
+            "purchasedCards", "reservedCards", "visitedNobles", "score", "bonuses", "reasoningHistory",
+            "currentPlayerIndex", "turnNumber", "isGameOver", "level", "bonusGem", "prestigePoints",
+            "requirement",
+            // Enums
+            "LEVEL_1", "LEVEL_2", "LEVEL_3", "WHITE", "BLUE", "GREEN", "RED", "BLACK", "GOLD",
+            "0", "1");
+
+    private static final Map<String, Integer> STRING_INDEX = new HashMap<>();
+    private static final List<JsonNode> CARDS = new ArrayList<>();
+    private static final List<JsonNode> NOBLES = new ArrayList<>();
+    private static final Map<String, Integer> CARD_INDEX = new HashMap<>();
+    private static final Map<String, Integer> NOBLE_INDEX = new HashMap<>();
+    private static final int FINGERPRINT;
+
+    static {
+        for (int i = 0; i < STRINGS.size(); i++) {
+            STRING_INDEX.put(STRINGS.get(i), i);
+        }
+        // Costs are Map.of maps, whose order differs between JVMs; sorted, the fingerprint does not
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        List<DevelopmentCard> cards = DeckFactory.createStandardDecks(new Random(0)).values().stream()
+                .flatMap(deck -> deck.stream())
+                .sorted(Comparator.comparing(DevelopmentCard::level)
+                        .thenComparingInt(card -> Integer.parseInt(card.id().substring(card.id().indexOf('_') + 1))))
+                .toList();
+        for (DevelopmentCard card : cards) {
+            CARD_INDEX.put(card.id(), CARDS.size());
+            CARDS.add(mapper.valueToTree(card));
+        }
+        List<NobleTile> nobles = DeckFactory.createStandardNobles();
+        for (NobleTile noble : nobles) {
+            NOBLE_INDEX.put(noble.id(), NOBLES.size());
+            NOBLES.add(mapper.valueToTree(noble));
+        }
+
+        CRC32 crc = new CRC32();
+        STRINGS.forEach(s -> crc.update(s.getBytes(StandardCharsets.UTF_8)));
+        CARDS.forEach(card -> crc.update(card.toString().getBytes(StandardCharsets.UTF_8)));
+        NOBLES.forEach(noble -> crc.update(noble.toString().getBytes(StandardCharsets.UTF_8)));
+        FINGERPRINT = (int) crc.getValue();
+    }
+
+    private BinaryEventCodec() {
+    }
+
+    /**
+     * @return Checksum of the string, card and noble dictionaries
+     */
+    public static int dictionaryFingerprint() {
+        return FINGERPRINT;
+    }
+
+    /**
+     * Encodes a tree as a length-prefixed record.
+     */
+    public static byte[] encodeRecord(JsonNode node) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+        writeValue(payload, node);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.size() + 5);
+        writeVarint(record, payload.size());
+        record.write(payload.toByteArray(), 0, payload.size());
+        return record.toByteArray();
+    }
+
+    /**
+     * Decodes one record payload (without its length prefix).
+     *
+     * @throws IOException if the payload is malformed
+     */
+    public static JsonNode decode(byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        try {
+            JsonNode node = readValue(buffer);
+            if (buffer.hasRemaining()) {
+                throw new IOException("Trailing bytes in binary event record");
+            }
+            return node;
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed binary event record: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            out.write(NULL);
+        } else if (node.isBoolean()) {
+            out.write(node.booleanValue() ? TRUE : FALSE);
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            out.write(INT);
+            writeVarint(out, zigzag(node.longValue()));
+        } else if (node.isDouble() || node.isFloat()) {
+            out.write(DOUBLE);
+            long bits = Double.doubleToLongBits(node.doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (node.isNumber()) {
+            out.write(DECIMAL);
+            writeString(out, node.decimalValue().toString());
+        } else if (node.isTextual()) {
+            writeText(out, node.textValue());
+        } else if (node.isArray()) {
+            out.write(ARRAY);
+            writeVarint(out, node.size());
+            node.forEach(element -> writeValue(out, element));
+        } else if (node.isObject()) {
+            writeObject(out, (ObjectNode) node);
+        } else {
+            writeText(out, node.asText());
+        }
+    }
+
+    private static void writeObject(ByteArrayOutputStream out, ObjectNode node) {
+        String id = node.path("id").isTextual() ? node.get("id").textValue() : null;
+        if (id != null) {
+            Integer card = CARD_INDEX.get(id);
+            if (card != null && CARDS.get(card).equals(node)) {
+                out.write(CARD);
+                writeVarint(out, card);
+                return;
+            }
+            Integer noble = NOBLE_INDEX.get(id);
+            if (noble != null && NOBLES.get(noble).equals(node)) {
+                out.write(NOBLE);
+                writeVarint(out, noble);
+                return;
+            }
+        }
+        out.write(OBJECT);
+        writeVarint(out, node.size());
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            Integer key = STRING_INDEX.get(field.getKey());
+            if (key != null) {
+                writeVarint(out, ((long) key << 1) | 1);
+            } else {
+                byte[] bytes = field.getKey().getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, (long) bytes.length << 1);
+                out.write(bytes, 0, bytes.length);
+            }
+            writeValue(out, field.getValue());
+        }
+    }
+
+    private static void writeText(ByteArrayOutputStream out, String text) {
+        Integer index = STRING_INDEX.get(text);
+        if (index != null) {
+            out.write(DICT_STRING);
+            writeVarint(out, index);
+            return;
+        }
+        Instant instant = parseCanonicalInstant(text);
+        if (instant != null) {
+            out.write(TIMESTAMP);
+            writeVarint(out, zigzag(instant.getEpochSecond()));
+            writeVarint(out, instant.getNano());
+            return;
+        }
+        out.write(STRING);
+        writeString(out, text);
+    }
+
+    /**
+     * @return The instant if the text is exactly how Jackson writes an Instant, otherwise null
+     */
+    private static Instant parseCanonicalInstant(String text) {
+        if (text.length() < 20 || text.length() > 30 || text.charAt(4) != '-' || !text.endsWith("Z")) {
+            return null;
+        }
+        try {
+            Instant instant = Instant.parse(text);
+            return instant.toString().equals(text) ? instant : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static JsonNode readValue(ByteBuffer in) throws IOException {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        int tag = in.get();
+        switch (tag) {
+            case NULL:
+                return factory.nullNode();
+            case FALSE:
+                return factory.booleanNode(false);
+            case TRUE:
+                return factory.booleanNode(true);
+            case INT: {
+                long value = unzigzag(readVarint(in));
+                return value == (int) value ? factory.numberNode((int) value) : factory.numberNode(value);
+            }
+            case DOUBLE:
+                return factory.numberNode(Double.longBitsToDouble(in.getLong()));
+            case DECIMAL:
+                return factory.numberNode(new BigDecimal(readString(in)));
+            case STRING:
+                return factory.textNode(readString(in));
+            case DICT_STRING:
+                return factory.textNode(STRINGS.get((int) readVarint(in)));
+            case TIMESTAMP: {
+                long seconds = unzigzag(readVarint(in));
+                long nanos = readVarint(in);
+                return factory.textNode(Instant.ofEpochSecond(seconds, nanos).toString());
+            }
+            case CARD:
+                return CARDS.get((int) readVarint(in)).deepCopy();
+            case NOBLE:
+                return NOBLES.get((int) readVarint(in)).deepCopy();
+            case ARRAY: {
+                int size = (int) readVarint(in);
+                ArrayNode array = factory.arrayNode(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readValue(in));
+                }
+                return array;
+            }
+            case OBJECT: {
+                int size = (int) readVarint(in);
+                ObjectNode object = factory.objectNode();
+                for (int i = 0; i < size; i++) {
+                    long key = readVarint(in);
+                    String name;
+                    if ((key & 1) == 1) {
+                        name = STRINGS.get((int) (key >>> 1));
+                    } else {
+                        byte[] bytes = new byte[(int) (key >>> 1)];
+                        in.get(bytes);
+                        name = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                    object.set(name, readValue(in));
+                }
+                return object;
+            }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    public static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
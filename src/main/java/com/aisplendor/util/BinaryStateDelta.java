@@ -0,0 +1,292 @@
+package com.aisplendor.util;
+
+import com.aisplendor.model.CardLevel;
+import com.aisplendor.model.Color;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary TurnStarted frames of the "splendor-delta.v1" WebSocket subprotocol. A frame carries
+ * the turn's state as a delta against the state of an earlier TurnStarted, its base:
+ * - token counts and bonuses as a bit mask of changed colors followed by their new counts
+ * - card and noble lists as the indexes of removed entries followed by the ids of appended
+ *   ones, which covers bought and reserved cards, refilled slots, deck draws and noble visits
+ * - scores, turn number, current player and game over flag as plain values
+ *
+ * Appended ids refer to cards and nobles of the base state, where every card of the game
+ * appears (the decks are part of the state). Reasoning history is not carried; spectators
+ * receive it as Reasoning events, and decoded states keep the base's.
+ *
+ * Layout, integers as unsigned varints:
+ * version(1 byte) seq baseSeq epochSecond nanos turn playerIndex turnNumber currentPlayerIndex
+ * isGameOver(1 byte) winnerReason bank faceUp[3] decks[3] availableNobles playerCount
+ * {tokens purchased reserved visited score bonuses}[playerCount]
+ *
+ * Strings are written as length + 1 then UTF-8 bytes, with 0 for null. Color maps are a mask
+ * byte (bit i for {@code Color.values()[i]}) then count + 1 per changed color, 0 for an absent
+ * key. Lists are a count and the ascending indexes removed, then a count and the ids appended.
+ */
+public final class BinaryStateDelta {
+
+    public static final String SUBPROTOCOL = "splendor-delta.v1";
+
+    private static final int VERSION = 1;
+    private static final Color[] COLORS = Color.values();
+    private static final CardLevel[] LEVELS = CardLevel.values();
+
+    private BinaryStateDelta() {
+    }
+
+    /**
+     * @param event     Published TurnStarted tree, with its full "gameState"
+     * @param baseState State of the TurnStarted the delta applies to
+     * @return The frame, or null if the states are too different to encode, e.g. a base
+     *         with another number of players
+     */
+    public static byte[] encode(long sequence, Instant timestamp, JsonNode event, long baseSequence,
+            JsonNode baseState) {
+        JsonNode state = event.get(StateDeltaCodec.STATE_FIELD);
+        if (state == null || baseState == null || state.path("players").size() != baseState.path("players").size()) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        BinaryEventCodec.writeVarint(out, sequence);
+        BinaryEventCodec.writeVarint(out, baseSequence);
+        BinaryEventCodec.writeVarint(out, timestamp.getEpochSecond());
+        BinaryEventCodec.writeVarint(out, timestamp.getNano());
+        BinaryEventCodec.writeVarint(out, event.path("turn").asInt());
+        BinaryEventCodec.writeVarint(out, event.path("playerIndex").asInt());
+
+        BinaryEventCodec.writeVarint(out, state.path("turnNumber").asInt());
+        BinaryEventCodec.writeVarint(out, state.path("currentPlayerIndex").asInt());
+        out.write(state.path("isGameOver").asBoolean() ? 1 : 0);
+        JsonNode winnerReason = state.get("winnerReason");
+        writeString(out, winnerReason == null || winnerReason.isNull() ? null : winnerReason.asText());
+
+        JsonNode board = state.path("board");
+        JsonNode baseBoard = baseState.path("board");
+        writeColors(out, baseBoard.path("availableTokens").path("counts"), board.path("availableTokens").path("counts"));
+        for (CardLevel level : LEVELS) {
+            writeList(out, baseBoard.path("faceUpCards").path(level.name()), board.path("faceUpCards").path(level.name()));
+        }
+        for (CardLevel level : LEVELS) {
+            writeList(out, baseBoard.path("decks").path(level.name()), board.path("decks").path(level.name()));
+        }
+        writeList(out, baseBoard.path("availableNobles"), board.path("availableNobles"));
+
+        JsonNode players = state.path("players");
+        BinaryEventCodec.writeVarint(out, players.size());
+        for (int i = 0; i < players.size(); i++) {
+            JsonNode player = players.get(i);
+            JsonNode basePlayer = baseState.path("players").get(i);
+            writeColors(out, basePlayer.path("tokens").path("counts"), player.path("tokens").path("counts"));
+            writeList(out, basePlayer.path("purchasedCards"), player.path("purchasedCards"));
+            writeList(out, basePlayer.path("reservedCards"), player.path("reservedCards"));
+            writeList(out, basePlayer.path("visitedNobles"), player.path("visitedNobles"));
+            BinaryEventCodec.writeVarint(out, player.path("score").asInt());
+            writeColors(out, basePlayer.path("bonuses"), player.path("bonuses"));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The sequence number of the state a frame applies to
+     */
+    public static long baseSequence(byte[] frame) {
+        ByteBuffer in = header(frame);
+        BinaryEventCodec.readVarint(in);
+        return BinaryEventCodec.readVarint(in);
+    }
+
+    /**
+     * Rebuilds the TurnStarted event of a frame, in its published JSON form with a "seq" field.
+     *
+     * @param baseState State of the TurnStarted with the frame's {@link #baseSequence}
+     * @throws IllegalArgumentException if the frame does not fit the base, e.g. refers to cards it lacks
+     */
+    public static ObjectNode decode(byte[] frame, JsonNode baseState) {
+        ByteBuffer in = header(frame);
+        ObjectNode event = JsonNodeFactory.instance.objectNode();
+        event.put("seq", BinaryEventCodec.readVarint(in));
+        BinaryEventCodec.readVarint(in);
+        long epochSecond = BinaryEventCodec.readVarint(in);
+        event.put("eventType", "TURN_STARTED");
+        event.put("timestamp", Instant.ofEpochSecond(epochSecond, BinaryEventCodec.readVarint(in)).toString());
+        event.put("turn", (int) BinaryEventCodec.readVarint(in));
+        event.put("playerIndex", (int) BinaryEventCodec.readVarint(in));
+
+        Map<String, JsonNode> byId = new HashMap<>();
+        collectIds(baseState, byId);
+        ObjectNode state = baseState.deepCopy();
+        state.put("turnNumber", (int) BinaryEventCodec.readVarint(in));
+        state.put("currentPlayerIndex", (int) BinaryEventCodec.readVarint(in));
+        state.put("isGameOver", in.get() != 0);
+        state.put("winnerReason", readString(in));
+
+        ObjectNode board = (ObjectNode) state.path("board");
+        readColors(in, object(object(board, "availableTokens"), "counts"));
+        for (CardLevel level : LEVELS) {
+            readList(in, object(board, "faceUpCards"), level.name(), byId);
+        }
+        for (CardLevel level : LEVELS) {
+            readList(in, object(board, "decks"), level.name(), byId);
+        }
+        readList(in, board, "availableNobles", byId);
+
+        int playerCount = (int) BinaryEventCodec.readVarint(in);
+        for (int i = 0; i < playerCount; i++) {
+            ObjectNode player = (ObjectNode) state.path("players").get(i);
+            readColors(in, object(object(player, "tokens"), "counts"));
+            readList(in, player, "purchasedCards", byId);
+            readList(in, player, "reservedCards", byId);
+            readList(in, player, "visitedNobles", byId);
+            player.put("score", (int) BinaryEventCodec.readVarint(in));
+            readColors(in, object(player, "bonuses"));
+        }
+        event.set(StateDeltaCodec.STATE_FIELD, state);
+        return event;
+    }
+
+    private static ByteBuffer header(byte[] frame) {
+        ByteBuffer in = ByteBuffer.wrap(frame);
+        int version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported state delta version " + version);
+        }
+        return in;
+    }
+
+    private static void writeColors(ByteArrayOutputStream out, JsonNode before, JsonNode after) {
+        int mask = 0;
+        for (int i = 0; i < COLORS.length; i++) {
+            JsonNode oldCount = before.get(COLORS[i].name());
+            JsonNode newCount = after.get(COLORS[i].name());
+            if (oldCount == null ? newCount != null : !oldCount.equals(newCount)) {
+                mask |= 1 << i;
+            }
+        }
+        out.write(mask);
+        for (int i = 0; i < COLORS.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                JsonNode count = after.get(COLORS[i].name());
+                BinaryEventCodec.writeVarint(out, count == null ? 0 : count.asInt() + 1);
+            }
+        }
+    }
+
+    private static void readColors(ByteBuffer in, ObjectNode counts) {
+        int mask = in.get() & 0xFF;
+        for (int i = 0; i < COLORS.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                long count = BinaryEventCodec.readVarint(in);
+                if (count == 0) {
+                    counts.remove(COLORS[i].name());
+                } else {
+                    counts.put(COLORS[i].name(), (int) count - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes {@code after} as {@code before} minus some entries plus appended ones. Entries of
+     * {@code before} are kept in order while they match {@code after}, so any list can be written.
+     */
+    private static void writeList(ByteArrayOutputStream out, JsonNode before, JsonNode after) {
+        List<Integer> removed = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < before.size(); i++) {
+            if (next < after.size() && id(before.get(i)).equals(id(after.get(next)))) {
+                next++;
+            } else {
+                removed.add(i);
+            }
+        }
+        BinaryEventCodec.writeVarint(out, removed.size());
+        for (int index : removed) {
+            BinaryEventCodec.writeVarint(out, index);
+        }
+        BinaryEventCodec.writeVarint(out, after.size() - next);
+        for (int i = next; i < after.size(); i++) {
+            writeString(out, id(after.get(i)));
+        }
+    }
+
+    private static void readList(ByteBuffer in, ObjectNode parent, String field, Map<String, JsonNode> byId) {
+        JsonNode before = parent.path(field);
+        int removedCount = (int) BinaryEventCodec.readVarint(in);
+        boolean[] removed = new boolean[before.size()];
+        for (int i = 0; i < removedCount; i++) {
+            int index = (int) BinaryEventCodec.readVarint(in);
+            if (index >= removed.length) {
+                throw new IllegalArgumentException("State delta does not match its base at " + field);
+            }
+            removed[index] = true;
+        }
+        ArrayNode after = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < before.size(); i++) {
+            if (!removed[i]) {
+                after.add(before.get(i));
+            }
+        }
+        int appendedCount = (int) BinaryEventCodec.readVarint(in);
+        for (int i = 0; i < appendedCount; i++) {
+            String id = readString(in);
+            JsonNode entry = byId.get(id);
+            if (entry == null) {
+                throw new IllegalArgumentException("Unknown card or noble " + id);
+            }
+            after.add(entry.deepCopy());
+        }
+        parent.set(field, after);
+    }
+
+    private static void collectIds(JsonNode node, Map<String, JsonNode> byId) {
+        if (node.isObject() && node.has("id") && node.get("id").isTextual()) {
+            byId.put(node.get("id").asText(), node);
+        } else if (node.isContainerNode()) {
+            node.forEach(child -> collectIds(child, byId));
+        }
+    }
+
+    private static ObjectNode object(ObjectNode parent, String field) {
+        JsonNode child = parent.get(field);
+        return child instanceof ObjectNode object ? object : parent.putObject(field);
+    }
+
+    private static String id(JsonNode entry) {
+        return entry.path("id").asText();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        BinaryEventCodec.writeVarint(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) BinaryEventCodec.readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -2,8 +2,11 @@ package com.aisplendor.util;
 
 import com.aisplendor.model.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -78,6 +81,169 @@ public class CompactStateSerializer {
         return sb.toString();
     }
 
+    /**
+     * Serialize only what changed between two game states, from the given player's perspective.
+     * Used by conversation mode: the previous state is the one the player last acted on,
+     * so the diff covers the player's own move, the opponent's move and any card refills.
+     * Unchanged sections are omitted entirely.
+     *
+     * @param previous    The state the player last saw
+     * @param current     The current game state
+     * @param playerIndex The index of the player who will receive this diff
+     * @return Compact text representation of the changes
+     */
+    public static String serializeDelta(GameState previous, GameState current, int playerIndex) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("TURN %d | You are Player %d | Changes since your last move (unchanged sections omitted)\n",
+                current.turnNumber(), playerIndex));
+
+        Board before = previous.board();
+        Board after = current.board();
+
+        if (!before.availableTokens().equals(after.availableTokens())) {
+            sb.append("\n[BOARD TOKENS] ");
+            sb.append(formatTokenBank(after.availableTokens()));
+            sb.append("\n");
+        }
+
+        if (!noblesIds(before.availableNobles()).equals(noblesIds(after.availableNobles()))) {
+            sb.append("\n[NOBLES]\n");
+            if (after.availableNobles().isEmpty()) {
+                sb.append("None\n");
+            }
+            for (NobleTile noble : after.availableNobles()) {
+                sb.append(String.format("%s (3pts) req: %s\n",
+                        noble.id(), formatCost(noble.requirement())));
+            }
+        }
+
+        StringBuilder deckSizes = new StringBuilder();
+        boolean decksChanged = false;
+        for (CardLevel level : CardLevel.values()) {
+            int beforeSize = deckSize(before, level);
+            int afterSize = deckSize(after, level);
+            decksChanged |= beforeSize != afterSize;
+            deckSizes.append(String.format("%s:%d ", getLevelPrefix(level), afterSize));
+        }
+        if (decksChanged) {
+            sb.append("\n[DECK SIZES] ").append(deckSizes).append("\n");
+        }
+
+        StringBuilder faceUp = new StringBuilder();
+        for (CardLevel level : CardLevel.values()) {
+            List<DevelopmentCard> beforeCards = cardsOrEmpty(before.faceUpCards().get(level));
+            List<DevelopmentCard> afterCards = cardsOrEmpty(after.faceUpCards().get(level));
+            Set<String> beforeIds = cardIds(beforeCards);
+            Set<String> afterIds = cardIds(afterCards);
+            if (beforeIds.equals(afterIds)) {
+                continue;
+            }
+            faceUp.append(getLevelPrefix(level)).append(": ");
+            String removed = beforeCards.stream()
+                    .filter(c -> !afterIds.contains(c.id()))
+                    .map(c -> "[" + c.id() + "]")
+                    .collect(Collectors.joining(" "));
+            String added = afterCards.stream()
+                    .filter(c -> !beforeIds.contains(c.id()))
+                    .map(CompactStateSerializer::formatCard)
+                    .collect(Collectors.joining(" | "));
+            faceUp.append("removed ").append(removed.isEmpty() ? "none" : removed);
+            faceUp.append(" | new ").append(added.isEmpty() ? "none" : added);
+            faceUp.append("\n");
+        }
+        if (!faceUp.isEmpty()) {
+            sb.append("\n[FACE-UP CARDS]\n").append(faceUp);
+        }
+
+        Player selfBefore = previous.players().get(playerIndex);
+        Player selfAfter = current.players().get(playerIndex);
+        if (!sameVisibleState(selfBefore, selfAfter)) {
+            sb.append("\n[YOU] ");
+            sb.append(formatSelf(selfAfter));
+        }
+
+        int opponentIndex = 1 - playerIndex;
+        Player opponentBefore = previous.players().get(opponentIndex);
+        Player opponentAfter = current.players().get(opponentIndex);
+        if (!sameVisibleState(opponentBefore, opponentAfter)) {
+            sb.append("\n[OPPONENT] ");
+            sb.append(formatOpponent(opponentAfter));
+            String changes = describePlayerChanges(opponentBefore, opponentAfter);
+            if (!changes.isEmpty()) {
+                sb.append("  Last move: ").append(changes).append("\n");
+            }
+        } else {
+            sb.append("\n[OPPONENT] No visible change (turn skipped)\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Describes a player's move by comparing their public state before and after it.
+     */
+    private static String describePlayerChanges(Player before, Player after) {
+        List<String> parts = new ArrayList<>();
+
+        Set<String> ownedBefore = cardIds(before.purchasedCards());
+        String purchased = after.purchasedCards().stream()
+                .filter(c -> !ownedBefore.contains(c.id()))
+                .map(c -> "[" + c.id() + "]")
+                .collect(Collectors.joining(" "));
+        if (!purchased.isEmpty()) {
+            parts.add("purchased " + purchased);
+        }
+
+        int reservedDelta = after.reservedCards().size() - before.reservedCards().size();
+        if (reservedDelta > 0 || (reservedDelta == 0 && purchased.isEmpty()
+                && !cardIds(before.reservedCards()).equals(cardIds(after.reservedCards())))) {
+            parts.add("reserved a card");
+        }
+
+        String tokens = Arrays.stream(Color.values())
+                .filter(c -> after.tokens().getCount(c) != before.tokens().getCount(c))
+                .map(c -> {
+                    int diff = after.tokens().getCount(c) - before.tokens().getCount(c);
+                    return String.format("%s%s:%d", diff > 0 ? "+" : "-", formatColor(c), Math.abs(diff));
+                })
+                .collect(Collectors.joining(" "));
+        if (!tokens.isEmpty()) {
+            parts.add("tokens " + tokens);
+        }
+
+        if (after.visitedNobles().size() > before.visitedNobles().size()) {
+            parts.add("visited by noble " + after.visitedNobles().get(after.visitedNobles().size() - 1).id());
+        }
+
+        return String.join("; ", parts);
+    }
+
+    private static boolean sameVisibleState(Player before, Player after) {
+        return before.score() == after.score()
+                && before.tokens().equals(after.tokens())
+                && before.purchasedCards().size() == after.purchasedCards().size()
+                && cardIds(before.reservedCards()).equals(cardIds(after.reservedCards()))
+                && before.visitedNobles().size() == after.visitedNobles().size();
+    }
+
+    private static int deckSize(Board board, CardLevel level) {
+        var deck = board.decks().get(level);
+        return deck != null ? deck.size() : 0;
+    }
+
+    private static List<DevelopmentCard> cardsOrEmpty(List<DevelopmentCard> cards) {
+        return cards != null ? cards : List.of();
+    }
+
+    private static Set<String> cardIds(List<DevelopmentCard> cards) {
+        return cards.stream().map(DevelopmentCard::id).collect(Collectors.toSet());
+    }
+
+    private static List<String> noblesIds(List<NobleTile> nobles) {
+        return nobles.stream().map(NobleTile::id).toList();
+    }
+
     private static String formatSelf(Player player) {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("Score: %d | Cards: %d\n", player.score(), player.purchasedCards().size()));
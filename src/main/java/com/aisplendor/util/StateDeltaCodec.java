@@ -0,0 +1,201 @@
+package com.aisplendor.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Delta encoding of the game state snapshots in NDJSON game logs (log format 2).
+ *
+ * Every K-th TurnStarted line is a keyframe carrying the full "gameState". The lines in
+ * between carry a "stateDelta" against the previous turn's state instead:
+ * - objects are merged recursively (JSON merge patch): changed keys are listed, removed
+ *   keys are set to null, unchanged keys are omitted
+ * - arrays are replaced, except for the common append / remove-from-front cases, which are
+ *   written as {"$drop": n, "$append": [...]} (deck draws, purchased cards, reasoning history)
+ *
+ * One codec instance tracks the state of one log, so the same instance must see the
+ * lines in file order. Lines without a state pass through unchanged.
+ */
+public class StateDeltaCodec {
+
+    public static final int LOG_FORMAT_VERSION = 2;
+
+    public static final String STATE_FIELD = "gameState";
+    public static final String DELTA_FIELD = "stateDelta";
+    private static final String DROP = "$drop";
+    private static final String APPEND = "$append";
+
+    private final int keyframeInterval;
+    private JsonNode previousState;
+    private int turnsSinceKeyframe;
+
+    /**
+     * @param keyframeInterval Number of TurnStarted lines per full-state keyframe (1 = no deltas)
+     */
+    public StateDeltaCodec(int keyframeInterval) {
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+    }
+
+    /**
+     * Codec for reading logs; the keyframe interval is taken from the log itself.
+     */
+    public StateDeltaCodec() {
+        this(1);
+    }
+
+    /**
+     * Replaces the full state of a TurnStarted line with a delta unless a keyframe is due.
+     *
+     * @param line Serialized event, modified in place
+     * @return The line to write
+     */
+    public ObjectNode encode(ObjectNode line) {
+        JsonNode state = line.get(STATE_FIELD);
+        if (state == null || !line.has("turn")) {
+            return line;
+        }
+        if (previousState == null || turnsSinceKeyframe + 1 >= keyframeInterval) {
+            turnsSinceKeyframe = 0;
+        } else {
+            turnsSinceKeyframe++;
+            line.remove(STATE_FIELD);
+            line.set(DELTA_FIELD, diff(previousState, state));
+        }
+        previousState = state;
+        return line;
+    }
+
+    /**
+     * Restores the full state of a delta line. Keyframes and full-state lines become the base
+     * for the following deltas.
+     *
+     * @param line Parsed log line, modified in place
+     * @return The line with "gameState" in place of "stateDelta"
+     * @throws IllegalStateException if a delta appears before any keyframe
+     */
+    public ObjectNode decode(ObjectNode line) {
+        JsonNode delta = line.get(DELTA_FIELD);
+        if (delta != null) {
+            if (previousState == null) {
+                throw new IllegalStateException("State delta for turn " + line.path("turn").asText()
+                        + " has no preceding keyframe");
+            }
+            line.remove(DELTA_FIELD);
+            line.set(STATE_FIELD, apply(previousState, delta));
+        }
+        JsonNode state = line.get(STATE_FIELD);
+        if (state != null && line.has("turn")) {
+            previousState = state;
+        }
+        return line;
+    }
+
+    /**
+     * @return Patch turning {@code before} into {@code after}
+     */
+    public static ObjectNode diff(JsonNode before, JsonNode after) {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = after.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode oldValue = before.get(field.getKey());
+            JsonNode newValue = field.getValue();
+            if (oldValue == null) {
+                if (!newValue.isNull()) {
+                    patch.set(field.getKey(), newValue);
+                }
+            } else if (!oldValue.equals(newValue)) {
+                patch.set(field.getKey(), diffValue(oldValue, newValue));
+            }
+        }
+        Iterator<String> oldNames = before.fieldNames();
+        while (oldNames.hasNext()) {
+            String name = oldNames.next();
+            if (!after.has(name) && !before.get(name).isNull()) {
+                patch.putNull(name);
+            }
+        }
+        return patch;
+    }
+
+    private static JsonNode diffValue(JsonNode oldValue, JsonNode newValue) {
+        if (oldValue.isObject() && newValue.isObject()) {
+            return diff(oldValue, newValue);
+        }
+        if (oldValue.isArray() && newValue.isArray()) {
+            return diffArray((ArrayNode) oldValue, (ArrayNode) newValue);
+        }
+        return newValue;
+    }
+
+    private static JsonNode diffArray(ArrayNode before, ArrayNode after) {
+        // Smallest prefix of "before" that, once dropped, leaves a prefix of "after"
+        for (int drop = 0; drop < before.size(); drop++) {
+            int kept = before.size() - drop;
+            if (kept > after.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < kept && matches; i++) {
+                matches = before.get(drop + i).equals(after.get(i));
+            }
+            if (matches) {
+                ObjectNode op = JsonNodeFactory.instance.objectNode();
+                if (drop > 0) {
+                    op.put(DROP, drop);
+                }
+                if (after.size() > kept) {
+                    ArrayNode appended = op.putArray(APPEND);
+                    for (int i = kept; i < after.size(); i++) {
+                        appended.add(after.get(i));
+                    }
+                }
+                return op;
+            }
+        }
+        return after;
+    }
+
+    /**
+     * @return A new node with the patch applied; {@code base} is not modified
+     */
+    public static JsonNode apply(JsonNode base, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        if (base != null && base.isArray()) {
+            return applyArray((ArrayNode) base, patch);
+        }
+        ObjectNode result = base != null && base.isObject()
+                ? ((ObjectNode) base).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), apply(result.get(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode applyArray(ArrayNode base, JsonNode op) {
+        int drop = op.path(DROP).asInt(0);
+        ArrayNode result = JsonNodeFactory.instance.arrayNode();
+        for (int i = drop; i < base.size(); i++) {
+            result.add(base.get(i).deepCopy());
+        }
+        JsonNode appended = op.get(APPEND);
+        if (appended != null) {
+            appended.forEach(result::add);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+package com.aisplendor.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip writer with explicit sync points, for logs that must stay readable while being
+ * written and after a crash.
+ *
+ * {@link #flush()} ends the pending deflate data with a sync marker (00 00 FF FF), so
+ * everything written so far can be inflated even though the gzip trailer is missing.
+ * {@link #syncPoint()} additionally resets the compression dictionary (full flush): a
+ * raw inflater can start decoding at the returned offset without the preceding data.
+ * {@link #finish()} writes the trailer, after which the file is a regular gzip file.
+ */
+public class SyncFlushGzipOutputStream extends OutputStream {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final byte[] SYNC_MARKER = {0, 0, (byte) 0xff, (byte) 0xff};
+
+    private final OutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[16 * 1024];
+    private long compressedBytes;
+    // Input since the last flush of any kind / since the last dictionary reset
+    private boolean pending;
+    private boolean sinceSyncPoint;
+    private boolean finished;
+
+    /**
+     * Starts a gzip stream, writing its header immediately.
+     */
+    public SyncFlushGzipOutputStream(OutputStream out) throws IOException {
+        this.out = out;
+        out.write(HEADER);
+        compressedBytes = HEADER.length;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (finished) {
+            throw new IOException("Gzip stream already finished");
+        }
+        crc.update(bytes, offset, length);
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput()) {
+            drain(Deflater.NO_FLUSH);
+        }
+        pending = true;
+        sinceSyncPoint = true;
+    }
+
+    /**
+     * Makes everything written so far decodable (sync flush) and flushes the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (pending && !finished) {
+            deflate(Deflater.SYNC_FLUSH);
+        }
+        out.flush();
+    }
+
+    /**
+     * Full flush: all data written so far is emitted and the dictionary is reset, so decoding
+     * can start at the returned position.
+     *
+     * @return Offset of the sync point within the gzip stream
+     */
+    public long syncPoint() throws IOException {
+        if (sinceSyncPoint && !finished) {
+            // Even right after a sync flush, the dictionary still has to be reset
+            deflate(Deflater.FULL_FLUSH);
+            sinceSyncPoint = false;
+        }
+        return compressedBytes;
+    }
+
+    /**
+     * Writes the final deflate block and the gzip trailer without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(Deflater.NO_FLUSH);
+        }
+        long crcValue = crc.getValue();
+        long size = deflater.getBytesRead();
+        byte[] trailer = new byte[8];
+        for (int i = 0; i < 4; i++) {
+            trailer[i] = (byte) (crcValue >>> (8 * i));
+            trailer[4 + i] = (byte) (size >>> (8 * i));
+        }
+        out.write(trailer);
+        compressedBytes += trailer.length;
+        deflater.end();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return Whether a gzip stream written by this class ends in a sync marker, i.e. was
+     *         never finished (still being written, or interrupted)
+     */
+    public static boolean endsWithSyncMarker(byte[] tail) {
+        if (tail.length < SYNC_MARKER.length) {
+            return false;
+        }
+        for (int i = 0; i < SYNC_MARKER.length; i++) {
+            if (tail[tail.length - SYNC_MARKER.length + i] != SYNC_MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deflate(int flushMode) throws IOException {
+        int written;
+        do {
+            written = drain(flushMode);
+        } while (written == buffer.length);
+        pending = false;
+    }
+
+    private int drain(int flushMode) throws IOException {
+        int written = deflater.deflate(buffer, 0, buffer.length, flushMode);
+        if (written > 0) {
+            out.write(buffer, 0, written);
+            compressedBytes += written;
+        }
+        return written;
+    }
+}
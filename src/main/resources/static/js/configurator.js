@@ -15,6 +15,8 @@ document.addEventListener('DOMContentLoaded', () => {
     const apiKeyOverrideInput = document.getElementById('api-key-override');
     const globalDebugModeCheckbox = document.getElementById('global-debug-mode');
     const globalPromptCachingSelect = document.getElementById('global-prompt-caching');
+    const globalConversationModeCheckbox = document.getElementById('global-conversation-mode');
+    const globalConversationResyncInput = document.getElementById('global-conversation-resync');
 
     // Default Models
     const defaultModels = [
@@ -673,7 +675,9 @@ document.addEventListener('DOMContentLoaded', () => {
             stageFirstLegCardsP0: activeSlot.stage.firstLegCardsP0,
             stageFirstLegCardsP1: activeSlot.stage.firstLegCardsP1,
             debugMode: globalDebugModeCheckbox.checked,
-            promptCachingSetting: globalPromptCachingSelect.value
+            promptCachingSetting: globalPromptCachingSelect.value,
+            conversationMode: globalConversationModeCheckbox.checked,
+            conversationResyncTurns: parseInt(globalConversationResyncInput.value) || 6
         };
 
         try {
@@ -715,6 +719,8 @@ document.addEventListener('DOMContentLoaded', () => {
         const apiKey = apiKeyOverrideInput.value.trim();
         const globalDebug = globalDebugModeCheckbox.checked;
         const globalCaching = globalPromptCachingSelect.value;
+        const globalConversation = globalConversationModeCheckbox.checked;
+        const globalConversationResync = parseInt(globalConversationResyncInput.value) || 6;
 
         if (slots.length === 0) {
             alert("No configured slots found.");
@@ -788,6 +794,8 @@ document.addEventListener('DOMContentLoaded', () => {
                     stageFirstLegCardsP1: slot.stage.firstLegCardsP1,
                     debugMode: globalDebug,
                     promptCachingSetting: globalCaching,
+                    conversationMode: globalConversation,
+                    conversationResyncTurns: globalConversationResync,
                     apiKeyOverride: apiKey
                 };
 
@@ -24,6 +24,11 @@ document.addEventListener('DOMContentLoaded', () => {
     let cardIdToColor = {};
     let cardIdToCardObj = {};
     let processedEventTimestamps = new Set();
+    // Sequence number of the last live event applied (-1 before the first)
+    let lastSequence = -1;
+    // State of the last live TURN_STARTED and its sequence number, the base of binary state deltas
+    let deltaBase = null;
+    let deltaBaseSequence = -1;
 
     // DOM Elements
     const livePulsar = document.getElementById('live-pulsar');
@@ -138,7 +143,7 @@ document.addEventListener('DOMContentLoaded', () => {
         } else if (gameId) {
             livePulsar.classList.remove('hidden');
             if (btnAbort) btnAbort.classList.remove('hidden');
-            await loadLiveHistory();
+            // The server sends a snapshot of the game first, so no log download is needed
             connectWebSocket();
         } else {
             // Static view or no active game
@@ -152,27 +157,62 @@ document.addEventListener('DOMContentLoaded', () => {
         const wsUrl = `${protocol}//${window.location.host}/ws/game/${gameId}`;
         console.log(`Connecting to WebSocket: ${wsUrl}`);
         
-        const socket = new WebSocket(wsUrl);
+        // Opt in to binary state deltas for turns; servers without the subprotocol send JSON
+        const socket = new WebSocket(wsUrl, [STATE_DELTA_SUBPROTOCOL]);
+        socket.binaryType = 'arraybuffer';
 
         socket.onopen = () => {
             console.log("WebSocket connected.");
             activePlayerIndicator.textContent = "Connected. Awaiting first turn...";
         };
 
-        socket.onmessage = (event) => {
+        socket.onmessage = async (event) => {
             try {
-                const gameEvent = JSON.parse(event.data);
-                console.log("Received live game event:", gameEvent.eventType);
-                
-                const ts = gameEvent.timestamp;
-                const type = detectEventType(gameEvent);
-                const key = (ts && type) ? `${ts}_${type}` : ts;
-                if (key && processedEventTimestamps.has(key)) {
-                    console.log("Ignoring duplicate live event from WebSocket:", key);
+                const gameEvent = event.data instanceof ArrayBuffer
+                    ? decodeStateDelta(event.data)
+                    : JSON.parse(event.data);
+                if (!gameEvent) {
+                    return;
+                }
+
+                if (gameEvent.snapshot) {
+                    const snapshot = gameEvent.snapshot;
+                    if (snapshot.live) {
+                        console.log(`Received snapshot of ${snapshot.events.length} events up to #${snapshot.lastSequence}.`);
+                        lastSequence = snapshot.lastSequence;
+                        snapshot.events.forEach(keepDeltaBase);
+                        renderHistory(snapshot.events);
+                    } else {
+                        // The server holds nothing for this game (ended, or not started yet): fall back to its log
+                        await loadLiveHistory();
+                    }
                     return;
                 }
-                if (key) {
-                    processedEventTimestamps.add(key);
+                console.log("Received live game event:", gameEvent.eventType);
+
+                if (gameEvent.seq !== undefined) {
+                    if (gameEvent.seq <= lastSequence) {
+                        console.log("Ignoring already received live event:", gameEvent.seq);
+                        return;
+                    }
+                    lastSequence = gameEvent.seq;
+                    keepDeltaBase(gameEvent);
+                    if (detectEventType(gameEvent) === "REASONING_CHUNK") {
+                        // Transient: shown while the answer is written, never kept in the event list
+                        appendReasoningChunk(gameEvent);
+                        return;
+                    }
+                } else {
+                    const ts = gameEvent.timestamp;
+                    const type = detectEventType(gameEvent);
+                    const key = (ts && type) ? `${ts}_${type}` : ts;
+                    if (key && processedEventTimestamps.has(key)) {
+                        console.log("Ignoring duplicate live event from WebSocket:", key);
+                        return;
+                    }
+                    if (key) {
+                        processedEventTimestamps.add(key);
+                    }
                 }
                 
                 events.push(gameEvent);
@@ -183,7 +223,16 @@ document.addEventListener('DOMContentLoaded', () => {
             }
         };
 
-        socket.onclose = () => {
+        socket.onclose = (event) => {
+            if (event.code === 1000) {
+                livePulsar.classList.add('hidden');
+                // The server closes the stream once the match is over, whether or not it finished
+                console.log("Live stream ended.");
+                if (!activePlayerIndicator.textContent.startsWith("Finished")) {
+                    activePlayerIndicator.textContent = "Live stream ended.";
+                }
+                return;
+            }
             console.log("WebSocket disconnected.");
             activePlayerIndicator.textContent = "Live stream disconnected.";
         };
@@ -192,143 +241,321 @@ document.addEventListener('DOMContentLoaded', () => {
             console.error("WebSocket error", err);
         };
     }
+    function keepDeltaBase(ev) {
+        if (ev.gameState && ev.turn !== undefined && ev.seq !== undefined) {
+            deltaBase = ev.gameState;
+            deltaBaseSequence = ev.seq;
+        }
+    }
+
+    // --- BINARY STATE DELTAS (splendor-delta.v1) ---
+    // Mirrors BinaryStateDelta.decode: rebuilds a TURN_STARTED event from a binary frame and the
+    // state of the turn it applies to. Returns null if that state is not the one we hold; the
+    // server then sends a full state within a few turns.
+    const STATE_DELTA_SUBPROTOCOL = 'splendor-delta.v1';
+    const DELTA_COLORS = ['WHITE', 'BLUE', 'GREEN', 'RED', 'BLACK', 'GOLD'];
+    const DELTA_LEVELS = ['LEVEL_1', 'LEVEL_2', 'LEVEL_3'];
+
+    function decodeStateDelta(buffer) {
+        const bytes = new Uint8Array(buffer);
+        let pos = 0;
+        const readByte = () => bytes[pos++];
+        const readVarint = () => {
+            let value = 0;
+            let scale = 1;
+            let b;
+            do {
+                b = bytes[pos++];
+                value += (b & 0x7f) * scale;
+                scale *= 128;
+            } while (b & 0x80);
+            return value;
+        };
+        const readString = () => {
+            const length = readVarint();
+            if (length === 0) return null;
+            const text = new TextDecoder().decode(bytes.subarray(pos, pos + length - 1));
+            pos += length - 1;
+            return text;
+        };
+
+        if (readByte() !== 1) {
+            console.warn("Unsupported state delta version");
+            return null;
+        }
+        const seq = readVarint();
+        const baseSeq = readVarint();
+        if (!deltaBase || baseSeq !== deltaBaseSequence) {
+            console.log(`Skipping state delta #${seq}: it applies to #${baseSeq}, we hold #${deltaBaseSequence}.`);
+            return null;
+        }
+        const epochSecond = readVarint();
+        const nanos = readVarint();
+        const event = {
+            seq: seq,
+            eventType: "TURN_STARTED",
+            timestamp: new Date(epochSecond * 1000 + Math.floor(nanos / 1e6)).toISOString(),
+            turn: readVarint(),
+            playerIndex: readVarint()
+        };
+
+        // Every card of the game is in the base state, if only in a deck
+        const byId = {};
+        const collect = (node) => {
+            if (Array.isArray(node)) {
+                node.forEach(collect);
+            } else if (node && typeof node === 'object') {
+                if (typeof node.id === 'string') {
+                    byId[node.id] = node;
+                } else {
+                    Object.values(node).forEach(collect);
+                }
+            }
+        };
+        collect(deltaBase);
+
+        const readColors = (base) => {
+            const counts = { ...(base || {}) };
+            const mask = readByte();
+            DELTA_COLORS.forEach((color, i) => {
+                if (mask & (1 << i)) {
+                    const count = readVarint();
+                    if (count === 0) delete counts[color];
+                    else counts[color] = count - 1;
+                }
+            });
+            return counts;
+        };
+        const readList = (base) => {
+            const list = base || [];
+            const removed = new Set();
+            const removedCount = readVarint();
+            for (let i = 0; i < removedCount; i++) removed.add(readVarint());
+            const result = list.filter((_, i) => !removed.has(i));
+            const appendedCount = readVarint();
+            for (let i = 0; i < appendedCount; i++) {
+                const id = readString();
+                if (!byId[id]) throw new Error(`State delta refers to unknown card or noble ${id}`);
+                result.push(byId[id]);
+            }
+            return result;
+        };
+
+        const base = deltaBase;
+        const state = {
+            ...base,
+            turnNumber: readVarint(),
+            currentPlayerIndex: readVarint(),
+            isGameOver: readByte() !== 0,
+            winnerReason: readString()
+        };
+        const board = { ...base.board };
+        board.availableTokens = { ...board.availableTokens, counts: readColors(board.availableTokens && board.availableTokens.counts) };
+        board.faceUpCards = { ...board.faceUpCards };
+        DELTA_LEVELS.forEach(level => board.faceUpCards[level] = readList(board.faceUpCards[level]));
+        board.decks = { ...board.decks };
+        DELTA_LEVELS.forEach(level => board.decks[level] = readList(board.decks[level]));
+        board.availableNobles = readList(board.availableNobles);
+        state.board = board;
+
+        const playerCount = readVarint();
+        state.players = [];
+        for (let i = 0; i < playerCount; i++) {
+            const player = { ...base.players[i] };
+            player.tokens = { ...player.tokens, counts: readColors(player.tokens && player.tokens.counts) };
+            player.purchasedCards = readList(player.purchasedCards);
+            player.reservedCards = readList(player.reservedCards);
+            player.visitedNobles = readList(player.visitedNobles);
+            player.score = readVarint();
+            player.bonuses = readColors(player.bonuses);
+            state.players.push(player);
+        }
+        event.gameState = state;
+        return event;
+    }
+
     async function loadLiveHistory() {
         try {
             const response = await fetch(`/api/logs/${gameId}.json`);
             if (response.ok) {
                 const rawText = await response.text();
-                const historicalEvents = rawText.trim().split('\n')
+                const historicalEvents = expandStateDeltas(rawText.trim().split('\n')
                     .filter(line => line.trim() !== '')
-                    .map(line => JSON.parse(line));
+                    .map(line => JSON.parse(line)));
                 
                 console.log(`Preloaded ${historicalEvents.length} historical events for live game.`);
-                
-                // Clear console messages to start fresh
-                p0ReasoningConsole.innerHTML = '';
-                p1ReasoningConsole.innerHTML = '';
-
-                // Create document fragments to batch appends and avoid layout thrashing
-                const p0Fragment = document.createDocumentFragment();
-                const p1Fragment = document.createDocumentFragment();
-
-                const appendToFragment = (playerIdx, htmlContent, customClass) => {
-                    const p = document.createElement('p');
-                    p.className = customClass || '';
-                    p.innerHTML = htmlContent;
-                    if (playerIdx === 0) {
-                        p0Fragment.appendChild(p);
-                    } else {
-                        p1Fragment.appendChild(p);
-                    }
-                };
+                renderHistory(historicalEvents);
+            }
+        } catch (e) {
+            console.warn("No historical log file found or failed to load history, starting clean live view.", e);
+        }
+    }
 
-                let lastSeenState = null;
-                let activePlayerIdx = 0;
-                let turnNum = 1;
-                let gameEndedEvent = null;
+    // Renders a batch of past events (a live snapshot or a log) at once
+    function renderHistory(historicalEvents) {
+        // Clear console messages to start fresh
+        p0ReasoningConsole.innerHTML = '';
+        p1ReasoningConsole.innerHTML = '';
 
-                historicalEvents.forEach(ev => {
-                    const ts = ev.timestamp;
-                    const type = detectEventType(ev);
-                    const key = (ts && type) ? `${ts}_${type}` : ts;
-                    if (key) {
-                        processedEventTimestamps.add(key);
-                    }
-                    events.push(ev);
-                    currentEventIndex = events.length - 1;
-
-                    switch (type) {
-                        case "GAME_STARTED":
-                            playerNames = [
-                                ev.player0Name || ev.player0Model || "Player 0",
-                                ev.player1Name || ev.player1Model || "Player 1"
-                            ];
-                            p0Name.textContent = playerNames[0];
-                            p1Name.textContent = playerNames[1];
-                            lastSeenState = ev.initialState;
-                            
-                            // Initialize consoles
-                            const p0Started = document.createElement('p');
-                            p0Started.className = 'text-primary font-bold';
-                            p0Started.textContent = '> Game started';
-                            p0Fragment.appendChild(p0Started);
-
-                            const p1Started = document.createElement('p');
-                            p1Started.className = 'text-primary font-bold';
-                            p1Started.textContent = '> Game started';
-                            p1Fragment.appendChild(p1Started);
-
-                            registerCardsFromState(ev.initialState);
-                            break;
-
-                        case "TURN_STARTED":
-                            const turnNumVal = ev.turnNumber !== undefined ? ev.turnNumber : ev.turn;
-                            const currentIdxVal = ev.currentPlayerIndex !== undefined ? ev.currentPlayerIndex : ev.playerIndex;
-                            turnNum = turnNumVal;
-                            activePlayerIdx = currentIdxVal;
-                            lastSeenState = ev.gameState || ev.state;
-                            
-                            appendToFragment(currentIdxVal, formatTokensAndCards(`\n=== Turn ${turnNumVal} ===`));
-                            registerCardsFromState(ev.gameState || ev.state);
-                            break;
-
-                        case "REASONING":
-                            appendToFragment(ev.playerIndex, formatTokensAndCards(`> ${ev.reasoning}`));
-                            break;
-
-                        case "ACTION":
-                            const actStr = summarizeAction(ev.action);
-                            const dur = ev.durationMs ? `(${formatDurationShort(ev.durationMs)})` : '';
-                            const customClass = ev.playerIndex === 0 ? 'text-tertiary font-bold mt-1 mb-2' : 'text-primary font-bold mt-1 mb-2';
-                            appendToFragment(ev.playerIndex, formatTokensAndCards(`Selected Action: ${actStr} ${dur}`), customClass);
-                            break;
-
-                        case "RETRY":
-                            appendToFragment(ev.playerIndex, formatTokensAndCards(`[RETRY #${ev.attemptNumber}] Error: ${ev.errorMessage}`), 'text-error font-bold');
-                            break;
-
-                        case "GAME_ENDED":
-                            gameEndedEvent = ev;
-                            break;
-                    }
-                });
+        // Create document fragments to batch appends and avoid layout thrashing
+        const p0Fragment = document.createDocumentFragment();
+        const p1Fragment = document.createDocumentFragment();
+
+        const appendToFragment = (playerIdx, htmlContent, customClass) => {
+            const p = document.createElement('p');
+            p.className = customClass || '';
+            p.innerHTML = htmlContent;
+            if (playerIdx === 0) {
+                p0Fragment.appendChild(p);
+            } else {
+                p1Fragment.appendChild(p);
+            }
+        };
+
+        let lastSeenState = null;
+        let activePlayerIdx = 0;
+        let turnNum = 1;
+        let gameEndedEvent = null;
+
+        historicalEvents.forEach(ev => {
+            const ts = ev.timestamp;
+            const type = detectEventType(ev);
+            const key = (ts && type) ? `${ts}_${type}` : ts;
+            if (key) {
+                processedEventTimestamps.add(key);
+            }
+            events.push(ev);
+            currentEventIndex = events.length - 1;
+
+            switch (type) {
+                case "GAME_STARTED":
+                    playerNames = [
+                        ev.player0Name || ev.player0Model || "Player 0",
+                        ev.player1Name || ev.player1Model || "Player 1"
+                    ];
+                    p0Name.textContent = playerNames[0];
+                    p1Name.textContent = playerNames[1];
+                    lastSeenState = ev.initialState;
+                    
+                    // Initialize consoles
+                    const p0Started = document.createElement('p');
+                    p0Started.className = 'text-primary font-bold';
+                    p0Started.textContent = '> Game started';
+                    p0Fragment.appendChild(p0Started);
 
-                // Batch append reasoning fragments
-                p0ReasoningConsole.appendChild(p0Fragment);
-                p1ReasoningConsole.appendChild(p1Fragment);
+                    const p1Started = document.createElement('p');
+                    p1Started.className = 'text-primary font-bold';
+                    p1Started.textContent = '> Game started';
+                    p1Fragment.appendChild(p1Started);
 
-                // Scroll to bottom once
-                p0ReasoningConsole.scrollTop = p0ReasoningConsole.scrollHeight;
-                p1ReasoningConsole.scrollTop = p1ReasoningConsole.scrollHeight;
+                    registerCardsFromState(ev.initialState);
+                    break;
+
+                case "TURN_STARTED":
+                    const turnNumVal = ev.turnNumber !== undefined ? ev.turnNumber : ev.turn;
+                    const currentIdxVal = ev.currentPlayerIndex !== undefined ? ev.currentPlayerIndex : ev.playerIndex;
+                    turnNum = turnNumVal;
+                    activePlayerIdx = currentIdxVal;
+                    lastSeenState = ev.gameState || ev.state;
+                    
+                    appendToFragment(currentIdxVal, formatTokensAndCards(`\n=== Turn ${turnNumVal} ===`));
+                    registerCardsFromState(ev.gameState || ev.state);
+                    break;
+
+                case "REASONING":
+                    appendToFragment(ev.playerIndex, formatTokensAndCards(`> ${ev.reasoning}`));
+                    break;
+
+                case "ACTION":
+                    const actStr = summarizeAction(ev.action);
+                    const dur = ev.durationMs ? `(${formatDurationShort(ev.durationMs)})` : '';
+                    const customClass = ev.playerIndex === 0 ? 'text-tertiary font-bold mt-1 mb-2' : 'text-primary font-bold mt-1 mb-2';
+                    appendToFragment(ev.playerIndex, formatTokensAndCards(`Selected Action: ${actStr} ${dur}`), customClass);
+                    break;
+
+                case "RETRY":
+                    appendToFragment(ev.playerIndex, formatTokensAndCards(`[RETRY #${ev.attemptNumber}] Error: ${ev.errorMessage}`), 'text-error font-bold');
+                    break;
+
+                case "GAME_ENDED":
+                    gameEndedEvent = ev;
+                    break;
+            }
+        });
 
-                // Render latest board state exactly once
-                if (lastSeenState) {
-                    renderGameState(lastSeenState);
-                }
+        // Batch append reasoning fragments
+        p0ReasoningConsole.appendChild(p0Fragment);
+        p1ReasoningConsole.appendChild(p1Fragment);
 
-                // Update turn and active indicators
-                turnIndicator.textContent = `Turn ${turnNum}`;
-                const activePlayer = activePlayerIdx === 0 ? playerNames[0] : playerNames[1];
-                activePlayerIndicator.textContent = `Active: ${activePlayer}`;
-                highlightActivePlayer(activePlayerIdx);
+        // Scroll to bottom once
+        p0ReasoningConsole.scrollTop = p0ReasoningConsole.scrollHeight;
+        p1ReasoningConsole.scrollTop = p1ReasoningConsole.scrollHeight;
+
+        // Render latest board state exactly once
+        if (lastSeenState) {
+            renderGameState(lastSeenState);
+        }
 
-                // Handle game end state
-                if (gameEndedEvent) {
-                    activePlayerIndicator.textContent = `Finished. Winner: ${gameEndedEvent.winnerReason || "Tie"}`;
-                    if (btnAbort) btnAbort.classList.add('hidden');
-                    showEndGameModal(gameEndedEvent);
+        // Update turn and active indicators
+        turnIndicator.textContent = `Turn ${turnNum}`;
+        const activePlayer = activePlayerIdx === 0 ? playerNames[0] : playerNames[1];
+        activePlayerIndicator.textContent = `Active: ${activePlayer}`;
+        highlightActivePlayer(activePlayerIdx);
+
+        // Handle game end state
+        if (gameEndedEvent) {
+            activePlayerIndicator.textContent = `Finished. Winner: ${gameEndedEvent.winnerReason || "Tie"}`;
+            if (btnAbort) btnAbort.classList.add('hidden');
+            showEndGameModal(gameEndedEvent);
+        }
+    }
+    // Delta-encoded logs (logFormat 2) store a full gameState only on keyframes; other turns carry
+    // a stateDelta against the previous turn. Rebuild the full state of every turn, in file order.
+    function expandStateDeltas(parsedEvents) {
+        let previousState = null;
+        parsedEvents.forEach(ev => {
+            if (ev.stateDelta !== undefined) {
+                if (!previousState) {
+                    throw new Error(`State delta for turn ${ev.turn} has no preceding keyframe`);
                 }
+                ev.gameState = applyStateDelta(previousState, ev.stateDelta);
+                delete ev.stateDelta;
             }
-        } catch (e) {
-            console.warn("No historical log file found or failed to load history, starting clean live view.", e);
+            if (ev.gameState !== undefined && ev.turn !== undefined) {
+                previousState = ev.gameState;
+            }
+        });
+        return parsedEvents;
+    }
+
+    // Mirrors StateDeltaCodec.apply: merge patch for objects, {$drop, $append} for arrays.
+    // Returns new objects so earlier states stay intact for the replay timeline.
+    function applyStateDelta(base, patch) {
+        if (patch === null || typeof patch !== 'object' || Array.isArray(patch)) {
+            return patch;
+        }
+        if (Array.isArray(base)) {
+            const kept = base.slice(patch.$drop || 0);
+            return patch.$append ? kept.concat(patch.$append) : kept;
         }
+        const result = (base && typeof base === 'object') ? { ...base } : {};
+        Object.keys(patch).forEach(key => {
+            if (patch[key] === null) {
+                delete result[key];
+            } else {
+                result[key] = applyStateDelta(result[key], patch[key]);
+            }
+        });
+        return result;
     }
+
     function detectEventType(ev) {
         if (!ev) return null;
         if (ev.eventType) return ev.eventType;
         if (ev.initialState !== undefined) return "GAME_STARTED";
         if (ev.gameState !== undefined || ev.state !== undefined) return "TURN_STARTED";
         if (ev.reasoning !== undefined) return "REASONING";
+        if (ev.kind !== undefined && ev.text !== undefined) return "REASONING_CHUNK";
         if (ev.action !== undefined) return "ACTION";
         if (ev.attemptNumber !== undefined || ev.errorMessage !== undefined) return "RETRY";
         if (ev.winnerIndex !== undefined || ev.winnerReason !== undefined) return "GAME_ENDED";
@@ -369,6 +596,7 @@ document.addEventListener('DOMContentLoaded', () => {
                 break;
 
             case "REASONING":
+                endReasoningStream(event.playerIndex);
                 appendReasoning(event.playerIndex, event.reasoning);
                 break;
 
@@ -377,6 +605,7 @@ document.addEventListener('DOMContentLoaded', () => {
                 break;
 
             case "RETRY":
+                endReasoningStream(event.playerIndex);
                 appendRetry(event.playerIndex, event.attemptNumber, event.errorMessage);
                 break;
 
@@ -399,9 +628,9 @@ document.addEventListener('DOMContentLoaded', () => {
             
             const rawText = await response.text();
             // Parse NDJSON lines
-            events = rawText.trim().split('\n')
+            events = expandStateDeltas(rawText.trim().split('\n')
                 .filter(line => line.trim() !== '')
-                .map(line => JSON.parse(line));
+                .map(line => JSON.parse(line)));
 
             if (events.length === 0) {
                 throw new Error("No events found in the log file.");
@@ -1128,6 +1357,32 @@ document.addEventListener('DOMContentLoaded', () => {
         appendReasoningText(playerIdx, `> ${text}`);
     }
 
+    // Streamed chunks of an answer still being written go to a transient line per player,
+    // which the consolidated REASONING event replaces
+    const streamingLines = [null, null];
+
+    function appendReasoningChunk(ev) {
+        const consoleEl = ev.playerIndex === 0 ? p0ReasoningConsole : p1ReasoningConsole;
+        let line = streamingLines[ev.playerIndex];
+        if (!line || !line.isConnected) {
+            line = document.createElement('p');
+            line.className = 'opacity-60';
+            line.textContent = '> ';
+            consoleEl.appendChild(line);
+            streamingLines[ev.playerIndex] = line;
+        }
+        line.textContent += ev.text;
+        consoleEl.scrollTop = consoleEl.scrollHeight;
+    }
+
+    function endReasoningStream(playerIdx) {
+        const line = streamingLines[playerIdx];
+        if (line) {
+            line.remove();
+            streamingLines[playerIdx] = null;
+        }
+    }
+
     function appendAction(playerIdx, action, durationMs) {
         const actStr = summarizeAction(action);
         const dur = durationMs ? `(${formatDurationShort(durationMs)})` : '';
@@ -0,0 +1,106 @@
+package com.aisplendor.controller;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.service.GameEventPublisher;
+import com.aisplendor.service.LogCatalog;
+import com.aisplendor.service.MatchManagerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MatchControllerTest {
+
+    private static final String LOG = "{\"eventType\":\"GAME_STARTED\"}\n{\"eventType\":\"TURN_STARTED\"}\n";
+
+    @TempDir
+    Path tempDir;
+
+    private MockMvc mockMvc;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(tempDir.resolve("game.json"), LOG);
+        GameEventPublisher publisher = new GameEventPublisher();
+        MatchController controller = new MatchController(new MatchManagerService(publisher),
+                new LogCatalog(publisher, tempDir, EventLogConfig.defaults()), publisher, null, tempDir);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        MvcResult full = mockMvc.perform(get("/api/logs/game.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn();
+        assertEquals(LOG, full.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        etag = full.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+    }
+
+    @Test
+    void testSingleRange() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/logs/game.json").header(HttpHeaders.RANGE, "bytes=2-10"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-10/" + LOG.length()))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 9))
+                .andReturn();
+        assertEquals(LOG.substring(2, 11), result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSuffixRange() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/logs/game.json").header(HttpHeaders.RANGE, "bytes=-5")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + (LOG.length() - 5) + "-" + (LOG.length() - 1) + "/" + LOG.length()))
+                .andReturn();
+        assertEquals(LOG.substring(LOG.length() - 5), result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/api/logs/game.json").header(HttpHeaders.RANGE, "bytes=" + LOG.length() + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + LOG.length()));
+    }
+
+    @Test
+    void testIfRangeMismatchSendsWholeFile() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/logs/game.json").header(HttpHeaders.RANGE, "bytes=2-10")
+                        .header(HttpHeaders.IF_RANGE, "\"0-0-raw\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andReturn();
+        assertEquals(LOG, result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testLastEventIdBeyondLogPositionsIsRejected() throws Exception {
+        mockMvc.perform(get("/api/matches/game/events").header("Last-Event-ID", Long.toString(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/matches/game/events").param("lastEventId", "99999999999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testIfNoneMatch() throws Exception {
+        mockMvc.perform(get("/api/logs/game.json").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // A grown log has a new ETag
+        Files.writeString(tempDir.resolve("game.json"), LOG + "{}\n");
+        mockMvc.perform(get("/api/logs/game.json").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
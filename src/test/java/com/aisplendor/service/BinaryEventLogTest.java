@@ -0,0 +1,132 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.config.EventLogConfig.FlushPolicy;
+import com.aisplendor.config.EventLogConfig.Format;
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.CardLevel;
+import com.aisplendor.model.Color;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.action.GameAction;
+import com.aisplendor.model.action.ReserveCardAction;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.aisplendor.util.BinaryEventCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEventLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<GameEvent> sampleGame() {
+        GameEngine engine = new GameEngine();
+        GameState state = GameSimulator.setupInitialState(new Random(3));
+        Instant time = Instant.parse("2026-01-01T12:00:00.123456Z");
+        List<GameEvent> events = new ArrayList<>();
+        events.add(new GameStartedEvent(time, "bin_game", "model-a", "model-b", "A", "B", 1.5e-6, 2e-6, 0.0, 0.0, state));
+        for (int i = 0; i < 8; i++) {
+            time = time.plusMillis(1500);
+            events.add(new TurnStartedEvent(time, state.turnNumber(), state.currentPlayerIndex(), state));
+            events.add(new ReasoningEvent(time, i % 2, "Reserve or take gems, turn " + i,
+                    new TokenUsage(1200 + i, 300, 0.0004)));
+            GameAction action = i < 6
+                    ? new ReserveCardAction(state.board().faceUpCards().get(CardLevel.LEVEL_2).get(0).id(), null, null)
+                    : new TakeTokensAction(Map.of(Color.RED, 1, Color.BLUE, 1, Color.WHITE, 1), null);
+            state = engine.applyAction(state, action);
+            events.add(new ActionEvent(time, i % 2, action, true, 900L + i));
+        }
+        events.add(new TurnStartedEvent(time, state.turnNumber(), state.currentPlayerIndex(), state));
+        return events;
+    }
+
+    private Path writeLog(String gameId, Format format) throws Exception {
+        EventLogConfig config = new EventLogConfig(1, FlushPolicy.EVENT, 200, false, 1024, format, false);
+        try (GameEventLogger eventLogger = new GameEventLogger(gameId, tempDir, null, config)) {
+            sampleGame().forEach(eventLogger::log);
+            return eventLogger.getLogPath();
+        }
+    }
+
+    @Test
+    void testBinaryLogIsSmallAndConvertsLosslessly() throws Exception {
+        Path ndjson = writeLog("game_json", Format.NDJSON);
+        Path binary = writeLog("game_bin", Format.BINARY);
+
+        assertTrue(binary.toString().endsWith(BinaryEventLog.EXTENSION));
+        assertTrue(BinaryEventLog.isBinary(binary));
+        assertFalse(BinaryEventLog.isBinary(ndjson));
+        assertTrue(Files.size(binary) * 5 < Files.size(ndjson),
+                "binary " + Files.size(binary) + " vs ndjson " + Files.size(ndjson));
+
+        Path converted = tempDir.resolve("converted.json");
+        assertEquals(26, BinaryEventLog.convert(binary, converted));
+        List<String> expected = Files.readAllLines(ndjson);
+        List<String> actual = Files.readAllLines(converted);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(mapper.readTree(expected.get(i)), mapper.readTree(actual.get(i)), "event " + i);
+        }
+
+        Path roundTrip = tempDir.resolve("round_trip.bin");
+        BinaryEventLog.convert(converted, roundTrip);
+        assertArrayEquals(Files.readAllBytes(binary), Files.readAllBytes(roundTrip));
+    }
+
+    @Test
+    void testResumeFromBinaryAndTruncatedLog() throws Exception {
+        Path ndjson = writeLog("resume_json", Format.NDJSON);
+        Path binary = writeLog("resume_bin", Format.BINARY);
+        GameLogReader reader = new GameLogReader();
+
+        GameLogReader.ResumeData fromJson = reader.parseLogForResume(ndjson);
+        GameLogReader.ResumeData fromBinary = reader.parseLogForResume(binary);
+        assertEquals(mapper.valueToTree(fromJson.resumeState()), mapper.valueToTree(fromBinary.resumeState()));
+        assertEquals(fromJson.player0AccumulatedTokens(), fromBinary.player0AccumulatedTokens());
+        assertEquals(fromJson.player1AccumulatedTimeMs(), fromBinary.player1AccumulatedTimeMs());
+
+        // A crash mid-record leaves a readable prefix
+        byte[] bytes = Files.readAllBytes(binary);
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 7));
+        int events = 0;
+        try (GameLogReader.EventSource source = GameLogReader.openEvents(truncated)) {
+            JsonNode node;
+            while ((node = source.next()) != null) {
+                assertTrue(node.isObject());
+                events++;
+            }
+        }
+        assertEquals(25, events);
+        assertNotNull(reader.parseLogForResume(truncated).resumeState());
+    }
+
+    @Test
+    void testDictionaryFingerprintIsTheSameInEveryJvm() {
+        // Stored in every binary log and checkpoint; a value that varies between runs makes
+        // files written before a restart unreadable. Change it only with the dictionary.
+        assertEquals(-1204985373, BinaryEventCodec.dictionaryFingerprint());
+    }
+}
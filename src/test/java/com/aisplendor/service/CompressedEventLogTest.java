@@ -0,0 +1,128 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.config.EventLogConfig.FlushPolicy;
+import com.aisplendor.config.EventLogConfig.Format;
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.Color;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.aisplendor.util.SyncFlushGzipOutputStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedEventLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static EventLogConfig config(Format format, boolean compress) {
+        return new EventLogConfig(1, FlushPolicy.EVENT, 200, false, 1024, format, compress);
+    }
+
+    /**
+     * Logs a few turns; the returned logger is still open.
+     */
+    private GameEventLogger startGame(Path logsDir, String gameId, EventLogConfig config, int turns)
+            throws Exception {
+        GameEngine engine = new GameEngine();
+        GameState state = GameSimulator.setupInitialState(new Random(11));
+        GameEventLogger eventLogger = new GameEventLogger(gameId, logsDir, null, config);
+        Instant time = Instant.parse("2026-02-01T10:00:00Z");
+        eventLogger.log(new GameStartedEvent(time, gameId, "model-a", "model-b", "A", "B", 0.0, 0.0, 0.0, 0.0, state));
+        for (int i = 0; i < turns; i++) {
+            eventLogger.log(new TurnStartedEvent(time, state.turnNumber(), state.currentPlayerIndex(), state));
+            eventLogger.log(new ReasoningEvent(time, i % 2, "Long reasoning about gems. ".repeat(40),
+                    new TokenUsage(1000, 500, 0.001)));
+            TakeTokensAction action = new TakeTokensAction(Map.of(Color.values()[i % 5], 1,
+                    Color.values()[(i + 1) % 5], 1, Color.values()[(i + 2) % 5], 1), null);
+            state = engine.applyAction(state, action);
+            eventLogger.log(new ActionEvent(time, i % 2, action, true, 100L));
+        }
+        eventLogger.log(new TurnStartedEvent(time, state.turnNumber(), state.currentPlayerIndex(), state));
+        return eventLogger;
+    }
+
+    @Test
+    void testCompressedLogIsPlainGzipOnceClosed() throws Exception {
+        GameEventLogger plain = startGame(tempDir.resolve("plain"), "game", config(Format.NDJSON, false), 6);
+        plain.close();
+        GameEventLogger compressed = startGame(tempDir.resolve("gz"), "game", config(Format.NDJSON, true), 6);
+        compressed.close();
+
+        Path gz = compressed.getLogPath();
+        assertTrue(gz.toString().endsWith(".json.gz"));
+        assertTrue(GameLogReader.isLogFileName(gz.getFileName().toString()));
+        assertTrue(Files.size(gz) * 3 < Files.size(plain.getLogPath()));
+
+        byte[] bytes = Files.readAllBytes(gz);
+        assertFalse(SyncFlushGzipOutputStream.endsWithSyncMarker(bytes));
+        List<String> inflated;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            inflated = new String(in.readAllBytes()).lines().toList();
+        }
+        List<String> expected = Files.readAllLines(plain.getLogPath());
+        assertEquals(expected.size(), inflated.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(mapper.readTree(expected.get(i)), mapper.readTree(inflated.get(i)));
+        }
+
+        GameLogReader reader = new GameLogReader();
+        assertEquals(mapper.valueToTree(reader.parseLogForResume(plain.getLogPath()).resumeState()),
+                mapper.valueToTree(reader.parseLogForResume(gz).resumeState()));
+    }
+
+    @Test
+    void testInterruptedCompressedLogLeavesReadablePrefix() throws Exception {
+        for (Format format : Format.values()) {
+            GameEventLogger running = startGame(tempDir, "running_" + format, config(format, true), 4);
+            running.flush();
+            byte[] snapshot = Files.readAllBytes(running.getLogPath());
+            running.close();
+
+            // The flushed prefix of a log that is still being written ends with a sync marker
+            assertTrue(SyncFlushGzipOutputStream.endsWithSyncMarker(snapshot), format.name());
+            Path crashed = tempDir.resolve("crashed_" + format + ".gz");
+            Files.write(crashed, snapshot);
+            assertEquals(14, countEvents(crashed), format.name());
+
+            // Bytes of a half-written block after the last flush are ignored
+            Path torn = tempDir.resolve("torn_" + format + ".gz");
+            byte[] full = Files.readAllBytes(running.getLogPath());
+            Files.write(torn, Arrays.copyOf(full, full.length - 20));
+            assertTrue(countEvents(torn) >= 13, format.name());
+            assertNotNull(new GameLogReader().parseLogForResume(crashed).resumeState());
+        }
+    }
+
+    private static int countEvents(Path logFile) throws Exception {
+        int events = 0;
+        try (GameLogReader.EventSource source = GameLogReader.openEvents(logFile)) {
+            while (source.next() != null) {
+                events++;
+            }
+        }
+        return events;
+    }
+}
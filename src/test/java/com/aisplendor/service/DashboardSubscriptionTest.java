@@ -0,0 +1,81 @@
+package com.aisplendor.service;
+
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.aisplendor.service.DashboardSubscription.Filter;
+import com.aisplendor.service.DashboardSubscription.View;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardSubscriptionTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Instant time = Instant.parse("2026-07-03T09:00:00Z");
+    private final GameState state = GameSimulator.setupInitialState(new Random(5));
+
+    @Test
+    void testGameSubscriptionsOverrideTheWildcard() {
+        DashboardSubscription dashboard = new DashboardSubscription(null);
+        assertNull(dashboard.filterFor("g1"));
+
+        Filter all = new Filter(null, View.SUMMARY);
+        Filter turns = new Filter(Set.of("TURN_STARTED"), View.FULL);
+        dashboard.subscribe(DashboardSubscription.ALL_GAMES, all);
+        dashboard.subscribe("g1", turns);
+        assertSame(turns, dashboard.filterFor("g1"));
+        assertSame(all, dashboard.filterFor("g2"));
+        assertTrue(all.accepts("REASONING"));
+        assertTrue(turns.accepts("TURN_STARTED"));
+        assertFalse(turns.accepts("REASONING"));
+
+        assertTrue(dashboard.join("g1"));
+        assertFalse(dashboard.join("g1"));
+        assertTrue(dashboard.join("g2"));
+        // g1 is still followed through the wildcard
+        dashboard.unsubscribe("g1");
+        assertSame(all, dashboard.filterFor("g1"));
+        assertFalse(dashboard.join("g1"));
+
+        dashboard.unsubscribe(DashboardSubscription.ALL_GAMES);
+        assertNull(dashboard.filterFor("g2"));
+        assertTrue(dashboard.join("g2"));
+    }
+
+    @Test
+    void testFramesAreTaggedWithTheirGame() throws Exception {
+        SerializedEvent turn = SerializedEvent.of(new TurnStartedEvent(time, 7, 1, state), 12);
+        JsonNode full = mapper.readTree(DashboardSubscription.frame("g \"1\"", turn, View.FULL));
+        assertEquals("g \"1\"", full.get("gameId").asText());
+        assertEquals(12, full.get("seq").asLong());
+        assertTrue(full.has("gameState"));
+
+        JsonNode summary = mapper.readTree(DashboardSubscription.frame("g1", turn, View.SUMMARY));
+        assertEquals("g1", summary.get("gameId").asText());
+        assertEquals(12, summary.get("seq").asLong());
+        assertEquals("TURN_STARTED", summary.get("eventType").asText());
+        assertEquals(7, summary.get("turn").asInt());
+        assertEquals(state.players().size(), summary.get("scores").size());
+        assertFalse(summary.has("gameState"));
+
+        SerializedEvent reasoning = SerializedEvent.of(new ReasoningEvent(time, 0, "long thoughts", TokenUsage.zero()), 13);
+        assertFalse(mapper.readTree(DashboardSubscription.frame("g1", reasoning, View.SUMMARY)).has("reasoning"));
+
+        SerializedEvent ended = SerializedEvent.of(
+                new GameEndedEvent(time, 1, "Reached 15 points", Map.of(0, 9, 1, 15), Map.of()), 14);
+        JsonNode result = mapper.readTree(DashboardSubscription.frame("g1", ended, View.SUMMARY));
+        assertEquals(1, result.get("winnerIndex").asInt());
+        assertEquals(15, result.get("finalScores").get("1").asInt());
+    }
+}
@@ -0,0 +1,185 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventBusConfig;
+import com.aisplendor.config.EventBusConfig.OverflowPolicy;
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.config.EventLogConfig.FlushPolicy;
+import com.aisplendor.config.EventLogConfig.Format;
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.Color;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEventPublisherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void testEventsAreSerializedOnceForLogAndSubscribers() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        List<SerializedEvent> first = new CopyOnWriteArrayList<>();
+        List<SerializedEvent> second = new CopyOnWriteArrayList<>();
+        publisher.registerListener((gameId, event) -> first.add(event));
+        publisher.registerListener((gameId, event) -> second.add(event));
+
+        GameEngine engine = new GameEngine();
+        GameState state = GameSimulator.setupInitialState(new Random(5));
+        Instant time = Instant.parse("2026-06-01T09:00:00Z");
+        EventLogConfig config = new EventLogConfig(4, FlushPolicy.EVENT, 200, false, 1024, Format.NDJSON, false);
+        Path logFile;
+        try (GameEventLogger eventLogger = new GameEventLogger("game", tempDir, publisher, config)) {
+            eventLogger.log(new GameStartedEvent(time, "game", "model-a", "model-b", "A", "B", 0.0, 0.0, 0.0, 0.0,
+                    state));
+            for (int i = 0; i < 3; i++) {
+                eventLogger.log(new TurnStartedEvent(time, state.turnNumber(), state.currentPlayerIndex(), state));
+                eventLogger.log(new ReasoningEvent(time, i % 2, "thinking", new TokenUsage(10, 5, 0.001)));
+                TakeTokensAction action = new TakeTokensAction(Map.of(Color.values()[i % 5], 1,
+                        Color.values()[(i + 1) % 5], 1, Color.values()[(i + 2) % 5], 1), null);
+                state = engine.applyAction(state, action);
+                eventLogger.log(new ActionEvent(time, i % 2, action, true, 10L));
+            }
+            logFile = eventLogger.getLogPath();
+        }
+        assertTrue(publisher.awaitDelivery(5_000));
+
+        // Every subscriber gets the same instance, and so the same bytes, in sequence
+        assertEquals(10, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(i, first.get(i).sequence());
+            assertSame(first.get(i), second.get(i));
+            assertSame(first.get(i).json(), second.get(i).json());
+        }
+
+        List<String> lines = Files.readAllLines(logFile);
+        assertEquals(first.size(), lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            SerializedEvent published = first.get(i);
+            // Subscribers always see the full event, whatever the log stores
+            assertEquals(SerializedEvent.mapper().writeValueAsString(published.event()), published.text());
+            assertEquals(published.event() instanceof TurnStartedEvent, published.tree().has("gameState"));
+            if (published.event() instanceof ActionEvent || published.event() instanceof ReasoningEvent) {
+                assertEquals(published.text(), lines.get(i));
+            }
+        }
+        // The second turn is a delta on disk, while its published tree kept the full state
+        assertTrue(mapper.readTree(lines.get(4)).has("stateDelta"));
+        assertFalse(mapper.readTree(lines.get(4)).has("gameState"));
+        assertTrue(first.get(4).text().contains("\"gameState\""));
+    }
+
+    @Test
+    void testSlowListenersNeverBlockThePublisher() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher(new EventBusConfig(8, OverflowPolicy.DROP_OLDEST));
+        CountDownLatch blocked = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> slow = new CopyOnWriteArrayList<>();
+        List<Long> fast = new CopyOnWriteArrayList<>();
+        publisher.registerListener("slow", (gameId, event) -> {
+            slow.add(event.sequence());
+            blocked.countDown();
+            awaitQuietly(release);
+        });
+        publisher.registerListener("stuck", (gameId, event) -> {
+            blocked.countDown();
+            awaitQuietly(release);
+        }, OverflowPolicy.DISCONNECT);
+        publisher.registerListener("fast", (gameId, event) -> fast.add(event.sequence()));
+
+        Instant time = Instant.parse("2026-06-01T09:00:00Z");
+        publisher.publish("game", new ReasoningEvent(time, 0, "thinking", TokenUsage.zero()));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        for (int i = 1; i < 100; i++) {
+            publisher.publish("game", new ReasoningEvent(time, i % 2, "thinking " + i, TokenUsage.zero()));
+        }
+        assertTrue(System.nanoTime() - start < 2_000_000_000L, "publish waited for a listener");
+
+        Map<String, GameEventPublisher.DispatcherStats> stats = new HashMap<>();
+        publisher.stats().forEach(stat -> stats.put(stat.listener(), stat));
+        assertEquals(100, stats.get("slow").published());
+        assertTrue(stats.get("slow").lag() > 8);
+
+        release.countDown();
+        assertTrue(publisher.awaitDelivery(5_000));
+        // Every listener sees events in order and ends with the latest one
+        assertEquals(fast.stream().sorted().distinct().toList(), fast);
+        assertEquals(99L, fast.get(fast.size() - 1));
+        // The slow listener got the first event, then skipped to what the ring still held
+        assertEquals(0L, slow.get(0));
+        assertEquals(LongStream.range(92, 100).boxed().toList(), slow.subList(1, slow.size()));
+        publisher.stats().forEach(stat -> stats.put(stat.listener(), stat));
+        assertEquals(91, stats.get("slow").dropped());
+        assertEquals(9, stats.get("slow").delivered());
+        assertEquals(100, stats.get("fast").delivered() + stats.get("fast").dropped());
+        assertTrue(stats.get("stuck").disconnected());
+        assertEquals(1, stats.get("stuck").delivered());
+    }
+
+    @Test
+    void testStreamEndsAfterItsLastEventWithoutGameEnded() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher(new EventBusConfig(8, OverflowPolicy.DROP_OLDEST));
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch ended = new CountDownLatch(2);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        publisher.registerListener("spectators", (gameId, event) -> received.add(String.valueOf(event.sequence())),
+                gameId -> {
+                    received.add("end of " + gameId);
+                    ended.countDown();
+                });
+        publisher.registerListener("stuck", (gameId, event) -> {
+            blocked.countDown();
+            awaitQuietly(release);
+        }, gameId -> ended.countDown(), OverflowPolicy.DISCONNECT);
+
+        // A match that fails: events, but no GameEnded
+        Instant time = Instant.parse("2026-06-01T09:00:00Z");
+        publisher.publish("game", new ReasoningEvent(time, 0, "thinking", TokenUsage.zero()));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 20; i++) {
+            publisher.publish("game", new ReasoningEvent(time, 0, "thinking " + i, TokenUsage.zero()));
+        }
+        publisher.endGame("game");
+        release.countDown();
+
+        // Also the listener disconnected for falling behind learns that the stream is over
+        assertTrue(ended.await(5, TimeUnit.SECONDS));
+        assertEquals("19", received.get(received.size() - 2));
+        assertEquals("end of game", received.get(received.size() - 1));
+        assertTrue(publisher.stats().isEmpty());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
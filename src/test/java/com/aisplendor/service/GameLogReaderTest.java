@@ -1,17 +1,40 @@
 package com.aisplendor.service;
 
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.CardLevel;
+import com.aisplendor.model.Color;
 import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.action.GameAction;
+import com.aisplendor.model.action.ReserveCardAction;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class GameLogReaderTest {
 
+    private static final EventLogConfig KEYFRAMES_EVERY_3 = new EventLogConfig(3, EventLogConfig.FlushPolicy.EVENT,
+            EventLogConfig.DEFAULT_FLUSH_INTERVAL_MS, false, EventLogConfig.DEFAULT_QUEUE_CAPACITY,
+            EventLogConfig.Format.NDJSON, false);
+
     @TempDir
     Path tempDir;
 
@@ -131,4 +154,91 @@ class GameLogReaderTest {
         assertEquals(100L, resumeData.player1AccumulatedTokens().completionTokens());
         assertEquals(0.00035, resumeData.player1AccumulatedTokens().cost(), 0.000001);
     }
+
+    @Test
+    void parseLogForResume_reconstructsDeltaEncodedLog() throws IOException {
+        GameEngine engine = new GameEngine();
+        GameState state = GameSimulator.setupInitialState(new Random(42));
+        GameState initialState = state;
+
+        try (GameEventLogger eventLogger = new GameEventLogger("delta_game", tempDir, null, KEYFRAMES_EVERY_3)) {
+            eventLogger.log(new GameStartedEvent(Instant.now(), "delta_game", "model-a", "model-b", "A", "B",
+                    0.0, 0.0, 0.0, 0.0, initialState));
+            for (int i = 0; i < 8; i++) {
+                eventLogger.log(new TurnStartedEvent(Instant.now(), state.turnNumber(), state.currentPlayerIndex(), state));
+                // Reservations draw from the decks and add gold; then plain token takes
+                GameAction action = i < 6
+                        ? new ReserveCardAction(state.board().faceUpCards().get(CardLevel.LEVEL_1).get(0).id(), null, null)
+                        : new TakeTokensAction(Map.of(Color.RED, 1, Color.BLUE, 1, Color.GREEN, 1), null);
+                state = engine.applyAction(state, action);
+                eventLogger.log(new ActionEvent(Instant.now(), i % 2, action, true, 10L));
+            }
+            eventLogger.log(new TurnStartedEvent(Instant.now(), state.turnNumber(), state.currentPlayerIndex(), state));
+        }
+
+        Path logFile = tempDir.resolve("delta_game.json");
+        assertEquals(6, Files.readAllLines(logFile).stream().filter(l -> l.contains("\"stateDelta\"")).count(),
+                "9 turns with a keyframe every 3 turns should leave 6 delta lines");
+
+        ObjectMapper mapper = new ObjectMapper();
+        GameLogReader reader = new GameLogReader();
+        GameLogReader.ResumeData deltaData = reader.parseLogForResume(logFile);
+        assertEquals(mapper.valueToTree(state), mapper.valueToTree(deltaData.resumeState()));
+        assertEquals(80L, deltaData.player0AccumulatedTimeMs() + deltaData.player1AccumulatedTimeMs());
+
+        // Expanding to full states and back must not change the reconstructed state
+        long deltaSize = Files.size(logFile);
+        GameLogMigrator migrator = new GameLogMigrator();
+        GameLogMigrator.MigrationResult expanded = migrator.migrate(logFile, 1);
+        assertTrue(expanded.bytesAfter() > deltaSize);
+        assertTrue(Files.readAllLines(logFile).stream().noneMatch(l -> l.contains("\"stateDelta\"")));
+        assertEquals(mapper.valueToTree(state), mapper.valueToTree(reader.parseLogForResume(logFile).resumeState()));
+
+        GameLogMigrator.MigrationResult compacted = migrator.migrate(logFile, 4);
+        assertTrue(compacted.bytesAfter() < compacted.bytesBefore());
+        assertEquals(mapper.valueToTree(state), mapper.valueToTree(reader.parseLogForResume(logFile).resumeState()));
+    }
+
+    @Test
+    void parseLogForResume_readsOnlyTheTailThroughTurnIndex() throws IOException {
+        GameEngine engine = new GameEngine();
+        GameState state = GameSimulator.setupInitialState(new Random(7));
+
+        try (GameEventLogger eventLogger = new GameEventLogger("tail_game", tempDir, null, KEYFRAMES_EVERY_3)) {
+            eventLogger.log(new GameStartedEvent(Instant.now(), "tail_game", "model-a", "model-b", "A", "B",
+                    1.0, 2.0, 3.0, 4.0, state));
+            for (int i = 0; i < 8; i++) {
+                eventLogger.log(new TurnStartedEvent(Instant.now(), state.turnNumber(), state.currentPlayerIndex(), state));
+                eventLogger.log(new ReasoningEvent(Instant.now(), i % 2, "Turn " + i, new TokenUsage(100 + i, 10, 0.001)));
+                GameAction action = new ReserveCardAction(
+                        state.board().faceUpCards().get(CardLevel.LEVEL_1).get(0).id(), null, null);
+                state = engine.applyAction(state, action);
+                eventLogger.log(new ActionEvent(Instant.now(), i % 2, action, true, 10L + i));
+            }
+            eventLogger.log(new TurnStartedEvent(Instant.now(), state.turnNumber(), state.currentPlayerIndex(), state));
+            // Interrupted while retrying an illegal move
+            eventLogger.log(new ReasoningEvent(Instant.now(), 0, "Retry", new TokenUsage(1000, 100, 0.01)));
+            eventLogger.log(new ActionEvent(Instant.now(), 0,
+                    new TakeTokensAction(Map.of(Color.RED, 3), null), false, 500L));
+        }
+
+        Path logFile = tempDir.resolve("tail_game.json");
+        ObjectMapper mapper = new ObjectMapper();
+        GameLogReader reader = new GameLogReader();
+        GameLogReader.ResumeData scanned = reader.scanLogForResume(logFile);
+        GameLogReader.ResumeData indexed = reader.parseLogForResume(logFile);
+        assertEquals(mapper.valueToTree(scanned), mapper.valueToTree(indexed));
+        assertEquals(mapper.valueToTree(state), mapper.valueToTree(indexed.resumeState()));
+        assertEquals(1000L + 8 * 100 + 28, indexed.player0AccumulatedTokens().promptTokens()
+                + indexed.player1AccumulatedTokens().promptTokens());
+        assertEquals(80L + 28, indexed.player0AccumulatedTimeMs() + indexed.player1AccumulatedTimeMs());
+
+        // Damage a turn in the middle: only the full scan has to read it
+        List<TurnIndex.Entry> entries = TurnIndex.load(logFile).entries();
+        byte[] bytes = Files.readAllBytes(logFile);
+        Arrays.fill(bytes, (int) entries.get(2).offset(), (int) entries.get(3).offset() - 1, (byte) 'x');
+        Files.write(logFile, bytes);
+        assertThrows(IOException.class, () -> reader.scanLogForResume(logFile));
+        assertEquals(mapper.valueToTree(scanned), mapper.valueToTree(reader.parseLogForResume(logFile)));
+    }
 }
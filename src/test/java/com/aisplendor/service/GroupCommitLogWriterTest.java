@@ -0,0 +1,69 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.config.EventLogConfig.FlushPolicy;
+import com.aisplendor.config.EventLogConfig.Format;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitLogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testConcurrentLogsKeepPerLogOrderAndDrainOnClose() throws Exception {
+        // Tiny queue so producers regularly block on a full queue
+        GroupCommitLogWriter writer = new GroupCommitLogWriter(16);
+        EventLogConfig config = new EventLogConfig(1, FlushPolicy.TURN, 1000, false, 16, Format.NDJSON, false);
+        int logs = 8;
+        int eventsPerLog = 2000;
+
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < logs; i++) {
+            GroupCommitLogWriter.LogHandle handle = writer.open(tempDir.resolve("game" + i + ".json"), config);
+            producers.add(Thread.ofVirtual().start(() -> {
+                for (int e = 0; e < eventsPerLog; e++) {
+                    handle.append((e + "\n").getBytes(StandardCharsets.UTF_8), e % 10 == 0);
+                }
+                handle.close();
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        for (int i = 0; i < logs; i++) {
+            List<String> lines = Files.readAllLines(tempDir.resolve("game" + i + ".json"));
+            assertEquals(eventsPerLog, lines.size());
+            for (int e = 0; e < eventsPerLog; e++) {
+                assertEquals(String.valueOf(e), lines.get(e));
+            }
+        }
+    }
+
+    @Test
+    void testIntervalPolicyFlushesWithoutClose() throws Exception {
+        GroupCommitLogWriter writer = new GroupCommitLogWriter(1024);
+        Path path = tempDir.resolve("interval.json");
+        GroupCommitLogWriter.LogHandle handle = writer.open(path,
+                new EventLogConfig(1, FlushPolicy.INTERVAL, 50, true, 1024, Format.NDJSON, false));
+
+        handle.append("{\"turn\":1}\n".getBytes(StandardCharsets.UTF_8), true);
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (Files.size(path) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("{\"turn\":1}", Files.readString(path).trim());
+        handle.close();
+    }
+}
@@ -0,0 +1,65 @@
+package com.aisplendor.service;
+
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveGameTailTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Instant time = Instant.parse("2026-07-02T10:00:00Z");
+    private final GameState state = GameSimulator.setupInitialState(new Random(4));
+    private long sequence;
+
+    private SerializedEvent next(GameEvent event) {
+        return SerializedEvent.of(event, sequence++);
+    }
+
+    @Test
+    void testSnapshotHoldsTheStartAndTheLastTurnsFromAKeyframe() throws Exception {
+        LiveGameTail tail = new LiveGameTail(3);
+        JsonNode empty = mapper.readTree(tail.snapshot("game \"1\"")).get("snapshot");
+        assertFalse(empty.get("live").asBoolean());
+        assertEquals("game \"1\"", empty.get("gameId").asText());
+        assertEquals(0, empty.get("events").size());
+
+        tail.add(next(new GameStartedEvent(time, "g", "model-a", "model-b", "A", "B", 0.0, 0.0, 0.0, 0.0, state)));
+        for (int turn = 1; turn <= 10; turn++) {
+            tail.add(next(new TurnStartedEvent(time, turn, turn % 2, state)));
+            tail.add(next(new ReasoningEvent(time, turn % 2, "turn " + turn, TokenUsage.zero())));
+        }
+        assertEquals(7, tail.size());
+
+        JsonNode snapshot = mapper.readTree(tail.snapshot("g")).get("snapshot");
+        assertTrue(snapshot.get("live").asBoolean());
+        assertEquals(20, snapshot.get("lastSequence").asLong());
+        List<Long> sequences = new ArrayList<>();
+        snapshot.get("events").forEach(event -> sequences.add(event.get("seq").asLong()));
+        assertEquals(List.of(0L, 15L, 16L, 17L, 18L, 19L, 20L), sequences);
+        assertTrue(snapshot.get("events").get(0).has("initialState"));
+        // The tail starts at a full state, which the viewer renders directly
+        JsonNode keyframe = snapshot.get("events").get(1);
+        assertEquals(8, keyframe.get("turn").asInt());
+        assertTrue(keyframe.has("gameState"));
+
+        tail.add(next(new GameEndedEvent(time, 0, "Reached 15 points", Map.of(0, 15, 1, 4), Map.of())));
+        JsonNode ended = mapper.readTree(tail.snapshot("g")).get("snapshot").get("events");
+        assertTrue(ended.get(ended.size() - 1).has("finalScores"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.CassetteConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmCassetteTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReplayExactMatchesAfterReopen() throws Exception {
+        Path file = tempDir.resolve("test.cassette");
+        LlmCassette recorder = LlmCassette.open(file);
+        recorder.record("{\"turn\":1}", "model-a", new LlmCassette.Recording(200, 120, "first"));
+        recorder.record("{\"turn\":1}", "model-a", new LlmCassette.Recording(200, 80, "first-retry"));
+        recorder.record("{\"turn\":2}", "model-a", new LlmCassette.Recording(429, 5, "rate limited"));
+        recorder.close();
+
+        try (LlmCassette cassette = LlmCassette.open(file)) {
+            assertEquals(3, cassette.size());
+            LlmCassette.Session session = cassette.newSession();
+
+            LlmCassette.Recording first = session.replay("{\"turn\":1}", "model-a");
+            assertEquals("first", first.body());
+            assertEquals(120, first.latencyMs());
+            assertEquals("first-retry", session.replay("{\"turn\":1}", "model-a").body());
+
+            LlmCassette.Recording error = session.replay("{\"turn\":2}", "model-a");
+            assertEquals(429, error.statusCode());
+
+            // A fresh session replays from the beginning
+            assertEquals("first", cassette.newSession().replay("{\"turn\":1}", "model-a").body());
+        }
+    }
+
+    @Test
+    void testUnknownRequestFallsBackToModelSequence() throws Exception {
+        Path file = tempDir.resolve("fallback.cassette");
+        try (LlmCassette cassette = LlmCassette.open(file)) {
+            cassette.record("a", "model-a", new LlmCassette.Recording(200, 0, "a1"));
+            cassette.record("b", "model-b", new LlmCassette.Recording(200, 0, "b1"));
+            cassette.record("c", "model-a", new LlmCassette.Recording(200, 0, "a2"));
+
+            LlmCassette.Session session = cassette.newSession();
+            assertEquals("a1", session.replay("unknown-1", "model-a").body());
+            assertEquals("a2", session.replay("unknown-2", "model-a").body());
+            assertNull(session.replay("unknown-3", "model-c"));
+        }
+    }
+
+    @Test
+    void testTruncatedTailIsDropped() throws Exception {
+        Path file = tempDir.resolve("truncated.cassette");
+        try (LlmCassette cassette = LlmCassette.open(file)) {
+            cassette.record("a", "model-a", new LlmCassette.Recording(200, 10, "complete"));
+        }
+        Files.write(file, new byte[] {1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        try (LlmCassette cassette = LlmCassette.open(file)) {
+            assertEquals(1, cassette.size());
+            cassette.record("b", "model-a", new LlmCassette.Recording(200, 10, "appended"));
+            assertEquals("appended", cassette.newSession().replay("b", "model-a").body());
+        }
+    }
+
+    @Test
+    void testInvalidCassetteSettingsFallBack() {
+        assertFalse(CassetteConfig.parse("replya", null, null).isEnabled());
+        CassetteConfig replay = CassetteConfig.parse(" Replay ", "c.cassette", "fast");
+        assertEquals(CassetteConfig.Mode.REPLAY, replay.mode());
+        assertEquals(Path.of("c.cassette"), replay.path());
+        assertEquals(1.0, replay.latencyScale());
+    }
+}
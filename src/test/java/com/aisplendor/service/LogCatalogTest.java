@@ -0,0 +1,145 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.config.EventLogConfig.Format;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.aisplendor.service.LogCatalog.Query;
+import com.aisplendor.service.LogCatalog.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.aisplendor.service.TestSupport.awaitTrue;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final EventLogConfig CONFIG = TestSupport.logConfig(1, Format.NDJSON, false);
+
+    private void writeLog(String gameId, String model0, Format format, String endReason) throws Exception {
+        TestSupport.writeGame(tempDir, gameId, model0, 4, TestSupport.logConfig(1, format, false), endReason);
+    }
+
+    @Test
+    void testCatalogIndexesLogsAndServesFilteredPages() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            writeLog("game_" + i, i % 2 == 0 ? "google/gemini" : "openai/gpt", i < 5 ? Format.NDJSON : Format.BINARY,
+                    i < 4 ? "Reached 15 points" : i == 4 ? "Aborted" : null);
+        }
+        LogCatalog catalog = new LogCatalog(new GameEventPublisher(), tempDir, CONFIG);
+        assertEquals(7, catalog.rescan());
+        assertEquals(List.of("game_6.bin", "game_5.bin", "game_4.json", "game_3.json", "game_2.json",
+                "game_1.json", "game_0.json"), catalog.fileNames());
+
+        LogCatalog.Entry finished = catalog.get("game_2.json");
+        assertEquals(Status.FINISHED, finished.status());
+        assertEquals(3, finished.lastTurn());
+        assertEquals(1, finished.winnerIndex());
+        assertEquals(Map.of(0, 9, 1, 15), finished.finalScores());
+        assertEquals(4 * TestSupport.REASONING_COST, finished.cost(), 1e-9);
+        assertEquals(Status.ABORTED, catalog.get("game_4.json").status());
+        assertEquals(Status.INCOMPLETE, catalog.get("game_6.bin").status());
+
+        LogCatalog.Page gemini = catalog.query(new Query(null, "GEMINI", null), 0, 2);
+        assertEquals(4, gemini.total());
+        assertTrue(gemini.complete());
+        assertEquals(List.of("game_6.bin", "game_4.json"), gemini.items().stream().map(LogCatalog.Entry::fileName).toList());
+        assertEquals(List.of("game_0.json"), catalog.query(new Query(null, "gemini", null), 1, 3).items().stream()
+                .map(LogCatalog.Entry::fileName).toList());
+        assertEquals(4, catalog.query(new Query(null, null, Status.FINISHED), 0, 10).total());
+        assertEquals(1, catalog.query(new Query("GAME_5", null, null), 0, 10).total());
+
+        Files.delete(tempDir.resolve("game_0.json"));
+        assertEquals(6, catalog.rescan());
+        assertNull(catalog.get("game_0.json"));
+    }
+
+    @Test
+    void testCatalogFollowsPublishedEventsAndFileChanges() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        LogCatalog catalog = new LogCatalog(publisher, tempDir, CONFIG);
+        catalog.start();
+        try {
+            awaitTrue(() -> catalog.query(Query.all(), 0, 1).complete());
+
+            Instant time = Instant.now();
+            publisher.publish("live", new GameStartedEvent(time, "live", "vendor/model-a", "vendor/model-b", "A", "B",
+                    0.0, 0.0, 0.0, 0.0, GameSimulator.setupInitialState(new Random(1))));
+            publisher.publish("live", new TurnStartedEvent(time, 4, 1, null));
+            publisher.publish("live", new ReasoningEvent(time, 1, "hmm", new TokenUsage(1, 1, 0.5)));
+            assertTrue(publisher.awaitDelivery(5_000));
+            LogCatalog.Entry live = catalog.get("live.json");
+            assertEquals(Status.RUNNING, live.status());
+            assertEquals(4, live.lastTurn());
+            assertEquals(0.5, live.cost(), 1e-9);
+            publisher.publish("live", new GameEndedEvent(time, 0, "Reached 15 points", Map.of(0, 15, 1, 3), Map.of()));
+            assertTrue(publisher.awaitDelivery(5_000));
+            assertEquals(Status.FINISHED, catalog.get("live.json").status());
+
+            // A match whose stream ends without GameEnded is no longer running
+            publisher.publish("crashed", new GameStartedEvent(time, "crashed", "vendor/model-a", "vendor/model-b",
+                    "A", "B", 0.0, 0.0, 0.0, 0.0, GameSimulator.setupInitialState(new Random(1))));
+            publisher.publish("crashed", new TurnStartedEvent(time, 2, 0, null));
+            assertTrue(publisher.awaitDelivery(5_000));
+            assertEquals(Status.RUNNING, catalog.get("crashed.json").status());
+            publisher.endGame("crashed");
+            awaitTrue(() -> catalog.get("crashed.json").status() == Status.INCOMPLETE);
+            assertEquals(2, catalog.get("crashed.json").lastTurn());
+
+            // Logs written by another process are picked up by the watcher
+            writeLog("external", "vendor/model-c", Format.NDJSON, null);
+            awaitTrue(() -> catalog.get("external.json") != null);
+            assertEquals(Status.INCOMPLETE, catalog.get("external.json").status());
+            Files.delete(tempDir.resolve("external.json"));
+            awaitTrue(() -> catalog.get("external.json") == null);
+        } finally {
+            catalog.stop();
+        }
+    }
+
+    @Test
+    void testChangesAreAppliedWhileLogsKeepChanging() throws Exception {
+        writeLog("busy", "vendor/model-a", Format.NDJSON, null);
+        LogCatalog catalog = new LogCatalog(new GameEventPublisher(), tempDir, CONFIG);
+        catalog.start();
+        // A running match: its log is flushed and its checkpoint replaced without pause
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Files.writeString(tempDir.resolve("busy.json"), "\n", StandardOpenOption.APPEND);
+                    Files.writeString(tempDir.resolve("busy.ckpt.tmp"), "checkpoint");
+                    Files.move(tempDir.resolve("busy.ckpt.tmp"), tempDir.resolve("busy.ckpt"),
+                            StandardCopyOption.REPLACE_EXISTING);
+                    Thread.sleep(50);
+                }
+            } catch (Exception e) {
+                // Stopped
+            }
+        });
+        try {
+            awaitTrue(() -> catalog.query(Query.all(), 0, 1).complete());
+            writeLog("external", "vendor/model-c", Format.NDJSON, null);
+            awaitTrue(() -> catalog.get("external.json") != null);
+        } finally {
+            writer.interrupt();
+            writer.join();
+            catalog.stop();
+        }
+    }
+}
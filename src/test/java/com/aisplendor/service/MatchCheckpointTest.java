@@ -0,0 +1,99 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.ConversationConfig;
+import com.aisplendor.config.DynamicReasoningConfig;
+import com.aisplendor.config.ReasoningConfig;
+import com.aisplendor.config.StageConfig;
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.Color;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchCheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static MatchCheckpoint checkpoint(String gameId, int moves) {
+        GameEngine engine = new GameEngine();
+        GameState state = GameSimulator.setupInitialState(new Random(21));
+        GameState committed = state;
+        for (int i = 0; i < moves; i++) {
+            committed = state;
+            state = engine.applyAction(state, new TakeTokensAction(Map.of(Color.values()[i % 5], 1,
+                    Color.values()[(i + 1) % 5], 1, Color.values()[(i + 2) % 5], 1), null));
+        }
+        MatchCheckpoint.Settings settings = new MatchCheckpoint.Settings("vendor/model-a", "vendor/model-b", "A",
+                "B", MatchCheckpoint.Reasoning.of(new DynamicReasoningConfig(true, "1-5:low,6+:high",
+                        new ReasoningConfig(true, "medium", false))),
+                MatchCheckpoint.Reasoning.of(DynamicReasoningConfig.fromStatic(ReasoningConfig.disabled())), 3, 5,
+                false, "auto", new StageConfig("final", 2, 10, 12, 7, 8, true), new ConversationConfig(true, 6),
+                0.5, 1.5, 0.25, 2.0);
+        OpenRouterService.ConversationSnapshot conversation = new OpenRouterService.ConversationSnapshot(
+                List.of(Map.of("role", "user", "content", "state"), Map.of("role", "assistant", "content", "move")),
+                "system prompt", committed, 1);
+        return new MatchCheckpoint(gameId, 1_750_000_000_000L, settings, state, 4200L, 3100L,
+                new TokenUsage(1200, 300, 0.004), new TokenUsage(900, 250, 0.002), conversation, null);
+    }
+
+    @Test
+    void testCheckpointRoundTripsEverythingNeededToResume() throws Exception {
+        MatchCheckpoint written = checkpoint("game", 3);
+        Path file = MatchCheckpoint.pathFor(tempDir, "game");
+        written.write(file);
+
+        MatchCheckpoint read = MatchCheckpoint.read(file);
+        assertEquals(mapper.valueToTree(written), mapper.valueToTree(read));
+        // Deck order is part of the state, so the resumed game draws the same cards
+        assertEquals(mapper.valueToTree(written.state().board().decks()),
+                mapper.valueToTree(read.state().board().decks()));
+        DynamicReasoningConfig reasoning = read.settings().player0Reasoning().toConfig();
+        assertTrue(reasoning.isDynamic());
+        assertEquals("high", reasoning.getEffortForTurn(8));
+        assertFalse(read.settings().player1Reasoning().toConfig().isDynamic());
+
+        // Conversation memory survives the trip through the service
+        OpenRouterService service = new OpenRouterService("key", "vendor/model-a", reasoning, false, "auto",
+                0.0, 0.0, read.settings().conversationConfig());
+        service.restoreConversation(read.player0Conversation());
+        assertEquals(mapper.valueToTree(written.player0Conversation()), mapper.valueToTree(service.exportConversation()));
+    }
+
+    @Test
+    void testCheckpointIsReplacedAtomicallyAndFoundNextToAnyLog() throws Exception {
+        Path file = MatchCheckpoint.pathFor(tempDir, "game");
+        checkpoint("game", 1).write(file);
+        checkpoint("game", 3).write(file);
+        assertFalse(Files.exists(file.resolveSibling("game.ckpt.tmp")));
+        GameState latest = MatchCheckpoint.read(file).state();
+        assertEquals(2, latest.turnNumber());
+        assertEquals(1, latest.currentPlayerIndex());
+
+        for (String log : List.of("game.json", "game.json.gz", "game.bin", "game.bin.gz")) {
+            assertEquals(file, MatchCheckpoint.pathForLog(tempDir.resolve(log)));
+            assertNotNull(MatchCheckpoint.loadForLog(tempDir.resolve(log)));
+        }
+
+        // A damaged or missing checkpoint makes the caller fall back to the log
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(MatchCheckpoint.loadForLog(tempDir.resolve("game.json")));
+        assertNull(MatchCheckpoint.loadForLog(tempDir.resolve("other.json")));
+    }
+}
@@ -0,0 +1,113 @@
+package com.aisplendor.service;
+
+import com.aisplendor.service.MatchManagerService.MatchInfo;
+import com.aisplendor.service.MatchManagerService.MatchInfo.Status;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchInfoTest {
+
+    private final Instant time = Instant.parse("2026-07-04T12:00:00Z");
+
+    @Test
+    void testStatusOnlyMovesForwardWithIncreasingVersions() {
+        MatchInfo info = new MatchInfo("g", "model-a", "model-b", Status.QUEUED, time);
+        long version = info.getVersion();
+
+        assertFalse(info.advance(1));
+        assertFalse(info.transition(Status.COMPLETED));
+        assertTrue(info.transition(Status.RUNNING));
+        assertTrue(info.getVersion() > version);
+        version = info.getVersion();
+
+        assertTrue(info.advance(3));
+        assertFalse(info.advance(2));
+        assertEquals(3, info.getTurn());
+        assertTrue(info.getVersion() > version);
+        version = info.getVersion();
+
+        assertTrue(info.transition(Status.ABORTED));
+        assertFalse(info.transition(Status.COMPLETED));
+        assertFalse(info.advance(4));
+        assertEquals("ABORTED", info.getStatus());
+        assertTrue(info.getVersion() > version);
+        assertTrue(Status.ABORTED.isFinal());
+    }
+
+    @Test
+    void testConcurrentEndingsHaveOneWinner() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            MatchInfo info = new MatchInfo("g" + round, "model-a", "model-b", Status.RUNNING, time);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger winners = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (Status ending : List.of(Status.COMPLETED, Status.FAILED, Status.ABORTED)) {
+                threads.add(Thread.ofVirtual().start(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (info.transition(ending)) {
+                        winners.incrementAndGet();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(1, winners.get());
+            assertTrue(info.status().isFinal());
+        }
+    }
+
+    @Test
+    void testLobbySnapshotCarriesTheHighestVersion() throws Exception {
+        MatchInfo first = new MatchInfo("g1", "model-a", "model-b", Status.RUNNING, time);
+        MatchInfo second = new MatchInfo("g2", "model-c", "model-d", Status.QUEUED, time, "old.jsonl");
+        first.advance(5);
+
+        JsonNode snapshot = new ObjectMapper().readTree(LobbyWebSocketHandler.snapshot(List.of(first, second)))
+                .get("snapshot");
+        assertEquals(Math.max(first.getVersion(), second.getVersion()), snapshot.get("version").asLong());
+        JsonNode match = snapshot.get("matches").get(0);
+        assertEquals("g1", match.get("gameId").asText());
+        assertEquals("RUNNING", match.get("status").asText());
+        assertEquals(5, match.get("turn").asInt());
+        assertEquals("2026-07-04T12:00:00Z", match.get("startTime").asText());
+        assertEquals(first.getVersion(), match.get("version").asLong());
+        assertEquals("old.jsonl", snapshot.get("matches").get(1).get("logFile").asText());
+    }
+
+    @Test
+    void testSerializedMatchIsOneConsistentState() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        for (int round = 0; round < 200; round++) {
+            MatchInfo info = new MatchInfo("g" + round, "model-a", "model-b", Status.RUNNING, time);
+            info.advance(3);
+            long runningVersion = info.getVersion();
+            Thread ending = Thread.ofVirtual().start(() -> info.transition(Status.COMPLETED));
+            JsonNode match = mapper.valueToTree(info);
+            ending.join();
+            // Either the state before the transition or after it, never a mix of both
+            long completedVersion = info.getVersion();
+            long version = match.get("version").asLong();
+            if (match.get("status").asText().equals("RUNNING")) {
+                assertEquals(runningVersion, version);
+            } else {
+                assertEquals(completedVersion, version);
+            }
+            assertEquals(3, match.get("turn").asInt());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig.Format;
+import com.aisplendor.config.MatchRecoveryConfig;
+import com.aisplendor.config.MatchRecoveryConfig.Policy;
+import com.aisplendor.service.MatchManagerService.MatchInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchRecoveryTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Logs a few turns and, unless endReason is null, the end of the game.
+     */
+    private Path writeLog(String gameId, Format format, boolean compress, String endReason) throws Exception {
+        Path logFile = TestSupport.writeGame(tempDir, gameId, "vendor/model-a", 4,
+                TestSupport.logConfig(3, format, compress), endReason);
+        // Written before the (re)start of the service
+        Files.setLastModifiedTime(logFile, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+        return logFile;
+    }
+
+    @Test
+    void testOnlyInterruptedLogsAreRecovered() throws Exception {
+        Path running = writeLog("interrupted", Format.NDJSON, false, null);
+        Path runningGz = writeLog("interrupted_gz", Format.BINARY, true, null);
+        writeLog("finished", Format.NDJSON, false, "Reached 15 points");
+        writeLog("aborted", Format.BINARY, false, "Aborted");
+        Path resumed = writeLog("resumed", Format.NDJSON, true, null);
+        MatchCheckpoint.markResumed(resumed, "resumed_again");
+        Path stale = writeLog("stale", Format.NDJSON, false, null);
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(3, ChronoUnit.DAYS)));
+
+        GameLogReader.LogSummary summary = GameLogReader.summarize(runningGz);
+        assertFalse(summary.isEnded());
+        assertEquals("interrupted_gz", summary.gameId());
+        assertEquals(3, summary.lastTurn());
+
+        MatchManagerService service = new MatchManagerService(new GameEventPublisher());
+        List<MatchInfo> recovered = service.recoverInterruptedMatches(tempDir,
+                new MatchRecoveryConfig(Policy.LIST, 24, 2), null).stream()
+                .sorted(Comparator.comparing(MatchInfo::getGameId))
+                .toList();
+        assertEquals(List.of("interrupted", "interrupted_gz", "stale"),
+                recovered.stream().map(MatchInfo::getGameId).toList());
+        assertTrue(recovered.stream().allMatch(info -> "INTERRUPTED".equals(info.getStatus())));
+        assertEquals("interrupted-A", recovered.get(0).getPlayer0Model());
+        assertEquals(running.getFileName().toString(), recovered.get(0).getLogFile());
+        assertEquals(3, service.getMatches().size());
+
+        // A second pass does not duplicate entries, and without an API key nothing is resumed
+        assertTrue(service.recoverInterruptedMatches(tempDir, new MatchRecoveryConfig(Policy.RESUME, 24, 2), null)
+                .isEmpty());
+        assertEquals(3, service.getMatches().size());
+        assertTrue(new MatchManagerService(new GameEventPublisher())
+                .recoverInterruptedMatches(tempDir, new MatchRecoveryConfig(Policy.OFF, 24, 2), "key").isEmpty());
+    }
+}
@@ -0,0 +1,242 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.ConversationConfig;
+import com.aisplendor.config.DynamicReasoningConfig;
+import com.aisplendor.config.ReasoningConfig;
+import com.aisplendor.config.StageConfig;
+import com.aisplendor.config.WorkerConfig;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.aisplendor.service.TestSupport.awaitTrue;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchWorkerPoolTest {
+
+    private static final String SECRET = "test-secret";
+    private static final WorkerConfig CONFIG = new WorkerConfig(0, WorkerConfig.UNIX, 1, null, 0, SECRET);
+    private static final MatchCheckpoint.Reasoning REASONING = MatchCheckpoint.Reasoning.of(
+            DynamicReasoningConfig.fromStatic(ReasoningConfig.disabled()));
+    private static final MatchCheckpoint.Settings SETTINGS = new MatchCheckpoint.Settings("vendor/a", "vendor/b",
+            "A", "B", REASONING, REASONING, 5, 5, false, "auto", new StageConfig("final", 2, 10, 8, 12, 9, true),
+            ConversationConfig.disabled(), 0.0, 0.0, 0.0, 0.0);
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Plays the part of a worker process: introduces itself, takes one job, then hands the job to
+     * the given script.
+     */
+    private interface FakeWorker {
+        void play(MatchJob job, DataOutputStream out) throws IOException;
+    }
+
+    private static Thread startWorker(String address, FakeWorker script) {
+        return Thread.ofVirtual().start(() -> {
+            try (SocketChannel channel = WorkerProtocol.connect(address)) {
+                DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+                DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+                WorkerProtocol.write(out, hello(SECRET));
+                ObjectNode start = WorkerProtocol.read(in);
+                assertEquals(WorkerProtocol.START, start.path("op").asText());
+                script.play(WorkerProtocol.decodeJob(start), out);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static ObjectNode hello(String secret) {
+        ObjectNode hello = WorkerProtocol.message(WorkerProtocol.HELLO);
+        hello.put("worker", "fake");
+        hello.put("slots", 1);
+        hello.put("secret", secret);
+        return hello;
+    }
+
+    @Test
+    void testEventsOfWorkerArePublishedWithTheirLogIndex() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        List<SerializedEvent> received = new CopyOnWriteArrayList<>();
+        publisher.registerListener((gameId, event) -> received.add(event));
+        GameState state = GameSimulator.setupInitialState(new Random(5));
+        Instant time = Instant.parse("2026-05-01T10:00:00Z");
+        MatchJob sent = MatchJob.start("game-1", "sk-player-key", SETTINGS, 7L);
+
+        try (MatchWorkerPool pool = new MatchWorkerPool(CONFIG, publisher)) {
+            pool.start();
+            Thread worker = startWorker(pool.getAddress(), (job, out) -> {
+                // Everything but the API key
+                assertEquals(MatchJob.start("game-1", null, SETTINGS, 7L), job);
+                String gameId = job.gameId();
+                // Events of games the worker was not sent are not published
+                WorkerProtocol.write(out, WorkerProtocol.eventFrame("someone-elses-game", SerializedEvent.of(
+                        new TurnStartedEvent(time, 9, 0, state), -1, 0)));
+                WorkerProtocol.write(out, WorkerProtocol.eventFrame(gameId, SerializedEvent.of(
+                        new GameStartedEvent(time, gameId, "vendor/a", "vendor/b", "A", "B", 0.0, 0.0, 0.0, 0.0,
+                                state), -1, 0)));
+                WorkerProtocol.write(out, WorkerProtocol.eventFrame(gameId, SerializedEvent.of(
+                        new TurnStartedEvent(time, state.turnNumber(), state.currentPlayerIndex(), state), -1, 1)));
+                ObjectNode finished = WorkerProtocol.message(WorkerProtocol.FINISHED);
+                finished.put("gameId", gameId);
+                finished.put("status", MatchManagerService.MatchInfo.Status.COMPLETED.name());
+                WorkerProtocol.write(out, finished);
+            });
+
+            pool.play(sent);
+            worker.join();
+        }
+
+        assertTrue(publisher.awaitDelivery(5000));
+        assertEquals(2, received.size());
+        assertInstanceOf(GameStartedEvent.class, received.get(0).event());
+        assertEquals("game-1", ((GameStartedEvent) received.get(0).event()).gameId());
+        assertEquals(0, received.get(0).logIndex());
+        assertInstanceOf(TurnStartedEvent.class, received.get(1).event());
+        assertEquals(state.turnNumber(), ((TurnStartedEvent) received.get(1).event()).turn());
+        assertEquals(1, received.get(1).logIndex());
+        publisher.shutdown();
+    }
+
+    @Test
+    void testFailedMatchIsReportedToThePlayer() throws Exception {
+        try (MatchWorkerPool pool = new MatchWorkerPool(CONFIG, new GameEventPublisher())) {
+            pool.start();
+            startWorker(pool.getAddress(), (job, out) -> {
+                ObjectNode finished = WorkerProtocol.message(WorkerProtocol.FINISHED);
+                finished.put("gameId", job.gameId());
+                finished.put("status", MatchManagerService.MatchInfo.Status.FAILED.name());
+                finished.put("error", "boom");
+                WorkerProtocol.write(out, finished);
+            });
+
+            IOException e = assertThrows(IOException.class, () -> pool.play(MatchJob.start("game-2", null, null, 7L)));
+            assertFalse(e instanceof MatchWorkerPool.WorkerLostException);
+        }
+    }
+
+    @Test
+    void testWorkersWithoutTheSecretAreRejected() throws Exception {
+        try (MatchWorkerPool pool = new MatchWorkerPool(CONFIG, new GameEventPublisher())) {
+            pool.start();
+            try (SocketChannel channel = WorkerProtocol.connect(pool.getAddress())) {
+                DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+                WorkerProtocol.write(new DataOutputStream(Channels.newOutputStream(channel)), hello("guess"));
+                // Closed without being sent anything
+                assertNull(WorkerProtocol.read(in));
+            }
+        }
+    }
+
+    @Test
+    void testTcpListensOnLoopbackUnlessAHostIsGiven() throws Exception {
+        InetSocketAddress portOnly = (InetSocketAddress) WorkerProtocol.parseListenAddress("7070");
+        assertTrue(portOnly.getAddress().isLoopbackAddress());
+        assertEquals(7070, portOnly.getPort());
+        assertTrue(((InetSocketAddress) WorkerProtocol.parseListenAddress(":7070")).getAddress().isLoopbackAddress());
+        assertTrue(((InetSocketAddress) WorkerProtocol.parseListenAddress("0.0.0.0:7070")).getAddress()
+                .isAnyLocalAddress());
+        // Workers on other machines would have no secret to present
+        try (MatchWorkerPool pool = new MatchWorkerPool(new WorkerConfig(0, "0", 1, null, 0),
+                new GameEventPublisher())) {
+            IOException e = assertThrows(IOException.class, pool::start);
+            assertTrue(e.getMessage().contains("MATCH_WORKER_SECRET"));
+        }
+    }
+
+    @Test
+    void testLostWorkerFailsItsMatches() throws Exception {
+        try (MatchWorkerPool pool = new MatchWorkerPool(CONFIG, new GameEventPublisher())) {
+            pool.start();
+            // Closes the connection mid-match, as a crashed worker would
+            startWorker(pool.getAddress(), (job, out) -> {
+            });
+
+            assertThrows(MatchWorkerPool.WorkerLostException.class,
+                    () -> pool.play(MatchJob.start("game-3", null, null, 7L)));
+        }
+    }
+
+    @Test
+    void testMatchOfLostWorkerIsResumedFromItsCheckpoint() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        // Hand-started workers only, each match is resumed once
+        MatchManagerService service = new MatchManagerService(publisher,
+                new WorkerConfig(0, "0", 1, null, 1, SECRET), tempDir, "sk-server");
+        service.init();
+        GameState state = GameSimulator.setupInitialState(new Random(5));
+        List<MatchJob> jobs = new CopyOnWriteArrayList<>();
+        // Workers that checkpoint the match they are sent, then crash, one after another
+        String address = service.getWorkerAddress();
+        Thread workers = Thread.ofVirtual().start(() -> {
+            while (true) {
+                try (SocketChannel channel = WorkerProtocol.connect(address)) {
+                    WorkerProtocol.write(new DataOutputStream(Channels.newOutputStream(channel)), hello(SECRET));
+                    ObjectNode start = WorkerProtocol.read(new DataInputStream(Channels.newInputStream(channel)));
+                    if (start == null) {
+                        // The coordinator was closed
+                        return;
+                    }
+                    MatchJob job = WorkerProtocol.decodeJob(start);
+                    new MatchCheckpoint(job.gameId(), System.currentTimeMillis(), job.settings(), state,
+                            1_000, 2_000, TokenUsage.zero(), TokenUsage.zero(), null, null)
+                            .write(MatchCheckpoint.pathFor(tempDir, job.gameId()));
+                    Files.writeString(tempDir.resolve(job.gameId() + ".json"), "");
+                    jobs.add(job);
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+
+        try {
+            String gameId = service.startMatch("vendor/a", "vendor/b", REASONING.toConfig(), REASONING.toConfig(),
+                    5, 5, false, null, "auto", SETTINGS.stageConfig(), "A", "B", 0.0, 0.0, 0.0, 0.0,
+                    ConversationConfig.disabled(), 7L);
+            awaitTrue(() -> jobs.size() == 2 && service.getMatches().stream()
+                    .allMatch(match -> match.status() == MatchManagerService.MatchInfo.Status.FAILED));
+
+            assertEquals(gameId, jobs.get(0).gameId());
+            // The server's key stays on the server
+            assertNull(jobs.get(0).apiKey());
+            MatchJob resumed = jobs.get(1);
+            assertTrue(resumed.isResume());
+            assertNotEquals(gameId, resumed.gameId());
+            assertTrue(resumed.gameId().endsWith("_resumed"));
+            assertEquals(gameId, resumed.originalGameId());
+            assertEquals(tempDir.resolve(gameId + ".json").toString(), resumed.resumeFrom());
+            assertEquals(SETTINGS, resumed.settings());
+            assertTrue(MatchCheckpoint.isResumed(tempDir.resolve(gameId + ".json")));
+            assertEquals(2, service.getMatches().size());
+
+            // The resumed match lost its worker too and is not resumed again
+            Thread.sleep(300);
+            assertEquals(2, jobs.size());
+            assertEquals(2, service.getMatches().size());
+        } finally {
+            service.closeWorkers();
+            workers.join();
+            publisher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.aisplendor.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded HTTP server speaking the OpenRouter chat-completions protocol as
+ * OpenRouterService uses it: json_schema structured output, usage, reasoning_content,
+ * 429/5xx errors and SSE streaming ("stream": true).
+ *
+ * Moves are derived from the compact state text in the request: the server buys an
+ * affordable card when it can, otherwise takes tokens (returning any excess), otherwise
+ * reserves a card. A configurable fraction of answers is deliberately illegal.
+ *
+ * Usage:
+ * try (MockOpenRouterServer server = MockOpenRouterServer.start()) {
+ *     server.latency(MockOpenRouterServer.LatencyDistribution.logNormal(800, 0.5)).illegalMoveRate(0.1);
+ *     service.setApiUrl(server.getUrl());
+ * }
+ */
+public class MockOpenRouterServer implements AutoCloseable {
+
+    /**
+     * Latency source for simulated responses, in milliseconds.
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+        long sampleMs();
+
+        static LatencyDistribution none() {
+            return () -> 0L;
+        }
+
+        static LatencyDistribution fixed(long ms) {
+            return () -> ms;
+        }
+
+        static LatencyDistribution uniform(long minMs, long maxMs) {
+            return () -> ThreadLocalRandom.current().nextLong(minMs, maxMs + 1);
+        }
+
+        /**
+         * Log-normal latency (long right tail, like real LLM APIs).
+         *
+         * @param medianMs Median latency
+         * @param sigma    Shape parameter; 0.5 gives a p99 of roughly 3x the median
+         */
+        static LatencyDistribution logNormal(double medianMs, double sigma) {
+            return () -> Math.round(medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+
+    private static final String[] COLORS = {"WHT", "BLU", "GRN", "RED", "BLK"};
+    private static final Map<String, String> SCHEMA_COLORS = Map.of(
+            "WHT", "WHITE", "BLU", "BLUE", "GRN", "GREEN", "RED", "RED", "BLK", "BLACK");
+    private static final Pattern CARD = Pattern.compile("\\[(L\\d_\\d+)] (\\w{3}) (\\d+)pts? ?((?:\\w{3}:\\d+ ?)*)");
+    private static final Pattern COUNT = Pattern.compile("(\\w{3}):(\\d+)");
+
+    private final HttpServer server;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private volatile LatencyDistribution latency = LatencyDistribution.none();
+    private volatile double illegalMoveRate;
+    private volatile double rateLimitRate;
+    private volatile double serverErrorRate;
+    private volatile double clientErrorRate;
+    private volatile int retryAfterSeconds = 1;
+    private volatile int streamChunks = 8;
+
+    private MockOpenRouterServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts a server on an ephemeral loopback port.
+     */
+    public static MockOpenRouterServer start() throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        MockOpenRouterServer mock = new MockOpenRouterServer(httpServer);
+        httpServer.createContext("/api/v1/chat/completions", mock::handle);
+        httpServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        httpServer.start();
+        return mock;
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + "/api/v1/chat/completions";
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public MockOpenRouterServer latency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public MockOpenRouterServer illegalMoveRate(double rate) {
+        this.illegalMoveRate = rate;
+        return this;
+    }
+
+    public MockOpenRouterServer rateLimitRate(double rate, int retryAfterSeconds) {
+        this.rateLimitRate = rate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    public MockOpenRouterServer serverErrorRate(double rate) {
+        this.serverErrorRate = rate;
+        return this;
+    }
+
+    public MockOpenRouterServer clientErrorRate(double rate) {
+        this.clientErrorRate = rate;
+        return this;
+    }
+
+    public MockOpenRouterServer streamChunks(int chunks) {
+        this.streamChunks = Math.max(1, chunks);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestCount.incrementAndGet();
+            JsonNode request = mapper.readTree(exchange.getRequestBody());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            sleep(latency.sampleMs());
+
+            if (random.nextDouble() < rateLimitRate) {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+                sendJson(exchange, 429, "{\"error\":{\"code\":429,\"message\":\"Rate limit exceeded\"}}");
+                return;
+            }
+            if (random.nextDouble() < clientErrorRate) {
+                sendJson(exchange, 400, "{\"error\":{\"code\":400,\"message\":\"Invalid request\"}}");
+                return;
+            }
+            if (random.nextDouble() < serverErrorRate) {
+                sendJson(exchange, 502, "{\"error\":{\"code\":502,\"message\":\"Upstream provider error\"}}");
+                return;
+            }
+
+            String state = latestUserContent(request);
+            ObjectNode move = random.nextDouble() < illegalMoveRate ? illegalMove() : chooseMove(state);
+            String content = mapper.writeValueAsString(move);
+            String reasoning = "Mock reasoning for " + move.path("action_type").asText();
+            long promptTokens = Math.max(1, request.toString().length() / 4);
+            long completionTokens = Math.max(1, content.length() / 4);
+
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, request, content, reasoning, promptTokens, completionTokens);
+            } else {
+                ObjectNode body = mapper.createObjectNode();
+                body.put("id", "gen-mock-" + requestCount.get());
+                body.put("model", request.path("model").asText());
+                ObjectNode message = body.putArray("choices").addObject().putObject("message");
+                message.put("role", "assistant");
+                message.put("content", content);
+                message.put("reasoning_content", reasoning);
+                ObjectNode usage = body.putObject("usage");
+                usage.put("prompt_tokens", promptTokens);
+                usage.put("completion_tokens", completionTokens);
+                usage.put("total_tokens", promptTokens + completionTokens);
+                sendJson(exchange, 200, mapper.writeValueAsString(body));
+            }
+        }
+    }
+
+    private void stream(HttpExchange exchange, JsonNode request, String content, String reasoning,
+            long promptTokens, long completionTokens) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+
+        List<String[]> deltas = new ArrayList<>();
+        for (String part : split(reasoning, streamChunks)) {
+            deltas.add(new String[] {"reasoning", part});
+        }
+        for (String part : split(content, streamChunks)) {
+            deltas.add(new String[] {"content", part});
+        }
+        for (String[] delta : deltas) {
+            ObjectNode chunk = mapper.createObjectNode();
+            chunk.put("model", request.path("model").asText());
+            chunk.putArray("choices").addObject().putObject("delta").put(delta[0], delta[1]);
+            writeEvent(out, mapper.writeValueAsString(chunk));
+        }
+
+        ObjectNode last = mapper.createObjectNode();
+        last.putArray("choices").addObject().put("finish_reason", "stop").putObject("delta");
+        ObjectNode usage = last.putObject("usage");
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        writeEvent(out, mapper.writeValueAsString(last));
+        writeEvent(out, "[DONE]");
+    }
+
+    private void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static List<String> split(String text, int parts) {
+        List<String> result = new ArrayList<>();
+        int size = Math.max(1, (text.length() + parts - 1) / parts);
+        for (int i = 0; i < text.length(); i += size) {
+            result.add(text.substring(i, Math.min(text.length(), i + size)));
+        }
+        return result;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Concatenates all user messages so the latest full state (and any later deltas) can be scanned.
+     * Handles both plain string content and the array form used for prompt caching.
+     */
+    private static String latestUserContent(JsonNode request) {
+        StringBuilder sb = new StringBuilder();
+        for (JsonNode message : request.path("messages")) {
+            if (!"user".equals(message.path("role").asText())) {
+                continue;
+            }
+            JsonNode content = message.path("content");
+            if (content.isArray()) {
+                for (JsonNode block : content) {
+                    sb.append(block.path("text").asText()).append("\n");
+                }
+            } else {
+                sb.append(content.asText()).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private ObjectNode emptyMove(String actionType) {
+        ObjectNode move = mapper.createObjectNode();
+        move.put("reasoning", "Mock move.");
+        move.put("action_type", actionType);
+        for (String color : SCHEMA_COLORS.values()) {
+            move.put("take_" + color, 0);
+            move.put("return_" + color, 0);
+        }
+        move.put("card_id", "");
+        move.put("deck_level", "");
+        return move;
+    }
+
+    private ObjectNode illegalMove() {
+        ObjectNode move = emptyMove("TAKE_TOKENS");
+        move.put("take_WHITE", 4);
+        return move;
+    }
+
+    private record Card(String id, int points, Map<String, Integer> cost) {
+    }
+
+    private ObjectNode chooseMove(String text) {
+        Map<String, Integer> board = counts(lastLine(text, "[BOARD TOKENS]"));
+        String self = section(text, "[YOU]");
+        Map<String, Integer> tokens = counts(lastLine(self, "Tokens:"));
+        Map<String, Integer> bonuses = counts(lastLine(self, "Bonuses:"));
+        String reservedSection = self.contains("Reserved:") ? self.substring(self.indexOf("Reserved:")) : "";
+        List<Card> reserved = cards(reservedSection);
+        List<Card> faceUp = cards(section(text, "[FACE-UP CARDS]"));
+
+        List<Card> candidates = new ArrayList<>(reserved);
+        candidates.addAll(faceUp);
+        candidates.sort(Comparator.comparingInt(Card::points).reversed());
+        for (Card card : candidates) {
+            if (affordable(card, tokens, bonuses)) {
+                ObjectNode move = emptyMove("PURCHASE_CARD");
+                move.put("card_id", card.id());
+                return move;
+            }
+        }
+
+        int held = tokens.values().stream().mapToInt(Integer::intValue).sum();
+        List<String> available = new ArrayList<>();
+        for (String color : COLORS) {
+            if (board.getOrDefault(color, 0) > 0) {
+                available.add(color);
+            }
+        }
+        available.sort(Comparator.comparingInt((String c) -> board.getOrDefault(c, 0)).reversed());
+
+        Map<String, Integer> take = new LinkedHashMap<>();
+        if (available.size() >= 3) {
+            available.subList(0, 3).forEach(c -> take.put(c, 1));
+        } else if (!available.isEmpty() && board.getOrDefault(available.get(0), 0) >= 4) {
+            take.put(available.get(0), 2);
+        }
+
+        if (!take.isEmpty()) {
+            ObjectNode move = emptyMove("TAKE_TOKENS");
+            Map<String, Integer> after = new HashMap<>(tokens);
+            take.forEach((c, n) -> {
+                move.put("take_" + SCHEMA_COLORS.get(c), n);
+                after.merge(c, n, Integer::sum);
+            });
+            returnExcess(move, after, held + take.values().stream().mapToInt(Integer::intValue).sum());
+            return move;
+        }
+
+        if (reserved.size() < 3 && !faceUp.isEmpty()) {
+            ObjectNode move = emptyMove("RESERVE_CARD");
+            move.put("card_id", faceUp.get(0).id());
+            Map<String, Integer> after = new HashMap<>(tokens);
+            int gold = board.getOrDefault("GLD", 0) > 0 ? 1 : 0;
+            returnExcess(move, after, held + gold);
+            return move;
+        }
+
+        return illegalMove();
+    }
+
+    private static void returnExcess(ObjectNode move, Map<String, Integer> tokens, int total) {
+        int excess = total - 10;
+        for (String color : COLORS) {
+            if (excess <= 0) {
+                break;
+            }
+            int give = Math.min(excess, tokens.getOrDefault(color, 0));
+            if (give > 0) {
+                move.put("return_" + SCHEMA_COLORS.get(color), give);
+                excess -= give;
+            }
+        }
+    }
+
+    private static boolean affordable(Card card, Map<String, Integer> tokens, Map<String, Integer> bonuses) {
+        int shortfall = 0;
+        for (Map.Entry<String, Integer> cost : card.cost().entrySet()) {
+            int needed = Math.max(0, cost.getValue() - bonuses.getOrDefault(cost.getKey(), 0));
+            shortfall += Math.max(0, needed - tokens.getOrDefault(cost.getKey(), 0));
+        }
+        return shortfall <= tokens.getOrDefault("GLD", 0);
+    }
+
+    private static List<Card> cards(String text) {
+        List<Card> cards = new ArrayList<>();
+        Matcher matcher = CARD.matcher(text);
+        while (matcher.find()) {
+            cards.add(new Card(matcher.group(1), Integer.parseInt(matcher.group(3)), counts(matcher.group(4))));
+        }
+        return cards;
+    }
+
+    private static Map<String, Integer> counts(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        Matcher matcher = COUNT.matcher(text);
+        while (matcher.find()) {
+            counts.put(matcher.group(1), Integer.parseInt(matcher.group(2)));
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the remainder of the last line that starts with the given marker.
+     */
+    private static String lastLine(String text, String marker) {
+        int index = text.lastIndexOf(marker);
+        if (index < 0) {
+            return "";
+        }
+        int end = text.indexOf('\n', index);
+        return text.substring(index + marker.length(), end < 0 ? text.length() : end);
+    }
+
+    /**
+     * Returns the last section starting with the given header, up to the next "[XYZ]" header line.
+     */
+    private static String section(String text, String header) {
+        int index = text.lastIndexOf(header);
+        if (index < 0) {
+            return "";
+        }
+        int end = text.indexOf("\n[", index + header.length());
+        return text.substring(index, end < 0 ? text.length() : end);
+    }
+}
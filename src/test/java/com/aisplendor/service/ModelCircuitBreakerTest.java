@@ -0,0 +1,90 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.CircuitBreakerConfig;
+import com.aisplendor.exception.CircuitOpenException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelCircuitBreakerTest {
+
+    private static CircuitBreakerConfig config(long openDurationMs) {
+        return new CircuitBreakerConfig(0.5, 1_000, 10, 4, openDurationMs, 5_000, Map.of());
+    }
+
+    @Test
+    void testOpensWhenFailureRateExceedsThreshold() {
+        ModelCircuitBreaker breaker = new ModelCircuitBreaker("test", config(60_000));
+        breaker.onSuccess(10);
+        breaker.onFailure(10);
+        breaker.onSuccess(10);
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState(), "Below minimum calls");
+
+        breaker.onFailure(10);
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(2, breaker.getStatus().totalFailures());
+    }
+
+    @Test
+    void testSlowCallsOpenCircuit() {
+        ModelCircuitBreaker breaker = new ModelCircuitBreaker("test", config(60_000));
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(5_000);
+        }
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1.0, breaker.getStatus().slowCallRate(), 0.001);
+    }
+
+    @Test
+    void testSlowCallsAreIgnoredByDefault() {
+        ModelCircuitBreaker breaker = new ModelCircuitBreaker("test", CircuitBreakerConfig.defaults());
+        // Successful high-effort reasoning calls that took ten minutes
+        for (int i = 0; i < 20; i++) {
+            breaker.onSuccess(600_000);
+        }
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getStatus().slowCallRate(), 0.001);
+    }
+
+    @Test
+    void testHalfOpenProbeClosesOrReopens() throws Exception {
+        ModelCircuitBreaker breaker = new ModelCircuitBreaker("test", config(50));
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(10);
+        }
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(80);
+        assertTrue(breaker.tryAcquirePermission(), "Probe should be admitted after the open period");
+        assertEquals(ModelCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission(), "Only one probe at a time");
+
+        breaker.onFailure(10);
+        assertEquals(ModelCircuitBreaker.State.OPEN, breaker.getState());
+
+        // Blocks until the next probe is admitted
+        breaker.acquirePermission(1_000);
+        breaker.onSuccess(10);
+        assertEquals(ModelCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getStatus().bufferedCalls());
+    }
+
+    @Test
+    void testAcquireGivesUpAfterMaxPause() {
+        ModelCircuitBreaker breaker = new ModelCircuitBreaker("test", config(60_000));
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(10);
+        }
+        CircuitOpenException e = assertThrows(CircuitOpenException.class, () -> breaker.acquirePermission(50));
+        assertTrue(e.getRetryAfterMs() > 50_000 && e.getRetryAfterMs() <= 60_000);
+    }
+
+    @Test
+    void testParseFailover() {
+        Map<String, String> routes = CircuitBreakerConfig.parseFailover(" a/x = b/y ,c/z=d/w,broken");
+        assertEquals(Map.of("a/x", "b/y", "c/z", "d/w"), routes);
+    }
+}
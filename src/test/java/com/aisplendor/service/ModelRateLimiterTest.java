@@ -0,0 +1,80 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.RateLimitConfig;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelRateLimiterTest {
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        return HttpHeaders.of(values.entrySet().stream()
+                        .collect(java.util.stream.Collectors.toMap(Map.Entry::getKey, e -> List.of(e.getValue()))),
+                (name, value) -> true);
+    }
+
+    @Test
+    void testBurstThenPacedByConfiguredRate() throws Exception {
+        ModelRateLimiter limiter = new ModelRateLimiter("test", new RateLimitConfig(600, 2));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // 2 burst permits, then 4 requests spaced 100ms apart
+        assertTrue(elapsedMs >= 350, "Expected pacing, took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testRetryAfterHoldsAllCallersAndSlowsDown() throws Exception {
+        ModelRateLimiter limiter = new ModelRateLimiter("test", RateLimitConfig.unlimited());
+        limiter.acquire();
+
+        long retryAfter = limiter.onResponse(429, headers(Map.of("Retry-After", "1")));
+        assertEquals(1000, retryAfter);
+        assertEquals(1, limiter.getRateLimitedResponses());
+        assertTrue(limiter.getCurrentRatePerMinute() > 0, "Unlimited limiter should start pacing after a 429");
+
+        long start = System.nanoTime();
+        limiter.acquire();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs >= 900, "Expected to wait for Retry-After, took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testRetryAfterParsing() {
+        assertEquals(3000, ModelRateLimiter.retryAfterMs(headers(Map.of("Retry-After", "3"))).getAsLong());
+        long reset = System.currentTimeMillis() + 2000;
+        long fromReset = ModelRateLimiter.retryAfterMs(
+                headers(Map.of("X-RateLimit-Reset", String.valueOf(reset)))).getAsLong();
+        assertTrue(fromReset > 1000 && fromReset <= 2000);
+        assertTrue(ModelRateLimiter.retryAfterMs(headers(Map.of())).isEmpty());
+    }
+
+    @Test
+    void testSuccessesRestoreConfiguredRate() {
+        ModelRateLimiter limiter = new ModelRateLimiter("test", new RateLimitConfig(60, 1));
+        limiter.onResponse(429, headers(Map.of("Retry-After", "0")));
+        assertEquals(30.0, limiter.getCurrentRatePerMinute(), 0.001);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onResponse(200, headers(Map.of()));
+        }
+        assertEquals(60.0, limiter.getCurrentRatePerMinute(), 0.001);
+    }
+
+    @Test
+    void testWorkersSplitTheBudget() {
+        RateLimitConfig share = new RateLimitConfig(60, 5).share(4);
+        assertEquals(15.0, share.requestsPerMinute(), 0.001);
+        assertEquals(1, share.burst());
+        assertEquals(new RateLimitConfig(60, 5), new RateLimitConfig(60, 5).share(0));
+        assertEquals(0.0, RateLimitConfig.unlimited().share(3).requestsPerMinute(), 0.001);
+    }
+}
@@ -0,0 +1,121 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.DynamicReasoningConfig;
+import com.aisplendor.config.ReasoningConfig;
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.exception.ApiException;
+import com.aisplendor.exception.RateLimitedException;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.action.AgentResponse;
+import com.aisplendor.model.event.ReasoningChunkEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenRouterServiceTest {
+
+    private MockOpenRouterServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = MockOpenRouterServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private OpenRouterService newService(String model) {
+        DynamicReasoningConfig reasoning = new DynamicReasoningConfig(false, null, ReasoningConfig.disabled());
+        OpenRouterService service = new OpenRouterService("test-key", model, reasoning, false, "auto", 1.0, 2.0);
+        service.setApiUrl(server.getUrl());
+        return service;
+    }
+
+    @Test
+    void testMockServerPlaysLegalMoves() throws Exception {
+        GameEngine engine = new GameEngine();
+        OpenRouterService[] players = {newService("mock/player-0"), newService("mock/player-1")};
+        GameState state = GameSimulator.setupInitialState(new Random(42));
+
+        for (int i = 0; i < 60 && !state.isGameOver(); i++) {
+            AgentResponse response = players[state.currentPlayerIndex()].getNextMove(state, "system");
+            engine.validateAction(state, response.action());
+            assertTrue(response.tokenUsage().promptTokens() > 0);
+            assertTrue(response.tokenUsage().cost() > 0);
+            state = engine.applyAction(state, response.action());
+        }
+
+        assertTrue(state.players().stream().anyMatch(p -> !p.purchasedCards().isEmpty()),
+                "Mock players should buy cards, not only take tokens");
+    }
+
+    @Test
+    void testIllegalMovesAreRejectedByEngine() throws Exception {
+        server.illegalMoveRate(1.0);
+        GameState state = GameSimulator.setupInitialState(new Random(7));
+
+        AgentResponse response = newService("mock/player-0").getNextMove(state, "system");
+
+        assertThrows(IllegalArgumentException.class, () -> new GameEngine().validateAction(state, response.action()));
+    }
+
+    @Test
+    void testErrorStatusSurfacesAsApiException() {
+        server.rateLimitRate(1.0, 2);
+        GameState state = GameSimulator.setupInitialState(new Random(7));
+
+        // Separate model so the shared limiter hold does not slow down other tests
+        RateLimitedException e = assertThrows(RateLimitedException.class,
+                () -> newService("mock/rate-limited").getNextMove(state, "system"));
+        assertTrue(e.getMessage().contains("429"));
+        assertEquals(2000, e.getRetryAfterMs());
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenTheCircuit() {
+        server.clientErrorRate(1.0);
+        GameState state = GameSimulator.setupInitialState(new Random(7));
+        OpenRouterService service = newService("mock/bad-request");
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(ApiException.class, () -> service.getNextMove(state, "system"));
+        }
+        assertEquals(ModelCircuitBreaker.State.CLOSED, ModelCircuitBreaker.forModel("mock/bad-request").getState());
+    }
+
+    @Test
+    void testStreamedAnswersArePublishedInBatches() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        List<ReasoningChunkEvent> chunks = new CopyOnWriteArrayList<>();
+        publisher.registerListener((gameId, event) -> chunks.add((ReasoningChunkEvent) event.event()));
+        OpenRouterService service = newService("mock/streaming");
+        // A long interval: the first delta goes out alone, the rest when the kind changes or the stream ends
+        service.setStreamListener(new ReasoningStream(publisher, "g", 1, 60_000));
+        GameState state = GameSimulator.setupInitialState(new Random(7));
+
+        AgentResponse response = service.getNextMove(state, "system");
+        assertTrue(publisher.awaitDelivery(5_000));
+        publisher.shutdown();
+
+        new GameEngine().validateAction(state, response.action());
+        assertEquals("Mock move.", response.reasoning());
+        assertTrue(response.tokenUsage().completionTokens() > 0);
+        assertEquals(List.of(ReasoningChunkEvent.REASONING, ReasoningChunkEvent.REASONING, ReasoningChunkEvent.CONTENT),
+                chunks.stream().map(ReasoningChunkEvent::kind).toList());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.playerIndex() == 1));
+        assertTrue(chunks.get(0).text().length() < chunks.get(1).text().length());
+        assertTrue(chunks.get(0).text().concat(chunks.get(1).text()).startsWith("Mock reasoning for "));
+        // The content chunk is the whole answer the move was parsed from
+        assertEquals("Mock move.", new ObjectMapper().readTree(chunks.get(2).text()).path("reasoning").asText());
+    }
+}
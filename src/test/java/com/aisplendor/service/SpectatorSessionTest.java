@@ -0,0 +1,289 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.SpectatorConfig;
+import com.aisplendor.config.SpectatorConfig.OverflowPolicy;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.Color;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.aisplendor.service.TestSupport.awaitTrue;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorSessionTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Instant time = Instant.parse("2026-07-01T18:00:00Z");
+    private final GameState state = GameSimulator.setupInitialState(new Random(8));
+
+    /**
+     * A session whose first send blocks until released, like a stalled browser.
+     */
+    private static final class StalledSession implements WebSocketSession {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch firstSendStarted = new CountDownLatch(1);
+        final List<String> received = new CopyOnWriteArrayList<>();
+        volatile CloseStatus closeStatus;
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            firstSendStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(message instanceof BinaryMessage ? "binary" : (String) message.getPayload());
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            closeStatus = status;
+        }
+
+        @Override
+        public void close() {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return closeStatus == null;
+        }
+
+        @Override
+        public String getId() {
+            return "s1";
+        }
+
+        @Override
+        public URI getUri() {
+            return URI.create("ws://localhost/ws/game/game");
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return new HashMap<>();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+    }
+
+    private static SpectatorConfig config(long bufferSizeLimit, long sendTimeLimitMs, OverflowPolicy policy) {
+        return new SpectatorConfig(bufferSizeLimit, sendTimeLimitMs, policy, SpectatorConfig.DEFAULT_TAIL_TURNS,
+                SpectatorConfig.DEFAULT_DELTA_KEYFRAME_INTERVAL, SpectatorConfig.DEFAULT_HEARTBEAT_MS);
+    }
+
+    private SerializedEvent event(GameEvent event) {
+        return SerializedEvent.of(event);
+    }
+
+    /**
+     * Queues turns 1..turns, each with reasoning and an action, while the first send is stalled.
+     */
+    private void playTurns(SpectatorSession spectator, StalledSession session, int turns) throws Exception {
+        spectator.send(event(new TurnStartedEvent(time, 1, 0, state)));
+        assertTrue(session.firstSendStarted.await(5, TimeUnit.SECONDS));
+        for (int turn = 1; turn <= turns; turn++) {
+            if (turn > 1) {
+                spectator.send(event(new TurnStartedEvent(time, turn, 0, state)));
+            }
+            spectator.send(event(new ReasoningEvent(time, 0, "Thinking about turn " + turn, TokenUsage.zero())));
+            spectator.send(event(new ActionEvent(time, 0, new TakeTokensAction(Map.of(Color.RED, 1, Color.BLUE, 1,
+                    Color.GREEN, 1), null), true, 10L)));
+        }
+    }
+
+    @Test
+    void testCoalescingKeepsTheLatestStateForAStalledSession() throws Exception {
+        long turnSize = event(new TurnStartedEvent(time, 1, 0, state)).json().length;
+        StalledSession session = new StalledSession();
+        SpectatorSession spectator = new SpectatorSession(session, "game",
+                config(turnSize * 3, 60_000, OverflowPolicy.DISCONNECT), OverflowPolicy.COALESCE);
+        playTurns(spectator, session, 10);
+
+        SpectatorSession.Stats stats = spectator.stats();
+        assertTrue(stats.open());
+        assertTrue(stats.queuedBytes() <= turnSize * 3);
+        assertTrue(stats.maxQueuedMessages() > stats.queuedMessages());
+        assertTrue(stats.dropped() > 0);
+        assertTrue(stats.coalesced() > 0);
+
+        spectator.send(event(new GameEndedEvent(time, 0, "Reached 15 points", Map.of(0, 15, 1, 9), Map.of())));
+        session.release.countDown();
+        awaitTrue(() -> session.received.stream().anyMatch(message -> message.contains("finalScores"))
+                && spectator.stats().sent() == session.received.size());
+        List<Integer> turns = new ArrayList<>();
+        for (String message : session.received) {
+            JsonNode node = mapper.readTree(message);
+            if (node.has("turn")) {
+                turns.add(node.get("turn").asInt());
+            }
+        }
+        // The stalled first turn, then straight to the latest one
+        assertEquals(1, turns.get(0));
+        assertEquals(10, turns.get(turns.size() - 1));
+        assertTrue(turns.size() < 10);
+        assertNull(session.closeStatus);
+    }
+
+    @Test
+    void testCoalescedDeltasAreReplacedByTheFullState() throws Exception {
+        long turnSize = event(new TurnStartedEvent(time, 1, 0, state)).json().length;
+        StalledSession session = new StalledSession();
+        SpectatorSession spectator = new SpectatorSession(session, "game",
+                config(turnSize * 2, 60_000, OverflowPolicy.COALESCE), null, true);
+        assertTrue(spectator.isDelta());
+        spectator.send(event(new TurnStartedEvent(time, 1, 0, state)));
+        assertTrue(session.firstSendStarted.await(5, TimeUnit.SECONDS));
+        int turn = 1;
+        while (spectator.stats().coalesced() == 0) {
+            turn++;
+            spectator.send(event(new TurnStartedEvent(time, turn, 0, state)), new byte[] {1, 2, 3});
+            spectator.send(event(new ActionEvent(time, 0, new TakeTokensAction(Map.of(Color.RED, 1, Color.BLUE, 1,
+                    Color.GREEN, 1), null), true, 10L)));
+        }
+        // The next delta builds on the full state again
+        spectator.send(event(new TurnStartedEvent(time, turn + 1, 0, state)), new byte[] {1, 2, 3});
+        spectator.send(event(new GameEndedEvent(time, 0, "Reached 15 points", Map.of(0, 15, 1, 9), Map.of())));
+
+        session.release.countDown();
+        awaitTrue(() -> session.received.stream().anyMatch(message -> message.contains("finalScores"))
+                && spectator.stats().sent() == session.received.size());
+        assertTrue(spectator.stats().open());
+        List<String> turns = session.received.stream()
+                .filter(message -> message.equals("binary") || message.contains("gameState")).toList();
+        assertEquals(3, turns.size());
+        assertEquals(turn, mapper.readTree(turns.get(1)).get("turn").asInt());
+        assertEquals("binary", turns.get(2));
+    }
+
+    @Test
+    void testSlowSessionsAreDisconnected() throws Exception {
+        long turnSize = event(new TurnStartedEvent(time, 1, 0, state)).json().length;
+        StalledSession overflowing = new StalledSession();
+        SpectatorSession disconnect = new SpectatorSession(overflowing, "game",
+                config(turnSize * 3, 60_000, OverflowPolicy.COALESCE), OverflowPolicy.DISCONNECT);
+        playTurns(disconnect, overflowing, 10);
+        // The queue is dropped at once, while the connection is closed on another thread
+        assertFalse(disconnect.stats().open());
+        awaitTrue(() -> overflowing.closeStatus != null);
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE.getCode(), overflowing.closeStatus.getCode());
+        assertEquals(0, disconnect.stats().queuedMessages());
+        overflowing.release.countDown();
+
+        // Within the buffer, but stuck in a send for longer than the time limit; no further event is needed
+        StalledSession stuck = new StalledSession();
+        SpectatorSession timed = new SpectatorSession(stuck, "game",
+                config(turnSize * 100, 50, OverflowPolicy.COALESCE), null);
+        assertEquals(OverflowPolicy.COALESCE, timed.stats().overflowPolicy());
+        timed.send(event(new TurnStartedEvent(time, 1, 0, state)));
+        assertTrue(stuck.firstSendStarted.await(5, TimeUnit.SECONDS));
+        awaitTrue(() -> stuck.closeStatus != null);
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE.getCode(), stuck.closeStatus.getCode());
+        assertFalse(timed.stats().open());
+        stuck.release.countDown();
+    }
+
+    @Test
+    void testSessionsAreClosedWhenTheStreamEndsWithoutGameEnded() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        GameWebSocketHandler handler = new GameWebSocketHandler(publisher, SpectatorConfig.defaults());
+        handler.init();
+        StalledSession watching = new StalledSession();
+        watching.release.countDown();
+        handler.afterConnectionEstablished(watching);
+
+        // The match fails after its first turn
+        publisher.publish("game", new TurnStartedEvent(time, 1, 0, state));
+        publisher.endGame("game");
+        awaitTrue(() -> watching.closeStatus != null);
+        assertEquals(CloseStatus.NORMAL.getCode(), watching.closeStatus.getCode());
+        assertEquals(2, watching.received.size());
+        assertEquals(1, mapper.readTree(watching.received.get(1)).get("turn").asInt());
+        handler.afterConnectionClosed(watching, watching.closeStatus);
+
+        // The game was dropped, so a late spectator finds nothing live
+        StalledSession late = new StalledSession();
+        late.release.countDown();
+        handler.afterConnectionEstablished(late);
+        awaitTrue(() -> !late.received.isEmpty());
+        assertFalse(mapper.readTree(late.received.get(0)).path("snapshot").path("live").asBoolean());
+        handler.cleanup();
+        publisher.shutdown();
+    }
+}
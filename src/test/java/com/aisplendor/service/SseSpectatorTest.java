@@ -0,0 +1,154 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.SpectatorConfig;
+import com.aisplendor.config.SpectatorConfig.OverflowPolicy;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.event.ReasoningEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.aisplendor.service.TestSupport.awaitTrue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class SseSpectatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Instant time = Instant.parse("2026-08-01T12:00:00Z");
+    private final List<SerializedEvent> logged = new ArrayList<>();
+    private final StreamController controller = new StreamController();
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    private Path logFile;
+
+    /**
+     * Hands the spectator under test to the servlet machinery, as the match controller does.
+     */
+    @RestController
+    static class StreamController {
+        SseSpectator spectator;
+
+        @GetMapping("/events")
+        SseEmitter events() {
+            return spectator.getEmitter();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            SerializedEvent event = SerializedEvent.of(new ReasoningEvent(time, i % 2, "thought " + i,
+                    TokenUsage.zero()), i, i);
+            logged.add(event);
+            log.append(event.text()).append('\n');
+        }
+        logFile = tempDir.resolve("game.json");
+        Files.writeString(logFile, log);
+    }
+
+    private MvcResult open(SseSpectator spectator) throws Exception {
+        controller.spectator = spectator;
+        return mockMvc.perform(get("/events")).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static String content(MvcResult result) throws Exception {
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private static List<Long> ids(MvcResult result) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (String line : content(result).split("\n")) {
+            if (line.startsWith("id:")) {
+                ids.add(Long.parseLong(line.substring(3)));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Streams a game that has ended, with the given tail of recent events, to a subscriber.
+     */
+    private MvcResult streamEnded(long lastEventId, List<SerializedEvent> tail) throws Exception {
+        SseSpectator spectator = new SseSpectator("game", logFile, SpectatorConfig.defaults(), lastEventId);
+        MvcResult result = open(spectator);
+        spectator.start(tail, true);
+        // Completed once everything has been sent
+        result.getAsyncResult(5_000);
+        assertFalse(spectator.stats().open());
+        return result;
+    }
+
+    @Test
+    void testResumeFromTheTailOrTheLog() throws Exception {
+        List<SerializedEvent> tail = logged.subList(3, 6);
+
+        // A new subscriber gets the tail only, like a WebSocket snapshot
+        assertEquals(List.of(3L, 4L, 5L), ids(streamEnded(-1, tail)));
+        // Resuming within the tail needs no log
+        assertEquals(List.of(4L, 5L), ids(streamEnded(3, tail)));
+        // Resuming before the tail reads what it missed from the log first
+        MvcResult behind = streamEnded(0, tail);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(behind));
+        assertTrue(content(behind).contains("thought 1"));
+        // Without a tail the rest of the log is sent
+        assertEquals(List.of(2L, 3L, 4L, 5L), ids(streamEnded(1, List.of())));
+    }
+
+    @Test
+    void testIdleStreamsGetHeartbeats() throws Exception {
+        SpectatorConfig config = new SpectatorConfig(SpectatorConfig.DEFAULT_BUFFER_SIZE_LIMIT,
+                SpectatorConfig.DEFAULT_SEND_TIME_LIMIT_MS, OverflowPolicy.COALESCE, SpectatorConfig.DEFAULT_TAIL_TURNS,
+                SpectatorConfig.DEFAULT_DELTA_KEYFRAME_INTERVAL, 50);
+        SseSpectator spectator = new SseSpectator("game", null, config, -1);
+        MvcResult result = open(spectator);
+        spectator.start(List.of(), false);
+        awaitTrue(() -> contentContains(result, ":heartbeat"));
+
+        spectator.send(logged.get(0));
+        spectator.finish();
+        result.getAsyncResult(5_000);
+        assertEquals(List.of(0L), ids(result));
+    }
+
+    @Test
+    void testStreamOverTheBufferLimitIsEnded() throws Exception {
+        SpectatorConfig config = new SpectatorConfig(logged.get(0).json().length / 2,
+                SpectatorConfig.DEFAULT_SEND_TIME_LIMIT_MS, OverflowPolicy.COALESCE, SpectatorConfig.DEFAULT_TAIL_TURNS,
+                SpectatorConfig.DEFAULT_DELTA_KEYFRAME_INTERVAL, SpectatorConfig.DEFAULT_HEARTBEAT_MS);
+        SseSpectator spectator = new SseSpectator("game", null, config, -1);
+        MvcResult result = open(spectator);
+        spectator.start(List.of(), false);
+
+        // Queued beyond the limit: the stream is dropped at once and completed by its sender
+        spectator.send(logged.get(0));
+        assertFalse(spectator.stats().open());
+        assertEquals(0, spectator.stats().queuedMessages());
+        result.getAsyncResult(5_000);
+        assertEquals(List.of(), ids(result));
+    }
+
+    private static boolean contentContains(MvcResult result, String text) {
+        try {
+            return content(result).contains(text);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig;
+import com.aisplendor.config.EventLogConfig.FlushPolicy;
+import com.aisplendor.config.EventLogConfig.Format;
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.Color;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.TokenUsage;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.aisplendor.model.event.ActionEvent;
+import com.aisplendor.model.event.GameEndedEvent;
+import com.aisplendor.model.event.GameStartedEvent;
+import com.aisplendor.model.event.ReasoningEvent;
+import com.aisplendor.model.event.TurnStartedEvent;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fixtures shared by the service tests: game logs written through a {@link GameEventLogger},
+ * and waiting for what other threads do.
+ */
+final class TestSupport {
+
+    static final Instant TIME = Instant.parse("2026-05-01T12:00:00Z");
+    static final double REASONING_COST = 0.25;
+
+    private TestSupport() {
+    }
+
+    /**
+     * @return Settings of logs flushed after every event
+     */
+    static EventLogConfig logConfig(int keyframeInterval, Format format, boolean compress) {
+        return new EventLogConfig(keyframeInterval, FlushPolicy.EVENT, 200, false, 1024, format, compress);
+    }
+
+    /**
+     * Writes a game log: GameStarted (players named {gameId}-A and {gameId}-B), then per move a
+     * TurnStarted, a Reasoning costing {@link #REASONING_COST} and a successful TakeTokens action,
+     * and a final TurnStarted. The first four moves are played for real; later ones only pass
+     * the turn on, as the bank would run dry. Both players' moves share a turn number, so the
+     * last turn is moves / 2 + 1.
+     *
+     * @param endReason Winner reason of a GameEnded won 15 to 9 by player 1, null to leave the game running
+     * @return The log file
+     */
+    static Path writeGame(Path dir, String gameId, String model0, int moves, EventLogConfig config,
+            String endReason) throws Exception {
+        GameEngine engine = new GameEngine();
+        GameState state = GameSimulator.setupInitialState(new Random(5));
+        try (GameEventLogger eventLogger = new GameEventLogger(gameId, dir, null, config)) {
+            eventLogger.log(new GameStartedEvent(TIME, gameId, model0, "vendor/model-b", gameId + "-A",
+                    gameId + "-B", 0.0, 0.0, 0.0, 0.0, state));
+            for (int i = 0; i < moves; i++) {
+                eventLogger.log(new TurnStartedEvent(TIME, state.turnNumber(), state.currentPlayerIndex(), state));
+                eventLogger.log(new ReasoningEvent(TIME, i % 2, "Turn " + i, new TokenUsage(100, 50, REASONING_COST)));
+                TakeTokensAction action = new TakeTokensAction(Map.of(Color.values()[i % 5], 1,
+                        Color.values()[(i + 1) % 5], 1, Color.values()[(i + 2) % 5], 1), null);
+                state = i < 4
+                        ? engine.applyAction(state, action)
+                        : new GameState(state.board(), state.players(), 1 - state.currentPlayerIndex(),
+                                state.turnNumber() + state.currentPlayerIndex(), false, null);
+                eventLogger.log(new ActionEvent(TIME, i % 2, action, true, 10L));
+            }
+            eventLogger.log(new TurnStartedEvent(TIME, state.turnNumber(), state.currentPlayerIndex(), state));
+            if (endReason != null) {
+                eventLogger.log(new GameEndedEvent(TIME, 1, endReason, Map.of(0, 9, 1, 15),
+                        Map.of(0, TokenUsage.zero(), 1, TokenUsage.zero())));
+            }
+            return eventLogger.getLogPath();
+        }
+    }
+
+    /**
+     * Polls until the condition holds, failing the test after 15 seconds.
+     */
+    static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the condition");
+            Thread.sleep(20);
+        }
+    }
+}
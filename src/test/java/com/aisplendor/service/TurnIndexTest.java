@@ -0,0 +1,142 @@
+package com.aisplendor.service;
+
+import com.aisplendor.config.EventLogConfig.Format;
+import com.aisplendor.util.StateDeltaCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TurnIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Half-turns: both players' TurnStarted events share a turn number
+    private static final int TURNS = 20;
+
+    private Path writeLog(String gameId, Format format, boolean compress) throws Exception {
+        return TestSupport.writeGame(tempDir, gameId, "model-a", TURNS, TestSupport.logConfig(4, format, compress), null);
+    }
+
+    private static List<JsonNode> readAll(Path logFile) throws Exception {
+        StateDeltaCodec deltaCodec = new StateDeltaCodec();
+        List<JsonNode> events = new ArrayList<>();
+        try (GameLogReader.EventSource source = GameLogReader.openEvents(logFile)) {
+            JsonNode node;
+            while ((node = source.next()) != null) {
+                events.add(deltaCodec.decode((ObjectNode) node));
+            }
+        }
+        return events;
+    }
+
+    private static void assertRangeMatches(List<JsonNode> all, TurnIndex.TurnRange range) {
+        int from = range.firstEventIndex();
+        assertTrue(from > 0);
+        assertEquals(range.fromTurn(), all.get(from).get("turn").asInt());
+        assertEquals(all.get(from).get("gameState"), range.state());
+        assertEquals(all.get(0), range.gameStarted());
+        int end = from + 1;
+        while (end < all.size() && !(TurnIndex.isTurnStart(all.get(end))
+                && all.get(end).get("turn").asInt() > range.toTurn())) {
+            end++;
+        }
+        assertEquals(all.subList(from, end), range.events());
+    }
+
+    @Test
+    void testIndexWrittenWithLogServesAnyTurnRange() throws Exception {
+        for (Format format : Format.values()) {
+            for (boolean compress : new boolean[] {false, true}) {
+                Path log = writeLog("game_" + format + "_" + compress, format, compress);
+                assertTrue(Files.exists(TurnIndex.pathFor(log)));
+                TurnIndex index = TurnIndex.load(log);
+                assertEquals(TURNS + 1, index.entries().size());
+                assertEquals(TURNS / 2 + 1, index.lastTurn());
+                assertEquals(1, index.entries().get(0).eventIndex());
+                assertTrue(index.entries().get(0).keyframe());
+                assertFalse(index.entries().get(1).keyframe());
+
+                List<JsonNode> all = readAll(log);
+                // Ranges starting on a delta turn are rebuilt from the preceding keyframe
+                for (int[] range : new int[][] {{1, 1}, {3, 3}, {4, 6}, {7, 11}, {11, 11}}) {
+                    assertRangeMatches(all, index.readRange(range[0], range[1]));
+                }
+                assertNull(index.readRange(TURNS + 5, TURNS + 5).state());
+            }
+        }
+    }
+
+    @Test
+    void testOpenAtResumesAfterAnyEvent() throws Exception {
+        for (Format format : Format.values()) {
+            for (boolean compress : new boolean[] {false, true}) {
+                Path log = writeLog("resume_" + format + "_" + compress, format, compress);
+                List<JsonNode> all = readAll(log);
+                TurnIndex index = TurnIndex.load(log);
+                // Event ids of a stream resumed with Last-Event-ID, on and between turn starts
+                for (int eventIndex : new int[] {0, 1, 2, 5, 13, all.size() - 1, all.size()}) {
+                    List<JsonNode> rest = new ArrayList<>();
+                    try (GameLogReader.EventSource source = index.openAt(eventIndex)) {
+                        JsonNode node;
+                        while ((node = source.next()) != null) {
+                            rest.add(node);
+                        }
+                    }
+                    assertEquals(all.subList(eventIndex, all.size()), rest, format + " from " + eventIndex);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testIndexBuiltLazilyAndKeptInSyncByMigration() throws Exception {
+        Path log = writeLog("legacy", Format.NDJSON, false);
+        List<TurnIndex.Entry> written = TurnIndex.load(log).entries();
+
+        // Logs written before the index existed get one on first use
+        Files.delete(TurnIndex.pathFor(log));
+        assertEquals(written, TurnIndex.load(log).entries());
+        assertTrue(Files.exists(TurnIndex.pathFor(log)));
+
+        new GameLogMigrator().migrate(log, 1);
+        TurnIndex migrated = TurnIndex.load(log);
+        assertTrue(migrated.entries().stream().allMatch(TurnIndex.Entry::keyframe));
+        Files.delete(TurnIndex.pathFor(log));
+        assertEquals(migrated.entries(), TurnIndex.load(log).entries());
+        assertRangeMatches(readAll(log), migrated.readRange(4, 6));
+
+        // Compressed logs without an index are scanned sequentially
+        Path compressed = writeLog("legacy_gz", Format.BINARY, true);
+        Files.delete(TurnIndex.pathFor(compressed));
+        TurnIndex unindexed = TurnIndex.load(compressed);
+        assertTrue(unindexed.entries().isEmpty());
+        TurnIndex.TurnRange range = unindexed.readRange(4, 6);
+        assertEquals(TURNS / 2 + 1, range.lastTurn());
+        assertRangeMatches(readAll(compressed), range);
+    }
+
+    @Test
+    void testIndexThatCannotBeWrittenIsStillUsed() throws Exception {
+        Path log = writeLog("readonly", Format.NDJSON, false);
+        List<TurnIndex.Entry> written = TurnIndex.load(log).entries();
+        GameLogReader.ResumeData expected = new GameLogReader().parseLogForResume(log);
+
+        // The index cannot be replaced, as in a read-only logs directory
+        Path indexFile = TurnIndex.pathFor(log);
+        Files.delete(indexFile);
+        Files.createDirectory(indexFile.resolveSibling(indexFile.getFileName() + ".tmp"));
+        assertEquals(written, TurnIndex.load(log).entries());
+        assertFalse(Files.exists(indexFile));
+        GameLogReader.ResumeData resumed = new GameLogReader().parseLogForResume(log);
+        assertEquals(expected, resumed);
+    }
+}
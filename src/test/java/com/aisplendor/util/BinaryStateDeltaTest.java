@@ -0,0 +1,119 @@
+package com.aisplendor.util;
+
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.engine.GameSimulator;
+import com.aisplendor.model.CardLevel;
+import com.aisplendor.model.Color;
+import com.aisplendor.model.DevelopmentCard;
+import com.aisplendor.model.GameState;
+import com.aisplendor.model.action.GameAction;
+import com.aisplendor.model.action.PurchaseCardAction;
+import com.aisplendor.model.action.ReserveCardAction;
+import com.aisplendor.model.action.TakeTokensAction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryStateDeltaTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final GameEngine engine = new GameEngine();
+
+    private ObjectNode turnStarted(GameState state) {
+        ObjectNode event = mapper.createObjectNode();
+        event.put("turn", state.turnNumber());
+        event.put("playerIndex", state.currentPlayerIndex());
+        event.set("gameState", mapper.valueToTree(state));
+        return event;
+    }
+
+    /**
+     * Buys the first affordable card, else takes three tokens, else reserves, so a game sees
+     * every kind of change.
+     */
+    private GameState play(GameState state) {
+        List<GameAction> candidates = new ArrayList<>();
+        for (List<DevelopmentCard> row : state.board().faceUpCards().values()) {
+            row.forEach(card -> candidates.add(new PurchaseCardAction(card.id())));
+        }
+        state.players().get(state.currentPlayerIndex()).reservedCards()
+                .forEach(card -> candidates.add(new PurchaseCardAction(card.id())));
+        List<Color> available = new ArrayList<>();
+        for (Color color : Color.values()) {
+            if (color != Color.GOLD && state.board().availableTokens().getCount(color) > 0) {
+                available.add(color);
+            }
+        }
+        if (available.size() >= 3) {
+            candidates.add(new TakeTokensAction(Map.of(available.get(0), 1, available.get(1), 1,
+                    available.get(2), 1), null));
+        }
+        candidates.add(new ReserveCardAction(null, CardLevel.LEVEL_1, null));
+        for (GameAction action : candidates) {
+            try {
+                engine.validateAction(state, action);
+                return engine.applyAction(state, action);
+            } catch (RuntimeException invalid) {
+                // Try the next one
+            }
+        }
+        return new GameState(state.board(), state.players(), 1 - state.currentPlayerIndex(),
+                state.turnNumber() + state.currentPlayerIndex(), state.isGameOver(), state.winnerReason());
+    }
+
+    @Test
+    void testDeltasRebuildEveryStateOfAGame() {
+        GameState state = GameSimulator.setupInitialState(new Random(11));
+        JsonNode base = turnStarted(state).get("gameState");
+        Instant time = Instant.parse("2026-07-05T08:30:00.123456789Z");
+        int totalFrameBytes = 0;
+        int totalStateBytes = 0;
+        int turns = 0;
+        while (!state.isGameOver() && turns < 200) {
+            state = play(state);
+            ObjectNode event = turnStarted(state);
+            byte[] frame = BinaryStateDelta.encode(turns + 1, time, event, turns, base);
+            assertEquals(turns, BinaryStateDelta.baseSequence(frame));
+
+            ObjectNode decoded = BinaryStateDelta.decode(frame, base);
+            assertEquals(turns + 1, decoded.get("seq").asLong());
+            assertEquals("TURN_STARTED", decoded.get("eventType").asText());
+            assertEquals(time.toString(), decoded.get("timestamp").asText());
+            assertEquals(state.turnNumber(), decoded.get("turn").asInt());
+            assertEquals(event.get("gameState"), decoded.get("gameState"), "state of turn " + turns);
+
+            totalFrameBytes += frame.length;
+            totalStateBytes += event.get("gameState").toString().length();
+            base = decoded.get("gameState");
+            turns++;
+        }
+        assertTrue(turns > 20, "the game should run long enough to buy cards and draw nobles");
+        // Tens of bytes per turn instead of kilobytes
+        assertTrue(totalFrameBytes / turns < 100, "average frame " + totalFrameBytes / turns + " bytes");
+        assertTrue(totalStateBytes / turns > 50 * totalFrameBytes / turns);
+    }
+
+    @Test
+    void testUnknownCardsAreRejected() {
+        GameState state = GameSimulator.setupInitialState(new Random(3));
+        // Reserving from the deck appends a card the base only has in its deck
+        GameState next = engine.applyAction(state, new ReserveCardAction(null, CardLevel.LEVEL_1, null));
+        JsonNode base = turnStarted(state).get("gameState");
+        byte[] frame = BinaryStateDelta.encode(1, Instant.EPOCH, turnStarted(next), 0, base);
+        assertEquals(turnStarted(next).get("gameState"), BinaryStateDelta.decode(frame, base).get("gameState"));
+
+        ObjectNode withoutDecks = base.deepCopy();
+        ((ObjectNode) withoutDecks.get("board")).putObject("decks");
+        assertThrows(IllegalArgumentException.class, () -> BinaryStateDelta.decode(frame, withoutDecks));
+        assertNull(BinaryStateDelta.encode(1, Instant.EPOCH, turnStarted(next), 0, mapper.createObjectNode()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.aisplendor.util;
+
+import com.aisplendor.engine.GameEngine;
+import com.aisplendor.model.*;
+import com.aisplendor.model.action.TakeTokensAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactStateSerializerTest {
+
+    private GameEngine engine;
+    private GameState initialState;
+
+    @BeforeEach
+    void setUp() {
+        engine = new GameEngine();
+
+        Map<Color, Integer> boardTokens = new HashMap<>();
+        for (Color c : Color.values()) {
+            boardTokens.put(c, c == Color.GOLD ? 5 : 4);
+        }
+
+        Map<CardLevel, List<DevelopmentCard>> faceUp = new HashMap<>();
+        faceUp.put(CardLevel.LEVEL_1, new ArrayList<>(List.of(
+                new DevelopmentCard("L1_1", CardLevel.LEVEL_1, Color.RED, 0, Map.of(Color.BLUE, 3)))));
+        Map<CardLevel, Queue<DevelopmentCard>> decks = new HashMap<>();
+        decks.put(CardLevel.LEVEL_1, new LinkedList<>());
+
+        Board board = new Board(new TokenBank(boardTokens), faceUp, decks, new ArrayList<>());
+        Player p0 = new Player(0, new TokenBank(Collections.emptyMap()), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), 0, new HashMap<>(), new ArrayList<>());
+        Player p1 = new Player(1, new TokenBank(Collections.emptyMap()), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), 0, new HashMap<>(), new ArrayList<>());
+
+        initialState = new GameState(board, List.of(p0, p1), 0, 1, false, null);
+    }
+
+    @Test
+    void testDeltaOmitsUnchangedSections() {
+        GameState afterOwnMove = engine.applyAction(initialState,
+                new TakeTokensAction(Map.of(Color.RED, 1, Color.BLUE, 1, Color.GREEN, 1), null));
+        GameState afterOpponentMove = engine.applyAction(afterOwnMove,
+                new TakeTokensAction(Map.of(Color.WHITE, 2), null));
+
+        String delta = CompactStateSerializer.serializeDelta(afterOwnMove, afterOpponentMove, 0);
+
+        assertTrue(delta.contains("[BOARD TOKENS]"));
+        assertTrue(delta.contains("[OPPONENT]"));
+        assertTrue(delta.contains("Last move:"));
+        assertFalse(delta.contains("[YOU]"), "Own state did not change during opponent turn");
+        assertFalse(delta.contains("[FACE-UP CARDS]"));
+        assertFalse(delta.contains("[DECK SIZES]"));
+        assertFalse(delta.contains("[NOBLES]"));
+    }
+
+    @Test
+    void testDeltaIsShorterThanFullState() {
+        GameState next = engine.applyAction(initialState,
+                new TakeTokensAction(Map.of(Color.RED, 1, Color.BLUE, 1, Color.GREEN, 1), null));
+
+        String full = CompactStateSerializer.serialize(next, 1);
+        String delta = CompactStateSerializer.serializeDelta(initialState, next, 1);
+
+        assertTrue(delta.length() < full.length());
+    }
+
+    @Test
+    void testDeltaReportsSkippedOpponentTurn() {
+        String delta = CompactStateSerializer.serializeDelta(initialState, initialState, 0);
+
+        assertTrue(delta.contains("No visible change"));
+        assertFalse(delta.contains("[BOARD TOKENS]"));
+    }
+}
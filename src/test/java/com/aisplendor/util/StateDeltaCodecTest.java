@@ -0,0 +1,57 @@
+package com.aisplendor.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateDeltaCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void testDiffUsesArrayOpsAndRoundTrips() throws Exception {
+        JsonNode before = mapper.readTree("""
+                {"decks":{"LEVEL_1":["a","b","c","d"]},"history":["r1","r2","r3"],"faceUp":["x","y"],"score":1,"winnerReason":"none"}
+                """);
+        JsonNode after = mapper.readTree("""
+                {"decks":{"LEVEL_1":["b","c","d"]},"history":["r2","r3","r4"],"faceUp":["z","y"],"score":1,"winnerReason":null}
+                """);
+
+        ObjectNode patch = StateDeltaCodec.diff(before, after);
+
+        assertEquals(mapper.readTree("""
+                {"decks":{"LEVEL_1":{"$drop":1}},"history":{"$drop":1,"$append":["r4"]},"faceUp":["z","y"],"winnerReason":null}
+                """), patch);
+        JsonNode restored = StateDeltaCodec.apply(before, patch);
+        assertEquals(after.get("decks"), restored.get("decks"));
+        assertEquals(after.get("history"), restored.get("history"));
+        assertEquals(after.get("faceUp"), restored.get("faceUp"));
+        assertFalse(restored.has("winnerReason"));
+        assertEquals("none", before.get("winnerReason").asText(), "apply must not modify its base");
+    }
+
+    @Test
+    void testKeyframeIntervalAndDecodeOrdering() throws Exception {
+        StateDeltaCodec encoder = new StateDeltaCodec(2);
+        StateDeltaCodec decoder = new StateDeltaCodec();
+
+        for (int turn = 1; turn <= 4; turn++) {
+            ObjectNode line = (ObjectNode) mapper.readTree(
+                    "{\"turn\":" + turn + ",\"gameState\":{\"turnNumber\":" + turn + ",\"fixed\":[1,2,3]}}");
+            JsonNode original = line.get("gameState").deepCopy();
+
+            ObjectNode encoded = encoder.encode(line);
+            assertEquals(turn % 2 == 1, encoded.has("gameState"), "turn " + turn);
+            assertEquals(turn % 2 == 0, encoded.has("stateDelta"), "turn " + turn);
+
+            ObjectNode decoded = decoder.decode((ObjectNode) mapper.readTree(mapper.writeValueAsString(encoded)));
+            assertEquals(original, decoded.get("gameState"));
+        }
+
+        ObjectNode orphan = (ObjectNode) mapper.readTree("{\"turn\":1,\"stateDelta\":{}}");
+        assertThrows(IllegalStateException.class, () -> new StateDeltaCodec().decode(orphan));
+    }
+}